@@ -1,10 +1,21 @@
 import controller.AuthController;
+import dao.BackgroundServices;
+import dao.BulkImportDao;
+import dao.DashboardDao;
+import dao.PaymentImportDao;
+import dao.ReceivablesDao;
+import dao.SchemaMigrator;
 import dao.UserDao;
+import model.AgingReport;
 import ui.UIFactory;
 import util.LogUtil;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Arrays;
 
 /**
  * Main application class for the Business Management System.
@@ -20,6 +31,18 @@ public class Application {
     public static void main(String[] args) {
         // Initialize logging
         LogUtil.initialize();
+        
+        // --import <type> <file> loads a file into the database without starting the UI
+        int importArg = Arrays.asList(args).indexOf("--import");
+        if (importArg >= 0) {
+            System.exit(runImport(args, importArg) ? 0 : 1);
+        }
+        
+        // --export-aging <file> writes the receivables aging report as CSV without starting the UI
+        int agingArg = Arrays.asList(args).indexOf("--export-aging");
+        if (agingArg >= 0) {
+            System.exit(runAgingExport(args, agingArg) ? 0 : 1);
+        }
         // Set application properties
         System.setProperty("awt.useSystemAAFontSettings", "on");
          
@@ -32,9 +55,19 @@ public class Application {
         SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
             @Override
             protected Boolean doInBackground() throws Exception {
-                // Initialize tables
-                UserDao userDao = new UserDao();
-                return userDao.createUsersTable() && userDao.createDefaultAdmin();
+                // Bring the schema, its indexes and triggers up to date, then add the default admin
+                boolean ready = new SchemaMigrator().migrate() && new UserDao().createDefaultAdmin();
+                
+                // --rebuild-rollups recomputes the dashboard rollups from the orders and payments
+                if (ready && Arrays.asList(args).contains("--rebuild-rollups")) {
+                    new DashboardDao().rebuildRollups();
+                }
+                
+                // Cache invalidation and the other background work, shared with controller.Application
+                if (ready) {
+                    BackgroundServices.start();
+                }
+                return ready;
                 
             }
             
@@ -71,6 +104,97 @@ public class Application {
         worker.execute();
     }
     
+    /**
+     * Imports a CSV or TSV file given on the command line.
+     * Rejected rows are written next to the input, to its name with
+     * ".rejects" appended.
+     * 
+     * @param args Command-line arguments
+     * @param importArg The index of the --import flag in args
+     * @return true if the file was imported, false otherwise
+     */
+    private static boolean runImport(String[] args, int importArg) {
+        if (importArg + 2 >= args.length) {
+            System.err.println("Usage: --import customers|products|suppliers|payments <file>");
+            return false;
+        }
+        String type = args[importArg + 1];
+        File input = new File(args[importArg + 2]);
+        File rejectFile = new File(input.getPath() + ".rejects");
+        
+        if (!new SchemaMigrator().migrate()) {
+            System.err.println("The database schema could not be migrated, see the log");
+            return false;
+        }
+        
+        try {
+            Object result;
+            switch (type) {
+                case "customers":
+                    result = new BulkImportDao().importCustomers(input, rejectFile);
+                    break;
+                case "products":
+                    result = new BulkImportDao().importProducts(input, rejectFile);
+                    break;
+                case "suppliers":
+                    result = new BulkImportDao().importSuppliers(input, rejectFile);
+                    break;
+                case "payments":
+                    result = new PaymentImportDao().importPayments(input, rejectFile);
+                    break;
+                default:
+                    System.err.println("Unknown import type: " + type);
+                    return false;
+            }
+            System.out.println(result);
+            return true;
+            
+        } catch (IOException | SQLException ex) {
+            LogUtil.error("Failed to import " + input + ": " + ex.getMessage(), ex);
+            System.err.println("Import failed: " + ex.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Exports the accounts receivable aging report as of today to the CSV
+     * file given on the command line
+     * 
+     * @param args Command-line arguments
+     * @param agingArg The index of the --export-aging flag in args
+     * @return true if the report was written, false otherwise
+     */
+    private static boolean runAgingExport(String[] args, int agingArg) {
+        if (agingArg + 1 >= args.length) {
+            System.err.println("Usage: --export-aging <file>");
+            return false;
+        }
+        File output = new File(args[agingArg + 1]);
+        
+        if (!new SchemaMigrator().migrate()) {
+            System.err.println("The database schema could not be migrated, see the log");
+            return false;
+        }
+        
+        ReceivablesDao receivablesDao = new ReceivablesDao();
+        AgingReport report = receivablesDao.getAgingReport();
+        if (report == null) {
+            System.err.println("The aging report could not be computed, see the log");
+            return false;
+        }
+        
+        try {
+            receivablesDao.exportAgingReport(report, output);
+            System.out.println("Aging report for " + report.getCustomers().size() + " customers written to " + output);
+            return true;
+            
+        } catch (IOException ex) {
+            LogUtil.error("Failed to export the aging report to " + output + ": " + ex.getMessage(), ex);
+            System.err.println("Export failed: " + ex.getMessage());
+            return false;
+        }
+    }
+    
     /**
      * Sets up the UI look and feel
      */
@@ -1,5 +1,8 @@
 package controller;
 import controller.AuthController;
+import dao.BackgroundServices;
+import dao.DbConnection;
+import dao.SchemaMigrator;
 import dao.UserDao;
 import ui.UIFactory;
 import util.LogUtil;
@@ -7,7 +10,6 @@ import util.LogUtil;
 import javax.swing.*;
 import java.awt.*;
 import java.sql.Connection;
-import java.sql.DriverManager;
 
 /**
  * Main application class for the Business Management System.
@@ -15,11 +17,6 @@ import java.sql.DriverManager;
  */
 public class Application {
     
-    // Database connection details - should match your UserDao settings
-    private static final String DB_URL = "jdbc:postgresql://localhost:5432/business_db";
-    private static final String DB_USERNAME = "postgres";
-    private static final String DB_PASSWD = "078868";
-    
     /**
      * Application entry point
      * 
@@ -71,23 +68,25 @@ public class Application {
     private static void testDatabaseConnection() {
         LogUtil.info("Testing database connection...");
         try {
-            // Load the JDBC driver
-            Class.forName("org.postgresql.Driver");
-            LogUtil.info("PostgreSQL JDBC driver loaded");
+            // Try to connect; this also loads the JDBC driver and warms up the pool
+            try (Connection con = DbConnection.getInstance().getConnection()) {
+                LogUtil.info("Database connection successful: " + con.getMetaData().getURL());
+            }
             
-            // Try to connect
-            Connection con = DriverManager.getConnection(DB_URL, DB_USERNAME, DB_PASSWD);
-            LogUtil.info("Database connection successful");
-            con.close();
+            // Bring the schema, its indexes and triggers up to date
+            boolean migrated = new SchemaMigrator().migrate();
+            LogUtil.info("Database schema migrated: " + migrated);
             
-            // Initialize tables
+            // Initialize default data
             UserDao userDao = new UserDao();
-            boolean tablesCreated = userDao.createUsersTable();
-            LogUtil.info("Users table created or exists: " + tablesCreated);
-            
             boolean adminCreated = userDao.createDefaultAdmin();
             LogUtil.info("Default admin user created or exists: " + adminCreated);
             
+            // Cache invalidation and the other background work need the migrated schema
+            if (migrated) {
+                BackgroundServices.start();
+            }
+            
         } catch (Exception ex) {
             LogUtil.error("Database connection failed: " + ex.getMessage(), ex);
             showErrorAndExit("Database connection failed: " + ex.getMessage() + 
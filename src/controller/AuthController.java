@@ -43,8 +43,7 @@ public class AuthController {
      * Initializes the database tables and default data
      */
     private void initializeDatabase() {
-        // Create users table if it doesn't exist
-        userDao.createUsersTable();
+        // The users table is created by SchemaMigrator
         
         // Create default admin user if no users exist
         userDao.createDefaultAdmin();
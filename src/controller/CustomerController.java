@@ -2,6 +2,7 @@ package controller;
 
 import dao.CustomerDao;
 import model.Customer;
+import ui.AsyncService;
 import ui.DialogFactory;
 import ui.customer.CustomerDetailsView;
 import ui.customer.CustomerFormView;
@@ -9,7 +10,6 @@ import ui.customer.CustomerListView;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.List;
 
 /**
  * Controller for Customer module operations.
@@ -22,6 +22,7 @@ public class CustomerController {
     // Views
     private CustomerListView listView;
     private Component parentComponent;
+    private AsyncService.RequestSlot detailsRequest;
     
     /**
      * Constructor
@@ -31,6 +32,7 @@ public class CustomerController {
     public CustomerController(Component parentComponent) {
         this.customerDao = new CustomerDao();
         this.parentComponent = parentComponent;
+        this.detailsRequest = new AsyncService.RequestSlot(parentComponent);
         
         // Initialize the list view
         initializeListView();
@@ -169,12 +171,17 @@ public class CustomerController {
      * @param customer The customer to view
      */
     private void showCustomerDetailsDialog(Customer customer) {
-        // First, load the customer with orders information
-        Customer customerWithOrders = customerDao.getCustomerWithOrders(customer.getId());
-        if (customerWithOrders == null) {
-            customerWithOrders = customer;
-        }
-        
+        // First, load the customer with orders information in the background
+        detailsRequest.run("loading customer details", () -> customerDao.getCustomerWithOrders(customer.getId()),
+            customerWithOrders -> openCustomerDetailsDialog(customerWithOrders != null ? customerWithOrders : customer));
+    }
+    
+    /**
+     * Opens the customer details dialog
+     * 
+     * @param customerWithOrders The customer to view, with orders loaded
+     */
+    private void openCustomerDetailsDialog(Customer customerWithOrders) {
         // Create the details view with the customer that has orders information
         final CustomerDetailsView[] detailsView = new CustomerDetailsView[1];
         detailsView[0] = new CustomerDetailsView(customerWithOrders, 
@@ -262,8 +269,7 @@ public class CustomerController {
      */
     public void refreshCustomerList() {
         try {
-            List<Customer> customers = customerDao.findAllCustomers();
-            listView.updateCustomers(customers);
+            listView.reload();
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(
                 parentComponent,
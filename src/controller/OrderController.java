@@ -2,9 +2,11 @@ package controller;
 
 import dao.OrderDao;
 import dao.InvoiceDao;
+import dao.DocumentNumberGenerator;
 import model.Order;
 import model.Customer;
 import model.Invoice;
+import ui.AsyncService;
 import ui.DialogFactory;
 import ui.order.OrderDetailsView;
 import ui.order.OrderFormView;
@@ -14,7 +16,6 @@ import javax.swing.*;
 import java.awt.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.List;
 
 /**
  * Controller for Order module operations.
@@ -28,6 +29,8 @@ public class OrderController {
     // Views
     private OrderListView listView;
     private Component parentComponent;
+    private AsyncService.RequestSlot detailsRequest;
+    private AsyncService.RequestSlot invoiceRequest;
     
     /**
      * Constructor
@@ -38,6 +41,8 @@ public class OrderController {
         this.orderDao = new OrderDao();
         this.invoiceDao = new InvoiceDao();
         this.parentComponent = parentComponent;
+        this.detailsRequest = new AsyncService.RequestSlot(parentComponent);
+        this.invoiceRequest = new AsyncService.RequestSlot(parentComponent);
         
         // Initialize the list view
         initializeListView();
@@ -176,12 +181,17 @@ public class OrderController {
      * @param order The order to view
      */
     private void showOrderDetailsDialog(Order order) {
-        // First, load the order with all details
-        Order orderWithDetails = orderDao.getOrderWithDetails(order.getId());
-        if (orderWithDetails == null) {
-            orderWithDetails = order;
-        }
-        
+        // First, load the order with all details in the background
+        detailsRequest.run("loading order details", () -> orderDao.getOrderWithDetails(order.getId()),
+            orderWithDetails -> openOrderDetailsDialog(orderWithDetails != null ? orderWithDetails : order));
+    }
+    
+    /**
+     * Opens the order details dialog
+     * 
+     * @param orderWithDetails The order to view, with customer, items and invoices loaded
+     */
+    private void openOrderDetailsDialog(Order orderWithDetails) {
         // Create the details view with the order that has complete information
         final OrderDetailsView[] detailsView = new OrderDetailsView[1];
         detailsView[0] = new OrderDetailsView(orderWithDetails, 
@@ -245,7 +255,9 @@ public class OrderController {
     }
     
     /**
-     * Creates an invoice for the selected order
+     * Creates an invoice for the selected order.
+     * The existing invoices are looked up and the new invoice is created in
+     * the background; the dialogs are shown once the results are back.
      * 
      * @param order The order to create an invoice for
      */
@@ -262,8 +274,7 @@ public class OrderController {
         }
         
         // Check if order already has invoices
-        try {
-            List<Invoice> existingInvoices = invoiceDao.findInvoicesByOrderId(order.getId());
+        invoiceRequest.run("creating invoice", () -> invoiceDao.findInvoicesByOrderId(order.getId()), existingInvoices -> {
             if (!existingInvoices.isEmpty()) {
                 // Ask if user wants to create another invoice
                 int response = JOptionPane.showConfirmDialog(
@@ -286,13 +297,22 @@ public class OrderController {
                     return;
                 }
             }
-            
-            // Create a new invoice
+            issueInvoice(order);
+        });
+    }
+    
+    /**
+     * Creates and saves a new invoice for an order in the background, then
+     * reports the result
+     * 
+     * @param order The order to invoice
+     */
+    private void issueInvoice(Order order) {
+        AsyncService.getInstance().runWrite(parentComponent, "creating invoice", () -> {
             Invoice invoice = new Invoice();
             
-            // Generate invoice number (could be more sophisticated in real app)
-            String invoiceNumber = "INV-" + LocalDate.now().getYear() + "-" + 
-                                 String.format("%04d", (int)(Math.random() * 10000));
+            // Take the next invoice number; unique across clients, so no existence check is needed
+            String invoiceNumber = DocumentNumberGenerator.getInstance().next(DocumentNumberGenerator.DocumentType.INVOICE);
             
             invoice.setInvoiceNumber(invoiceNumber);
             invoice.setOrder(order);
@@ -301,9 +321,9 @@ public class OrderController {
             invoice.setDueDate(LocalDate.now().plusDays(30)); // Due in 30 days
             invoice.setStatus(Invoice.STATUS_ISSUED);
             
-            int result = invoiceDao.createInvoice(invoice);
-            
-            if (result > 0) {
+            return invoiceDao.createInvoice(invoice) > 0 ? invoice : null;
+        }, invoice -> {
+            if (invoice != null) {
                 JOptionPane.showMessageDialog(
                     parentComponent,
                     "Invoice created successfully.\nInvoice Number: " + invoice.getInvoiceNumber(),
@@ -321,16 +341,7 @@ public class OrderController {
                     JOptionPane.ERROR_MESSAGE
                 );
             }
-            
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(
-                parentComponent,
-                "Error creating invoice: " + ex.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE
-            );
-            ex.printStackTrace();
-        }
+        });
     }
     
     /**
@@ -338,8 +349,7 @@ public class OrderController {
      */
     public void refreshOrderList() {
         try {
-            List<Order> orders = orderDao.findAllOrders();
-            listView.updateOrders(orders);
+            listView.reload();
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(
                 parentComponent,
@@ -11,7 +11,6 @@ import ui.product.ProductListView;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.List;
 
 /**
  * Controller for Product module operations.
@@ -218,8 +217,7 @@ public class ProductController {
      */
     public void refreshProductList() {
         try {
-            List<Product> products = productDao.findAllProducts();
-            listView.updateProducts(products);
+            listView.reload();
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(
                 parentComponent,
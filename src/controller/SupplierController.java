@@ -8,7 +8,6 @@ import ui.supplier.SupplierFormView;
 import ui.supplier.SupplierListView;
 import javax.swing.*;
 import java.awt.*;
-import java.util.List;
 
 /**
  * Controller for Supplier module operations.
@@ -238,8 +237,7 @@ public class SupplierController {
      */
     public void refreshSupplierList() {
         try {
-            List<Supplier> suppliers = supplierDao.findAllSuppliers();
-            listView.updateSuppliers(suppliers);
+            listView.reload();
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(
                 parentComponent,
@@ -0,0 +1,38 @@
+package dao;
+
+/**
+ * Starts the background work every client needs once its database schema
+ * is up to date. Both entry points call start() after the migration, so
+ * clients started either way keep their caches and derived data current.
+ */
+public final class BackgroundServices {
+    private static final long CATEGORY_SALES_REFRESH_MINUTES = 5;
+    private static final long OVERDUE_SWEEP_MINUTES = 15;
+    
+    private static boolean started;
+    
+    private BackgroundServices() {
+    }
+    
+    /**
+     * Starts the background services; later calls do nothing.
+     * Call only after SchemaMigrator.migrate() has succeeded, since the
+     * services rely on the triggers and views it creates.
+     */
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        
+        // The triggers report changes to every client; the caches drop changed rows
+        EntityCache.invalidateOnChanges();
+        ReceivablesDao.invalidateOnChanges();
+        
+        // Sales by category come from a materialized view refreshed in the background
+        DashboardDao.scheduleCategorySalesRefresh(CATEGORY_SALES_REFRESH_MINUTES);
+        
+        // Invoices past their due date are marked overdue in the background
+        OverdueInvoiceSweeper.schedule(OVERDUE_SWEEP_MINUTES);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,564 @@
+package dao;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import util.CsvUtil;
+import util.LogUtil;
+
+/**
+ * Data Access Object for bulk loading customers, products and suppliers
+ * from CSV or TSV files.
+ * 
+ * The input is streamed in chunks of CHUNK_SIZE lines. Chunks are parsed and
+ * validated in parallel on a small thread pool while the calling thread
+ * loads already validated chunks in file order, so at most a few chunks are
+ * held in memory at any time. Each chunk is loaded in its own transaction
+ * with COPY FROM STDIN; if the driver does not support COPY or the chunk
+ * fails, it is retried with multi-row INSERT statements and finally row by
+ * row so that only the offending rows are rejected.
+ * 
+ * Rejected rows are written to a side file together with their line number
+ * and the reason, in the same delimited format as the input.
+ */
+public class BulkImportDao {
+    private static final int CHUNK_SIZE = 5000;
+    private static final int ROWS_PER_INSERT = 500;
+    private static final int VALIDATION_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final int MAX_PENDING_CHUNKS = VALIDATION_THREADS * 2;
+    
+    /**
+     * Imports customers
+     * 
+     * @param input The CSV or TSV file to read
+     * @param rejectFile The file rejected rows are written to
+     * @return The import result
+     * @throws IOException If the input cannot be read or the reject file cannot be written
+     * @throws SQLException If no database connection can be obtained
+     */
+    public ImportResult importCustomers(File input, File rejectFile) throws IOException, SQLException {
+        return importFile(ImportTarget.CUSTOMERS, input, delimiterFor(input), rejectFile);
+    }
+    
+    /**
+     * Imports products
+     * 
+     * @param input The CSV or TSV file to read
+     * @param rejectFile The file rejected rows are written to
+     * @return The import result
+     * @throws IOException If the input cannot be read or the reject file cannot be written
+     * @throws SQLException If no database connection can be obtained
+     */
+    public ImportResult importProducts(File input, File rejectFile) throws IOException, SQLException {
+        return importFile(ImportTarget.PRODUCTS, input, delimiterFor(input), rejectFile);
+    }
+    
+    /**
+     * Imports suppliers
+     * 
+     * @param input The CSV or TSV file to read
+     * @param rejectFile The file rejected rows are written to
+     * @return The import result
+     * @throws IOException If the input cannot be read or the reject file cannot be written
+     * @throws SQLException If no database connection can be obtained
+     */
+    public ImportResult importSuppliers(File input, File rejectFile) throws IOException, SQLException {
+        return importFile(ImportTarget.SUPPLIERS, input, delimiterFor(input), rejectFile);
+    }
+    
+    /**
+     * Imports a delimited file into the target table.
+     * If the first line consists of column names it is used as a header and
+     * columns may appear in any order; otherwise the fields must follow the
+     * target's column order.
+     * 
+     * @param target The table to load
+     * @param input The file to read (UTF-8)
+     * @param delimiter The field delimiter, usually CsvUtil.COMMA or CsvUtil.TAB
+     * @param rejectFile The file rejected rows are written to
+     * @return The import result
+     * @throws IOException If the input cannot be read or the reject file cannot be written
+     * @throws SQLException If no database connection can be obtained
+     */
+    public ImportResult importFile(ImportTarget target, File input, char delimiter, File rejectFile)
+            throws IOException, SQLException {
+        long start = System.currentTimeMillis();
+        ImportResult result = new ImportResult(target, rejectFile);
+        ExecutorService validators = Executors.newFixedThreadPool(VALIDATION_THREADS, r -> {
+            Thread thread = new Thread(r, "bulk-import-validator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        try (BufferedReader reader = Files.newBufferedReader(input.toPath(), StandardCharsets.UTF_8);
+             BufferedWriter rejects = Files.newBufferedWriter(rejectFile.toPath(), StandardCharsets.UTF_8)) {
+            rejects.write(CsvUtil.formatLine(new String[] { "line", "reason", "record" }, delimiter));
+            rejects.newLine();
+            Loader loader = new Loader(target, result, rejects, delimiter);
+            
+            Deque<Future<Chunk>> pending = new ArrayDeque<>();
+            int[] columnMap = null;
+            List<RawLine> lines = new ArrayList<>(CHUNK_SIZE);
+            String line;
+            long lineNumber = 0;
+            
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1) {
+                    columnMap = headerMapping(target, line, delimiter);
+                    if (columnMap != null) {
+                        continue;
+                    }
+                }
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                lines.add(new RawLine(lineNumber, line));
+                
+                if (lines.size() == CHUNK_SIZE) {
+                    if (pending.size() == MAX_PENDING_CHUNKS) {
+                        loader.load(await(pending.pollFirst()));
+                    }
+                    pending.addLast(validators.submit(validation(target, lines, delimiter, columnMap)));
+                    lines = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (!lines.isEmpty()) {
+                pending.addLast(validators.submit(validation(target, lines, delimiter, columnMap)));
+            }
+            while (!pending.isEmpty()) {
+                loader.load(await(pending.pollFirst()));
+            }
+        } finally {
+            validators.shutdownNow();
+        }
+        
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        LogUtil.info(result.toString());
+        return result;
+    }
+    
+    /**
+     * Picks the delimiter from the file extension
+     * 
+     * @param input The input file
+     * @return Tab for .tsv and .tab files, comma otherwise
+     */
+    static char delimiterFor(File input) {
+        String name = input.getName().toLowerCase();
+        return name.endsWith(".tsv") || name.endsWith(".tab") ? CsvUtil.TAB : CsvUtil.COMMA;
+    }
+    
+    /**
+     * Maps header columns to target columns.
+     * The first line is a header if any of its fields names a target column;
+     * fields that name no target column are skipped.
+     * 
+     * @param target The import target
+     * @param firstLine The first line of the input
+     * @param delimiter The field delimiter
+     * @return For each target column the index of the matching field (-1 if absent),
+     *         or null if the first line is not a header
+     */
+    private static int[] headerMapping(ImportTarget target, String firstLine, char delimiter) {
+        String[] names;
+        try {
+            names = CsvUtil.parseLine(firstLine, delimiter);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int[] columnMap = new int[target.getColumns().length];
+        Arrays.fill(columnMap, -1);
+        List<String> unknown = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            int column = target.indexOf(names[i]);
+            if (column < 0) {
+                unknown.add(names[i]);
+            } else {
+                columnMap[column] = i;
+            }
+        }
+        if (unknown.size() == names.length) {
+            return null;
+        }
+        if (!unknown.isEmpty()) {
+            LogUtil.warning("Skipping unknown columns in " + target.getTable() + " import: " + unknown);
+        }
+        return columnMap;
+    }
+    
+    /**
+     * Creates the task that parses and validates one chunk
+     * 
+     * @param target The import target
+     * @param lines The raw lines of the chunk
+     * @param delimiter The field delimiter
+     * @param columnMap The header mapping, or null if fields are in column order
+     * @return The validation task
+     */
+    private static Callable<Chunk> validation(ImportTarget target, List<RawLine> lines,
+                                              char delimiter, int[] columnMap) {
+        return () -> {
+            Chunk chunk = new Chunk(lines.size());
+            for (RawLine line : lines) {
+                try {
+                    String[] fields = CsvUtil.parseLine(line.text, delimiter);
+                    if (columnMap != null) {
+                        String[] ordered = new String[columnMap.length];
+                        for (int i = 0; i < columnMap.length; i++) {
+                            ordered[i] = columnMap[i] >= 0 && columnMap[i] < fields.length ? fields[columnMap[i]] : null;
+                        }
+                        fields = ordered;
+                    }
+                    chunk.rows.add(new Row(line, target.parse(fields)));
+                } catch (RuntimeException e) {
+                    chunk.rejected.add(new Reject(line, e.getMessage()));
+                }
+            }
+            return chunk;
+        };
+    }
+    
+    /**
+     * Waits for a validated chunk
+     * 
+     * @param future The validation task
+     * @return The validated chunk
+     * @throws IOException If the import is interrupted
+     */
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Validation failed unexpectedly", e.getCause());
+        }
+    }
+    
+    /**
+     * Loads validated chunks into the database and writes rejects.
+     * Used only from the importing thread.
+     */
+    private static final class Loader {
+        private final ImportTarget target;
+        private final ImportResult result;
+        private final String columnList;
+        private final BufferedWriter rejects;
+        private final char delimiter;
+        private Boolean copySupported;
+        
+        Loader(ImportTarget target, ImportResult result, BufferedWriter rejects, char delimiter) {
+            this.target = target;
+            this.result = result;
+            this.rejects = rejects;
+            this.delimiter = delimiter;
+            this.columnList = String.join(", ", target.getColumns());
+        }
+        
+        /**
+         * Loads one chunk: COPY first, then multi-row INSERTs, then row by row
+         * 
+         * @param chunk The validated chunk
+         * @throws IOException If the reject file cannot be written
+         * @throws SQLException If no database connection can be obtained
+         */
+        void load(Chunk chunk) throws IOException, SQLException {
+            result.addRead(chunk.size);
+            for (Reject reject : chunk.rejected) {
+                writeReject(reject.line, reject.reason);
+            }
+            if (chunk.rows.isEmpty()) {
+                return;
+            }
+            
+            Connection con = null;
+            try {
+                con = DbConnection.getInstance().getConnection();
+                con.setAutoCommit(false);
+                
+                if (copySupported == null || copySupported) {
+                    try {
+                        if (copy(con, chunk.rows)) {
+                            con.commit();
+                            result.addCopied(chunk.rows.size());
+                            return;
+                        }
+                    } catch (SQLException e) {
+                        con.rollback();
+                        LogUtil.warning("COPY into " + target.getTable() + " failed for lines " + chunk.describe() +
+                                        ", retrying with INSERT: " + e.getMessage());
+                    }
+                }
+                
+                try {
+                    insert(con, chunk.rows);
+                    con.commit();
+                    result.addInserted(chunk.rows.size());
+                    return;
+                } catch (SQLException e) {
+                    con.rollback();
+                    LogUtil.warning("Batch INSERT into " + target.getTable() + " failed for lines " + chunk.describe() +
+                                    ", retrying row by row: " + e.getMessage());
+                }
+                
+                con.setAutoCommit(true);
+                insertEach(con, chunk.rows);
+            } finally {
+                if (con != null) {
+                    try {
+                        con.setAutoCommit(true);
+                    } catch (SQLException e) {
+                        // The pool resets the session anyway
+                    }
+                    con.close();
+                }
+            }
+        }
+        
+        /**
+         * Streams rows into the table with COPY FROM STDIN
+         * 
+         * @param con The connection, in a transaction
+         * @param rows The rows to copy
+         * @return false if the connection does not support COPY
+         * @throws SQLException If COPY fails
+         */
+        private boolean copy(Connection con, List<Row> rows) throws SQLException {
+            CopyManager copyManager = copyManager(con);
+            if (copyManager == null) {
+                return false;
+            }
+            
+            StringBuilder data = new StringBuilder(rows.size() * 128);
+            for (Row row : rows) {
+                for (int i = 0; i < row.values.length; i++) {
+                    if (i > 0) {
+                        data.append('\t');
+                    }
+                    appendCopyValue(data, row.values[i]);
+                }
+                data.append('\n');
+            }
+            
+            String sql = "COPY " + target.getTable() + " (" + columnList + ") FROM STDIN";
+            try {
+                copyManager.copyIn(sql, new StringReader(data.toString()));
+                return true;
+            } catch (IOException e) {
+                throw new SQLException("COPY failed", e);
+            }
+        }
+        
+        /**
+         * Gets the driver's CopyManager for the connection
+         * 
+         * @param con The connection
+         * @return The CopyManager, or null if the connection is not a PostgreSQL connection
+         */
+        private CopyManager copyManager(Connection con) {
+            if (Boolean.FALSE.equals(copySupported)) {
+                return null;
+            }
+            try {
+                if (con.isWrapperFor(PGConnection.class)) {
+                    CopyManager copyManager = con.unwrap(PGConnection.class).getCopyAPI();
+                    copySupported = true;
+                    return copyManager;
+                }
+            } catch (SQLException e) {
+                LogUtil.warning("COPY is not available, falling back to INSERT: " + e);
+            }
+            copySupported = false;
+            return null;
+        }
+        
+        /**
+         * Inserts rows with multi-row INSERT statements of up to ROWS_PER_INSERT rows
+         * 
+         * @param con The connection, in a transaction
+         * @param rows The rows to insert
+         * @throws SQLException If any statement fails
+         */
+        private void insert(Connection con, List<Row> rows) throws SQLException {
+            for (int from = 0; from < rows.size(); from += ROWS_PER_INSERT) {
+                List<Row> slice = rows.subList(from, Math.min(rows.size(), from + ROWS_PER_INSERT));
+                PreparedStatement pst = con.prepareStatement(insertSql(slice.size()));
+                int index = 1;
+                for (Row row : slice) {
+                    for (Object value : row.values) {
+                        pst.setObject(index++, value);
+                    }
+                }
+                pst.executeUpdate();
+                pst.close();
+            }
+        }
+        
+        /**
+         * Inserts rows one at a time in auto-commit mode, rejecting those the database refuses
+         * 
+         * @param con The connection, in auto-commit mode
+         * @param rows The rows to insert
+         * @throws IOException If the reject file cannot be written
+         */
+        private void insertEach(Connection con, List<Row> rows) throws IOException {
+            String sql = insertSql(1);
+            for (Row row : rows) {
+                try {
+                    PreparedStatement pst = con.prepareStatement(sql);
+                    for (int i = 0; i < row.values.length; i++) {
+                        pst.setObject(i + 1, row.values[i]);
+                    }
+                    pst.executeUpdate();
+                    pst.close();
+                    result.addInserted(1);
+                } catch (SQLException e) {
+                    writeReject(row.line, e.getMessage());
+                }
+            }
+        }
+        
+        /**
+         * Builds an INSERT statement for the given number of rows
+         * 
+         * @param rowCount The number of rows
+         * @return The SQL statement
+         */
+        private String insertSql(int rowCount) {
+            StringBuilder placeholders = new StringBuilder("(");
+            for (int i = 0; i < target.getColumns().length; i++) {
+                placeholders.append(i == 0 ? "?" : ", ?");
+            }
+            placeholders.append(')');
+            
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(target.getTable())
+                    .append(" (").append(columnList).append(") VALUES ");
+            for (int i = 0; i < rowCount; i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(placeholders);
+            }
+            return sql.toString();
+        }
+        
+        private void writeReject(RawLine line, String reason) throws IOException {
+            rejects.write(CsvUtil.formatLine(new String[] { String.valueOf(line.number), reason, line.text }, delimiter));
+            rejects.newLine();
+            result.addRejected(1);
+        }
+    }
+    
+    /**
+     * Appends a value in COPY text format, escaping backslashes and
+     * the characters COPY uses as separators
+     * 
+     * @param data The buffer to append to
+     * @param value The column value
+     */
+    private static void appendCopyValue(StringBuilder data, Object value) {
+        if (value == null) {
+            data.append("\\N");
+            return;
+        }
+        String text = value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\':
+                    data.append("\\\\");
+                    break;
+                case '\t':
+                    data.append("\\t");
+                    break;
+                case '\n':
+                    data.append("\\n");
+                    break;
+                case '\r':
+                    data.append("\\r");
+                    break;
+                default:
+                    data.append(c);
+            }
+        }
+    }
+    
+    /**
+     * An input line and its line number
+     */
+    private static final class RawLine {
+        private final long number;
+        private final String text;
+        
+        RawLine(long number, String text) {
+            this.number = number;
+            this.text = text;
+        }
+    }
+    
+    /**
+     * A valid row and its typed column values
+     */
+    private static final class Row {
+        private final RawLine line;
+        private final Object[] values;
+        
+        Row(RawLine line, Object[] values) {
+            this.line = line;
+            this.values = values;
+        }
+    }
+    
+    /**
+     * A row that failed validation
+     */
+    private static final class Reject {
+        private final RawLine line;
+        private final String reason;
+        
+        Reject(RawLine line, String reason) {
+            this.line = line;
+            this.reason = reason;
+        }
+    }
+    
+    /**
+     * The validation result for one chunk of input lines
+     */
+    private static final class Chunk {
+        private final int size;
+        private final List<Row> rows;
+        private final List<Reject> rejected = new ArrayList<>();
+        
+        Chunk(int size) {
+            this.size = size;
+            this.rows = new ArrayList<>(size);
+        }
+        
+        String describe() {
+            return rows.get(0).line.number + "-" + rows.get(rows.size() - 1).line.number;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package dao;
+
+/**
+ * Immutable snapshot of the metrics of one EntityCache.
+ */
+public class CacheStats {
+    private final String name;
+    private final int size;
+    private final int maxSize;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long expiredCount;
+    private final long invalidationCount;
+    
+    /**
+     * Creates a new snapshot
+     */
+    CacheStats(String name, int size, int maxSize, long hitCount, long missCount,
+               long evictionCount, long expiredCount, long invalidationCount) {
+        this.name = name;
+        this.size = size;
+        this.maxSize = maxSize;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.expiredCount = expiredCount;
+        this.invalidationCount = invalidationCount;
+    }
+    
+    // Getters
+    
+    public String getName() {
+        return name;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    public int getMaxSize() {
+        return maxSize;
+    }
+    
+    public long getHitCount() {
+        return hitCount;
+    }
+    
+    /**
+     * Gets the number of lookups that had to go to the database, including
+     * lookups of expired entries
+     * 
+     * @return The miss count
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+    
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+    
+    public long getExpiredCount() {
+        return expiredCount;
+    }
+    
+    public long getInvalidationCount() {
+        return invalidationCount;
+    }
+    
+    /**
+     * Gets the fraction of lookups served from the cache
+     * 
+     * @return The hit rate between 0 and 1, or 0 if there were no lookups
+     */
+    public double getHitRate() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 0 : hitCount / (double) lookups;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("CacheStats{name=%s, size=%d, max=%d, hits=%d, misses=%d, hitRate=%.1f%%, " +
+                             "evicted=%d, expired=%d, invalidated=%d}",
+                             name, size, maxSize, hitCount, missCount, getHitRate() * 100,
+                             evictionCount, expiredCount, invalidationCount);
+    }
+}
\ No newline at end of file
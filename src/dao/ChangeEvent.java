@@ -0,0 +1,110 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A committed change to one of the application tables, as reported by the
+ * database triggers installed by ChangeNotifier.
+ * Small changes carry the IDs of the affected rows; for large statements
+ * such as bulk imports the IDs are left out and the whole table should be
+ * treated as changed.
+ */
+public class ChangeEvent {
+    /**
+     * Table name used when any table may have changed, e.g. after the
+     * listener lost its connection and may have missed notifications
+     */
+    public static final String ALL_TABLES = "*";
+    
+    private final String table;
+    private final String operation;
+    private final List<Integer> ids;
+    
+    /**
+     * Constructor
+     * 
+     * @param table The changed table
+     * @param operation INSERT, UPDATE, DELETE or REFRESH
+     * @param ids The IDs of the changed rows, or an empty list if not known
+     */
+    public ChangeEvent(String table, String operation, List<Integer> ids) {
+        this.table = table;
+        this.operation = operation;
+        this.ids = Collections.unmodifiableList(new ArrayList<>(ids));
+    }
+    
+    /**
+     * Creates an event meaning that anything may have changed
+     * 
+     * @return The event
+     */
+    public static ChangeEvent allTables() {
+        return new ChangeEvent(ALL_TABLES, "REFRESH", Collections.emptyList());
+    }
+    
+    /**
+     * Parses a notification payload of the form table:operation:ids, where
+     * ids is a comma separated list or * for all rows
+     * 
+     * @param payload The notification payload
+     * @return The event, or null if the payload is malformed
+     */
+    static ChangeEvent parse(String payload) {
+        String[] parts = payload != null ? payload.split(":", 3) : new String[0];
+        if (parts.length != 3) {
+            return null;
+        }
+        
+        List<Integer> ids = new ArrayList<>();
+        if (!"*".equals(parts[2])) {
+            try {
+                for (String id : parts[2].split(",")) {
+                    ids.add(Integer.parseInt(id.trim()));
+                }
+            } catch (NumberFormatException e) {
+                ids.clear();
+            }
+        }
+        return new ChangeEvent(parts[0], parts[1], ids);
+    }
+    
+    // Getters
+    public String getTable() {
+        return table;
+    }
+    
+    public String getOperation() {
+        return operation;
+    }
+    
+    public List<Integer> getIds() {
+        return ids;
+    }
+    
+    /**
+     * Checks whether this event applies to a table
+     * 
+     * @param tableName The table name
+     * @return true if the table changed or any table may have changed
+     */
+    public boolean affects(String tableName) {
+        return ALL_TABLES.equals(table) || table.equals(tableName);
+    }
+    
+    /**
+     * Checks whether the changed rows are unknown, so every row of the
+     * table must be treated as changed
+     * 
+     * @return true if the event carries no row IDs
+     */
+    public boolean isAllRows() {
+        return ids.isEmpty();
+    }
+    
+    @Override
+    public String toString() {
+        return table + ":" + operation + ":" + (ids.isEmpty() ? "*" : ids.toString());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,209 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import util.LogUtil;
+
+/**
+ * Reports committed changes to the application tables, made by this or any
+ * other client, using PostgreSQL LISTEN/NOTIFY.
+ * Statement level triggers on each table send one notification per
+ * statement on the data_change channel, with the IDs of up to
+ * MAX_IDS_PER_NOTIFICATION changed rows; bigger statements are reported
+ * without IDs. Notifications are only delivered once the writing
+ * transaction commits. The triggers are installed by SchemaMigrator.
+ * 
+ * A single background thread listens on a dedicated connection outside the
+ * pool and hands each change to the registered listeners. Each time LISTEN
+ * is established, the first time and after a lost connection, it reports
+ * ChangeEvent.allTables(), since changes committed before that were not
+ * delivered to the listeners.
+ */
+public class ChangeNotifier {
+    static final String CHANNEL = "data_change";
+    private static final int MAX_IDS_PER_NOTIFICATION = 100;
+    private static final int POLL_TIMEOUT_MS = 5000;
+    private static final long MAX_RECONNECT_DELAY_MS = 30000;
+    private static final String[] NOTIFYING_TABLES = {
+        "customers", "products", "suppliers", "orders", "order_items", "invoices", "payments"
+    };
+    
+    private static ChangeNotifier instance;
+    
+    private final List<DataChangeListener> listeners = new CopyOnWriteArrayList<>();
+    // The thread that currently listens; an old thread exits once it is replaced
+    private volatile Thread listenerThread;
+    
+    /**
+     * Private constructor for singleton pattern
+     */
+    private ChangeNotifier() {
+    }
+    
+    /**
+     * Gets the singleton instance
+     * 
+     * @return The ChangeNotifier instance
+     */
+    public static synchronized ChangeNotifier getInstance() {
+        if (instance == null) {
+            instance = new ChangeNotifier();
+        }
+        return instance;
+    }
+    
+    /**
+     * Gets the statements that install the notification triggers.
+     * Existing triggers are dropped first, so the statements can run again.
+     * 
+     * @return The DDL statements, run by SchemaMigrator
+     */
+    static String[] triggerStatements() {
+        List<String> statements = new ArrayList<>();
+        statements.add("CREATE OR REPLACE FUNCTION notify_data_change() RETURNS trigger AS $$ " +
+                       "DECLARE ids INTEGER[]; " +
+                       "BEGIN " +
+                       "IF TG_OP = 'DELETE' THEN " +
+                       "SELECT array_agg(id) INTO ids FROM (SELECT id FROM old_rows LIMIT " + (MAX_IDS_PER_NOTIFICATION + 1) + ") r; " +
+                       "ELSE " +
+                       "SELECT array_agg(id) INTO ids FROM (SELECT id FROM new_rows LIMIT " + (MAX_IDS_PER_NOTIFICATION + 1) + ") r; " +
+                       "END IF; " +
+                       "IF ids IS NULL THEN RETURN NULL; END IF; " +
+                       "PERFORM pg_notify('" + CHANNEL + "', TG_TABLE_NAME || ':' || TG_OP || ':' || " +
+                       "CASE WHEN array_length(ids, 1) > " + MAX_IDS_PER_NOTIFICATION + " THEN '*' " +
+                       "ELSE array_to_string(ids, ',') END); " +
+                       "RETURN NULL; " +
+                       "END $$ LANGUAGE plpgsql");
+        for (String table : NOTIFYING_TABLES) {
+            statements.add("DROP TRIGGER IF EXISTS " + table + "_notify_insert ON " + table);
+            statements.add("DROP TRIGGER IF EXISTS " + table + "_notify_update ON " + table);
+            statements.add("DROP TRIGGER IF EXISTS " + table + "_notify_delete ON " + table);
+            statements.add("CREATE TRIGGER " + table + "_notify_insert AFTER INSERT ON " + table +
+                           " REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE PROCEDURE notify_data_change()");
+            statements.add("CREATE TRIGGER " + table + "_notify_update AFTER UPDATE ON " + table +
+                           " REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE PROCEDURE notify_data_change()");
+            statements.add("CREATE TRIGGER " + table + "_notify_delete AFTER DELETE ON " + table +
+                           " REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE PROCEDURE notify_data_change()");
+        }
+        return statements.toArray(new String[0]);
+    }
+    
+    /**
+     * Sends a change notification for something that has no trigger, such as
+     * a refreshed materialized view
+     * 
+     * @param con The connection to use; the notification is sent when its transaction commits
+     * @param table The changed table or view
+     * @param operation The kind of change
+     * @throws SQLException If a database access error occurs
+     */
+    static void notifyChange(Connection con, String table, String operation) throws SQLException {
+        PreparedStatement pst = con.prepareStatement("SELECT pg_notify(?, ?)");
+        pst.setString(1, CHANNEL);
+        pst.setString(2, table + ":" + operation + ":*");
+        pst.executeQuery().close();
+        pst.close();
+    }
+    
+    /**
+     * Registers a listener and starts listening if this is the first one
+     * 
+     * @param listener The listener to add
+     */
+    public synchronized void addListener(DataChangeListener listener) {
+        listeners.add(listener);
+        if (listenerThread == null) {
+            Thread thread = new Thread(this::listen, "db-change-listener");
+            thread.setDaemon(true);
+            listenerThread = thread;
+            thread.start();
+        }
+    }
+    
+    /**
+     * Unregisters a listener and stops listening if it was the last one
+     * 
+     * @param listener The listener to remove
+     */
+    public synchronized void removeListener(DataChangeListener listener) {
+        listeners.remove(listener);
+        if (listeners.isEmpty() && listenerThread != null) {
+            Thread thread = listenerThread;
+            listenerThread = null;
+            thread.interrupt();
+        }
+    }
+    
+    /**
+     * Body of the listener thread. Keeps a LISTEN session open and dispatches
+     * notifications until the last listener is removed.
+     */
+    private void listen() {
+        long reconnectDelay = 1000;
+        boolean reconnecting = false;
+        
+        while (isListening()) {
+            try (Connection con = DbConnection.getInstance().openDedicatedConnection()) {
+                Statement stmt = con.createStatement();
+                stmt.execute("LISTEN " + CHANNEL);
+                stmt.close();
+                PGConnection pgConnection = con.unwrap(PGConnection.class);
+                
+                reconnectDelay = 1000;
+                if (reconnecting) {
+                    LogUtil.info("Change listener reconnected");
+                }
+                reconnecting = true;
+                // Data cached before now may have changed without a notification
+                dispatch(ChangeEvent.allTables());
+                
+                while (isListening()) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        ChangeEvent event = ChangeEvent.parse(notification.getParameter());
+                        if (event != null) {
+                            dispatch(event);
+                        }
+                    }
+                }
+                
+            } catch (SQLException ex) {
+                if (!isListening()) {
+                    break;
+                }
+                LogUtil.error("Change listener lost its connection, retrying in " + reconnectDelay + " ms", ex);
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY_MS);
+            }
+        }
+    }
+    
+    private boolean isListening() {
+        return listenerThread == Thread.currentThread();
+    }
+    
+    private void dispatch(ChangeEvent event) {
+        for (DataChangeListener listener : listeners) {
+            try {
+                listener.onDataChange(event);
+            } catch (RuntimeException ex) {
+                LogUtil.error("Change listener failed for " + event, ex);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,334 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import util.LogUtil;
+
+/**
+ * Bounded connection pool.
+ * 
+ * Idle connections sit in a lock-free deque and are reused most recently
+ * used first. At most maxPoolSize connections can be borrowed at once;
+ * further callers queue on a (by default fair) semaphore until a connection
+ * is returned or the connection timeout elapses. Returned connections are
+ * reset to their original session state before they are reused, and each
+ * keeps an LRU cache of its prepared statements (db.statementCacheSize).
+ * 
+ * A background housekeeping thread evicts expired connections, pings idle
+ * ones so firewalls and the server do not drop them, keeps minIdle
+ * connections open and reports connections held longer than the leak
+ * detection threshold.
+ */
+public class ConnectionPool implements ConnectionProvider {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    
+    private final PoolConfig config;
+    private final ConcurrentLinkedDeque<PooledConnection> idleConnections;
+    private final Set<PooledConnection> borrowedConnections;
+    private final Semaphore permits;
+    private final ScheduledExecutorService housekeeper;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    
+    // Metrics
+    private final WaitTimeHistogram waitHistogram = new WaitTimeHistogram();
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    
+    /**
+     * Creates the pool and starts its housekeeping thread
+     * 
+     * @param config The pool configuration
+     */
+    public ConnectionPool(PoolConfig config) {
+        this.config = config;
+        this.idleConnections = new ConcurrentLinkedDeque<>();
+        this.borrowedConnections = ConcurrentHashMap.newKeySet();
+        this.permits = new Semaphore(config.getMaxPoolSize(), config.isFair());
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        long period = Math.min(config.getValidationIntervalMs(), config.getKeepaliveIntervalMs());
+        if (config.getLeakDetectionThresholdMs() > 0) {
+            period = Math.min(period, config.getLeakDetectionThresholdMs() / 2);
+        }
+        period = Math.max(1000, period);
+        housekeeper.scheduleWithFixedDelay(this::runHousekeeping, 0, period, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Creates a new physical database connection
+     * 
+     * @return A new pooled connection wrapper
+     * @throws SQLException If a database access error occurs
+     */
+    private PooledConnection createConnection() throws SQLException {
+        try {
+            Connection connection = DriverManager.getConnection(config.getUrl(), config.getUser(), config.getPassword());
+            PooledConnection pooled;
+            try {
+                pooled = new PooledConnection(connection, config.getStatementCacheSize(),
+                                              statementCacheHits, statementCacheMisses);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+            totalConnections.incrementAndGet();
+            createdCount.incrementAndGet();
+            return pooled;
+        } catch (SQLException e) {
+            LogUtil.error("Failed to create database connection", e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Gets a connection from the pool.
+     * Blocks for at most the configured connection timeout when every
+     * connection is in use. Close the returned connection to give it back.
+     * 
+     * @return A database connection
+     * @throws SQLException If a database access error occurs or the wait times out
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(config.getConnectionTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                SQLTimeoutException e = new SQLTimeoutException("Timed out after " + config.getConnectionTimeoutMs() +
+                        " ms waiting for a database connection (" + getPoolStats() + ")");
+                LogUtil.error("Failed to get database connection from pool", e);
+                throw e;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        
+        try {
+            PooledConnection pooled = takeIdleConnection();
+            if (pooled == null) {
+                pooled = createConnection();
+            }
+            pooled.markBorrowed(config.getLeakDetectionThresholdMs() > 0);
+            borrowedConnections.add(pooled);
+            recordWait(System.nanoTime() - start);
+            return pooled.createProxy(this);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+    
+    /**
+     * Takes the most recently used idle connection that is still usable
+     * 
+     * @return An idle connection, or null if none is available
+     */
+    private PooledConnection takeIdleConnection() {
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            if (isUsable(pooled)) {
+                return pooled;
+            }
+            discard(pooled);
+        }
+        return null;
+    }
+    
+    /**
+     * Checks whether an idle connection can be handed out again.
+     * Connections idle longer than the validation interval are pinged.
+     * 
+     * @param pooled The connection to check
+     * @return true if the connection can be reused
+     */
+    private boolean isUsable(PooledConnection pooled) {
+        long now = System.currentTimeMillis();
+        if (pooled.getAge(now) >= config.getMaxLifetimeMs()) {
+            return false;
+        }
+        try {
+            Connection physical = pooled.getPhysical();
+            if (pooled.getIdleTime(now) >= config.getValidationIntervalMs()) {
+                return physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+            }
+            return !physical.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Returns a connection to the pool. Called when a pooled proxy is closed.
+     * 
+     * @param pooled The connection to return
+     */
+    void release(PooledConnection pooled) {
+        borrowedConnections.remove(pooled);
+        try {
+            if (pooled.getPhysical().isClosed()
+                    || pooled.getAge(System.currentTimeMillis()) >= config.getMaxLifetimeMs()) {
+                discard(pooled);
+            } else {
+                pooled.resetState();
+                pooled.markReturned();
+                idleConnections.offerFirst(pooled);
+            }
+        } catch (SQLException e) {
+            LogUtil.error("Failed to release connection back to pool", e);
+            discard(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+    
+    /**
+     * Closes a physical connection and drops it from the pool
+     * 
+     * @param pooled The connection to discard
+     */
+    private void discard(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        evictedCount.incrementAndGet();
+        pooled.closePhysical();
+    }
+    
+    /**
+     * Records how long a caller waited for a connection
+     * 
+     * @param waitNanos The wait time in nanoseconds
+     */
+    private void recordWait(long waitNanos) {
+        acquireCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        waitHistogram.record(waitNanos);
+    }
+    
+    /**
+     * Evicts expired idle connections, keeps idle connections alive,
+     * tops the pool up to minIdle and reports suspected leaks
+     */
+    private void runHousekeeping() {
+        try {
+            long now = System.currentTimeMillis();
+            
+            for (PooledConnection pooled : idleConnections) {
+                if (pooled.getAge(now) >= config.getMaxLifetimeMs()) {
+                    if (idleConnections.remove(pooled)) {
+                        discard(pooled);
+                    }
+                } else if (pooled.getIdleTime(now) >= config.getKeepaliveIntervalMs()) {
+                    keepAlive(pooled);
+                }
+            }
+            
+            fillIdleConnections();
+            
+            long leakThreshold = config.getLeakDetectionThresholdMs();
+            if (leakThreshold > 0) {
+                for (PooledConnection pooled : borrowedConnections) {
+                    if (!pooled.isLeakReported() && pooled.getBorrowedTime(now) >= leakThreshold) {
+                        pooled.setLeakReported(true);
+                        leakCount.incrementAndGet();
+                        LogUtil.warning("Possible connection leak: connection held for " +
+                                        pooled.getBorrowedTime(now) + " ms", pooled.getBorrowSite());
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            LogUtil.error("Connection pool housekeeping failed", e);
+        }
+    }
+    
+    /**
+     * Pings an idle connection. The connection is taken out of the idle
+     * deque while it is checked so no caller can borrow it concurrently.
+     * 
+     * @param pooled The idle connection
+     */
+    private void keepAlive(PooledConnection pooled) {
+        if (!idleConnections.remove(pooled)) {
+            return; // Borrowed in the meantime
+        }
+        boolean valid;
+        try {
+            valid = pooled.getPhysical().isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            valid = false;
+        }
+        if (valid) {
+            pooled.markReturned();
+            idleConnections.offerLast(pooled);
+        } else {
+            discard(pooled);
+        }
+    }
+    
+    /**
+     * Opens connections until minIdle connections exist.
+     * A permit is held while opening so the pool never exceeds maxPoolSize.
+     */
+    private void fillIdleConnections() {
+        while (totalConnections.get() < config.getMinIdle() && permits.tryAcquire()) {
+            try {
+                PooledConnection pooled = createConnection();
+                idleConnections.offerLast(pooled);
+            } catch (SQLException e) {
+                return; // Already logged; retry on the next run
+            } finally {
+                permits.release();
+            }
+        }
+    }
+    
+    /**
+     * Gets a snapshot of the pool metrics
+     * 
+     * @return The current pool statistics
+     */
+    @Override
+    public PoolStats getPoolStats() {
+        return new PoolStats(borrowedConnections.size(), idleConnections.size(), config.getMaxPoolSize(),
+                             permits.getQueueLength(), acquireCount.get(), timeoutCount.get(),
+                             totalWaitNanos.get(), maxWaitNanos.get(), createdCount.get(),
+                             evictedCount.get(), leakCount.get(), waitHistogram.snapshot(),
+                             statementCacheHits.get(), statementCacheMisses.get());
+    }
+    
+    /**
+     * Closes all idle connections and stops housekeeping
+     */
+    @Override
+    public void close() {
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            totalConnections.decrementAndGet();
+            pooled.closePhysical();
+        }
+    }
+}
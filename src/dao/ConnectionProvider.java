@@ -0,0 +1,32 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Source of database connections used behind DbConnection.
+ * Implementations decide whether connections are pooled or opened per call;
+ * callers always close the returned connection when they are done with it.
+ */
+public interface ConnectionProvider {
+    
+    /**
+     * Gets a database connection
+     * 
+     * @return A database connection
+     * @throws SQLException If a connection cannot be obtained
+     */
+    Connection getConnection() throws SQLException;
+    
+    /**
+     * Gets a snapshot of the provider metrics
+     * 
+     * @return The current statistics
+     */
+    PoolStats getPoolStats();
+    
+    /**
+     * Closes every connection owned by the provider
+     */
+    void close();
+}
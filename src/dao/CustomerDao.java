@@ -1,14 +1,17 @@
 package dao;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import model.Customer;
 import model.Order;
 
@@ -16,9 +19,12 @@ import model.Order;
  * Data Access Object for Customer operations.
  */
 public class CustomerDao {
-    private String db_url = "jdbc:postgresql://localhost:5432/business_db";
-    private String db_username = "postgres";
-    private String db_passwd = "078868";
+    private static final int CACHE_SIZE = 5000;
+    private static final long CACHE_TTL_MINUTES = 10;
+    
+    // Lookups by ID, shared by all CustomerDao instances
+    static final EntityCache<Customer> CACHE =
+        new EntityCache<>("customers", CACHE_SIZE, CACHE_TTL_MINUTES, TimeUnit.MINUTES, Customer::new);
     
     /**
      * Creates a new customer in the database
@@ -27,10 +33,7 @@ public class CustomerDao {
      * @return Number of rows affected
      */
     public int createCustomer(Customer customer) {
-        try {
-            // Create connection
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             // Prepare statement
             String sql = "INSERT INTO customers (customer_id, first_name, last_name, email, phone, address, registration_date) " +
                          "VALUES (?, ?, ?, ?, ?, ?, ?)";
@@ -56,8 +59,6 @@ public class CustomerDao {
                 rs.close();
             }
             
-            // Close connection
-            con.close();
             return rowsAffected;
             
         } catch (Exception ex) {
@@ -73,10 +74,7 @@ public class CustomerDao {
      * @return Number of rows affected
      */
     public int updateCustomer(Customer customer) {
-        try {
-            // Create connection
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             // Prepare statement
             String sql = "UPDATE customers SET customer_id = ?, first_name = ?, last_name = ?, " +
                          "email = ?, phone = ?, address = ?, registration_date = ? WHERE id = ?";
@@ -93,9 +91,8 @@ public class CustomerDao {
             
             // Execute statement
             int rowsAffected = pst.executeUpdate();
+            CACHE.invalidate(customer.getId());
             
-            // Close connection
-            con.close();
             return rowsAffected;
             
         } catch (Exception ex) {
@@ -105,14 +102,23 @@ public class CustomerDao {
     }
     
     /**
-     * Finds a customer by ID
+     * Finds a customer by ID. Served from the shared cache when possible.
      * 
      * @param id The customer ID to search for
      * @return The customer if found, null otherwise
      */
     public Customer findCustomerById(int id) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        return CACHE.get(id, this::loadCustomerById);
+    }
+    
+    /**
+     * Loads a customer by ID from the database, bypassing the cache
+     * 
+     * @param id The customer ID to search for
+     * @return The customer if found, null otherwise
+     */
+    private Customer loadCustomerById(int id) {
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM customers WHERE id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, id);
@@ -132,7 +138,6 @@ public class CustomerDao {
                 customer.setRegistrationDate(rs.getDate("registration_date").toLocalDate());
             }
             
-            con.close();
             return customer;
             
         } catch (Exception ex) {
@@ -148,8 +153,7 @@ public class CustomerDao {
      * @return The customer if found, null otherwise
      */
     public Customer findCustomerByCustomerId(String customerId) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM customers WHERE customer_id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setString(1, customerId);
@@ -169,7 +173,6 @@ public class CustomerDao {
                 customer.setRegistrationDate(rs.getDate("registration_date").toLocalDate());
             }
             
-            con.close();
             return customer;
             
         } catch (Exception ex) {
@@ -185,16 +188,12 @@ public class CustomerDao {
      * @return List of matching customers
      */
     public List<Customer> findCustomersByName(String name) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            String sql = "SELECT * FROM customers WHERE first_name LIKE ? OR last_name LIKE ? OR " +
-                        "CONCAT(first_name, ' ', last_name) LIKE ?";
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            // The full name contains every substring of the first or last name
+            String sql = "SELECT * FROM customers WHERE (" + TextSearch.CUSTOMER_NAME + ") LIKE ?";
             PreparedStatement pst = con.prepareStatement(sql);
             
-            String searchName = "%" + name + "%";
-            pst.setString(1, searchName);
-            pst.setString(2, searchName);
-            pst.setString(3, searchName);
+            pst.setString(1, TextSearch.containsPattern(name));
             
             ResultSet rs = pst.executeQuery();
             List<Customer> customerList = new ArrayList<>();
@@ -212,7 +211,6 @@ public class CustomerDao {
                 customerList.add(customer);
             }
             
-            con.close();
             return customerList;
             
         } catch (Exception ex) {
@@ -221,6 +219,21 @@ public class CustomerDao {
         }
     }
     
+    /**
+     * Searches customers by customer ID, full name, email, phone or
+     * registration date, ignoring case. Near matches such as misspellings
+     * are included after the exact matches.
+     * 
+     * @param text The text to search for
+     * @param offset The number of results to skip
+     * @param limit The maximum number of results
+     * @return The matching customers, best match first, with the matching parts of their names
+     */
+    public Page<SearchResult<Customer>> searchCustomers(String text, int offset, int limit) {
+        return TextSearch.search("customers", TextSearch.CUSTOMER_TEXT, TextSearch.CUSTOMER_NAME,
+                                 CustomerDao::mapCustomer, text, offset, limit);
+    }
+    
     /**
      * Finds a customer by email
      * 
@@ -228,8 +241,7 @@ public class CustomerDao {
      * @return The customer if found, null otherwise
      */
     public Customer findCustomerByEmail(String email) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM customers WHERE email = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setString(1, email);
@@ -249,7 +261,6 @@ public class CustomerDao {
                 customer.setRegistrationDate(rs.getDate("registration_date").toLocalDate());
             }
             
-            con.close();
             return customer;
             
         } catch (Exception ex) {
@@ -264,8 +275,7 @@ public class CustomerDao {
      * @return List of all customers
      */
     public List<Customer> findAllCustomers() {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM customers";
             PreparedStatement pst = con.prepareStatement(sql);
             
@@ -285,7 +295,6 @@ public class CustomerDao {
                 customerList.add(customer);
             }
             
-            con.close();
             return customerList;
             
         } catch (Exception ex) {
@@ -293,6 +302,66 @@ public class CustomerDao {
             return Collections.emptyList();
         }
     }
+
+    /**
+     * Gets one page of customers ordered by id.
+     * Pass 0 as afterId for the first page and the id of the last customer
+     * of the previous page for the next one.
+     * 
+     * @param afterId Id of the last customer on the previous page, or 0 for the first page
+     * @param pageSize Maximum number of customers on the page
+     * @return The page of customers
+     */
+    public Page<Customer> findCustomersPage(int afterId, int pageSize) {
+        int limit = Page.normalizePageSize(pageSize);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            String sql = "SELECT * FROM customers WHERE id > ? ORDER BY id LIMIT ?";
+            PreparedStatement pst = con.prepareStatement(sql);
+            pst.setInt(1, afterId);
+            pst.setInt(2, limit + 1);
+            
+            ResultSet rs = pst.executeQuery();
+            List<Customer> customerList = new ArrayList<>();
+            
+            while (rs.next()) {
+                customerList.add(mapCustomer(rs));
+            }
+            rs.close();
+            
+            long estimatedTotal = afterId == 0 ? Page.estimateRowCount(con, "customers") : -1;
+            return Page.of(customerList, limit, estimatedTotal);
+            
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return Page.empty();
+        }
+    }
+    
+    /**
+     * Passes every customer, in id order, to an action without loading the
+     * whole table into memory. Rows are fetched through a server-side cursor.
+     * 
+     * @param action Called for each customer
+     * @return The number of customers processed
+     * @throws SQLException If a database access error occurs
+     */
+    public long forEachCustomer(Consumer<? super Customer> action) throws SQLException {
+        return StreamingQuery.forEach("SELECT * FROM customers ORDER BY id", StreamingQuery.DEFAULT_FETCH_SIZE,
+                                      CustomerDao::mapCustomer, action);
+    }
+    
+    /**
+     * Opens a stream over every customer in id order, fetched through a
+     * server-side cursor. The stream holds a connection until it is closed,
+     * so always use it in a try-with-resources block.
+     * 
+     * @return A stream of customers
+     * @throws SQLException If the query cannot be started
+     */
+    public Stream<Customer> streamCustomers() throws SQLException {
+        return StreamingQuery.stream("SELECT * FROM customers ORDER BY id", StreamingQuery.DEFAULT_FETCH_SIZE,
+                                     CustomerDao::mapCustomer);
+    }
     
     /**
      * Gets a customer with all their orders
@@ -301,15 +370,14 @@ public class CustomerDao {
      * @return The customer with orders loaded
      */
     public Customer getCustomerWithOrders(int customerId) {
-        try {
-            // First get the customer
-            Customer customer = findCustomerById(customerId);
-            if (customer == null) {
-                return null;
-            }
-            
-            // Then get their orders
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        // First get the customer
+        Customer customer = findCustomerById(customerId);
+        if (customer == null) {
+            return null;
+        }
+        
+        // Then get their orders
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM orders WHERE customer_id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, customerId);
@@ -332,7 +400,6 @@ public class CustomerDao {
             }
             
             customer.setOrders(orderList);
-            con.close();
             return customer;
             
         } catch (Exception ex) {
@@ -348,14 +415,13 @@ public class CustomerDao {
      * @return Number of rows affected
      */
     public int deleteCustomer(int customerId) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "DELETE FROM customers WHERE id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, customerId);
             
             int rowsAffected = pst.executeUpdate();
-            con.close();
+            CACHE.invalidate(customerId);
             return rowsAffected;
             
         } catch (Exception ex) {
@@ -363,4 +429,24 @@ public class CustomerDao {
             return 0;
         }
     }
+    
+    /**
+     * Maps the current result set row to a Customer
+     * 
+     * @param rs The result set positioned on the row to map
+     * @return The customer
+     * @throws SQLException If a column cannot be read
+     */
+    private static Customer mapCustomer(ResultSet rs) throws SQLException {
+        Customer customer = new Customer();
+        customer.setId(rs.getInt("id"));
+        customer.setCustomerId(rs.getString("customer_id"));
+        customer.setFirstName(rs.getString("first_name"));
+        customer.setLastName(rs.getString("last_name"));
+        customer.setEmail(rs.getString("email"));
+        customer.setPhone(rs.getString("phone"));
+        customer.setAddress(rs.getString("address"));
+        customer.setRegistrationDate(rs.getDate("registration_date").toLocalDate());
+        return customer;
+    }
 }
\ No newline at end of file
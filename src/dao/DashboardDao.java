@@ -0,0 +1,259 @@
+package dao;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import model.CategorySales;
+import model.DashboardSummary;
+import model.Order;
+import util.LogUtil;
+
+/**
+ * Data Access Object for dashboard figures.
+ * Order and payment figures are read from rollup tables that OrderDao and
+ * PaymentDao keep up to date in the same transaction as each write (see
+ * MetricsRollup), so loading the dashboard does not scan the orders or
+ * payments tables. Sales per category are read from a materialized view
+ * that is refreshed in the background.
+ */
+public class DashboardDao {
+    /**
+     * Name of the category sales view, as reported in change events when it is refreshed
+     */
+    public static final String CATEGORY_SALES_VIEW = MetricsRollup.CATEGORY_SALES_VIEW;
+    
+    private static ScheduledExecutorService refreshScheduler;
+    private static ScheduledFuture<?> refreshTask;
+    
+    /**
+     * Recomputes the rollup tables from the orders, order items and payments.
+     * Use after changing orders or payments outside the application.
+     * 
+     * @return true if successful, false otherwise
+     */
+    public boolean rebuildRollups() {
+        Connection con = null;
+        try {
+            // Create connection
+            con = DbConnection.getInstance().getConnection();
+            
+            // Start transaction
+            con.setAutoCommit(false);
+            
+            long start = System.currentTimeMillis();
+            MetricsRollup.rebuild(con);
+            
+            // Commit transaction
+            con.commit();
+            
+            LogUtil.info("Dashboard rollups rebuilt in " + (System.currentTimeMillis() - start) + " ms");
+            return true;
+            
+        } catch (Exception ex) {
+            try {
+                // Rollback transaction on error
+                if (con != null) {
+                    con.rollback();
+                }
+            } catch (Exception rollbackEx) {
+                rollbackEx.printStackTrace();
+            }
+            
+            LogUtil.error("Error rebuilding dashboard rollups", ex);
+            return false;
+        } finally {
+            try {
+                if (con != null) {
+                    con.setAutoCommit(true);
+                    con.close();
+                }
+            } catch (Exception closeEx) {
+                closeEx.printStackTrace();
+            }
+        }
+    }
+    
+    /**
+     * Gets the headline dashboard figures in a single query
+     * 
+     * @param newCustomersSince Customers registered on or after this date count as new
+     * @param lowStockThreshold Products with less stock than this count as low on stock
+     * @return The summary, or null if the query failed
+     */
+    public DashboardSummary getSummary(LocalDate newCustomersSince, int lowStockThreshold) {
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            String sql = "SELECT o.total_orders, o.total_sales, " +
+                         "COALESCE(ROUND(o.total_sales / NULLIF(o.total_orders, 0), 2), 0) AS average_order_value, " +
+                         "o.pending_orders, " +
+                         "(SELECT COALESCE(SUM(total_amount), 0) FROM payment_daily_rollup) AS total_payments, " +
+                         "(SELECT COUNT(*) FROM customers WHERE registration_date >= ?) AS new_customers, " +
+                         "(SELECT COUNT(*) FROM suppliers) AS total_suppliers, " +
+                         "(SELECT COUNT(*) FROM products WHERE stock_quantity < ?) AS low_stock_items " +
+                         "FROM (SELECT COALESCE(SUM(order_count), 0) AS total_orders, " +
+                         "COALESCE(SUM(total_amount), 0) AS total_sales, " +
+                         "COALESCE(SUM(order_count) FILTER (WHERE status = ?), 0) AS pending_orders " +
+                         "FROM order_daily_rollup) o";
+            PreparedStatement pst = con.prepareStatement(sql);
+            pst.setDate(1, java.sql.Date.valueOf(newCustomersSince));
+            pst.setInt(2, lowStockThreshold);
+            pst.setString(3, Order.STATUS_PENDING);
+            
+            ResultSet rs = pst.executeQuery();
+            DashboardSummary summary = new DashboardSummary();
+            if (rs.next()) {
+                summary.setTotalOrders(rs.getInt("total_orders"));
+                summary.setTotalSales(rs.getBigDecimal("total_sales"));
+                summary.setAverageOrderValue(rs.getBigDecimal("average_order_value"));
+                summary.setPendingOrders(rs.getInt("pending_orders"));
+                summary.setTotalPayments(rs.getBigDecimal("total_payments"));
+                summary.setNewCustomers(rs.getInt("new_customers"));
+                summary.setTotalSuppliers(rs.getInt("total_suppliers"));
+                summary.setLowStockItems(rs.getInt("low_stock_items"));
+            }
+            return summary;
+            
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return null;
+        }
+    }
+    
+    /**
+     * Gets the order totals of the most recent months, including the current
+     * month. Months without orders are included with a total of zero.
+     * 
+     * @param months The number of months
+     * @return Sales per month, oldest first
+     */
+    public Map<YearMonth, BigDecimal> getMonthlySales(int months) {
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            // A few rollup rows per day and status, however many orders there are
+            String sql = "SELECT m.month, COALESCE(SUM(r.total_amount), 0) AS sales " +
+                         "FROM generate_series(date_trunc('month', CURRENT_DATE) - make_interval(months => ?), " +
+                         "date_trunc('month', CURRENT_DATE), INTERVAL '1 month') AS m(month) " +
+                         "LEFT JOIN order_daily_rollup r ON r.day >= m.month::date " +
+                         "AND r.day < (m.month + INTERVAL '1 month')::date " +
+                         "GROUP BY m.month ORDER BY m.month";
+            PreparedStatement pst = con.prepareStatement(sql);
+            pst.setInt(1, Math.max(months, 1) - 1);
+            
+            ResultSet rs = pst.executeQuery();
+            Map<YearMonth, BigDecimal> monthlySales = new LinkedHashMap<>();
+            
+            while (rs.next()) {
+                YearMonth month = YearMonth.from(rs.getDate("month").toLocalDate());
+                monthlySales.put(month, rs.getBigDecimal("sales"));
+            }
+            
+            return monthlySales;
+            
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return Collections.emptyMap();
+        }
+    }
+    
+    /**
+     * Gets the units sold and revenue per product category from the
+     * category sales materialized view. The figures are as of the last
+     * refresh; see refreshCategorySales.
+     * 
+     * @return Sales per category, highest revenue first; products without a category are grouped as "Uncategorized"
+     */
+    public List<CategorySales> getCategorySales() {
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            String sql = "SELECT category, units_sold, revenue, order_count FROM " + MetricsRollup.CATEGORY_SALES_VIEW +
+                         " WHERE units_sold > 0 ORDER BY revenue DESC, category";
+            PreparedStatement pst = con.prepareStatement(sql);
+            
+            ResultSet rs = pst.executeQuery();
+            List<CategorySales> categorySales = new ArrayList<>();
+            
+            while (rs.next()) {
+                categorySales.add(new CategorySales(
+                    rs.getString("category"),
+                    rs.getLong("units_sold"),
+                    rs.getBigDecimal("revenue"),
+                    rs.getInt("order_count")
+                ));
+            }
+            
+            return categorySales;
+            
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return Collections.emptyList();
+        }
+    }
+    
+    /**
+     * Refreshes the category sales materialized view from the order items.
+     * Readers are not blocked while the view is refreshed. If another client
+     * is already refreshing the view, this call returns without waiting.
+     * 
+     * @return true if the view was refreshed, false if it was skipped or failed
+     */
+    public boolean refreshCategorySales() {
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            // Session advisory lock so that several clients do not queue up refreshes of the same view
+            PreparedStatement pst = con.prepareStatement("SELECT pg_try_advisory_lock(hashtext(?))");
+            pst.setString(1, MetricsRollup.CATEGORY_SALES_VIEW);
+            ResultSet rs = pst.executeQuery();
+            boolean locked = rs.next() && rs.getBoolean(1);
+            rs.close();
+            if (!locked) {
+                return false;
+            }
+            
+            try {
+                long start = System.currentTimeMillis();
+                MetricsRollup.refreshCategorySales(con);
+                ChangeNotifier.notifyChange(con, MetricsRollup.CATEGORY_SALES_VIEW, "REFRESH");
+                LogUtil.info("Category sales view refreshed in " + (System.currentTimeMillis() - start) + " ms");
+                return true;
+            } finally {
+                pst = con.prepareStatement("SELECT pg_advisory_unlock(hashtext(?))");
+                pst.setString(1, MetricsRollup.CATEGORY_SALES_VIEW);
+                pst.executeQuery().close();
+            }
+            
+        } catch (Exception ex) {
+            LogUtil.error("Error refreshing category sales view", ex);
+            return false;
+        }
+    }
+    
+    /**
+     * Refreshes the category sales view in the background at a fixed delay.
+     * Calling this again replaces the previous schedule.
+     * 
+     * @param delayMinutes Minutes between the end of one refresh and the start of the next
+     */
+    public static synchronized void scheduleCategorySalesRefresh(long delayMinutes) {
+        if (refreshScheduler == null) {
+            refreshScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "category-sales-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        if (refreshTask != null) {
+            refreshTask.cancel(false);
+        }
+        DashboardDao dashboardDao = new DashboardDao();
+        refreshTask = refreshScheduler.scheduleWithFixedDelay(dashboardDao::refreshCategorySales,
+                                                              delayMinutes, delayMinutes, TimeUnit.MINUTES);
+    }
+}
\ No newline at end of file
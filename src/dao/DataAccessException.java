@@ -0,0 +1,18 @@
+package dao;
+
+/**
+ * Unchecked wrapper for SQL errors raised where a checked exception cannot
+ * be thrown, such as while a Stream returned by a DAO is being consumed.
+ */
+public class DataAccessException extends RuntimeException {
+    
+    /**
+     * Creates the exception
+     * 
+     * @param message The error message
+     * @param cause The underlying SQL error
+     */
+    public DataAccessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
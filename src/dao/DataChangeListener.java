@@ -0,0 +1,17 @@
+package dao;
+
+/**
+ * Receives the changes reported by ChangeNotifier.
+ * Called on the notifier's background thread, so implementations should
+ * only record the change and do any real work elsewhere.
+ */
+@FunctionalInterface
+public interface DataChangeListener {
+    
+    /**
+     * Called after a change to an application table was committed
+     * 
+     * @param event The change
+     */
+    void onDataChange(ChangeEvent event);
+}
\ No newline at end of file
@@ -1,41 +1,37 @@
 package dao;
 
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
 
 import util.LogUtil;
 
 /**
  * Manages database connections with connection pooling.
  * Singleton pattern is used to ensure only one connection pool exists.
+ * 
+ * All DAOs obtain their connections here. The actual connection source is a
+ * ConnectionProvider chosen by db.poolMode in database.properties: "pooled"
+ * (the default) uses ConnectionPool, "direct" opens a connection per call.
+ * Always close the returned connection; for pooled connections that hands
+ * the connection back to the pool.
  */
 public class DbConnection {
     private static DbConnection instance;
-    private BlockingQueue<Connection> connectionPool;
-    private final String url;
-    private final String user;
-    private final String password;
-    private final int maxPoolSize;
+    private final ConnectionProvider provider;
+    private final PoolConfig config;
     
     /**
      * Private constructor to prevent direct instantiation
      * 
-     * @param url Database URL
-     * @param user Database username
-     * @param password Database password
-     * @param maxPoolSize Maximum number of connections in the pool
+     * @param provider The provider that supplies connections
+     * @param config The connection configuration
      */
-    private DbConnection(String url, String user, String password, int maxPoolSize) {
-        this.url = url;
-        this.user = user;
-        this.password = password;
-        this.maxPoolSize = maxPoolSize;
-        this.connectionPool = new ArrayBlockingQueue<>(maxPoolSize);
-        initializeConnectionPool();
+    private DbConnection(ConnectionProvider provider, PoolConfig config) {
+        this.provider = provider;
+        this.config = config;
     }
     
     /**
@@ -45,61 +41,77 @@ public class DbConnection {
      */
     public static synchronized DbConnection getInstance() {
         if (instance == null) {
-            // Default configuration for PostgreSQL
-            String url = "jdbc:postgresql://localhost:5432/business_db";
-            String user = "postgres";
-            String password = "postgres";
-            int maxPoolSize = 10;
-           
-            // Read properties from file if available
-            Properties props = new Properties();
-            try {
-                props.load(DbConnection.class.getClassLoader().getResourceAsStream("database.properties"));
-                url = props.getProperty("db.url", url);
-                user = props.getProperty("db.user", user);
-                password = props.getProperty("db.password", password);
-                maxPoolSize = Integer.parseInt(props.getProperty("db.maxPoolSize", "10"));
-            } catch (Exception e) {
-                LogUtil.error("Failed to load database properties. Using defaults.", e);
-            }
-            
-            instance = new DbConnection(url, user, password, maxPoolSize);
+            instance = create(loadConfig());
         }
         return instance;
     }
     
     /**
-     * Initializes the connection pool with connections
+     * Replaces the singleton with one connected as the given properties say,
+     * closing the connections of the current one. Used by the tests to run
+     * against a dedicated test database.
+     * 
+     * @param props Properties in the format of database.properties
      */
-    private void initializeConnectionPool() {
+    static synchronized void configure(Properties props) {
+        if (instance != null) {
+            instance.closeAllConnections();
+        }
+        instance = create(PoolConfig.fromProperties(props));
+    }
+    
+    /**
+     * Creates the connection provider for a configuration
+     * 
+     * @param config The connection configuration
+     * @return The new DbConnection
+     */
+    private static DbConnection create(PoolConfig config) {
         try {
             // Load the JDBC driver
             Class.forName("org.postgresql.Driver");
-            
-            // Create connections and add to the pool
-            for (int i = 0; i < maxPoolSize; i++) {
-                Connection connection = createConnection();
-                if (connection != null) {
-                    connectionPool.offer(connection);
-                }
-            }
         } catch (ClassNotFoundException e) {
             LogUtil.error("PostgreSQL JDBC driver not found", e);
             throw new RuntimeException("PostgreSQL JDBC driver not found", e);
         }
+        
+        ConnectionProvider provider;
+        if (PoolConfig.MODE_DIRECT.equals(config.getPoolMode())) {
+            provider = new DirectConnectionProvider(config);
+        } else {
+            provider = new ConnectionPool(config);
+        }
+        LogUtil.info("Database connections provided by " + provider.getClass().getSimpleName() +
+                     " (maxPoolSize=" + config.getMaxPoolSize() + ", minIdle=" + config.getMinIdle() + ")");
+        return new DbConnection(provider, config);
     }
     
     /**
-     * Creates a new database connection
+     * Reads database.properties from the classpath if available
      * 
-     * @return A new Connection object
-     * @throws SQLException If a database access error occurs
+     * @return The connection configuration
      */
-    private Connection createConnection() {
-        try {
-            return DriverManager.getConnection(url, user, password);
-        } catch (SQLException e) {
-            LogUtil.error("Failed to create database connection", e);
+    private static PoolConfig loadConfig() {
+        Properties props = loadProperties();
+        return props != null ? PoolConfig.fromProperties(props) : new PoolConfig();
+    }
+    
+    /**
+     * Reads database.properties from the classpath
+     * 
+     * @return The properties, or null if the file is missing or cannot be read
+     */
+    static Properties loadProperties() {
+        Properties props = new Properties();
+        try (InputStream in = DbConnection.class.getClassLoader().getResourceAsStream("database.properties")) {
+            if (in == null) {
+                LogUtil.info("No database.properties found. Using default database settings.");
+                return null;
+            }
+            props.load(in);
+            return props;
+        } catch (Exception e) {
+            LogUtil.error("Failed to load database properties. Using defaults.", e);
             return null;
         }
     }
@@ -108,61 +120,39 @@ public class DbConnection {
      * Gets a connection from the pool
      * 
      * @return A database connection
-     * @throws SQLException If a database access error occurs
+     * @throws SQLException If a database access error occurs or no connection becomes available in time
      */
     public Connection getConnection() throws SQLException {
-        try {
-            Connection connection = connectionPool.poll();
-            if (connection == null || connection.isClosed()) {
-                connection = createConnection();
-            }
-            return connection;
-        } catch (SQLException e) {
-            LogUtil.error("Failed to get database connection from pool", e);
-            throw e;
-        }
+        return provider.getConnection();
     }
     
     /**
-     * Returns a connection to the pool
+     * Opens a physical connection that is not part of the pool, for long
+     * lived sessions such as LISTEN that would otherwise hold a pooled
+     * connection forever. The caller must close it.
      * 
-     * @param connection The connection to return
+     * @return A new database connection
+     * @throws SQLException If a database access error occurs
      */
-    public void releaseConnection(Connection connection) {
-        if (connection != null) {
-            try {
-                if (connection.isClosed()) {
-                    // Replace with a new connection
-                    connectionPool.offer(createConnection());
-                } else {
-                    // Reset auto-commit to default state
-                    if (!connection.getAutoCommit()) {
-                        connection.setAutoCommit(true);
-                    }
-                    connectionPool.offer(connection);
-                }
-            } catch (SQLException e) {
-                LogUtil.error("Failed to release connection back to pool", e);
-                // Try to create a replacement connection
-                connectionPool.offer(createConnection());
-            }
-        }
+    public Connection openDedicatedConnection() throws SQLException {
+        return DriverManager.getConnection(config.getUrl(), config.getUser(), config.getPassword());
+    }
+    
+    /**
+     * Gets a snapshot of the connection metrics, including the acquire
+     * wait time histogram
+     * 
+     * @return The current pool statistics
+     */
+    public PoolStats getPoolStats() {
+        return provider.getPoolStats();
     }
     
     /**
      * Closes all connections in the pool
      */
     public void closeAllConnections() {
-        try {
-            for (Connection connection : connectionPool) {
-                if (connection != null && !connection.isClosed()) {
-                    connection.close();
-                }
-            }
-            connectionPool.clear();
-            LogUtil.info("All database connections have been closed");
-        } catch (SQLException e) {
-            LogUtil.error("Failed to close all connections", e);
-        }
+        provider.close();
+        LogUtil.info("All database connections have been closed");
     }
-}
\ No newline at end of file
+}
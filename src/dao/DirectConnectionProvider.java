@@ -0,0 +1,58 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import util.LogUtil;
+
+/**
+ * Opens a new physical connection for every request.
+ * Selected with db.poolMode=direct; useful for troubleshooting and as a
+ * baseline when comparing against the pooled provider.
+ */
+public class DirectConnectionProvider implements ConnectionProvider {
+    private final PoolConfig config;
+    private final WaitTimeHistogram waitHistogram = new WaitTimeHistogram();
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    
+    /**
+     * Creates the provider
+     * 
+     * @param config The connection configuration
+     */
+    public DirectConnectionProvider(PoolConfig config) {
+        this.config = config;
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            Connection connection = DriverManager.getConnection(config.getUrl(), config.getUser(), config.getPassword());
+            long waitNanos = System.nanoTime() - start;
+            acquireCount.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+            waitHistogram.record(waitNanos);
+            return connection;
+        } catch (SQLException e) {
+            LogUtil.error("Failed to create database connection", e);
+            throw e;
+        }
+    }
+    
+    @Override
+    public PoolStats getPoolStats() {
+        return new PoolStats(0, 0, 0, 0, acquireCount.get(), 0, totalWaitNanos.get(), maxWaitNanos.get(),
+                             acquireCount.get(), 0, 0, waitHistogram.snapshot(), 0, 0);
+    }
+    
+    @Override
+    public void close() {
+        // Connections are closed by their callers
+    }
+}
@@ -0,0 +1,203 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.IllegalFormatException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import util.LogUtil;
+
+/**
+ * Hands out order IDs, invoice numbers and payment IDs that are unique
+ * across all clients without a database round trip per number.
+ * 
+ * Each document type has a PostgreSQL sequence that increments by
+ * BLOCK_SIZE, so one nextval reserves a block of BLOCK_SIZE numbers for
+ * this client (hi/lo). Numbers are taken from the current block with an
+ * AtomicLong; only the thread that exhausts a block fetches the next one.
+ * Numbers of a block that is not used up, e.g. when the application
+ * exits, are skipped, so the numbering has gaps but never duplicates.
+ * 
+ * The number is formatted with String.format, with the current date as
+ * argument 1 and the number as argument 2. The default formats can be
+ * replaced in database.properties with the keys number.order.format,
+ * number.invoice.format and number.payment.format.
+ */
+public class DocumentNumberGenerator {
+    /**
+     * Numbers reserved per sequence call; the sequences are created with
+     * this increment, so changing it needs a migration that alters them
+     */
+    static final int BLOCK_SIZE = 50;
+    
+    /**
+     * The kinds of documents that are numbered
+     */
+    public enum DocumentType {
+        ORDER("order_number_seq", "number.order.format", "ORD-%1$tY-%2$06d"),
+        INVOICE("invoice_number_seq", "number.invoice.format", "INV-%1$tY-%2$06d"),
+        PAYMENT("payment_number_seq", "number.payment.format", "PAY-%1$tY-%2$06d");
+        
+        private final String sequence;
+        private final String formatKey;
+        private final String defaultFormat;
+        
+        DocumentType(String sequence, String formatKey, String defaultFormat) {
+            this.sequence = sequence;
+            this.formatKey = formatKey;
+            this.defaultFormat = defaultFormat;
+        }
+        
+        public String getSequence() {
+            return sequence;
+        }
+        
+        public String getDefaultFormat() {
+            return defaultFormat;
+        }
+    }
+    
+    private static DocumentNumberGenerator instance;
+    
+    // Filled once in the constructor, read-only afterwards
+    private final Map<DocumentType, Counter> counters = new EnumMap<>(DocumentType.class);
+    
+    /**
+     * Private constructor for singleton pattern
+     */
+    private DocumentNumberGenerator() {
+        Properties props = DbConnection.loadProperties();
+        for (DocumentType type : DocumentType.values()) {
+            counters.put(type, new Counter(type.defaultFormat));
+            String format = props != null ? props.getProperty(type.formatKey) : null;
+            if (format != null) {
+                try {
+                    setFormat(type, format.trim());
+                } catch (IllegalArgumentException e) {
+                    LogUtil.warning("Ignoring " + type.formatKey + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Gets the singleton instance
+     * 
+     * @return The DocumentNumberGenerator instance
+     */
+    public static synchronized DocumentNumberGenerator getInstance() {
+        if (instance == null) {
+            instance = new DocumentNumberGenerator();
+        }
+        return instance;
+    }
+    
+    /**
+     * Gets the next number of a document type, formatted
+     * 
+     * @param type The document type
+     * @return The formatted number, e.g. INV-2026-000051
+     * @throws DataAccessException If a new block of numbers cannot be reserved
+     */
+    public String next(DocumentType type) {
+        long number = nextNumber(type);
+        return String.format(counters.get(type).format, LocalDate.now(), number);
+    }
+    
+    /**
+     * Gets the next raw number of a document type
+     * 
+     * @param type The document type
+     * @return The number, unique among all clients
+     * @throws DataAccessException If a new block of numbers cannot be reserved
+     */
+    public long nextNumber(DocumentType type) {
+        AtomicReference<Block> current = counters.get(type).block;
+        while (true) {
+            Block block = current.get();
+            long number = block.next.getAndIncrement();
+            if (number < block.end) {
+                return number;
+            }
+            
+            // The block is used up; the first thread to get here reserves the next one
+            synchronized (current) {
+                if (current.get() == block) {
+                    current.set(reserve(type));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Replaces the format of a document type
+     * 
+     * @param type The document type
+     * @param format A String.format pattern; argument 1 is the date, argument 2 the number
+     * @throws IllegalArgumentException If the pattern cannot format a date and a number
+     */
+    public void setFormat(DocumentType type, String format) {
+        try {
+            String.format(format, LocalDate.now(), 1L);
+        } catch (IllegalFormatException e) {
+            throw new IllegalArgumentException("Invalid number format \"" + format + "\": " + e.getMessage(), e);
+        }
+        counters.get(type).format = format;
+    }
+    
+    /**
+     * Reserves the next block of numbers from the type's sequence
+     * 
+     * @param type The document type
+     * @return The new block
+     * @throws DataAccessException If the sequence cannot be read
+     */
+    private static Block reserve(DocumentType type) {
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            PreparedStatement pst = con.prepareStatement("SELECT nextval(?)");
+            pst.setString(1, type.sequence);
+            ResultSet rs = pst.executeQuery();
+            rs.next();
+            long first = rs.getLong(1);
+            rs.close();
+            pst.close();
+            return new Block(first, first + BLOCK_SIZE);
+            
+        } catch (SQLException ex) {
+            throw new DataAccessException("Failed to reserve " + type.name().toLowerCase() + " numbers", ex);
+        }
+    }
+    
+    /**
+     * The current block and format of one document type
+     */
+    private static final class Counter {
+        private final AtomicReference<Block> block = new AtomicReference<>(Block.EMPTY);
+        private volatile String format;
+        
+        private Counter(String format) {
+            this.format = format;
+        }
+    }
+    
+    /**
+     * A reserved range of numbers, from next inclusive to end exclusive
+     */
+    private static final class Block {
+        private static final Block EMPTY = new Block(0, 0);
+        
+        private final AtomicLong next;
+        private final long end;
+        
+        private Block(long first, long end) {
+            this.next = new AtomicLong(first);
+            this.end = end;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,198 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Read-through cache of entities by database ID, shared by all instances
+ * of a DAO.
+ * Holds at most maxSize entries and drops the least recently used one when
+ * full. The owning DAO invalidates an entry after every write to its
+ * row, and changes made by other clients are applied through
+ * ChangeNotifier (see invalidateOnChanges). Entries also expire after a
+ * fixed time, which bounds staleness while notifications are not arriving.
+ * 
+ * Entities are mutable, so the cache stores and hands out copies; callers
+ * may change what they get without affecting other callers.
+ * 
+ * @param <T> The entity type
+ */
+public class EntityCache<T> {
+    private static final List<EntityCache<?>> CACHES = new CopyOnWriteArrayList<>();
+    
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final UnaryOperator<T> copier;
+    
+    // Least recently used first
+    private final Map<Integer, CachedValue<T>> entries;
+    
+    // Incremented by every invalidation; a load that started before an
+    // invalidation may have read the old row and is not cached
+    private long generation;
+    
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong expiredCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+    
+    /**
+     * Creates a cache and registers it for getAllStats
+     * 
+     * @param name The name shown in the statistics, usually the table name
+     * @param maxSize The maximum number of entries
+     * @param ttl How long an entry is served before it is loaded again
+     * @param unit The unit of ttl
+     * @param copier Makes an independent copy of an entity
+     */
+    EntityCache(String name, int maxSize, long ttl, TimeUnit unit, UnaryOperator<T> copier) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.copier = copier;
+        this.entries = new LinkedHashMap<Integer, CachedValue<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedValue<T>> eldest) {
+                if (size() > EntityCache.this.maxSize) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        CACHES.add(this);
+    }
+    
+    /**
+     * Gets an entity from the cache, loading and caching it on a miss.
+     * The loader runs without holding the cache lock; entities that do not
+     * exist are not cached.
+     * 
+     * @param id The database ID
+     * @param loader Loads the entity from the database, returning null if it does not exist
+     * @return A copy of the entity, or null if it does not exist
+     */
+    T get(int id, IntFunction<T> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            CachedValue<T> entry = entries.get(id);
+            if (entry != null) {
+                if (entry.expiresAt - System.nanoTime() > 0) {
+                    hitCount.incrementAndGet();
+                    return copier.apply(entry.value);
+                }
+                entries.remove(id);
+                expiredCount.incrementAndGet();
+            }
+            loadGeneration = generation;
+        }
+        
+        missCount.incrementAndGet();
+        T value = loader.apply(id);
+        if (value != null) {
+            T cached = copier.apply(value);
+            synchronized (this) {
+                if (loadGeneration == generation) {
+                    entries.put(id, new CachedValue<>(cached, System.nanoTime() + ttlNanos));
+                }
+            }
+        }
+        return value;
+    }
+    
+    /**
+     * Removes an entity after its row was changed or deleted
+     * 
+     * @param id The database ID
+     */
+    synchronized void invalidate(int id) {
+        generation++;
+        if (entries.remove(id) != null) {
+            invalidationCount.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Removes several entities after their rows were changed
+     * 
+     * @param ids The database IDs
+     */
+    synchronized void invalidate(Iterable<Integer> ids) {
+        for (Integer id : ids) {
+            invalidate(id);
+        }
+    }
+    
+    /**
+     * Removes every entity, e.g. after a bulk change to the table
+     */
+    synchronized void invalidateAll() {
+        generation++;
+        invalidationCount.addAndGet(entries.size());
+        entries.clear();
+    }
+    
+    /**
+     * Gets a snapshot of the metrics of this cache
+     * 
+     * @return The current statistics
+     */
+    public synchronized CacheStats getStats() {
+        return new CacheStats(name, entries.size(), maxSize, hitCount.get(), missCount.get(),
+                              evictionCount.get(), expiredCount.get(), invalidationCount.get());
+    }
+    
+    /**
+     * Gets the metrics of every entity cache
+     * 
+     * @return One snapshot per cache
+     */
+    public static List<CacheStats> getAllStats() {
+        List<CacheStats> stats = new ArrayList<>();
+        for (EntityCache<?> cache : CACHES) {
+            stats.add(cache.getStats());
+        }
+        return stats;
+    }
+    
+    /**
+     * Keeps every entity cache in step with changes made by other clients.
+     * Entries are dropped as soon as ChangeNotifier reports a change to
+     * their row; the TTL only matters while the notifications are down.
+     */
+    public static void invalidateOnChanges() {
+        ChangeNotifier.getInstance().addListener(EntityCache::applyChange);
+    }
+    
+    private static void applyChange(ChangeEvent event) {
+        for (EntityCache<?> cache : CACHES) {
+            if (!event.affects(cache.name)) {
+                continue;
+            }
+            if (event.isAllRows()) {
+                cache.invalidateAll();
+            } else {
+                cache.invalidate(event.getIds());
+            }
+        }
+    }
+    
+    private static final class CachedValue<T> {
+        private final T value;
+        private final long expiresAt;
+        
+        private CachedValue(T value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,92 @@
+package dao;
+
+import java.io.File;
+
+/**
+ * Outcome of a BulkImportDao run
+ */
+public class ImportResult {
+    private final ImportTarget target;
+    private final File rejectFile;
+    private long rowsRead;
+    private long rowsCopied;
+    private long rowsInserted;
+    private long rowsRejected;
+    private long elapsedMillis;
+    
+    ImportResult(ImportTarget target, File rejectFile) {
+        this.target = target;
+        this.rejectFile = rejectFile;
+    }
+    
+    void addRead(long rows) {
+        rowsRead += rows;
+    }
+    
+    void addCopied(long rows) {
+        rowsCopied += rows;
+    }
+    
+    void addInserted(long rows) {
+        rowsInserted += rows;
+    }
+    
+    void addRejected(long rows) {
+        rowsRejected += rows;
+    }
+    
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+    
+    // Getters
+    public ImportTarget getTarget() {
+        return target;
+    }
+    
+    public File getRejectFile() {
+        return rejectFile;
+    }
+    
+    public long getRowsRead() {
+        return rowsRead;
+    }
+    
+    /**
+     * Gets the number of rows loaded with COPY
+     * 
+     * @return Rows loaded with COPY
+     */
+    public long getRowsCopied() {
+        return rowsCopied;
+    }
+    
+    /**
+     * Gets the number of rows loaded with INSERT statements
+     * (COPY unavailable or failed for their chunk)
+     * 
+     * @return Rows loaded with INSERT
+     */
+    public long getRowsInserted() {
+        return rowsInserted;
+    }
+    
+    public long getRowsImported() {
+        return rowsCopied + rowsInserted;
+    }
+    
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+    
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return "Imported " + getRowsImported() + " of " + rowsRead + " " + target.getTable() +
+               " rows (" + rowsCopied + " via COPY, " + rowsInserted + " via INSERT, " +
+               rowsRejected + " rejected) in " + elapsedMillis + " ms";
+    }
+}
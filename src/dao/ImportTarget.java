@@ -0,0 +1,191 @@
+package dao;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import util.DateUtil;
+import util.ValidationUtil;
+
+/**
+ * Tables supported by BulkImportDao.
+ * Each target knows its columns (in file order when the input has no header)
+ * and turns one row of text fields into typed column values, applying the
+ * same rules as the corresponding form view.
+ */
+public enum ImportTarget {
+    CUSTOMERS("customers", "customer_id", "first_name", "last_name", "email", "phone", "address", "registration_date") {
+        @Override
+        Object[] parse(String[] fields) {
+            String customerId = required(fields, 0, "Customer ID");
+            if (!ValidationUtil.validateAlphanumeric(customerId)) {
+                throw new IllegalArgumentException("Customer ID may only contain letters and numbers");
+            }
+            String email = required(fields, 3, "Email");
+            if (!ValidationUtil.validateEmail(email)) {
+                throw new IllegalArgumentException("Invalid email format");
+            }
+            LocalDate registrationDate = optionalDate(fields, 6, "Registration date");
+            if (registrationDate == null) {
+                registrationDate = LocalDate.now();
+            } else if (!ValidationUtil.validateNotFuture(registrationDate)) {
+                throw new IllegalArgumentException("Registration date cannot be in the future");
+            }
+            return new Object[] {
+                customerId,
+                required(fields, 1, "First name"),
+                required(fields, 2, "Last name"),
+                email,
+                optional(fields, 4),
+                optional(fields, 5),
+                Date.valueOf(registrationDate)
+            };
+        }
+    },
+    
+    PRODUCTS("products", "product_code", "name", "description", "price", "stock_quantity", "category", "supplier_id") {
+        @Override
+        Object[] parse(String[] fields) {
+            String productCode = code(fields, 0, "Product code");
+            BigDecimal price = decimal(fields, 3, "Price");
+            if (!ValidationUtil.validatePositive(price)) {
+                throw new IllegalArgumentException("Price must be greater than zero");
+            }
+            Integer stockQuantity = optionalInteger(fields, 4, "Stock quantity");
+            if (stockQuantity == null) {
+                stockQuantity = 0;
+            } else if (!ValidationUtil.validateNonNegative(stockQuantity)) {
+                throw new IllegalArgumentException("Stock quantity cannot be negative");
+            }
+            Integer supplierId = optionalInteger(fields, 6, "Supplier ID");
+            if (supplierId != null && !ValidationUtil.validatePositive(supplierId)) {
+                throw new IllegalArgumentException("Supplier ID must be greater than zero");
+            }
+            return new Object[] {
+                productCode,
+                required(fields, 1, "Product name"),
+                optional(fields, 2),
+                price,
+                stockQuantity,
+                optional(fields, 5),
+                supplierId
+            };
+        }
+    },
+    
+    SUPPLIERS("suppliers", "supplier_code", "name", "contact_person", "email", "phone", "address") {
+        @Override
+        Object[] parse(String[] fields) {
+            String supplierCode = code(fields, 0, "Supplier code");
+            String email = optional(fields, 3);
+            if (email != null && !ValidationUtil.validateEmail(email)) {
+                throw new IllegalArgumentException("Invalid email format");
+            }
+            return new Object[] {
+                supplierCode,
+                required(fields, 1, "Supplier name"),
+                optional(fields, 2),
+                email,
+                optional(fields, 4),
+                optional(fields, 5)
+            };
+        }
+    };
+    
+    private final String table;
+    private final String[] columns;
+    
+    ImportTarget(String table, String... columns) {
+        this.table = table;
+        this.columns = columns;
+    }
+    
+    /**
+     * Converts and validates one row
+     * 
+     * @param fields The text fields, in column order
+     * @return The typed column values (String, BigDecimal, Integer, java.sql.Date or null)
+     * @throws IllegalArgumentException If the row is invalid; the message is the reject reason
+     */
+    abstract Object[] parse(String[] fields);
+    
+    public String getTable() {
+        return table;
+    }
+    
+    public String[] getColumns() {
+        return columns.clone();
+    }
+    
+    /**
+     * Gets the position of a column
+     * 
+     * @param column The column name, case insensitive
+     * @return The column index, or -1 if the target has no such column
+     */
+    public int indexOf(String column) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equalsIgnoreCase(column.trim())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    static String optional(String[] fields, int index) {
+        if (index >= fields.length || ValidationUtil.isNullOrEmpty(fields[index])) {
+            return null;
+        }
+        return fields[index].trim();
+    }
+    
+    static String required(String[] fields, int index, String label) {
+        String value = optional(fields, index);
+        if (value == null) {
+            throw new IllegalArgumentException(label + " is required");
+        }
+        return value;
+    }
+    
+    static String code(String[] fields, int index, String label) {
+        String value = required(fields, index, label);
+        if (!ValidationUtil.validateAlphanumeric(value.replace("-", ""))) {
+            throw new IllegalArgumentException(label + " may only contain letters, numbers, and hyphens");
+        }
+        return value;
+    }
+    
+    static BigDecimal decimal(String[] fields, int index, String label) {
+        String value = required(fields, index, label);
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + label.toLowerCase() + " format: " + value);
+        }
+    }
+    
+    private static Integer optionalInteger(String[] fields, int index, String label) {
+        String value = optional(fields, index);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + label.toLowerCase() + " format: " + value);
+        }
+    }
+    
+    static LocalDate optionalDate(String[] fields, int index, String label) {
+        String value = optional(fields, index);
+        if (value == null) {
+            return null;
+        }
+        try {
+            // DateUtil.parseDate logs every failure, which is too noisy for bulk input
+            return LocalDate.parse(value, DateUtil.DATE_FORMATTER);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid " + label.toLowerCase() + " format (expected yyyy-MM-dd): " + value);
+        }
+    }
+}
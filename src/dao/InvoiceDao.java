@@ -1,14 +1,17 @@
 package dao;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDate;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import model.Invoice;
 import model.Order;
 
@@ -16,9 +19,12 @@ import model.Order;
  * Data Access Object for Invoice operations.
  */
 public class InvoiceDao {
-    private String db_url = "jdbc:postgresql://localhost:5432/business_db";
-    private String db_username = "postgres";
-    private String db_passwd = "078868";
+    /**
+     * Matches invoices that are still to be paid. Written with literal
+     * statuses so the planner can use the partial index on due_date.
+     */
+    static final String OPEN_INVOICE_CONDITION =
+        "status NOT IN ('" + Invoice.STATUS_PAID + "', '" + Invoice.STATUS_CANCELLED + "')";
     
     /**
      * Creates a new invoice in the database
@@ -27,10 +33,7 @@ public class InvoiceDao {
      * @return Number of rows affected
      */
     public int createInvoice(Invoice invoice) {
-        try {
-            // Create connection
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             // Prepare statement
             String sql = "INSERT INTO invoices (invoice_number, order_id, issue_date, due_date, amount, status) " +
                          "VALUES (?, ?, ?, ?, ?, ?)";
@@ -55,8 +58,6 @@ public class InvoiceDao {
                 rs.close();
             }
             
-            // Close connection
-            con.close();
             return rowsAffected;
             
         } catch (Exception ex) {
@@ -72,10 +73,7 @@ public class InvoiceDao {
      * @return Number of rows affected
      */
     public int updateInvoice(Invoice invoice) {
-        try {
-            // Create connection
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             // Prepare statement
             String sql = "UPDATE invoices SET invoice_number = ?, order_id = ?, issue_date = ?, " +
                          "due_date = ?, amount = ?, status = ? WHERE id = ?";
@@ -92,8 +90,6 @@ public class InvoiceDao {
             // Execute statement
             int rowsAffected = pst.executeUpdate();
             
-            // Close connection
-            con.close();
             return rowsAffected;
             
         } catch (Exception ex) {
@@ -110,10 +106,7 @@ public class InvoiceDao {
      * @return Number of rows affected
      */
     public int updateInvoiceStatus(int invoiceId, String status) {
-        try {
-            // Create connection
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             // Prepare statement
             String sql = "UPDATE invoices SET status = ? WHERE id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
@@ -124,8 +117,6 @@ public class InvoiceDao {
             // Execute statement
             int rowsAffected = pst.executeUpdate();
             
-            // Close connection
-            con.close();
             return rowsAffected;
             
         } catch (Exception ex) {
@@ -141,8 +132,7 @@ public class InvoiceDao {
      * @return The invoice if found, null otherwise
      */
     public Invoice findInvoiceById(int id) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM invoices WHERE id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, id);
@@ -161,7 +151,6 @@ public class InvoiceDao {
                 invoice.setStatus(rs.getString("status"));
             }
             
-            con.close();
             return invoice;
             
         } catch (Exception ex) {
@@ -177,8 +166,7 @@ public class InvoiceDao {
      * @return The invoice if found, null otherwise
      */
     public Invoice findInvoiceByNumber(String invoiceNumber) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM invoices WHERE invoice_number = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setString(1, invoiceNumber);
@@ -197,7 +185,6 @@ public class InvoiceDao {
                 invoice.setStatus(rs.getString("status"));
             }
             
-            con.close();
             return invoice;
             
         } catch (Exception ex) {
@@ -213,8 +200,7 @@ public class InvoiceDao {
      * @return List of matching invoices
      */
     public List<Invoice> findInvoicesByOrderId(int orderId) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM invoices WHERE order_id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, orderId);
@@ -234,7 +220,6 @@ public class InvoiceDao {
                 invoiceList.add(invoice);
             }
             
-            con.close();
             return invoiceList;
             
         } catch (Exception ex) {
@@ -250,8 +235,7 @@ public class InvoiceDao {
      * @return List of matching invoices
      */
     public List<Invoice> findInvoicesByStatus(String status) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM invoices WHERE status = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setString(1, status);
@@ -271,7 +255,6 @@ public class InvoiceDao {
                 invoiceList.add(invoice);
             }
             
-            con.close();
             return invoiceList;
             
         } catch (Exception ex) {
@@ -286,13 +269,10 @@ public class InvoiceDao {
      * @return List of overdue invoices
      */
     public List<Invoice> findOverdueInvoices() {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            String sql = "SELECT * FROM invoices WHERE due_date < ? AND status != ? AND status != ?";
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            String sql = "SELECT * FROM invoices WHERE due_date < ? AND " + OPEN_INVOICE_CONDITION;
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setDate(1, java.sql.Date.valueOf(LocalDate.now()));
-            pst.setString(2, Invoice.STATUS_PAID);
-            pst.setString(3, Invoice.STATUS_CANCELLED);
             
             ResultSet rs = pst.executeQuery();
             List<Invoice> invoiceList = new ArrayList<>();
@@ -309,7 +289,6 @@ public class InvoiceDao {
                 invoiceList.add(invoice);
             }
             
-            con.close();
             return invoiceList;
             
         } catch (Exception ex) {
@@ -326,8 +305,7 @@ public class InvoiceDao {
      * @return List of matching invoices
      */
     public List<Invoice> findInvoicesByDateRange(LocalDate startDate, LocalDate endDate) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM invoices WHERE issue_date BETWEEN ? AND ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setDate(1, java.sql.Date.valueOf(startDate));
@@ -348,7 +326,6 @@ public class InvoiceDao {
                 invoiceList.add(invoice);
             }
             
-            con.close();
             return invoiceList;
             
         } catch (Exception ex) {
@@ -363,8 +340,7 @@ public class InvoiceDao {
      * @return List of all invoices
      */
     public List<Invoice> findAllInvoices() {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM invoices";
             PreparedStatement pst = con.prepareStatement(sql);
             
@@ -383,7 +359,6 @@ public class InvoiceDao {
                 invoiceList.add(invoice);
             }
             
-            con.close();
             return invoiceList;
             
         } catch (Exception ex) {
@@ -391,6 +366,56 @@ public class InvoiceDao {
             return Collections.emptyList();
         }
     }
+
+    /**
+     * Gets one page of invoices ordered by id.
+     * Pass 0 as afterId for the first page and the id of the last invoice
+     * of the previous page for the next one.
+     * 
+     * @param afterId Id of the last invoice on the previous page, or 0 for the first page
+     * @param pageSize Maximum number of invoices on the page
+     * @return The page of invoices
+     */
+    public Page<Invoice> findInvoicesPage(int afterId, int pageSize) {
+        int limit = Page.normalizePageSize(pageSize);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            String sql = "SELECT * FROM invoices WHERE id > ? ORDER BY id LIMIT ?";
+            PreparedStatement pst = con.prepareStatement(sql);
+            pst.setInt(1, afterId);
+            pst.setInt(2, limit + 1);
+            
+            ResultSet rs = pst.executeQuery();
+            List<Invoice> invoiceList = new ArrayList<>();
+            
+            while (rs.next()) {
+                invoiceList.add(mapInvoice(rs));
+            }
+            rs.close();
+            
+            long estimatedTotal = afterId == 0 ? Page.estimateRowCount(con, "invoices") : -1;
+            return Page.of(invoiceList, limit, estimatedTotal);
+            
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return Page.empty();
+        }
+    }
+    
+    /**
+     * Gets the database ID of every invoice by invoice number. The invoices
+     * are read through a server-side cursor; used to match imported payments
+     * to their invoices without a query per payment.
+     * 
+     * @return Invoice number -> database ID
+     * @throws SQLException If a database access error occurs
+     */
+    public Map<String, Integer> findInvoiceIdsByNumber() throws SQLException {
+        Map<String, Integer> idsByNumber = new HashMap<>();
+        StreamingQuery.forEach("SELECT id, invoice_number FROM invoices", StreamingQuery.DEFAULT_FETCH_SIZE,
+                               rs -> new AbstractMap.SimpleImmutableEntry<>(rs.getString("invoice_number"), rs.getInt("id")),
+                               entry -> idsByNumber.put(entry.getKey(), entry.getValue()));
+        return idsByNumber;
+    }
     
     /**
      * Gets an invoice with its order information
@@ -399,15 +424,14 @@ public class InvoiceDao {
      * @return The invoice with order loaded
      */
     public Invoice getInvoiceWithOrder(int invoiceId) {
-        try {
-            // First get the invoice
-            Invoice invoice = findInvoiceById(invoiceId);
-            if (invoice == null) {
-                return null;
-            }
-            
-            // Then get its order
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        // First get the invoice
+        Invoice invoice = findInvoiceById(invoiceId);
+        if (invoice == null) {
+            return null;
+        }
+        
+        // Then get its order
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM orders WHERE id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, invoice.getOrderId());
@@ -427,7 +451,6 @@ public class InvoiceDao {
                 invoice.setOrder(order);
             }
             
-            con.close();
             return invoice;
             
         } catch (Exception ex) {
@@ -443,15 +466,14 @@ public class InvoiceDao {
      * @return The invoice with payments loaded
      */
     public Invoice getInvoiceWithPayments(int invoiceId) {
-        try {
-            // First get the invoice
-            Invoice invoice = findInvoiceById(invoiceId);
-            if (invoice == null) {
-                return null;
-            }
-            
-            // Then get its payments
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        // First get the invoice
+        Invoice invoice = findInvoiceById(invoiceId);
+        if (invoice == null) {
+            return null;
+        }
+        
+        // Then get its payments
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM payments WHERE invoice_id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, invoiceId);
@@ -474,7 +496,6 @@ public class InvoiceDao {
             
             invoice.setPayments(paymentList);
             
-            con.close();
             return invoice;
             
         } catch (Exception ex) {
@@ -493,7 +514,7 @@ public class InvoiceDao {
         Connection con = null;
         try {
             // Create connection
-            con = DriverManager.getConnection(db_url, db_username, db_passwd);
+            con = DbConnection.getInstance().getConnection();
             
             // Start transaction
             con.setAutoCommit(false);
@@ -520,8 +541,6 @@ public class InvoiceDao {
             // Commit transaction
             con.commit();
             
-            // Close connection
-            con.close();
             return rowsAffected;
             
         } catch (Exception ex) {
@@ -547,4 +566,23 @@ public class InvoiceDao {
             }
         }
     }
+    
+    /**
+     * Maps the current result set row to an Invoice
+     * 
+     * @param rs The result set positioned on the row to map
+     * @return The invoice
+     * @throws SQLException If a column cannot be read
+     */
+    private static Invoice mapInvoice(ResultSet rs) throws SQLException {
+        Invoice invoice = new Invoice();
+        invoice.setId(rs.getInt("id"));
+        invoice.setInvoiceNumber(rs.getString("invoice_number"));
+        invoice.setOrderId(rs.getInt("order_id"));
+        invoice.setIssueDate(rs.getDate("issue_date").toLocalDate());
+        invoice.setDueDate(rs.getDate("due_date").toLocalDate());
+        invoice.setAmount(rs.getBigDecimal("amount"));
+        invoice.setStatus(rs.getString("status"));
+        return invoice;
+    }
 }
\ No newline at end of file
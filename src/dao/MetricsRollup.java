@@ -0,0 +1,206 @@
+package dao;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import model.Order;
+
+/**
+ * Maintains the rollup tables the dashboard reads instead of scanning
+ * orders and payments.
+ * The DAOs call these methods on the connection of their own transaction,
+ * so a rollup changes exactly when the rows it summarizes are committed.
+ * Counts are adjusted with upserts; a sign of -1 takes a row back out.
+ * 
+ * Every day (and status) is split over ROLLUP_SHARDS rows, and each
+ * connection upserts the shard picked by its backend process ID. Otherwise
+ * every order or payment transaction of the day would update the same row
+ * and wait for the previous one to commit. Readers sum over the shards.
+ * 
+ * Rollup tables:
+ * - order_daily_rollup: orders and order totals per order date and status
+ * - payment_daily_rollup: payments and amount received per payment date
+ * 
+ * Sales per product category come from the category_sales_mv materialized
+ * view instead, which is refreshed on a schedule rather than on each write,
+ * so it also follows changes to product categories.
+ * 
+ * The tables and the view are created by SchemaMigrator.
+ */
+final class MetricsRollup {
+    static final String CATEGORY_SALES_VIEW = "category_sales_mv";
+    static final int ROLLUP_SHARDS = 16;
+    
+    // Shard written by the current connection
+    private static final String SHARD = "pg_backend_pid() % " + ROLLUP_SHARDS;
+    
+    // Fill the empty rollup tables from the base tables
+    static final String FILL_ORDER_ROLLUP =
+        "INSERT INTO order_daily_rollup (day, status, order_count, total_amount) " +
+        "SELECT order_date, COALESCE(status, ''), COUNT(*), COALESCE(SUM(total_amount), 0) " +
+        "FROM orders GROUP BY 1, 2";
+    static final String FILL_PAYMENT_ROLLUP =
+        "INSERT INTO payment_daily_rollup (day, payment_count, total_amount) " +
+        "SELECT payment_date, COUNT(*), COALESCE(SUM(amount), 0) FROM payments GROUP BY 1";
+    
+    // Contents of the category sales view
+    static final String CATEGORY_SALES_QUERY =
+        "SELECT COALESCE(p.category, 'Uncategorized') AS category, " +
+        "SUM(oi.quantity) AS units_sold, " +
+        "SUM(oi.quantity * oi.unit_price) AS revenue, " +
+        "COUNT(DISTINCT oi.order_id) AS order_count " +
+        "FROM order_items oi " +
+        "JOIN products p ON p.id = oi.product_id " +
+        "JOIN orders o ON o.id = oi.order_id " +
+        "WHERE o.status IS DISTINCT FROM '" + Order.STATUS_CANCELLED + "' " +
+        "GROUP BY 1";
+    
+    private MetricsRollup() {
+    }
+    
+    /**
+     * Recomputes all rollups from the base tables.
+     * Order and payment writes are blocked until the caller commits, so the
+     * rollups match the base tables exactly.
+     * 
+     * @param con A connection with auto-commit disabled
+     * @throws SQLException If a database access error occurs
+     */
+    static void rebuild(Connection con) throws SQLException {
+        Statement stmt = con.createStatement();
+        stmt.execute("LOCK TABLE orders, payments IN SHARE MODE");
+        stmt.execute("TRUNCATE order_daily_rollup, payment_daily_rollup");
+        stmt.execute(FILL_ORDER_ROLLUP);
+        stmt.execute(FILL_PAYMENT_ROLLUP);
+        stmt.close();
+    }
+    
+    /**
+     * Adds an order to, or removes it from, the daily order rollup
+     * 
+     * @param con The connection of the enclosing transaction
+     * @param orderDate The order date
+     * @param status The order status
+     * @param totalAmount The order total
+     * @param sign 1 to add the order, -1 to remove it
+     * @throws SQLException If a database access error occurs
+     */
+    static void addOrder(Connection con, LocalDate orderDate, String status, BigDecimal totalAmount, int sign)
+            throws SQLException {
+        String sql = "INSERT INTO order_daily_rollup (day, status, shard, order_count, total_amount) " +
+                     "VALUES (?, ?, " + SHARD + ", ?, ?) " +
+                     "ON CONFLICT (day, status, shard) DO UPDATE SET " +
+                     "order_count = order_daily_rollup.order_count + EXCLUDED.order_count, " +
+                     "total_amount = order_daily_rollup.total_amount + EXCLUDED.total_amount";
+        PreparedStatement pst = con.prepareStatement(sql);
+        pst.setDate(1, java.sql.Date.valueOf(orderDate));
+        pst.setString(2, status != null ? status : "");
+        pst.setInt(3, sign);
+        pst.setBigDecimal(4, totalAmount != null ? totalAmount.multiply(BigDecimal.valueOf(sign)) : BigDecimal.ZERO);
+        pst.executeUpdate();
+        pst.close();
+    }
+    
+    /**
+     * Adds a payment to, or removes it from, the daily payment rollup
+     * 
+     * @param con The connection of the enclosing transaction
+     * @param paymentDate The payment date
+     * @param amount The payment amount
+     * @param sign 1 to add the payment, -1 to remove it
+     * @throws SQLException If a database access error occurs
+     */
+    static void addPayment(Connection con, LocalDate paymentDate, BigDecimal amount, int sign) throws SQLException {
+        addPayments(con, paymentDate, sign, amount != null ? amount.multiply(BigDecimal.valueOf(sign)) : BigDecimal.ZERO);
+    }
+    
+    /**
+     * Adds several payments of the same day to the daily payment rollup at once
+     * 
+     * @param con The connection of the enclosing transaction
+     * @param paymentDate The payment date
+     * @param count The number of payments, negative to remove them
+     * @param totalAmount The sum of their amounts, negative to remove them
+     * @throws SQLException If a database access error occurs
+     */
+    static void addPayments(Connection con, LocalDate paymentDate, int count, BigDecimal totalAmount)
+            throws SQLException {
+        String sql = "INSERT INTO payment_daily_rollup (day, shard, payment_count, total_amount) " +
+                     "VALUES (?, " + SHARD + ", ?, ?) " +
+                     "ON CONFLICT (day, shard) DO UPDATE SET " +
+                     "payment_count = payment_daily_rollup.payment_count + EXCLUDED.payment_count, " +
+                     "total_amount = payment_daily_rollup.total_amount + EXCLUDED.total_amount";
+        PreparedStatement pst = con.prepareStatement(sql);
+        pst.setDate(1, java.sql.Date.valueOf(paymentDate));
+        pst.setInt(2, count);
+        pst.setBigDecimal(3, totalAmount);
+        pst.executeUpdate();
+        pst.close();
+    }
+    
+    /**
+     * Removes the current state of an order from the order rollup and locks
+     * the order row until the transaction ends. Call before changing or
+     * deleting the order, then add the new state back with addOrder.
+     * 
+     * @param con The connection of the enclosing transaction
+     * @param orderId The database ID of the order
+     * @return true if the order exists
+     * @throws SQLException If a database access error occurs
+     */
+    static boolean removeOrder(Connection con, int orderId) throws SQLException {
+        PreparedStatement pst = con.prepareStatement(
+            "SELECT order_date, status, total_amount FROM orders WHERE id = ? FOR UPDATE");
+        pst.setInt(1, orderId);
+        ResultSet rs = pst.executeQuery();
+        boolean found = rs.next();
+        if (found) {
+            addOrder(con, rs.getDate("order_date").toLocalDate(), rs.getString("status"),
+                     rs.getBigDecimal("total_amount"), -1);
+        }
+        rs.close();
+        pst.close();
+        return found;
+    }
+    
+    /**
+     * Removes the current state of a payment from the payment rollup and
+     * locks the payment row until the transaction ends
+     * 
+     * @param con The connection of the enclosing transaction
+     * @param paymentId The database ID of the payment
+     * @return true if the payment exists
+     * @throws SQLException If a database access error occurs
+     */
+    static boolean removePayment(Connection con, int paymentId) throws SQLException {
+        PreparedStatement pst = con.prepareStatement(
+            "SELECT payment_date, amount FROM payments WHERE id = ? FOR UPDATE");
+        pst.setInt(1, paymentId);
+        ResultSet rs = pst.executeQuery();
+        boolean found = rs.next();
+        if (found) {
+            addPayment(con, rs.getDate("payment_date").toLocalDate(), rs.getBigDecimal("amount"), -1);
+        }
+        rs.close();
+        pst.close();
+        return found;
+    }
+    
+    /**
+     * Recomputes the category sales materialized view.
+     * Runs concurrently, so the dashboard keeps reading the previous
+     * contents while the view is refreshed.
+     * 
+     * @param con A connection with auto-commit enabled
+     * @throws SQLException If a database access error occurs
+     */
+    static void refreshCategorySales(Connection con) throws SQLException {
+        Statement stmt = con.createStatement();
+        stmt.execute("REFRESH MATERIALIZED VIEW CONCURRENTLY " + CATEGORY_SALES_VIEW);
+        stmt.close();
+    }
+}
\ No newline at end of file
@@ -1,26 +1,30 @@
 package dao;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import model.Customer;
+import model.Invoice;
 import model.Order;
 import model.OrderItem;
+import model.OrderSummary;
 import model.Product;
 
 /**
  * Data Access Object for Order operations.
  */
 public class OrderDao {
-    private String db_url = "jdbc:postgresql://localhost:5432/business_db";
-    private String db_username = "postgres";
-    private String db_passwd = "078868";
-    
     /**
      * Creates a new order in the database
      * 
@@ -37,7 +41,7 @@ public int createOrder(Order order) {
     Connection con = null;
     try {
         // Create connection
-        con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        con = DbConnection.getInstance().getConnection();
         
         // Start transaction
         con.setAutoCommit(false);
@@ -68,39 +72,23 @@ public int createOrder(Order order) {
         
         // Insert order items if any
         if (order.getOrderItems() != null && !order.getOrderItems().isEmpty()) {
-            for (OrderItem item : order.getOrderItems()) {
-                sql = "INSERT INTO order_items (order_id, product_id, quantity, unit_price) " +
-                     "VALUES (?, ?, ?, ?)";
-                PreparedStatement itemPst = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-                
-                itemPst.setInt(1, order.getId());
-                itemPst.setInt(2, item.getProductId());
-                itemPst.setInt(3, item.getQuantity());
-                itemPst.setBigDecimal(4, item.getUnitPrice());
-                
-                itemPst.executeUpdate();
-                
-                // Get generated ID for the item
-                ResultSet itemRs = itemPst.getGeneratedKeys();
-                if (itemRs.next()) {
-                    item.setId(itemRs.getInt(1));
-                }
-                itemRs.close();
-                itemPst.close();
-                
-                // Update product stock
-                sql = "UPDATE products SET stock_quantity = stock_quantity - ? WHERE id = ?";
-                PreparedStatement stockPst = con.prepareStatement(sql);
-                stockPst.setInt(1, item.getQuantity());
-                stockPst.setInt(2, item.getProductId());
-                stockPst.executeUpdate();
-                stockPst.close();
-            }
+            insertOrderItems(con, order);
+            decrementStock(con, order.getOrderItems());
         }
         
+        // Add the order to the dashboard rollups
+        MetricsRollup.addOrder(con, order.getOrderDate(), order.getStatus(), order.getTotalAmount(), 1);
+        
         // Commit transaction
         con.commit();
         
+        // Stock changed, so cached copies of the products are out of date
+        if (order.getOrderItems() != null) {
+            for (OrderItem item : order.getOrderItems()) {
+                ProductDao.CACHE.invalidate(item.getProductId());
+            }
+        }
+        
         return rowsAffected;
         
     } catch (Exception ex) {
@@ -126,6 +114,76 @@ public int createOrder(Order order) {
         }
     }
 }
+    /**
+     * Inserts all items of an order in a single JDBC batch and assigns
+     * the generated IDs back to the items
+     * 
+     * @param con The connection of the enclosing transaction
+     * @param order The order whose items to insert
+     * @throws Exception If the insert fails
+     */
+    private void insertOrderItems(Connection con, Order order) throws Exception {
+        String sql = "INSERT INTO order_items (order_id, product_id, quantity, unit_price) " +
+                     "VALUES (?, ?, ?, ?)";
+        PreparedStatement itemPst = con.prepareStatement(sql, new String[] { "id" });
+        
+        for (OrderItem item : order.getOrderItems()) {
+            itemPst.setInt(1, order.getId());
+            itemPst.setInt(2, item.getProductId());
+            itemPst.setInt(3, item.getQuantity());
+            itemPst.setBigDecimal(4, item.getUnitPrice());
+            itemPst.addBatch();
+        }
+        itemPst.executeBatch();
+        
+        // Generated IDs come back in batch order
+        ResultSet itemRs = itemPst.getGeneratedKeys();
+        for (OrderItem item : order.getOrderItems()) {
+            if (!itemRs.next()) {
+                break;
+            }
+            item.setId(itemRs.getInt(1));
+            item.setOrderId(order.getId());
+        }
+        itemRs.close();
+        itemPst.close();
+    }
+    
+    /**
+     * Decrements product stock for a set of order items in one set-based
+     * statement. Quantities for the same product are summed first.
+     * 
+     * @param con The connection of the enclosing transaction
+     * @param items The ordered items
+     * @throws Exception If the update fails
+     */
+    private void decrementStock(Connection con, List<OrderItem> items) throws Exception {
+        Map<Integer, Integer> quantities = new TreeMap<>();
+        for (OrderItem item : items) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        
+        Integer[] productIds = quantities.keySet().toArray(new Integer[0]);
+        Integer[] amounts = quantities.values().toArray(new Integer[0]);
+        
+        // The join below locks rows in plan order, so lock them in ID order first;
+        // concurrent orders for overlapping products then wait instead of deadlocking
+        PreparedStatement lockPst = con.prepareStatement(
+            "SELECT id FROM products WHERE id = ANY(?) ORDER BY id FOR UPDATE");
+        lockPst.setArray(1, con.createArrayOf("integer", productIds));
+        lockPst.executeQuery().close();
+        lockPst.close();
+        
+        String sql = "UPDATE products AS p SET stock_quantity = p.stock_quantity - d.quantity " +
+                     "FROM unnest(?::int[], ?::int[]) AS d(product_id, quantity) " +
+                     "WHERE p.id = d.product_id";
+        PreparedStatement stockPst = con.prepareStatement(sql);
+        stockPst.setArray(1, con.createArrayOf("integer", productIds));
+        stockPst.setArray(2, con.createArrayOf("integer", amounts));
+        stockPst.executeUpdate();
+        stockPst.close();
+    }
+    
     /**
      * Updates an existing order in the database
      * 
@@ -133,9 +191,16 @@ public int createOrder(Order order) {
      * @return Number of rows affected
      */
     public int updateOrder(Order order) {
+        Connection con = null;
         try {
             // Create connection
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+            con = DbConnection.getInstance().getConnection();
+            
+            // Start transaction
+            con.setAutoCommit(false);
+            
+            // Take the order's current state out of the dashboard rollups
+            MetricsRollup.removeOrder(con, order.getId());
             
             // Prepare statement
             String sql = "UPDATE orders SET order_id = ?, customer_id = ?, order_date = ?, " +
@@ -153,13 +218,37 @@ public int createOrder(Order order) {
             // Execute statement
             int rowsAffected = pst.executeUpdate();
             
-            // Close connection
-            con.close();
+            // Add the new state back
+            if (rowsAffected > 0) {
+                MetricsRollup.addOrder(con, order.getOrderDate(), order.getStatus(), order.getTotalAmount(), 1);
+            }
+            
+            // Commit transaction
+            con.commit();
+            
             return rowsAffected;
             
         } catch (Exception ex) {
+            try {
+                // Rollback transaction on error
+                if (con != null) {
+                    con.rollback();
+                }
+            } catch (Exception rollbackEx) {
+                rollbackEx.printStackTrace();
+            }
+            
             ex.printStackTrace();
             return 0;
+        } finally {
+            try {
+                if (con != null) {
+                    con.setAutoCommit(true);
+                    con.close();
+                }
+            } catch (Exception closeEx) {
+                closeEx.printStackTrace();
+            }
         }
     }
     
@@ -171,27 +260,60 @@ public int createOrder(Order order) {
      * @return Number of rows affected
      */
     public int updateOrderStatus(int orderId, String status) {
+        Connection con = null;
         try {
             // Create connection
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+            con = DbConnection.getInstance().getConnection();
+            
+            // Start transaction
+            con.setAutoCommit(false);
+            
+            // Take the order's current state out of the dashboard rollups
+            MetricsRollup.removeOrder(con, orderId);
             
             // Prepare statement
-            String sql = "UPDATE orders SET status = ? WHERE id = ?";
+            String sql = "UPDATE orders SET status = ? WHERE id = ? RETURNING order_date, total_amount";
             PreparedStatement pst = con.prepareStatement(sql);
             
             pst.setString(1, status);
             pst.setInt(2, orderId);
             
-            // Execute statement
-            int rowsAffected = pst.executeUpdate();
+            // Execute statement and add the new state back
+            int rowsAffected = 0;
+            ResultSet rs = pst.executeQuery();
+            if (rs.next()) {
+                rowsAffected = 1;
+                MetricsRollup.addOrder(con, rs.getDate("order_date").toLocalDate(), status,
+                                       rs.getBigDecimal("total_amount"), 1);
+            }
+            rs.close();
+            
+            // Commit transaction
+            con.commit();
             
-            // Close connection
-            con.close();
             return rowsAffected;
             
         } catch (Exception ex) {
+            try {
+                // Rollback transaction on error
+                if (con != null) {
+                    con.rollback();
+                }
+            } catch (Exception rollbackEx) {
+                rollbackEx.printStackTrace();
+            }
+            
             ex.printStackTrace();
             return 0;
+        } finally {
+            try {
+                if (con != null) {
+                    con.setAutoCommit(true);
+                    con.close();
+                }
+            } catch (Exception closeEx) {
+                closeEx.printStackTrace();
+            }
         }
     }
     
@@ -202,8 +324,7 @@ public int createOrder(Order order) {
      * @return The order if found, null otherwise
      */
     public Order findOrderById(int id) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM orders WHERE id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, id);
@@ -222,7 +343,6 @@ public int createOrder(Order order) {
                 order.setPaymentMethod(rs.getString("payment_method"));
             }
             
-            con.close();
             return order;
             
         } catch (Exception ex) {
@@ -238,8 +358,7 @@ public int createOrder(Order order) {
      * @return The order if found, null otherwise
      */
     public Order findOrderByOrderId(String orderId) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM orders WHERE order_id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setString(1, orderId);
@@ -258,7 +377,6 @@ public int createOrder(Order order) {
                 order.setPaymentMethod(rs.getString("payment_method"));
             }
             
-            con.close();
             return order;
             
         } catch (Exception ex) {
@@ -274,8 +392,7 @@ public int createOrder(Order order) {
      * @return List of matching orders
      */
     public List<Order> findOrdersByCustomer(int customerId) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM orders WHERE customer_id = ? ORDER BY order_date DESC";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, customerId);
@@ -295,7 +412,6 @@ public int createOrder(Order order) {
                 orderList.add(order);
             }
             
-            con.close();
             return orderList;
             
         } catch (Exception ex) {
@@ -311,8 +427,7 @@ public int createOrder(Order order) {
      * @return List of matching orders
      */
     public List<Order> findOrdersByStatus(String status) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM orders WHERE status = ? ORDER BY order_date DESC";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setString(1, status);
@@ -332,7 +447,6 @@ public int createOrder(Order order) {
                 orderList.add(order);
             }
             
-            con.close();
             return orderList;
             
         } catch (Exception ex) {
@@ -349,8 +463,7 @@ public int createOrder(Order order) {
      * @return List of matching orders
      */
     public List<Order> findOrdersByDateRange(java.time.LocalDate startDate, java.time.LocalDate endDate) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM orders WHERE order_date BETWEEN ? AND ? ORDER BY order_date DESC";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setDate(1, java.sql.Date.valueOf(startDate));
@@ -371,7 +484,37 @@ public int createOrder(Order order) {
                 orderList.add(order);
             }
             
-            con.close();
+            return orderList;
+            
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return Collections.emptyList();
+        }
+    }
+    
+    /**
+     * Gets the most recent orders with the customer name of each order
+     * 
+     * @param since Only orders on or after this date are returned
+     * @param limit The maximum number of orders to return
+     * @return The orders, newest first, each with a customer holding only the id and name
+     */
+    public List<Order> findRecentOrders(LocalDate since, int limit) {
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            String sql = "SELECT o.*, c.first_name, c.last_name FROM orders o " +
+                         "LEFT JOIN customers c ON c.id = o.customer_id " +
+                         "WHERE o.order_date >= ? ORDER BY o.order_date DESC, o.id DESC LIMIT ?";
+            PreparedStatement pst = con.prepareStatement(sql);
+            pst.setDate(1, java.sql.Date.valueOf(since));
+            pst.setInt(2, limit);
+            
+            ResultSet rs = pst.executeQuery();
+            List<Order> orderList = new ArrayList<>();
+            
+            while (rs.next()) {
+                orderList.add(mapOrderWithCustomerName(rs));
+            }
+            
             return orderList;
             
         } catch (Exception ex) {
@@ -386,8 +529,7 @@ public int createOrder(Order order) {
      * @return List of all orders
      */
     public List<Order> findAllOrders() {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM orders ORDER BY order_date DESC";
             PreparedStatement pst = con.prepareStatement(sql);
             
@@ -406,7 +548,6 @@ public int createOrder(Order order) {
                 orderList.add(order);
             }
             
-            con.close();
             return orderList;
             
         } catch (Exception ex) {
@@ -414,80 +555,150 @@ public int createOrder(Order order) {
             return Collections.emptyList();
         }
     }
+
+    /**
+     * Gets one page of orders, newest first.
+     * Orders are sorted by (order_date, id) descending; pass null as
+     * beforeDate for the first page and the date and id of the last order of
+     * the previous page for the next one.
+     * 
+     * @param beforeDate Order date of the last order on the previous page, or null for the first page
+     * @param beforeId Id of the last order on the previous page
+     * @param pageSize Maximum number of orders on the page
+     * @return The page of orders
+     */
+    public Page<Order> findOrdersPage(LocalDate beforeDate, int beforeId, int pageSize) {
+        int limit = Page.normalizePageSize(pageSize);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            PreparedStatement pst;
+            if (beforeDate == null) {
+                String sql = "SELECT * FROM orders ORDER BY order_date DESC, id DESC LIMIT ?";
+                pst = con.prepareStatement(sql);
+                pst.setInt(1, limit + 1);
+            } else {
+                String sql = "SELECT * FROM orders WHERE (order_date, id) < (?, ?) " +
+                             "ORDER BY order_date DESC, id DESC LIMIT ?";
+                pst = con.prepareStatement(sql);
+                pst.setDate(1, java.sql.Date.valueOf(beforeDate));
+                pst.setInt(2, beforeId);
+                pst.setInt(3, limit + 1);
+            }
+            
+            ResultSet rs = pst.executeQuery();
+            List<Order> orderList = new ArrayList<>();
+            
+            while (rs.next()) {
+                orderList.add(mapOrder(rs));
+            }
+            rs.close();
+            
+            long estimatedTotal = beforeDate == null ? Page.estimateRowCount(con, "orders") : -1;
+            return Page.of(orderList, limit, estimatedTotal);
+            
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return Page.empty();
+        }
+    }
     
     /**
-     * Gets an order with all its items and customer information
+     * Counts the orders matching a query
      * 
-     * @param orderId The ID of the order
-     * @return The order with items and customer loaded
+     * @param query The filter criteria; the sort order is ignored
+     * @return The number of matching orders, or -1 if the count failed
      */
-    public Order getOrderWithDetails(int orderId) {
-        try {
-            // First get the order
-            Order order = findOrderById(orderId);
-            if (order == null) {
-                return null;
+    public int countOrders(OrderQuery query) {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM orders o");
+        if (query.needsCustomerJoin()) {
+            sql.append(" LEFT JOIN customers c ON c.id = o.customer_id");
+        }
+        List<Object> params = new ArrayList<>();
+        query.appendWhere(sql, params);
+        
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            PreparedStatement pst = con.prepareStatement(sql.toString());
+            for (int i = 0; i < params.size(); i++) {
+                pst.setObject(i + 1, params.get(i));
             }
             
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            
-            // Get the customer
-            String sql = "SELECT * FROM customers WHERE id = ?";
-            PreparedStatement custPst = con.prepareStatement(sql);
-            custPst.setInt(1, order.getCustomerId());
-            
-            ResultSet custRs = custPst.executeQuery();
-            if (custRs.next()) {
-                Customer customer = new Customer();
-                customer.setId(custRs.getInt("id"));
-                customer.setCustomerId(custRs.getString("customer_id"));
-                customer.setFirstName(custRs.getString("first_name"));
-                customer.setLastName(custRs.getString("last_name"));
-                customer.setEmail(custRs.getString("email"));
-                customer.setPhone(custRs.getString("phone"));
-                customer.setAddress(custRs.getString("address"));
-                customer.setRegistrationDate(custRs.getDate("registration_date").toLocalDate());
-                
-                order.setCustomer(customer);
+            ResultSet rs = pst.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+            
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return -1;
+        }
+    }
+    
+    /**
+     * Gets a window of the orders matching a query, with the customer name
+     * of each order. Used by the order table, which loads the rows around
+     * whatever part of the result is on screen; unlike findOrdersPage the
+     * window can start anywhere, so it is addressed by row offset.
+     * 
+     * @param query The filter and sort criteria
+     * @param offset The position of the first order in the sorted result
+     * @param limit The maximum number of orders to return
+     * @return The orders in the window, each with a customer holding only the id and name
+     */
+    public List<Order> findOrdersWindow(OrderQuery query, int offset, int limit) {
+        StringBuilder sql = new StringBuilder(
+            "SELECT o.*, c.first_name, c.last_name FROM orders o " +
+            "LEFT JOIN customers c ON c.id = o.customer_id");
+        List<Object> params = new ArrayList<>();
+        query.appendWhere(sql, params);
+        query.appendOrderBy(sql);
+        sql.append(" LIMIT ? OFFSET ?");
+        params.add(Page.normalizePageSize(limit));
+        params.add(Math.max(offset, 0));
+        
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            PreparedStatement pst = con.prepareStatement(sql.toString());
+            for (int i = 0; i < params.size(); i++) {
+                pst.setObject(i + 1, params.get(i));
             }
-            custRs.close();
-            custPst.close();
-            
-            // Get the order items
-            sql = "SELECT oi.*, p.name as product_name, p.price as product_price " +
-                 "FROM order_items oi " +
-                 "JOIN products p ON oi.product_id = p.id " +
-                 "WHERE oi.order_id = ?";
-            PreparedStatement itemPst = con.prepareStatement(sql);
-            itemPst.setInt(1, orderId);
-            
-            ResultSet itemRs = itemPst.executeQuery();
-            List<OrderItem> itemList = new ArrayList<>();
-            
-            while (itemRs.next()) {
-                OrderItem item = new OrderItem();
-                item.setId(itemRs.getInt("id"));
-                item.setOrderId(itemRs.getInt("order_id"));
-                item.setProductId(itemRs.getInt("product_id"));
-                item.setQuantity(itemRs.getInt("quantity"));
-                item.setUnitPrice(itemRs.getBigDecimal("unit_price"));
-                
-                // Create a simple product with basic info
-                Product product = new Product();
-                product.setId(item.getProductId());
-                product.setName(itemRs.getString("product_name"));
-                product.setPrice(itemRs.getBigDecimal("product_price"));
-                
-                item.setProduct(product);
-                item.setOrder(order);
-                
-                itemList.add(item);
+            
+            ResultSet rs = pst.executeQuery();
+            List<Order> orderList = new ArrayList<>();
+            
+            while (rs.next()) {
+                orderList.add(mapOrderWithCustomerName(rs));
             }
             
-            order.setOrderItems(itemList);
+            return orderList;
             
-            con.close();
-            return order;
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return Collections.emptyList();
+        }
+    }
+    
+    /**
+     * Gets the order summary figures shown next to the order list,
+     * computed over all orders in a single query
+     * 
+     * @return The summary, or null if the query failed
+     */
+    public OrderSummary getOrderSummary() {
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            String sql = "SELECT COUNT(*) AS total_orders, " +
+                         "COUNT(*) FILTER (WHERE order_date >= date_trunc('month', CURRENT_DATE)) AS orders_this_month, " +
+                         "COUNT(*) FILTER (WHERE status = 'Pending') AS pending_orders, " +
+                         "COUNT(*) FILTER (WHERE status = 'Delivered') AS delivered_orders, " +
+                         "COALESCE(ROUND(AVG(total_amount), 2), 0) AS average_order_value " +
+                         "FROM orders";
+            PreparedStatement pst = con.prepareStatement(sql);
+            
+            ResultSet rs = pst.executeQuery();
+            OrderSummary summary = new OrderSummary();
+            if (rs.next()) {
+                summary.setTotalOrders(rs.getInt("total_orders"));
+                summary.setOrdersThisMonth(rs.getInt("orders_this_month"));
+                summary.setPendingOrders(rs.getInt("pending_orders"));
+                summary.setDeliveredOrders(rs.getInt("delivered_orders"));
+                summary.setAverageOrderValue(rs.getBigDecimal("average_order_value"));
+            }
+            return summary;
             
         } catch (Exception ex) {
             ex.printStackTrace();
@@ -495,6 +706,151 @@ public int createOrder(Order order) {
         }
     }
     
+    /**
+     * Passes every order, in id order, to an action without loading the
+     * whole table into memory. Rows are fetched through a server-side cursor.
+     * 
+     * @param action Called for each order
+     * @return The number of orders processed
+     * @throws SQLException If a database access error occurs
+     */
+    public long forEachOrder(Consumer<? super Order> action) throws SQLException {
+        return StreamingQuery.forEach("SELECT * FROM orders ORDER BY id", StreamingQuery.DEFAULT_FETCH_SIZE,
+                                      OrderDao::mapOrder, action);
+    }
+    
+    /**
+     * Opens a stream over every order in id order, fetched through a
+     * server-side cursor. The stream holds a connection until it is closed,
+     * so always use it in a try-with-resources block.
+     * 
+     * @return A stream of orders
+     * @throws SQLException If the query cannot be started
+     */
+    public Stream<Order> streamOrders() throws SQLException {
+        return StreamingQuery.stream("SELECT * FROM orders ORDER BY id", StreamingQuery.DEFAULT_FETCH_SIZE,
+                                     OrderDao::mapOrder);
+    }
+    
+    /**
+     * Gets an order with its customer, items (with product) and invoices
+     * in a single query
+     * 
+     * @param orderId The ID of the order
+     * @return The order with customer, items and invoices loaded
+     */
+    public Order getOrderWithDetails(int orderId) {
+        List<Order> orders = getOrdersWithDetails(Collections.singletonList(orderId));
+        return orders.isEmpty() ? null : orders.get(0);
+    }
+    
+    /**
+     * Gets several orders with their customers, items (with product) and
+     * invoices in a single query
+     * 
+     * @param orderIds The IDs of the orders
+     * @return The orders found, in the order of the given IDs
+     */
+    public List<Order> getOrdersWithDetails(List<Integer> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            // One row per (item, invoice) pair; orders rarely have more than one invoice
+            String sql = "SELECT o.id, o.order_id, o.customer_id, o.order_date, o.total_amount, o.status, o.payment_method, " +
+                         "c.customer_id AS customer_code, c.first_name, c.last_name, c.email, c.phone, c.address, c.registration_date, " +
+                         "oi.id AS item_id, oi.product_id, oi.quantity, oi.unit_price, " +
+                         "p.name AS product_name, p.price AS product_price, " +
+                         "i.id AS invoice_id, i.invoice_number, i.issue_date, i.due_date, " +
+                         "i.amount AS invoice_amount, i.status AS invoice_status " +
+                         "FROM orders o " +
+                         "LEFT JOIN customers c ON c.id = o.customer_id " +
+                         "LEFT JOIN order_items oi ON oi.order_id = o.id " +
+                         "LEFT JOIN products p ON p.id = oi.product_id " +
+                         "LEFT JOIN invoices i ON i.order_id = o.id " +
+                         "WHERE o.id = ANY(?) " +
+                         "ORDER BY o.id, oi.id, i.id";
+            PreparedStatement pst = con.prepareStatement(sql);
+            pst.setArray(1, con.createArrayOf("integer", orderIds.toArray()));
+            
+            ResultSet rs = pst.executeQuery();
+            Map<Integer, Order> ordersById = new HashMap<>();
+            Map<Integer, OrderItem> itemsById = new HashMap<>();
+            Map<Integer, Invoice> invoicesById = new HashMap<>();
+            
+            while (rs.next()) {
+                int id = rs.getInt("id");
+                Order order = ordersById.get(id);
+                if (order == null) {
+                    order = mapOrder(rs);
+                    
+                    if (rs.getString("customer_code") != null) {
+                        Customer customer = new Customer();
+                        customer.setId(order.getCustomerId());
+                        customer.setCustomerId(rs.getString("customer_code"));
+                        customer.setFirstName(rs.getString("first_name"));
+                        customer.setLastName(rs.getString("last_name"));
+                        customer.setEmail(rs.getString("email"));
+                        customer.setPhone(rs.getString("phone"));
+                        customer.setAddress(rs.getString("address"));
+                        customer.setRegistrationDate(rs.getDate("registration_date").toLocalDate());
+                        order.setCustomer(customer);
+                    }
+                    ordersById.put(id, order);
+                }
+                
+                int itemId = rs.getInt("item_id");
+                if (!rs.wasNull() && !itemsById.containsKey(itemId)) {
+                    OrderItem item = new OrderItem();
+                    item.setId(itemId);
+                    item.setOrderId(id);
+                    item.setProductId(rs.getInt("product_id"));
+                    item.setQuantity(rs.getInt("quantity"));
+                    item.setUnitPrice(rs.getBigDecimal("unit_price"));
+                    
+                    // Create a simple product with basic info
+                    Product product = new Product();
+                    product.setId(item.getProductId());
+                    product.setName(rs.getString("product_name"));
+                    product.setPrice(rs.getBigDecimal("product_price"));
+                    
+                    item.setProduct(product);
+                    item.setOrder(order);
+                    order.getOrderItems().add(item);
+                    itemsById.put(itemId, item);
+                }
+                
+                int invoiceId = rs.getInt("invoice_id");
+                if (!rs.wasNull() && !invoicesById.containsKey(invoiceId)) {
+                    Invoice invoice = new Invoice();
+                    invoice.setId(invoiceId);
+                    invoice.setInvoiceNumber(rs.getString("invoice_number"));
+                    invoice.setIssueDate(rs.getDate("issue_date").toLocalDate());
+                    invoice.setDueDate(rs.getDate("due_date").toLocalDate());
+                    invoice.setAmount(rs.getBigDecimal("invoice_amount"));
+                    invoice.setStatus(rs.getString("invoice_status"));
+                    order.addInvoice(invoice);
+                    invoicesById.put(invoiceId, invoice);
+                }
+            }
+            rs.close();
+            
+            List<Order> orderList = new ArrayList<>(ordersById.size());
+            for (Integer orderId : orderIds) {
+                Order order = ordersById.remove(orderId);
+                if (order != null) {
+                    orderList.add(order);
+                }
+            }
+            return orderList;
+            
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return Collections.emptyList();
+        }
+    }
+    
     /**
      * Deletes an order from the database
      * 
@@ -505,11 +861,14 @@ public int createOrder(Order order) {
         Connection con = null;
         try {
             // Create connection
-            con = DriverManager.getConnection(db_url, db_username, db_passwd);
+            con = DbConnection.getInstance().getConnection();
             
             // Start transaction
             con.setAutoCommit(false);
             
+            // Take the order out of the dashboard rollups
+            MetricsRollup.removeOrder(con, orderId);
+            
             // First delete associated order items
             String sql = "DELETE FROM order_items WHERE order_id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
@@ -526,8 +885,6 @@ public int createOrder(Order order) {
             // Commit transaction
             con.commit();
             
-            // Close connection
-            con.close();
             return rowsAffected;
             
         } catch (Exception ex) {
@@ -553,4 +910,43 @@ public int createOrder(Order order) {
             }
         }
     }
+    
+    /**
+     * Maps the current result set row to an Order
+     * 
+     * @param rs The result set positioned on the row to map
+     * @return The order
+     * @throws SQLException If a column cannot be read
+     */
+    private static Order mapOrder(ResultSet rs) throws SQLException {
+        Order order = new Order();
+        order.setId(rs.getInt("id"));
+        order.setOrderId(rs.getString("order_id"));
+        order.setCustomerId(rs.getInt("customer_id"));
+        order.setOrderDate(rs.getDate("order_date").toLocalDate());
+        order.setTotalAmount(rs.getBigDecimal("total_amount"));
+        order.setStatus(rs.getString("status"));
+        order.setPaymentMethod(rs.getString("payment_method"));
+        return order;
+    }
+    
+    /**
+     * Maps the current result set row to an Order with a customer holding
+     * only the id and name, read from first_name and last_name columns
+     * 
+     * @param rs The result set positioned on the row to map
+     * @return The order
+     * @throws SQLException If a column cannot be read
+     */
+    private static Order mapOrderWithCustomerName(ResultSet rs) throws SQLException {
+        Order order = mapOrder(rs);
+        if (rs.getString("first_name") != null) {
+            Customer customer = new Customer();
+            customer.setId(order.getCustomerId());
+            customer.setFirstName(rs.getString("first_name"));
+            customer.setLastName(rs.getString("last_name"));
+            order.setCustomer(customer);
+        }
+        return order;
+    }
 }
\ No newline at end of file
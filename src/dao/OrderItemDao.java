@@ -1,7 +1,6 @@
 package dao;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.Statement;
@@ -15,10 +14,6 @@ import model.Product;
  * Data Access Object for OrderItem operations.
  */
 public class OrderItemDao {
-    private String db_url = "jdbc:postgresql://localhost:5432/business_db";
-    private String db_username = "postgres";
-    private String db_passwd = "078868";
-    
     /**
      * Creates a new order item in the database
      * 
@@ -26,10 +21,7 @@ public class OrderItemDao {
      * @return Number of rows affected
      */
     public int createOrderItem(OrderItem orderItem) {
-        try {
-            // Create connection
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             // Prepare statement
             String sql = "INSERT INTO order_items (order_id, product_id, quantity, unit_price) " +
                          "VALUES (?, ?, ?, ?)";
@@ -59,9 +51,8 @@ public class OrderItemDao {
             stockPst.setInt(2, orderItem.getProductId());
             stockPst.executeUpdate();
             stockPst.close();
+            ProductDao.CACHE.invalidate(orderItem.getProductId());
             
-            // Close connection
-            con.close();
             return rowsAffected;
             
         } catch (Exception ex) {
@@ -81,7 +72,7 @@ public class OrderItemDao {
         Connection con = null;
         try {
             // Create connection
-            con = DriverManager.getConnection(db_url, db_username, db_passwd);
+            con = DbConnection.getInstance().getConnection();
             
             // Start transaction
             con.setAutoCommit(false);
@@ -112,9 +103,8 @@ public class OrderItemDao {
             
             // Commit transaction
             con.commit();
+            ProductDao.CACHE.invalidate(orderItem.getProductId());
             
-            // Close connection
-            con.close();
             return rowsAffected;
             
         } catch (Exception ex) {
@@ -148,8 +138,7 @@ public class OrderItemDao {
      * @return The order item if found, null otherwise
      */
     public OrderItem findOrderItemById(int id) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM order_items WHERE id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, id);
@@ -166,7 +155,6 @@ public class OrderItemDao {
                 orderItem.setUnitPrice(rs.getBigDecimal("unit_price"));
             }
             
-            con.close();
             return orderItem;
             
         } catch (Exception ex) {
@@ -182,8 +170,7 @@ public class OrderItemDao {
      * @return List of matching order items
      */
     public List<OrderItem> findOrderItemsByOrderId(int orderId) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT oi.*, p.name as product_name FROM order_items oi " +
                          "JOIN products p ON oi.product_id = p.id " +
                          "WHERE oi.order_id = ?";
@@ -210,7 +197,6 @@ public class OrderItemDao {
                 orderItemList.add(orderItem);
             }
             
-            con.close();
             return orderItemList;
             
         } catch (Exception ex) {
@@ -226,8 +212,7 @@ public class OrderItemDao {
      * @return List of matching order items
      */
     public List<OrderItem> findOrderItemsByProductId(int productId) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM order_items WHERE product_id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, productId);
@@ -245,7 +230,6 @@ public class OrderItemDao {
                 orderItemList.add(orderItem);
             }
             
-            con.close();
             return orderItemList;
             
         } catch (Exception ex) {
@@ -261,8 +245,7 @@ public class OrderItemDao {
      * @return The order item with product loaded
      */
     public OrderItem getOrderItemWithProduct(int orderItemId) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT oi.*, p.product_code, p.name, p.description, p.price, p.category " +
                          "FROM order_items oi " +
                          "JOIN products p ON oi.product_id = p.id " +
@@ -292,7 +275,6 @@ public class OrderItemDao {
                 orderItem.setProduct(product);
             }
             
-            con.close();
             return orderItem;
             
         } catch (Exception ex) {
@@ -317,7 +299,7 @@ public class OrderItemDao {
             }
             
             // Create connection
-            con = DriverManager.getConnection(db_url, db_username, db_passwd);
+            con = DbConnection.getInstance().getConnection();
             
             // Start transaction
             con.setAutoCommit(false);
@@ -338,9 +320,8 @@ public class OrderItemDao {
             
             // Commit transaction
             con.commit();
+            ProductDao.CACHE.invalidate(orderItem.getProductId());
             
-            // Close connection
-            con.close();
             return rowsAffected;
             
         } catch (Exception ex) {
@@ -0,0 +1,159 @@
+package dao;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Filter and sort criteria for order list queries.
+ * Translated to SQL by OrderDao so that filtering and sorting happen in the
+ * database instead of on rows already loaded into the UI.
+ */
+public class OrderQuery {
+    
+    /**
+     * Columns the order list can be sorted by
+     */
+    public enum SortColumn {
+        ID("o.id"),
+        ORDER_ID("o.order_id"),
+        CUSTOMER("c.last_name, c.first_name"),
+        DATE("o.order_date"),
+        AMOUNT("o.total_amount"),
+        STATUS("o.status");
+        
+        private final String expression;
+        
+        SortColumn(String expression) {
+            this.expression = expression;
+        }
+    }
+    
+    private String status;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    private String searchText;
+    private SortColumn sortColumn = SortColumn.DATE;
+    private boolean ascending = false;
+    
+    // Getters and Setters
+    public String getStatus() {
+        return status;
+    }
+    
+    /**
+     * Sets the status filter
+     * 
+     * @param status The status to match, or null for all statuses
+     */
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public LocalDate getFromDate() {
+        return fromDate;
+    }
+    
+    public void setFromDate(LocalDate fromDate) {
+        this.fromDate = fromDate;
+    }
+    
+    public LocalDate getToDate() {
+        return toDate;
+    }
+    
+    public void setToDate(LocalDate toDate) {
+        this.toDate = toDate;
+    }
+    
+    public String getSearchText() {
+        return searchText;
+    }
+    
+    /**
+     * Sets the search text, matched case-insensitively against the order ID,
+     * the customer name and the status
+     * 
+     * @param searchText The text to search for, or null for no search
+     */
+    public void setSearchText(String searchText) {
+        this.searchText = searchText;
+    }
+    
+    public SortColumn getSortColumn() {
+        return sortColumn;
+    }
+    
+    public void setSortColumn(SortColumn sortColumn) {
+        this.sortColumn = sortColumn != null ? sortColumn : SortColumn.DATE;
+    }
+    
+    public boolean isAscending() {
+        return ascending;
+    }
+    
+    public void setAscending(boolean ascending) {
+        this.ascending = ascending;
+    }
+    
+    /**
+     * Appends the WHERE clause for this query. The orders table must be
+     * aliased as o and the customers table as c.
+     * 
+     * @param sql The SQL being built
+     * @param params Receives the parameter values, in order
+     */
+    void appendWhere(StringBuilder sql, List<Object> params) {
+        String separator = " WHERE ";
+        if (status != null && !status.isEmpty()) {
+            sql.append(separator).append("o.status = ?");
+            params.add(status);
+            separator = " AND ";
+        }
+        if (fromDate != null) {
+            sql.append(separator).append("o.order_date >= ?");
+            params.add(java.sql.Date.valueOf(fromDate));
+            separator = " AND ";
+        }
+        if (toDate != null) {
+            sql.append(separator).append("o.order_date <= ?");
+            params.add(java.sql.Date.valueOf(toDate));
+            separator = " AND ";
+        }
+        if (searchText != null && !searchText.trim().isEmpty()) {
+            String pattern = "%" + searchText.trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+            sql.append(separator).append("(o.order_id ILIKE ? OR o.status ILIKE ? ")
+               .append("OR (c.first_name || ' ' || c.last_name) ILIKE ?)");
+            params.add(pattern);
+            params.add(pattern);
+            params.add(pattern);
+        }
+    }
+    
+    /**
+     * Appends the ORDER BY clause. The id is always the last sort key so
+     * that row positions are stable between window queries.
+     * 
+     * @param sql The SQL being built
+     */
+    void appendOrderBy(StringBuilder sql) {
+        String direction = ascending ? " ASC" : " DESC";
+        sql.append(" ORDER BY ");
+        for (String column : sortColumn.expression.split(", ")) {
+            sql.append(column).append(direction).append(", ");
+        }
+        if (sortColumn != SortColumn.ID) {
+            sql.append("o.id").append(direction);
+        } else {
+            sql.setLength(sql.length() - 2);
+        }
+    }
+    
+    /**
+     * Checks whether the query needs the customers table
+     * 
+     * @return true if the customer name is searched or sorted on
+     */
+    boolean needsCustomerJoin() {
+        return sortColumn == SortColumn.CUSTOMER || (searchText != null && !searchText.trim().isEmpty());
+    }
+}
\ No newline at end of file
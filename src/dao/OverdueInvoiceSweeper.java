@@ -0,0 +1,157 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import model.Invoice;
+import util.LogUtil;
+
+/**
+ * Marks open invoices whose due date has passed as overdue.
+ * 
+ * A sweep is a single UPDATE that finds the invoices through the partial
+ * index on open invoices' due dates and returns the IDs it changed, so no
+ * invoice is loaded into memory. Other clients learn about the change
+ * from the invoices update trigger, like any other invoice update.
+ * 
+ * Sweeps run in the background at a fixed delay. If several clients are
+ * running, only one of them sweeps at a time; the others skip their turn.
+ */
+public class OverdueInvoiceSweeper {
+    private static final String LOCK_NAME = "overdue_invoice_sweep";
+    private static final String SWEEP_SQL =
+        "UPDATE invoices SET status = '" + Invoice.STATUS_OVERDUE + "' " +
+        "WHERE due_date < ? AND " + InvoiceDao.OPEN_INVOICE_CONDITION + " " +
+        "AND status <> '" + Invoice.STATUS_OVERDUE + "' " +
+        "RETURNING id";
+    
+    private static ScheduledExecutorService sweepScheduler;
+    private static ScheduledFuture<?> sweepTask;
+    
+    // Metrics, guarded by the class lock
+    private static long sweepCount;
+    private static long failureCount;
+    private static long invoicesMarked;
+    private static long lastDurationMillis;
+    private static long maxDurationMillis;
+    private static long totalDurationMillis;
+    private static LocalDateTime lastSweepTime;
+    
+    /**
+     * Marks every open invoice that is past its due date as overdue.
+     * If another client is already sweeping, returns without waiting.
+     * 
+     * @return The IDs of the invoices marked overdue; empty if there were none or the sweep was skipped
+     * @throws SQLException If a database access error occurs
+     */
+    public List<Integer> sweep() throws SQLException {
+        long start = System.currentTimeMillis();
+        List<Integer> ids = new ArrayList<>();
+        
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            // Transaction advisory lock, released when the sweep commits or rolls back
+            con.setAutoCommit(false);
+            try {
+                PreparedStatement pst = con.prepareStatement("SELECT pg_try_advisory_xact_lock(hashtext(?))");
+                pst.setString(1, LOCK_NAME);
+                ResultSet rs = pst.executeQuery();
+                boolean locked = rs.next() && rs.getBoolean(1);
+                rs.close();
+                pst.close();
+                if (!locked) {
+                    con.rollback();
+                    return ids;
+                }
+                
+                pst = con.prepareStatement(SWEEP_SQL);
+                pst.setDate(1, java.sql.Date.valueOf(LocalDate.now()));
+                rs = pst.executeQuery();
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+                rs.close();
+                pst.close();
+                con.commit();
+                
+            } catch (SQLException ex) {
+                con.rollback();
+                throw ex;
+            } finally {
+                con.setAutoCommit(true);
+            }
+        }
+        
+        long duration = System.currentTimeMillis() - start;
+        recordSweep(ids.size(), duration);
+        if (!ids.isEmpty()) {
+            LogUtil.info("Marked " + ids.size() + " invoices overdue in " + duration + " ms");
+        }
+        return ids;
+    }
+    
+    /**
+     * Runs a sweep from the scheduler, logging failures instead of throwing
+     * so that later sweeps still run
+     */
+    private void scheduledSweep() {
+        try {
+            sweep();
+        } catch (Exception ex) {
+            recordFailure();
+            LogUtil.error("Error marking overdue invoices", ex);
+        }
+    }
+    
+    private static synchronized void recordSweep(int marked, long durationMillis) {
+        sweepCount++;
+        invoicesMarked += marked;
+        lastDurationMillis = durationMillis;
+        maxDurationMillis = Math.max(maxDurationMillis, durationMillis);
+        totalDurationMillis += durationMillis;
+        lastSweepTime = LocalDateTime.now();
+    }
+    
+    private static synchronized void recordFailure() {
+        failureCount++;
+    }
+    
+    /**
+     * Gets the metrics of the sweeps run by this client
+     * 
+     * @return A snapshot of the metrics
+     */
+    public static synchronized SweepStats getStats() {
+        return new SweepStats(sweepCount, failureCount, invoicesMarked, lastDurationMillis,
+                              maxDurationMillis, totalDurationMillis, lastSweepTime);
+    }
+    
+    /**
+     * Sweeps in the background at a fixed delay, starting right away.
+     * Calling this again replaces the previous schedule.
+     * 
+     * @param delayMinutes Minutes between the end of one sweep and the start of the next
+     */
+    public static synchronized void schedule(long delayMinutes) {
+        if (sweepScheduler == null) {
+            sweepScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "overdue-invoice-sweep");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        if (sweepTask != null) {
+            sweepTask.cancel(false);
+        }
+        OverdueInvoiceSweeper sweeper = new OverdueInvoiceSweeper();
+        sweepTask = sweepScheduler.scheduleWithFixedDelay(sweeper::scheduledSweep, 0, delayMinutes, TimeUnit.MINUTES);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,136 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated query.
+ * The next page is requested with the sort key of the last item, so the
+ * database seeks straight to it through the index instead of skipping
+ * OFFSET rows.
+ * 
+ * @param <T> The entity type
+ */
+public class Page<T> {
+    public static final int DEFAULT_PAGE_SIZE = 200;
+    
+    /**
+     * Tables with fewer estimated rows than this are counted exactly
+     */
+    private static final long EXACT_COUNT_THRESHOLD = 10000;
+    
+    private final List<T> items;
+    private final boolean hasMore;
+    private final long estimatedTotal;
+    
+    /**
+     * Creates a page
+     * 
+     * @param items The items on this page
+     * @param hasMore Whether more rows follow this page
+     * @param estimatedTotal Estimated number of rows in the whole result, or -1 if not computed
+     */
+    public Page(List<T> items, boolean hasMore, long estimatedTotal) {
+        this.items = Collections.unmodifiableList(items);
+        this.hasMore = hasMore;
+        this.estimatedTotal = estimatedTotal;
+    }
+    
+    /**
+     * Creates an empty last page
+     * 
+     * @param <T> The entity type
+     * @return An empty page
+     */
+    public static <T> Page<T> empty() {
+        return new Page<>(Collections.<T>emptyList(), false, 0);
+    }
+    
+    // Getters
+    public List<T> getItems() {
+        return items;
+    }
+    
+    public boolean hasMore() {
+        return hasMore;
+    }
+    
+    /**
+     * Gets the estimated number of rows in the whole result.
+     * Only the first page carries an estimate; later pages return -1.
+     * 
+     * @return The estimated total, or -1 if not computed
+     */
+    public long getEstimatedTotal() {
+        return estimatedTotal;
+    }
+    
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+    
+    public T getLast() {
+        return items.isEmpty() ? null : items.get(items.size() - 1);
+    }
+    
+    /**
+     * Trims the extra row fetched to detect whether more rows follow
+     * 
+     * @param <T> The entity type
+     * @param rows The rows read, up to pageSize + 1
+     * @param pageSize The requested page size
+     * @param estimatedTotal The estimated total, or -1
+     * @return The page
+     */
+    static <T> Page<T> of(List<T> rows, int pageSize, long estimatedTotal) {
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        return new Page<>(rows, hasMore, estimatedTotal);
+    }
+    
+    /**
+     * Estimates the row count of a table from the planner statistics.
+     * COUNT(*) has to scan the whole table in PostgreSQL, so it is only used
+     * for small tables or tables that have never been analyzed.
+     * 
+     * @param con The connection to use
+     * @param table The table name
+     * @return The estimated number of rows
+     * @throws SQLException If a database access error occurs
+     */
+    static long estimateRowCount(Connection con, String table) throws SQLException {
+        PreparedStatement pst = con.prepareStatement("SELECT reltuples::bigint FROM pg_class WHERE oid = ?::regclass");
+        pst.setString(1, table);
+        ResultSet rs = pst.executeQuery();
+        long estimate = rs.next() ? rs.getLong(1) : -1;
+        rs.close();
+        
+        if (estimate >= EXACT_COUNT_THRESHOLD) {
+            return estimate;
+        }
+        
+        rs = con.prepareStatement("SELECT COUNT(*) FROM " + table).executeQuery();
+        long count = rs.next() ? rs.getLong(1) : 0;
+        rs.close();
+        return count;
+    }
+    
+    /**
+     * Clamps a requested page size to a sensible range
+     * 
+     * @param pageSize The requested page size
+     * @return The page size to use
+     */
+    static int normalizePageSize(int pageSize) {
+        if (pageSize <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(pageSize, 10000);
+    }
+}
@@ -1,27 +1,44 @@
 package dao;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import model.Invoice;
 import model.Payment;
 
 /**
  * Data Access Object for Payment operations.
+ * 
+ * Writing a payment also settles its invoice: the invoice row is locked
+ * first, so payments on the same invoice are posted one after the other,
+ * and the status is then recomputed from the sum of the payments in a
+ * single statement.
  */
 public class PaymentDao {
-    private String db_url = "jdbc:postgresql://localhost:5432/business_db";
-    private String db_username = "postgres";
-    private String db_passwd = "078868";
+    // Sets the status of the given invoices from their payments, like Invoice.updateStatus
+    private static final String SETTLE_INVOICES_SQL =
+        "UPDATE invoices i SET status = CASE " +
+        "WHEN t.paid >= i.amount THEN '" + Invoice.STATUS_PAID + "' " +
+        "WHEN i.due_date < ? THEN '" + Invoice.STATUS_OVERDUE + "' " +
+        "WHEN i.status IN ('" + Invoice.STATUS_DRAFT + "', '" + Invoice.STATUS_CANCELLED + "') THEN i.status " +
+        "ELSE '" + Invoice.STATUS_ISSUED + "' END " +
+        "FROM (SELECT x.id, COALESCE(SUM(p.amount), 0) AS paid " +
+        "FROM unnest(?::integer[]) AS x(id) LEFT JOIN payments p ON p.invoice_id = x.id " +
+        "GROUP BY x.id) t " +
+        "WHERE i.id = t.id";
     
     /**
-     * Creates a new payment in the database
+     * Creates a new payment in the database.
+     * A payment without a payment ID gets the next one from DocumentNumberGenerator.
      * 
      * @param payment The payment to create
      * @return Number of rows affected
@@ -29,12 +46,20 @@ public class PaymentDao {
     public int createPayment(Payment payment) {
         Connection con = null;
         try {
+            // Number payments that have no ID yet, before a connection is held
+            if (payment.getPaymentId() == null || payment.getPaymentId().trim().isEmpty()) {
+                payment.setPaymentId(DocumentNumberGenerator.getInstance().next(DocumentNumberGenerator.DocumentType.PAYMENT));
+            }
+            
             // Create connection
-            con = DriverManager.getConnection(db_url, db_username, db_passwd);
+            con = DbConnection.getInstance().getConnection();
             
             // Start transaction
             con.setAutoCommit(false);
             
+            // Wait for other payments on the same invoice
+            List<Integer> invoiceIds = lockInvoices(con, payment.getInvoiceId(), 0);
+            
             // Prepare statement
             String sql = "INSERT INTO payments (payment_id, invoice_id, amount, payment_date, payment_method) " +
                          "VALUES (?, ?, ?, ?, ?)";
@@ -56,46 +81,18 @@ public class PaymentDao {
                     payment.setId(rs.getInt(1));
                 }
                 rs.close();
-            }
-            
-            // Update invoice status if needed
-            sql = "SELECT * FROM invoices WHERE id = ?";
-            PreparedStatement invPst = con.prepareStatement(sql);
-            invPst.setInt(1, payment.getInvoiceId());
-            
-            ResultSet rs = invPst.executeQuery();
-            if (rs.next()) {
-                // Get total payments for this invoice
-                sql = "SELECT SUM(amount) FROM payments WHERE invoice_id = ?";
-                PreparedStatement sumPst = con.prepareStatement(sql);
-                sumPst.setInt(1, payment.getInvoiceId());
                 
-                ResultSet sumRs = sumPst.executeQuery();
-                if (sumRs.next()) {
-                    java.math.BigDecimal totalPaid = sumRs.getBigDecimal(1);
-                    java.math.BigDecimal invoiceAmount = rs.getBigDecimal("amount");
-                    
-                    // Update invoice status if fully paid
-                    if (totalPaid.compareTo(invoiceAmount) >= 0) {
-                        sql = "UPDATE invoices SET status = ? WHERE id = ?";
-                        PreparedStatement updatePst = con.prepareStatement(sql);
-                        updatePst.setString(1, Invoice.STATUS_PAID);
-                        updatePst.setInt(2, payment.getInvoiceId());
-                        updatePst.executeUpdate();
-                        updatePst.close();
-                    }
-                }
-                sumRs.close();
-                sumPst.close();
+                // Add the payment to the dashboard rollups
+                MetricsRollup.addPayment(con, payment.getPaymentDate(), payment.getAmount(), 1);
             }
-            rs.close();
-            invPst.close();
+            pst.close();
+            
+            // Update invoice status
+            settleInvoices(con, invoiceIds);
             
             // Commit transaction
             con.commit();
             
-            // Close connection
-            con.close();
             return rowsAffected;
             
         } catch (Exception ex) {
@@ -132,11 +129,17 @@ public class PaymentDao {
         Connection con = null;
         try {
             // Create connection
-            con = DriverManager.getConnection(db_url, db_username, db_passwd);
+            con = DbConnection.getInstance().getConnection();
             
             // Start transaction
             con.setAutoCommit(false);
             
+            // Lock the invoice the payment belongs to and, if it is moved, its new invoice
+            List<Integer> invoiceIds = lockInvoices(con, payment.getInvoiceId(), payment.getId());
+            
+            // Take the payment's current state out of the dashboard rollups
+            MetricsRollup.removePayment(con, payment.getId());
+            
             // Prepare statement
             String sql = "UPDATE payments SET payment_id = ?, invoice_id = ?, amount = ?, " +
                          "payment_date = ?, payment_method = ? WHERE id = ?";
@@ -151,54 +154,19 @@ public class PaymentDao {
             
             // Execute statement
             int rowsAffected = pst.executeUpdate();
+            pst.close();
             
-            // Update invoice status
-            sql = "SELECT * FROM invoices WHERE id = ?";
-            PreparedStatement invPst = con.prepareStatement(sql);
-            invPst.setInt(1, payment.getInvoiceId());
-            
-            ResultSet rs = invPst.executeQuery();
-            if (rs.next()) {
-                // Get total payments for this invoice
-                sql = "SELECT SUM(amount) FROM payments WHERE invoice_id = ?";
-                PreparedStatement sumPst = con.prepareStatement(sql);
-                sumPst.setInt(1, payment.getInvoiceId());
-                
-                ResultSet sumRs = sumPst.executeQuery();
-                if (sumRs.next()) {
-                    java.math.BigDecimal totalPaid = sumRs.getBigDecimal(1);
-                    java.math.BigDecimal invoiceAmount = rs.getBigDecimal("amount");
-                    
-                    // Update invoice status based on payment
-                    sql = "UPDATE invoices SET status = ? WHERE id = ?";
-                    PreparedStatement updatePst = con.prepareStatement(sql);
-                    
-                    if (totalPaid.compareTo(invoiceAmount) >= 0) {
-                        updatePst.setString(1, Invoice.STATUS_PAID);
-                    } else {
-                        LocalDate dueDate = rs.getDate("due_date").toLocalDate();
-                        if (LocalDate.now().isAfter(dueDate)) {
-                            updatePst.setString(1, Invoice.STATUS_OVERDUE);
-                        } else {
-                            updatePst.setString(1, Invoice.STATUS_ISSUED);
-                        }
-                    }
-                    
-                    updatePst.setInt(2, payment.getInvoiceId());
-                    updatePst.executeUpdate();
-                    updatePst.close();
-                }
-                sumRs.close();
-                sumPst.close();
+            // Add the new state back
+            if (rowsAffected > 0) {
+                MetricsRollup.addPayment(con, payment.getPaymentDate(), payment.getAmount(), 1);
             }
-            rs.close();
-            invPst.close();
+            
+            // Update the status of both invoices
+            settleInvoices(con, invoiceIds);
             
             // Commit transaction
             con.commit();
             
-            // Close connection
-            con.close();
             return rowsAffected;
             
         } catch (Exception ex) {
@@ -232,8 +200,7 @@ public class PaymentDao {
      * @return The payment if found, null otherwise
      */
     public Payment findPaymentById(int id) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM payments WHERE id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, id);
@@ -251,7 +218,6 @@ public class PaymentDao {
                 payment.setPaymentMethod(rs.getString("payment_method"));
             }
             
-            con.close();
             return payment;
             
         } catch (Exception ex) {
@@ -267,8 +233,7 @@ public class PaymentDao {
      * @return The payment if found, null otherwise
      */
     public Payment findPaymentByPaymentId(String paymentId) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM payments WHERE payment_id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setString(1, paymentId);
@@ -286,7 +251,6 @@ public class PaymentDao {
                 payment.setPaymentMethod(rs.getString("payment_method"));
             }
             
-            con.close();
             return payment;
             
         } catch (Exception ex) {
@@ -302,8 +266,7 @@ public class PaymentDao {
      * @return List of matching payments
      */
     public List<Payment> findPaymentsByInvoiceId(int invoiceId) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM payments WHERE invoice_id = ? ORDER BY payment_date";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, invoiceId);
@@ -322,7 +285,6 @@ public class PaymentDao {
                 paymentList.add(payment);
             }
             
-            con.close();
             return paymentList;
             
         } catch (Exception ex) {
@@ -339,8 +301,7 @@ public class PaymentDao {
      * @return List of matching payments
      */
     public List<Payment> findPaymentsByDateRange(LocalDate startDate, LocalDate endDate) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM payments WHERE payment_date BETWEEN ? AND ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setDate(1, java.sql.Date.valueOf(startDate));
@@ -360,7 +321,6 @@ public class PaymentDao {
                 paymentList.add(payment);
             }
             
-            con.close();
             return paymentList;
             
         } catch (Exception ex) {
@@ -376,8 +336,7 @@ public class PaymentDao {
      * @return List of matching payments
      */
     public List<Payment> findPaymentsByMethod(String paymentMethod) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM payments WHERE payment_method = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setString(1, paymentMethod);
@@ -396,7 +355,6 @@ public class PaymentDao {
                 paymentList.add(payment);
             }
             
-            con.close();
             return paymentList;
             
         } catch (Exception ex) {
@@ -411,8 +369,7 @@ public class PaymentDao {
      * @return List of all payments
      */
     public List<Payment> findAllPayments() {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM payments";
             PreparedStatement pst = con.prepareStatement(sql);
             
@@ -430,7 +387,6 @@ public class PaymentDao {
                 paymentList.add(payment);
             }
             
-            con.close();
             return paymentList;
             
         } catch (Exception ex) {
@@ -438,6 +394,66 @@ public class PaymentDao {
             return Collections.emptyList();
         }
     }
+
+    /**
+     * Gets one page of payments ordered by id.
+     * Pass 0 as afterId for the first page and the id of the last payment
+     * of the previous page for the next one.
+     * 
+     * @param afterId Id of the last payment on the previous page, or 0 for the first page
+     * @param pageSize Maximum number of payments on the page
+     * @return The page of payments
+     */
+    public Page<Payment> findPaymentsPage(int afterId, int pageSize) {
+        int limit = Page.normalizePageSize(pageSize);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            String sql = "SELECT * FROM payments WHERE id > ? ORDER BY id LIMIT ?";
+            PreparedStatement pst = con.prepareStatement(sql);
+            pst.setInt(1, afterId);
+            pst.setInt(2, limit + 1);
+            
+            ResultSet rs = pst.executeQuery();
+            List<Payment> paymentList = new ArrayList<>();
+            
+            while (rs.next()) {
+                paymentList.add(mapPayment(rs));
+            }
+            rs.close();
+            
+            long estimatedTotal = afterId == 0 ? Page.estimateRowCount(con, "payments") : -1;
+            return Page.of(paymentList, limit, estimatedTotal);
+            
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return Page.empty();
+        }
+    }
+    
+    /**
+     * Passes every payment, in id order, to an action without loading the
+     * whole table into memory. Rows are fetched through a server-side cursor.
+     * 
+     * @param action Called for each payment
+     * @return The number of payments processed
+     * @throws SQLException If a database access error occurs
+     */
+    public long forEachPayment(Consumer<? super Payment> action) throws SQLException {
+        return StreamingQuery.forEach("SELECT * FROM payments ORDER BY id", StreamingQuery.DEFAULT_FETCH_SIZE,
+                                      PaymentDao::mapPayment, action);
+    }
+    
+    /**
+     * Opens a stream over every payment in id order, fetched through a
+     * server-side cursor. The stream holds a connection until it is closed,
+     * so always use it in a try-with-resources block.
+     * 
+     * @return A stream of payments
+     * @throws SQLException If the query cannot be started
+     */
+    public Stream<Payment> streamPayments() throws SQLException {
+        return StreamingQuery.stream("SELECT * FROM payments ORDER BY id", StreamingQuery.DEFAULT_FETCH_SIZE,
+                                     PaymentDao::mapPayment);
+    }
     
     /**
      * Gets a payment with its invoice information
@@ -446,15 +462,14 @@ public class PaymentDao {
      * @return The payment with invoice loaded
      */
     public Payment getPaymentWithInvoice(int paymentId) {
-        try {
-            // First get the payment
-            Payment payment = findPaymentById(paymentId);
-            if (payment == null) {
-                return null;
-            }
-            
-            // Then get its invoice
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        // First get the payment
+        Payment payment = findPaymentById(paymentId);
+        if (payment == null) {
+            return null;
+        }
+        
+        // Then get its invoice
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM invoices WHERE id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, payment.getInvoiceId());
@@ -474,7 +489,6 @@ public class PaymentDao {
                 payment.setInvoice(invoice);
             }
             
-            con.close();
             return payment;
             
         } catch (Exception ex) {
@@ -492,75 +506,36 @@ public class PaymentDao {
     public int deletePayment(int paymentId) {
         Connection con = null;
         try {
-            // First get the payment to know which invoice to update
-            Payment payment = findPaymentById(paymentId);
-            if (payment == null) {
-                return 0;
-            }
-            
             // Create connection
-            con = DriverManager.getConnection(db_url, db_username, db_passwd);
+            con = DbConnection.getInstance().getConnection();
             
             // Start transaction
             con.setAutoCommit(false);
             
+            // Lock the invoice of the payment; none means the payment does not exist
+            List<Integer> invoiceIds = lockInvoices(con, 0, paymentId);
+            if (invoiceIds.isEmpty()) {
+                con.rollback();
+                return 0;
+            }
+            
+            // Take the payment out of the dashboard rollups
+            MetricsRollup.removePayment(con, paymentId);
+            
             // Delete the payment
             String sql = "DELETE FROM payments WHERE id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, paymentId);
             
             int rowsAffected = pst.executeUpdate();
+            pst.close();
             
             // Update invoice status
-            sql = "SELECT * FROM invoices WHERE id = ?";
-            PreparedStatement invPst = con.prepareStatement(sql);
-            invPst.setInt(1, payment.getInvoiceId());
-            
-            ResultSet rs = invPst.executeQuery();
-            if (rs.next()) {
-                // Get total remaining payments for this invoice
-                sql = "SELECT SUM(amount) FROM payments WHERE invoice_id = ?";
-                PreparedStatement sumPst = con.prepareStatement(sql);
-                sumPst.setInt(1, payment.getInvoiceId());
-                
-                ResultSet sumRs = sumPst.executeQuery();
-                
-                sql = "UPDATE invoices SET status = ? WHERE id = ?";
-                PreparedStatement updatePst = con.prepareStatement(sql);
-                
-                if (sumRs.next() && sumRs.getBigDecimal(1) != null) {
-                    java.math.BigDecimal totalPaid = sumRs.getBigDecimal(1);
-                    java.math.BigDecimal invoiceAmount = rs.getBigDecimal("amount");
-                    
-                    if (totalPaid.compareTo(invoiceAmount) >= 0) {
-                        updatePst.setString(1, Invoice.STATUS_PAID);
-                    } else {
-                        LocalDate dueDate = rs.getDate("due_date").toLocalDate();
-                        if (LocalDate.now().isAfter(dueDate)) {
-                            updatePst.setString(1, Invoice.STATUS_OVERDUE);
-                        } else {
-                            updatePst.setString(1, Invoice.STATUS_ISSUED);
-                        }
-                    }
-                } else {
-                    // No payments left
-                    LocalDate dueDate = rs.getDate("due_date").toLocalDate();
-                    if (LocalDate.now().isAfter(dueDate)) {
-                        updatePst.setString(1, Invoice.STATUS_OVERDUE);
-                    } else {
-                        updatePst.setString(1, Invoice.STATUS_ISSUED);
-                    }
-                }
-                
-                updatePst.setInt(2, payment.getInvoiceId());
-                updatePst.executeUpdate();
-            }
+            settleInvoices(con, invoiceIds);
             
             // Commit transaction
             con.commit();
             
-            // Close connection
-            con.close();
             return rowsAffected;
             
         } catch (Exception ex) {
@@ -586,4 +561,89 @@ public class PaymentDao {
             }
         }
     }
+    
+    /**
+     * Locks an invoice and the current invoice of a payment until the
+     * transaction ends. Concurrent payments on the same invoice wait here,
+     * so each one settles the invoice with the others' payments included.
+     * The rows are locked in ID order to avoid deadlocks.
+     * 
+     * @param con The connection, inside a transaction
+     * @param invoiceId The ID of an invoice to lock, or 0 for none
+     * @param paymentId The ID of a payment whose invoice to lock, or 0 for none
+     * @return The IDs of the locked invoices
+     * @throws SQLException If a database access error occurs
+     */
+    private static List<Integer> lockInvoices(Connection con, int invoiceId, int paymentId) throws SQLException {
+        String sql = "SELECT id FROM invoices WHERE id = ? OR id = (SELECT invoice_id FROM payments WHERE id = ?) " +
+                     "ORDER BY id FOR UPDATE";
+        PreparedStatement pst = con.prepareStatement(sql);
+        pst.setInt(1, invoiceId);
+        pst.setInt(2, paymentId);
+        
+        ResultSet rs = pst.executeQuery();
+        List<Integer> invoiceIds = new ArrayList<>();
+        while (rs.next()) {
+            invoiceIds.add(rs.getInt(1));
+        }
+        rs.close();
+        pst.close();
+        return invoiceIds;
+    }
+    
+    /**
+     * Locks invoices until the transaction ends, in ID order
+     * 
+     * @param con The connection, inside a transaction
+     * @param invoiceIds The IDs of the invoices to lock
+     * @throws SQLException If a database access error occurs
+     */
+    static void lockInvoices(Connection con, Collection<Integer> invoiceIds) throws SQLException {
+        if (invoiceIds.isEmpty()) {
+            return;
+        }
+        PreparedStatement pst = con.prepareStatement("SELECT id FROM invoices WHERE id = ANY (?) ORDER BY id FOR UPDATE");
+        pst.setArray(1, con.createArrayOf("integer", invoiceIds.toArray()));
+        pst.executeQuery().close(); // The rows are locked when the query runs
+        pst.close();
+    }
+    
+    /**
+     * Recomputes the status of invoices from the sum of their payments, in
+     * one statement. Lock the invoices first, see lockInvoices.
+     * 
+     * @param con The connection, inside a transaction
+     * @param invoiceIds The IDs of the invoices to settle
+     * @return The number of invoices updated
+     * @throws SQLException If a database access error occurs
+     */
+    static int settleInvoices(Connection con, Collection<Integer> invoiceIds) throws SQLException {
+        if (invoiceIds.isEmpty()) {
+            return 0;
+        }
+        PreparedStatement pst = con.prepareStatement(SETTLE_INVOICES_SQL);
+        pst.setDate(1, java.sql.Date.valueOf(LocalDate.now()));
+        pst.setArray(2, con.createArrayOf("integer", invoiceIds.toArray()));
+        int updated = pst.executeUpdate();
+        pst.close();
+        return updated;
+    }
+    
+    /**
+     * Maps the current result set row to a Payment
+     * 
+     * @param rs The result set positioned on the row to map
+     * @return The payment
+     * @throws SQLException If a column cannot be read
+     */
+    private static Payment mapPayment(ResultSet rs) throws SQLException {
+        Payment payment = new Payment();
+        payment.setId(rs.getInt("id"));
+        payment.setPaymentId(rs.getString("payment_id"));
+        payment.setInvoiceId(rs.getInt("invoice_id"));
+        payment.setAmount(rs.getBigDecimal("amount"));
+        payment.setPaymentDate(rs.getDate("payment_date").toLocalDate());
+        payment.setPaymentMethod(rs.getString("payment_method"));
+        return payment;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,446 @@
+package dao;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import util.CsvUtil;
+import util.LogUtil;
+import util.ValidationUtil;
+
+/**
+ * Data Access Object for importing payments from bank and payment
+ * processor statement files in CSV or TSV format.
+ * 
+ * Each row names the invoice it pays by its invoice number. The numbers
+ * are looked up in an index of all invoices that is loaded once per
+ * import, so no query is run per row. The file is streamed and loaded in
+ * transactions of ROWS_PER_TRANSACTION rows; each inserts its payments in
+ * JDBC batches of BATCH_SIZE rows, updates the daily payment rollup once
+ * per payment date and recomputes the status of each invoice it paid
+ * once, so an import that stops part way leaves no invoice unsettled.
+ * 
+ * Payments whose payment ID already exists are rejected instead of being
+ * loaded twice, so a statement file can safely be imported again.
+ * Rejected rows are written to a side file, as in BulkImportDao.
+ */
+public class PaymentImportDao {
+    static final String[] COLUMNS = { "payment_id", "invoice_number", "amount", "payment_date", "payment_method" };
+    
+    private static final int ROWS_PER_TRANSACTION = 5000;
+    private static final int BATCH_SIZE = 500;
+    private static final String INSERT_SQL =
+        "INSERT INTO payments (payment_id, invoice_id, amount, payment_date, payment_method) VALUES (?, ?, ?, ?, ?)";
+    
+    private final InvoiceDao invoiceDao = new InvoiceDao();
+    
+    /**
+     * Imports payments
+     * 
+     * @param input The CSV or TSV file to read
+     * @param rejectFile The file rejected rows are written to
+     * @return The import result
+     * @throws IOException If the input cannot be read or the reject file cannot be written
+     * @throws SQLException If the invoices cannot be read or no database connection can be obtained
+     */
+    public PaymentImportResult importPayments(File input, File rejectFile) throws IOException, SQLException {
+        return importPayments(input, BulkImportDao.delimiterFor(input), rejectFile);
+    }
+    
+    /**
+     * Imports a delimited file of payments.
+     * If the first line consists of column names it is used as a header and
+     * columns may appear in any order; otherwise the fields must follow the
+     * order of COLUMNS.
+     * 
+     * @param input The file to read (UTF-8)
+     * @param delimiter The field delimiter, usually CsvUtil.COMMA or CsvUtil.TAB
+     * @param rejectFile The file rejected rows are written to
+     * @return The import result
+     * @throws IOException If the input cannot be read or the reject file cannot be written
+     * @throws SQLException If the invoices cannot be read or no database connection can be obtained
+     */
+    public PaymentImportResult importPayments(File input, char delimiter, File rejectFile)
+            throws IOException, SQLException {
+        long start = System.currentTimeMillis();
+        PaymentImportResult result = new PaymentImportResult(rejectFile);
+        Map<String, Integer> invoiceIds = invoiceDao.findInvoiceIdsByNumber();
+        Set<Integer> paidInvoices = new HashSet<>();
+        
+        try (BufferedReader reader = Files.newBufferedReader(input.toPath(), StandardCharsets.UTF_8);
+             BufferedWriter rejects = Files.newBufferedWriter(rejectFile.toPath(), StandardCharsets.UTF_8)) {
+            rejects.write(CsvUtil.formatLine(new String[] { "line", "reason", "record" }, delimiter));
+            rejects.newLine();
+            Loader loader = new Loader(result, rejects, delimiter, paidInvoices);
+            
+            Set<String> paymentIds = new HashSet<>();
+            int[] columnMap = null;
+            List<PaymentRow> rows = new ArrayList<>(ROWS_PER_TRANSACTION);
+            String line;
+            long lineNumber = 0;
+            
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1) {
+                    columnMap = headerMapping(line, delimiter);
+                    if (columnMap != null) {
+                        continue;
+                    }
+                }
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                result.addRead(1);
+                
+                try {
+                    PaymentRow row = parse(lineNumber, line, delimiter, columnMap, invoiceIds);
+                    if (!paymentIds.add(row.paymentId)) {
+                        throw new IllegalArgumentException("Payment ID appears more than once in the file: " + row.paymentId);
+                    }
+                    rows.add(row);
+                } catch (IllegalArgumentException e) {
+                    loader.writeReject(lineNumber, line, e.getMessage());
+                }
+                
+                if (rows.size() == ROWS_PER_TRANSACTION) {
+                    loader.load(rows);
+                    rows = new ArrayList<>(ROWS_PER_TRANSACTION);
+                }
+            }
+            if (!rows.isEmpty()) {
+                loader.load(rows);
+            }
+        }
+        
+        result.setInvoicesSettled(paidInvoices.size());
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        LogUtil.info(result.toString());
+        return result;
+    }
+    
+    /**
+     * Maps header columns to COLUMNS.
+     * The first line is a header if any of its fields names a column;
+     * fields that name no column are skipped.
+     * 
+     * @param firstLine The first line of the input
+     * @param delimiter The field delimiter
+     * @return For each column the index of the matching field (-1 if absent),
+     *         or null if the first line is not a header
+     */
+    private static int[] headerMapping(String firstLine, char delimiter) {
+        String[] names;
+        try {
+            names = CsvUtil.parseLine(firstLine, delimiter);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int[] columnMap = new int[COLUMNS.length];
+        Arrays.fill(columnMap, -1);
+        List<String> unknown = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            int column = Arrays.asList(COLUMNS).indexOf(names[i].trim().toLowerCase());
+            if (column < 0) {
+                unknown.add(names[i]);
+            } else {
+                columnMap[column] = i;
+            }
+        }
+        if (unknown.size() == names.length) {
+            return null;
+        }
+        if (!unknown.isEmpty()) {
+            LogUtil.warning("Skipping unknown columns in payments import: " + unknown);
+        }
+        return columnMap;
+    }
+    
+    /**
+     * Parses and validates one line
+     * 
+     * @param lineNumber The line number
+     * @param line The line
+     * @param delimiter The field delimiter
+     * @param columnMap The header mapping, or null if fields are in column order
+     * @param invoiceIds Invoice number -> database ID
+     * @return The payment row
+     * @throws IllegalArgumentException If the row is invalid; the message is the reject reason
+     */
+    private static PaymentRow parse(long lineNumber, String line, char delimiter, int[] columnMap,
+                                    Map<String, Integer> invoiceIds) {
+        String[] fields = CsvUtil.parseLine(line, delimiter);
+        if (columnMap != null) {
+            String[] ordered = new String[columnMap.length];
+            for (int i = 0; i < columnMap.length; i++) {
+                ordered[i] = columnMap[i] >= 0 && columnMap[i] < fields.length ? fields[columnMap[i]] : null;
+            }
+            fields = ordered;
+        }
+        
+        String paymentId = ImportTarget.code(fields, 0, "Payment ID");
+        String invoiceNumber = ImportTarget.required(fields, 1, "Invoice number");
+        Integer invoiceId = invoiceIds.get(invoiceNumber);
+        if (invoiceId == null) {
+            throw new IllegalArgumentException("No invoice with number " + invoiceNumber);
+        }
+        BigDecimal amount = ImportTarget.decimal(fields, 2, "Amount");
+        if (!ValidationUtil.validatePositive(amount)) {
+            throw new IllegalArgumentException("Amount must be greater than zero");
+        }
+        LocalDate paymentDate = ImportTarget.optionalDate(fields, 3, "Payment date");
+        if (paymentDate == null) {
+            throw new IllegalArgumentException("Payment date is required");
+        } else if (!ValidationUtil.validateNotFuture(paymentDate)) {
+            throw new IllegalArgumentException("Payment date cannot be in the future");
+        }
+        return new PaymentRow(lineNumber, line, paymentId, invoiceId, amount, paymentDate,
+                              ImportTarget.optional(fields, 4));
+    }
+    
+    /**
+     * Loads validated rows into the database and writes rejects.
+     * Used only from the importing thread.
+     */
+    private static final class Loader {
+        private final PaymentImportResult result;
+        private final BufferedWriter rejects;
+        private final char delimiter;
+        private final Set<Integer> paidInvoices;
+        
+        Loader(PaymentImportResult result, BufferedWriter rejects, char delimiter, Set<Integer> paidInvoices) {
+            this.result = result;
+            this.rejects = rejects;
+            this.delimiter = delimiter;
+            this.paidInvoices = paidInvoices;
+        }
+        
+        /**
+         * Loads the rows in one transaction; if that fails, loads them one
+         * at a time so that only the offending rows are rejected
+         * 
+         * @param rows The validated rows
+         * @throws IOException If the reject file cannot be written
+         * @throws SQLException If no database connection can be obtained
+         */
+        void load(List<PaymentRow> rows) throws IOException, SQLException {
+            Connection con = null;
+            try {
+                con = DbConnection.getInstance().getConnection();
+                con.setAutoCommit(false);
+                
+                Set<String> existing;
+                List<PaymentRow> newRows = new ArrayList<>(rows.size());
+                try {
+                    existing = existingPaymentIds(con, rows);
+                    for (PaymentRow row : rows) {
+                        if (!existing.contains(row.paymentId)) {
+                            newRows.add(row);
+                        }
+                    }
+                    insert(con, newRows);
+                    addToRollup(con, newRows);
+                    settle(con, newRows);
+                    con.commit();
+                } catch (SQLException e) {
+                    con.rollback();
+                    LogUtil.warning("Batch insert of payments failed for lines " + rows.get(0).lineNumber + "-" +
+                                    rows.get(rows.size() - 1).lineNumber + ", retrying row by row: " + e.getMessage());
+                    insertEach(con, rows);
+                    return;
+                }
+                
+                for (PaymentRow row : rows) {
+                    if (existing.contains(row.paymentId)) {
+                        writeReject(row.lineNumber, row.line, "Payment ID already exists: " + row.paymentId);
+                    } else {
+                        imported(row);
+                    }
+                }
+            } finally {
+                if (con != null) {
+                    try {
+                        con.setAutoCommit(true);
+                    } catch (SQLException e) {
+                        // The pool resets the session anyway
+                    }
+                    con.close();
+                }
+            }
+        }
+        
+        /**
+         * Finds which of the rows' payment IDs are already in the database
+         * 
+         * @param con The connection
+         * @param rows The rows
+         * @return The existing payment IDs
+         * @throws SQLException If a database access error occurs
+         */
+        private Set<String> existingPaymentIds(Connection con, List<PaymentRow> rows) throws SQLException {
+            String[] paymentIds = new String[rows.size()];
+            for (int i = 0; i < paymentIds.length; i++) {
+                paymentIds[i] = rows.get(i).paymentId;
+            }
+            PreparedStatement pst = con.prepareStatement("SELECT payment_id FROM payments WHERE payment_id = ANY (?)");
+            pst.setArray(1, con.createArrayOf("varchar", paymentIds));
+            
+            ResultSet rs = pst.executeQuery();
+            Set<String> existing = new HashSet<>();
+            while (rs.next()) {
+                existing.add(rs.getString(1));
+            }
+            rs.close();
+            pst.close();
+            return existing;
+        }
+        
+        /**
+         * Inserts rows with JDBC batches of up to BATCH_SIZE rows
+         * 
+         * @param con The connection, in a transaction
+         * @param rows The rows to insert
+         * @throws SQLException If any statement fails
+         */
+        private void insert(Connection con, List<PaymentRow> rows) throws SQLException {
+            PreparedStatement pst = con.prepareStatement(INSERT_SQL);
+            int batched = 0;
+            for (PaymentRow row : rows) {
+                row.bind(pst);
+                pst.addBatch();
+                if (++batched == BATCH_SIZE) {
+                    pst.executeBatch();
+                    batched = 0;
+                }
+            }
+            if (batched > 0) {
+                pst.executeBatch();
+            }
+            pst.close();
+        }
+        
+        /**
+         * Recomputes the status of the invoices the rows pay, once per invoice
+         * 
+         * @param con The connection, in a transaction
+         * @param rows The inserted rows
+         * @throws SQLException If a database access error occurs
+         */
+        private void settle(Connection con, List<PaymentRow> rows) throws SQLException {
+            Set<Integer> invoiceIds = new TreeSet<>();
+            for (PaymentRow row : rows) {
+                invoiceIds.add(row.invoiceId);
+            }
+            PaymentDao.lockInvoices(con, invoiceIds);
+            PaymentDao.settleInvoices(con, invoiceIds);
+        }
+        
+        /**
+         * Adds the rows to the daily payment rollup, one statement per payment date
+         * 
+         * @param con The connection, in a transaction
+         * @param rows The inserted rows
+         * @throws SQLException If a database access error occurs
+         */
+        private void addToRollup(Connection con, List<PaymentRow> rows) throws SQLException {
+            Map<LocalDate, Integer> counts = new HashMap<>();
+            Map<LocalDate, BigDecimal> totals = new HashMap<>();
+            for (PaymentRow row : rows) {
+                counts.merge(row.paymentDate, 1, Integer::sum);
+                totals.merge(row.paymentDate, row.amount, BigDecimal::add);
+            }
+            for (Map.Entry<LocalDate, Integer> day : counts.entrySet()) {
+                MetricsRollup.addPayments(con, day.getKey(), day.getValue(), totals.get(day.getKey()));
+            }
+        }
+        
+        /**
+         * Inserts rows one at a time, each in its own transaction, rejecting
+         * those the database refuses
+         * 
+         * @param con The connection, with auto-commit off
+         * @param rows The rows to insert
+         * @throws IOException If the reject file cannot be written
+         */
+        private void insertEach(Connection con, List<PaymentRow> rows) throws IOException {
+            for (PaymentRow row : rows) {
+                try {
+                    PreparedStatement pst = con.prepareStatement(INSERT_SQL);
+                    row.bind(pst);
+                    pst.executeUpdate();
+                    pst.close();
+                    MetricsRollup.addPayment(con, row.paymentDate, row.amount, 1);
+                    settle(con, Collections.singletonList(row));
+                    con.commit();
+                    imported(row);
+                } catch (SQLException e) {
+                    try {
+                        con.rollback();
+                    } catch (SQLException rollbackEx) {
+                        rollbackEx.printStackTrace();
+                    }
+                    writeReject(row.lineNumber, row.line, e.getMessage());
+                }
+            }
+        }
+        
+        private void imported(PaymentRow row) {
+            result.addImported(1);
+            paidInvoices.add(row.invoiceId);
+        }
+        
+        void writeReject(long lineNumber, String line, String reason) throws IOException {
+            rejects.write(CsvUtil.formatLine(new String[] { String.valueOf(lineNumber), reason, line }, delimiter));
+            rejects.newLine();
+            result.addRejected(1);
+        }
+    }
+    
+    /**
+     * A valid payment row and the line it was read from
+     */
+    private static final class PaymentRow {
+        private final long lineNumber;
+        private final String line;
+        private final String paymentId;
+        private final int invoiceId;
+        private final BigDecimal amount;
+        private final LocalDate paymentDate;
+        private final String paymentMethod;
+        
+        PaymentRow(long lineNumber, String line, String paymentId, int invoiceId, BigDecimal amount,
+                   LocalDate paymentDate, String paymentMethod) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.paymentId = paymentId;
+            this.invoiceId = invoiceId;
+            this.amount = amount;
+            this.paymentDate = paymentDate;
+            this.paymentMethod = paymentMethod;
+        }
+        
+        void bind(PreparedStatement pst) throws SQLException {
+            pst.setString(1, paymentId);
+            pst.setInt(2, invoiceId);
+            pst.setBigDecimal(3, amount);
+            pst.setDate(4, java.sql.Date.valueOf(paymentDate));
+            pst.setString(5, paymentMethod);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,84 @@
+package dao;
+
+import java.io.File;
+
+/**
+ * Outcome of a PaymentImportDao run
+ */
+public class PaymentImportResult {
+    private final File rejectFile;
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsRejected;
+    private int invoicesSettled;
+    private long elapsedMillis;
+    
+    PaymentImportResult(File rejectFile) {
+        this.rejectFile = rejectFile;
+    }
+    
+    void addRead(long rows) {
+        rowsRead += rows;
+    }
+    
+    void addImported(long rows) {
+        rowsImported += rows;
+    }
+    
+    void addRejected(long rows) {
+        rowsRejected += rows;
+    }
+    
+    void setInvoicesSettled(int invoicesSettled) {
+        this.invoicesSettled = invoicesSettled;
+    }
+    
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+    
+    // Getters
+    public File getRejectFile() {
+        return rejectFile;
+    }
+    
+    public long getRowsRead() {
+        return rowsRead;
+    }
+    
+    public long getRowsImported() {
+        return rowsImported;
+    }
+    
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+    
+    /**
+     * Gets the number of invoices whose status was recomputed
+     * 
+     * @return Invoices settled by the loaded payments
+     */
+    public int getInvoicesSettled() {
+        return invoicesSettled;
+    }
+    
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    
+    /**
+     * Gets the import throughput
+     * 
+     * @return Rows read per second
+     */
+    public long getRowsPerSecond() {
+        return elapsedMillis > 0 ? rowsRead * 1000 / elapsedMillis : rowsRead;
+    }
+    
+    @Override
+    public String toString() {
+        return "Imported " + rowsImported + " of " + rowsRead + " payment rows (" + rowsRejected + " rejected), " +
+               "settled " + invoicesSettled + " invoices in " + elapsedMillis + " ms (" + getRowsPerSecond() + " rows/s)";
+    }
+}
\ No newline at end of file
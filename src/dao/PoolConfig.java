@@ -0,0 +1,114 @@
+package dao;
+
+import java.util.Properties;
+
+/**
+ * Connection settings read from database.properties.
+ * Every key is optional; missing keys fall back to the defaults below.
+ */
+public class PoolConfig {
+    public static final String MODE_POOLED = "pooled";
+    public static final String MODE_DIRECT = "direct";
+    
+    private String url = "jdbc:postgresql://localhost:5432/business_db";
+    private String user = "postgres";
+    private String password = "078868";
+    private String poolMode = MODE_POOLED;
+    private int maxPoolSize = 10;
+    private int minIdle = 2;
+    private boolean fair = true;
+    private long connectionTimeoutMs = 30000;
+    private long validationIntervalMs = 30000;
+    private long keepaliveIntervalMs = 120000;
+    private long maxLifetimeMs = 30 * 60 * 1000;
+    private long leakDetectionThresholdMs = 60000;
+    private int statementCacheSize = 64;
+    
+    /**
+     * Creates a configuration with default values
+     */
+    public PoolConfig() {
+    }
+    
+    /**
+     * Creates a configuration from properties, using defaults for missing keys
+     * 
+     * @param props The properties to read
+     * @return The configuration
+     */
+    public static PoolConfig fromProperties(Properties props) {
+        PoolConfig config = new PoolConfig();
+        config.url = props.getProperty("db.url", config.url);
+        config.user = props.getProperty("db.user", config.user);
+        config.password = props.getProperty("db.password", config.password);
+        config.poolMode = props.getProperty("db.poolMode", config.poolMode).trim().toLowerCase();
+        config.maxPoolSize = Integer.parseInt(props.getProperty("db.maxPoolSize", String.valueOf(config.maxPoolSize)));
+        config.minIdle = Integer.parseInt(props.getProperty("db.minIdle", String.valueOf(config.minIdle)));
+        config.fair = Boolean.parseBoolean(props.getProperty("db.fair", String.valueOf(config.fair)));
+        config.connectionTimeoutMs = Long.parseLong(props.getProperty("db.connectionTimeout", String.valueOf(config.connectionTimeoutMs)));
+        config.validationIntervalMs = Long.parseLong(props.getProperty("db.validationInterval", String.valueOf(config.validationIntervalMs)));
+        config.keepaliveIntervalMs = Long.parseLong(props.getProperty("db.keepaliveInterval", String.valueOf(config.keepaliveIntervalMs)));
+        config.maxLifetimeMs = Long.parseLong(props.getProperty("db.maxLifetime", String.valueOf(config.maxLifetimeMs)));
+        config.leakDetectionThresholdMs = Long.parseLong(props.getProperty("db.leakDetectionThreshold", String.valueOf(config.leakDetectionThresholdMs)));
+        config.statementCacheSize = Integer.parseInt(props.getProperty("db.statementCacheSize", String.valueOf(config.statementCacheSize)));
+        
+        // Keep the sizes consistent with each other
+        config.maxPoolSize = Math.max(1, config.maxPoolSize);
+        config.minIdle = Math.max(0, Math.min(config.minIdle, config.maxPoolSize));
+        return config;
+    }
+    
+    // Getters
+    
+    public String getUrl() {
+        return url;
+    }
+    
+    public String getUser() {
+        return user;
+    }
+    
+    public String getPassword() {
+        return password;
+    }
+    
+    public String getPoolMode() {
+        return poolMode;
+    }
+    
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+    
+    public int getMinIdle() {
+        return minIdle;
+    }
+    
+    public boolean isFair() {
+        return fair;
+    }
+    
+    public long getConnectionTimeoutMs() {
+        return connectionTimeoutMs;
+    }
+    
+    public long getValidationIntervalMs() {
+        return validationIntervalMs;
+    }
+    
+    public long getKeepaliveIntervalMs() {
+        return keepaliveIntervalMs;
+    }
+    
+    public long getMaxLifetimeMs() {
+        return maxLifetimeMs;
+    }
+    
+    public long getLeakDetectionThresholdMs() {
+        return leakDetectionThresholdMs;
+    }
+    
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+}
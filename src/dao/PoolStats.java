@@ -0,0 +1,196 @@
+package dao;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the DbConnection pool metrics.
+ */
+public class PoolStats {
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int maxPoolSize;
+    private final int waitingThreads;
+    private final long acquireCount;
+    private final long timeoutCount;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+    private final long createdCount;
+    private final long evictedCount;
+    private final long leakCount;
+    private final long[] waitHistogram;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+    
+    /**
+     * Creates a new snapshot
+     */
+    PoolStats(int activeConnections, int idleConnections, int maxPoolSize, int waitingThreads,
+              long acquireCount, long timeoutCount, long totalWaitNanos, long maxWaitNanos,
+              long createdCount, long evictedCount, long leakCount, long[] waitHistogram,
+              long statementCacheHits, long statementCacheMisses) {
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.maxPoolSize = maxPoolSize;
+        this.waitingThreads = waitingThreads;
+        this.acquireCount = acquireCount;
+        this.timeoutCount = timeoutCount;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.createdCount = createdCount;
+        this.evictedCount = evictedCount;
+        this.leakCount = leakCount;
+        this.waitHistogram = waitHistogram;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+    }
+    
+    // Getters
+    
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+    
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+    
+    public int getTotalConnections() {
+        return activeConnections + idleConnections;
+    }
+    
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+    
+    public int getWaitingThreads() {
+        return waitingThreads;
+    }
+    
+    public long getAcquireCount() {
+        return acquireCount;
+    }
+    
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+    
+    public long getCreatedCount() {
+        return createdCount;
+    }
+    
+    public long getEvictedCount() {
+        return evictedCount;
+    }
+    
+    public long getLeakCount() {
+        return leakCount;
+    }
+    
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+    
+    public long getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+    
+    /**
+     * Gets the fraction of prepareStatement calls served from the statement cache
+     * 
+     * @return Hit rate between 0 and 1
+     */
+    public double getStatementCacheHitRate() {
+        long total = statementCacheHits + statementCacheMisses;
+        return total == 0 ? 0.0 : statementCacheHits / (double) total;
+    }
+    
+    /**
+     * Gets the average time callers waited for a connection
+     * 
+     * @return Average wait in milliseconds
+     */
+    public double getAverageWaitMillis() {
+        return acquireCount == 0 ? 0.0 : (totalWaitNanos / (double) acquireCount) / 1_000_000.0;
+    }
+    
+    /**
+     * Gets the longest time a caller waited for a connection
+     * 
+     * @return Maximum wait in milliseconds
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos / 1_000_000.0;
+    }
+    
+    /**
+     * Gets the acquire wait time histogram
+     * 
+     * @return Map of bucket label (e.g. "<1ms") to number of acquisitions, in bucket order
+     */
+    public Map<String, Long> getWaitHistogram() {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        long[] bounds = WaitTimeHistogram.BUCKET_BOUNDS_MICROS;
+        for (int i = 0; i < waitHistogram.length; i++) {
+            String label = i < bounds.length
+                    ? "<" + formatMicros(bounds[i])
+                    : ">=" + formatMicros(bounds[bounds.length - 1]);
+            histogram.put(label, waitHistogram[i]);
+        }
+        return histogram;
+    }
+    
+    /**
+     * Estimates a wait time percentile from the histogram.
+     * The result is the upper bound of the bucket containing the percentile.
+     * 
+     * @param percentile The percentile, between 0 and 100
+     * @return Estimated wait in milliseconds
+     */
+    public double getWaitPercentileMillis(double percentile) {
+        long total = 0;
+        for (long count : waitHistogram) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0.0;
+        }
+        
+        long target = (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+        long seen = 0;
+        long[] bounds = WaitTimeHistogram.BUCKET_BOUNDS_MICROS;
+        for (int i = 0; i < waitHistogram.length; i++) {
+            seen += waitHistogram[i];
+            if (seen >= target && i < bounds.length) {
+                return bounds[i] / 1000.0;
+            }
+        }
+        return getMaxWaitMillis();
+    }
+    
+    /**
+     * Formats a bucket bound for display
+     * 
+     * @param micros The bound in microseconds
+     * @return Formatted bound
+     */
+    private static String formatMicros(long micros) {
+        if (micros < 1000) {
+            return micros + "us";
+        }
+        if (micros < 1000000) {
+            return (micros % 1000 == 0 ? String.valueOf(micros / 1000) : String.valueOf(micros / 1000.0)) + "ms";
+        }
+        return (micros / 1000000) + "s";
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("PoolStats{active=%d, idle=%d, max=%d, waiting=%d, acquired=%d, timeouts=%d, " +
+                             "avgWait=%.2fms, p99Wait=%.2fms, maxWait=%.2fms, created=%d, evicted=%d, leaks=%d, " +
+                             "stmtCacheHits=%d, stmtCacheMisses=%d}",
+                             activeConnections, idleConnections, maxPoolSize, waitingThreads, acquireCount,
+                             timeoutCount, getAverageWaitMillis(), getWaitPercentileMillis(99), getMaxWaitMillis(),
+                             createdCount, evictedCount, leakCount, statementCacheHits, statementCacheMisses);
+    }
+}
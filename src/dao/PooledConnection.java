@@ -0,0 +1,273 @@
+package dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A physical database connection owned by the ConnectionPool.
+ * Callers never see this class directly; they receive a Connection proxy
+ * whose close() method hands the physical connection back to the pool.
+ */
+final class PooledConnection {
+    private final Connection physical;
+    private final long createdAt;
+    private final int defaultIsolation;
+    private final boolean defaultReadOnly;
+    private final String defaultSchema;
+    private final List<Statement> openStatements = new ArrayList<>();
+    private final StatementCache statementCache;
+    private volatile long lastReturnedAt;
+    private volatile long borrowedAt;
+    private volatile Throwable borrowSite;
+    private volatile boolean leakReported;
+    private volatile boolean stateDirty;
+    
+    /**
+     * Wraps a freshly opened physical connection and remembers its
+     * session defaults so they can be restored on every release
+     * 
+     * @param physical The physical connection
+     * @param statementCacheSize Maximum number of cached prepared statements (0 disables caching)
+     * @param cacheHits Counter for statement cache hits
+     * @param cacheMisses Counter for statement cache misses
+     * @throws SQLException If the session defaults cannot be read
+     */
+    PooledConnection(Connection physical, int statementCacheSize, AtomicLong cacheHits, AtomicLong cacheMisses)
+            throws SQLException {
+        this.physical = physical;
+        this.statementCache = statementCacheSize > 0
+                ? new StatementCache(physical, statementCacheSize, cacheHits, cacheMisses)
+                : null;
+        this.createdAt = System.currentTimeMillis();
+        this.lastReturnedAt = createdAt;
+        this.defaultIsolation = physical.getTransactionIsolation();
+        this.defaultReadOnly = physical.isReadOnly();
+        this.defaultSchema = physical.getSchema();
+    }
+    
+    /**
+     * Gets the underlying physical connection
+     * 
+     * @return The physical connection
+     */
+    Connection getPhysical() {
+        return physical;
+    }
+    
+    /**
+     * Gets how long this connection has existed
+     * 
+     * @param now The current time in milliseconds
+     * @return Age in milliseconds
+     */
+    long getAge(long now) {
+        return now - createdAt;
+    }
+    
+    /**
+     * Gets how long this connection has been idle in the pool
+     * 
+     * @param now The current time in milliseconds
+     * @return Idle time in milliseconds
+     */
+    long getIdleTime(long now) {
+        return now - lastReturnedAt;
+    }
+    
+    /**
+     * Gets how long this connection has been borrowed
+     * 
+     * @param now The current time in milliseconds
+     * @return Borrowed time in milliseconds
+     */
+    long getBorrowedTime(long now) {
+        return now - borrowedAt;
+    }
+    
+    /**
+     * Gets the stack trace captured when the connection was borrowed
+     * 
+     * @return The borrow site, or null if leak detection is disabled
+     */
+    Throwable getBorrowSite() {
+        return borrowSite;
+    }
+    
+    boolean isLeakReported() {
+        return leakReported;
+    }
+    
+    void setLeakReported(boolean leakReported) {
+        this.leakReported = leakReported;
+    }
+    
+    /**
+     * Records that the connection has been handed out
+     * 
+     * @param captureBorrowSite Whether to capture the caller's stack trace
+     */
+    void markBorrowed(boolean captureBorrowSite) {
+        borrowedAt = System.currentTimeMillis();
+        borrowSite = captureBorrowSite ? new Throwable("Connection borrowed here") : null;
+        leakReported = false;
+    }
+    
+    /**
+     * Records that the connection is back in the pool
+     */
+    void markReturned() {
+        lastReturnedAt = System.currentTimeMillis();
+        borrowSite = null;
+    }
+    
+    /**
+     * Puts the session back into the state it had when it was opened:
+     * closes open statements, rolls back any unfinished transaction and
+     * restores auto-commit, isolation level, read-only flag and schema.
+     * 
+     * @throws SQLException If the session cannot be reset
+     */
+    void resetState() throws SQLException {
+        closeOpenStatements();
+        if (statementCache != null) {
+            statementCache.checkInAll();
+        }
+        if (!physical.getAutoCommit()) {
+            physical.rollback();
+            physical.setAutoCommit(true);
+        }
+        if (stateDirty) {
+            if (physical.getTransactionIsolation() != defaultIsolation) {
+                physical.setTransactionIsolation(defaultIsolation);
+            }
+            if (physical.isReadOnly() != defaultReadOnly) {
+                physical.setReadOnly(defaultReadOnly);
+            }
+            if (defaultSchema != null && !defaultSchema.equals(physical.getSchema())) {
+                physical.setSchema(defaultSchema);
+            }
+            stateDirty = false;
+        }
+        physical.clearWarnings();
+    }
+    
+    /**
+     * Closes every statement created through the proxy since it was borrowed.
+     * DAOs rarely close their statements, and the physical connection is not
+     * closed any more, so this keeps server-side cursors from piling up.
+     */
+    void closeOpenStatements() {
+        synchronized (openStatements) {
+            for (Statement statement : openStatements) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    // Statement is unusable either way
+                }
+            }
+            openStatements.clear();
+        }
+    }
+    
+    /**
+     * Closes the physical connection
+     */
+    void closePhysical() {
+        closeOpenStatements();
+        if (statementCache != null) {
+            statementCache.closeAll();
+        }
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            // Connection is being discarded anyway
+        }
+    }
+    
+    /**
+     * Creates the Connection proxy handed to callers
+     * 
+     * @param pool The pool the connection returns to on close
+     * @return A Connection proxy
+     */
+    Connection createProxy(ConnectionPool pool) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new Handler(pool));
+    }
+    
+    /**
+     * Invocation handler that intercepts close(), serves prepared statements
+     * from the statement cache and tracks all other statements
+     */
+    private final class Handler implements InvocationHandler {
+        private final ConnectionPool pool;
+        private volatile boolean closed;
+        
+        Handler(ConnectionPool pool) {
+            this.pool = pool;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + (closed ? ", returned" : "") + "]";
+                case "setTransactionIsolation":
+                case "setReadOnly":
+                case "setSchema":
+                    // Only pay for a full session reset when a caller changed it
+                    stateDirty = true;
+                    break;
+                default:
+                    break;
+            }
+            
+            if (closed) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            
+            if (statementCache != null && "prepareStatement".equals(method.getName())) {
+                Statement cached = statementCache.prepare((Connection) proxy, method, args);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            
+            Object result;
+            try {
+                result = method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            
+            if (result instanceof Statement) {
+                synchronized (openStatements) {
+                    openStatements.add((Statement) result);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -2,23 +2,26 @@ package dao;
 
 import java.math.BigDecimal;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import model.Product;
-import model.Supplier;
 
 /**
  * Data Access Object for Product operations.
  */
 public class ProductDao {
-    private String db_url = "jdbc:postgresql://localhost:5432/business_db";
-    private String db_username = "postgres";
-    private String db_passwd = "078868";
+    private static final int CACHE_SIZE = 5000;
+    private static final long CACHE_TTL_MINUTES = 10;
+    
+    // Lookups by ID, shared by all ProductDao instances
+    static final EntityCache<Product> CACHE =
+        new EntityCache<>("products", CACHE_SIZE, CACHE_TTL_MINUTES, TimeUnit.MINUTES, Product::new);
     
     /**
      * Creates a new product in the database
@@ -27,10 +30,7 @@ public class ProductDao {
      * @return Number of rows affected
      */
     public int createProduct(Product product) {
-        try {
-            // Create connection
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             // Prepare statement
             String sql = "INSERT INTO products (product_code, name, description, price, stock_quantity, category, supplier_id) " +
                          "VALUES (?, ?, ?, ?, ?, ?, ?)";
@@ -56,8 +56,6 @@ public class ProductDao {
                 rs.close();
             }
             
-            // Close connection
-            con.close();
             return rowsAffected;
             
         } catch (Exception ex) {
@@ -73,10 +71,7 @@ public class ProductDao {
      * @return Number of rows affected
      */
     public int updateProduct(Product product) {
-        try {
-            // Create connection
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             // Prepare statement
             String sql = "UPDATE products SET product_code = ?, name = ?, description = ?, " +
                          "price = ?, stock_quantity = ?, category = ?, supplier_id = ? WHERE id = ?";
@@ -93,9 +88,8 @@ public class ProductDao {
             
             // Execute statement
             int rowsAffected = pst.executeUpdate();
+            CACHE.invalidate(product.getId());
             
-            // Close connection
-            con.close();
             return rowsAffected;
             
         } catch (Exception ex) {
@@ -112,10 +106,7 @@ public class ProductDao {
      * @return Number of rows affected
      */
     public int updateProductStock(int productId, int quantity) {
-        try {
-            // Create connection
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             // Prepare statement
             String sql = "UPDATE products SET stock_quantity = stock_quantity + ? WHERE id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
@@ -125,9 +116,8 @@ public class ProductDao {
             
             // Execute statement
             int rowsAffected = pst.executeUpdate();
+            CACHE.invalidate(productId);
             
-            // Close connection
-            con.close();
             return rowsAffected;
             
         } catch (Exception ex) {
@@ -137,14 +127,23 @@ public class ProductDao {
     }
     
     /**
-     * Finds a product by ID
+     * Finds a product by ID. Served from the shared cache when possible.
      * 
      * @param id The product ID to search for
      * @return The product if found, null otherwise
      */
     public Product findProductById(int id) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        return CACHE.get(id, this::loadProductById);
+    }
+    
+    /**
+     * Loads a product by ID from the database, bypassing the cache
+     * 
+     * @param id The product ID to search for
+     * @return The product if found, null otherwise
+     */
+    private Product loadProductById(int id) {
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM products WHERE id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, id);
@@ -164,7 +163,6 @@ public class ProductDao {
                 product.setSupplierId(rs.getInt("supplier_id"));
             }
             
-            con.close();
             return product;
             
         } catch (Exception ex) {
@@ -180,8 +178,7 @@ public class ProductDao {
      * @return The product if found, null otherwise
      */
     public Product findProductByCode(String productCode) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM products WHERE product_code = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setString(1, productCode);
@@ -201,7 +198,6 @@ public class ProductDao {
                 product.setSupplierId(rs.getInt("supplier_id"));
             }
             
-            con.close();
             return product;
             
         } catch (Exception ex) {
@@ -217,13 +213,11 @@ public class ProductDao {
      * @return List of matching products
      */
     public List<Product> findProductsByName(String name) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            String sql = "SELECT * FROM products WHERE name LIKE ?";
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            String sql = "SELECT * FROM products WHERE " + TextSearch.PRODUCT_NAME + " LIKE ?";
             PreparedStatement pst = con.prepareStatement(sql);
             
-            String searchName = "%" + name + "%";
-            pst.setString(1, searchName);
+            pst.setString(1, TextSearch.containsPattern(name));
             
             ResultSet rs = pst.executeQuery();
             List<Product> productList = new ArrayList<>();
@@ -241,7 +235,6 @@ public class ProductDao {
                 productList.add(product);
             }
             
-            con.close();
             return productList;
             
         } catch (Exception ex) {
@@ -250,6 +243,21 @@ public class ProductDao {
         }
     }
     
+    /**
+     * Searches products by code, name, price, stock or category, ignoring
+     * case. Near matches such as misspellings are included after the exact
+     * matches.
+     * 
+     * @param text The text to search for
+     * @param offset The number of results to skip
+     * @param limit The maximum number of results
+     * @return The matching products, best match first, with the matching parts of their names
+     */
+    public Page<SearchResult<Product>> searchProducts(String text, int offset, int limit) {
+        return TextSearch.search("products", TextSearch.PRODUCT_TEXT, TextSearch.PRODUCT_NAME,
+                                 ProductDao::mapProduct, text, offset, limit);
+    }
+    
     /**
      * Finds products by category
      * 
@@ -257,8 +265,7 @@ public class ProductDao {
      * @return List of matching products
      */
     public List<Product> findProductsByCategory(String category) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM products WHERE category = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setString(1, category);
@@ -279,7 +286,6 @@ public class ProductDao {
                 productList.add(product);
             }
             
-            con.close();
             return productList;
             
         } catch (Exception ex) {
@@ -295,8 +301,7 @@ public class ProductDao {
      * @return List of matching products
      */
     public List<Product> findProductsBySupplier(int supplierId) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM products WHERE supplier_id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, supplierId);
@@ -317,7 +322,6 @@ public class ProductDao {
                 productList.add(product);
             }
             
-            con.close();
             return productList;
             
         } catch (Exception ex) {
@@ -333,8 +337,7 @@ public class ProductDao {
      * @return List of products with stock below threshold
      */
     public List<Product> findLowStockProducts(int threshold) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM products WHERE stock_quantity < ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, threshold);
@@ -355,7 +358,6 @@ public class ProductDao {
                 productList.add(product);
             }
             
-            con.close();
             return productList;
             
         } catch (Exception ex) {
@@ -370,8 +372,7 @@ public class ProductDao {
      * @return List of all products
      */
     public List<Product> findAllProducts() {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM products";
             PreparedStatement pst = con.prepareStatement(sql);
             
@@ -391,7 +392,6 @@ public class ProductDao {
                 productList.add(product);
             }
             
-            con.close();
             return productList;
             
         } catch (Exception ex) {
@@ -399,49 +399,57 @@ public class ProductDao {
             return Collections.emptyList();
         }
     }
-    
+
     /**
-     * Gets a product with its supplier information
+     * Gets one page of products ordered by id.
+     * Pass 0 as afterId for the first page and the id of the last product
+     * of the previous page for the next one.
      * 
-     * @param productId The ID of the product
-     * @return The product with supplier loaded
+     * @param afterId Id of the last product on the previous page, or 0 for the first page
+     * @param pageSize Maximum number of products on the page
+     * @return The page of products
      */
-    public Product getProductWithSupplier(int productId) {
-        try {
-            // First get the product
-            Product product = findProductById(productId);
-            if (product == null) {
-                return null;
-            }
-            
-            // Then get its supplier
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            String sql = "SELECT * FROM suppliers WHERE id = ?";
+    public Page<Product> findProductsPage(int afterId, int pageSize) {
+        int limit = Page.normalizePageSize(pageSize);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            String sql = "SELECT * FROM products WHERE id > ? ORDER BY id LIMIT ?";
             PreparedStatement pst = con.prepareStatement(sql);
-            pst.setInt(1, product.getSupplierId());
+            pst.setInt(1, afterId);
+            pst.setInt(2, limit + 1);
             
             ResultSet rs = pst.executeQuery();
+            List<Product> productList = new ArrayList<>();
             
-            if (rs.next()) {
-                Supplier supplier = new Supplier();
-                supplier.setId(rs.getInt("id"));
-                supplier.setSupplierCode(rs.getString("supplier_code"));
-                supplier.setName(rs.getString("name"));
-                supplier.setContactPerson(rs.getString("contact_person"));
-                supplier.setEmail(rs.getString("email"));
-                supplier.setPhone(rs.getString("phone"));
-                supplier.setAddress(rs.getString("address"));
-                
-                product.setSupplier(supplier);
+            while (rs.next()) {
+                productList.add(mapProduct(rs));
             }
+            rs.close();
             
-            con.close();
-            return product;
+            long estimatedTotal = afterId == 0 ? Page.estimateRowCount(con, "products") : -1;
+            return Page.of(productList, limit, estimatedTotal);
             
         } catch (Exception ex) {
             ex.printStackTrace();
+            return Page.empty();
+        }
+    }
+    
+    /**
+     * Gets a product with its supplier information
+     * 
+     * @param productId The ID of the product
+     * @return The product with supplier loaded
+     */
+    public Product getProductWithSupplier(int productId) {
+        // First get the product
+        Product product = findProductById(productId);
+        if (product == null) {
             return null;
         }
+        
+        // Then get its supplier, usually from the supplier cache
+        product.setSupplier(new SupplierDao().findSupplierById(product.getSupplierId()));
+        return product;
     }
     
     /**
@@ -451,14 +459,13 @@ public class ProductDao {
      * @return Number of rows affected
      */
     public int deleteProduct(int productId) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "DELETE FROM products WHERE id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, productId);
             
             int rowsAffected = pst.executeUpdate();
-            con.close();
+            CACHE.invalidate(productId);
             return rowsAffected;
             
         } catch (Exception ex) {
@@ -466,4 +473,24 @@ public class ProductDao {
             return 0;
         }
     }
+    
+    /**
+     * Maps the current result set row to a Product
+     * 
+     * @param rs The result set positioned on the row to map
+     * @return The product
+     * @throws SQLException If a column cannot be read
+     */
+    private static Product mapProduct(ResultSet rs) throws SQLException {
+        Product product = new Product();
+        product.setId(rs.getInt("id"));
+        product.setProductCode(rs.getString("product_code"));
+        product.setName(rs.getString("name"));
+        product.setDescription(rs.getString("description"));
+        product.setPrice(rs.getBigDecimal("price"));
+        product.setStockQuantity(rs.getInt("stock_quantity"));
+        product.setCategory(rs.getString("category"));
+        product.setSupplierId(rs.getInt("supplier_id"));
+        return product;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,187 @@
+package dao;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import model.AgingReport;
+import model.CustomerAging;
+import model.Invoice;
+import util.CsvUtil;
+import util.LogUtil;
+
+/**
+ * Data Access Object for accounts receivable reports.
+ * 
+ * The aging report is computed by one aggregate query over the open
+ * invoices, their orders and their payments, so its cost does not depend
+ * on how many invoices a customer has and no invoice is loaded into
+ * memory. Only issued invoices are receivables; drafts are left out.
+ * 
+ * The report of the current day is cached and computed again when the day
+ * changes or when ChangeNotifier reports a change to an invoice, payment,
+ * order or customer. invalidateOnChanges() subscribes the cache at startup.
+ */
+public class ReceivablesDao {
+    private static final String[] AGING_TABLES = { "invoices", "payments", "orders", "customers" };
+    
+    // Open invoices that have been sent to the customer
+    private static final String RECEIVABLE_CONDITION =
+        InvoiceDao.OPEN_INVOICE_CONDITION + " AND status <> '" + Invoice.STATUS_DRAFT + "'";
+    
+    private static final String AGING_SQL =
+        "SELECT c.id, c.customer_id, c.first_name, c.last_name, COUNT(*) AS invoice_count, " +
+        "SUM(x.open_amount) FILTER (WHERE x.age < 0) AS current_amount, " +
+        "SUM(x.open_amount) FILTER (WHERE x.age BETWEEN 0 AND 30) AS days_0_30, " +
+        "SUM(x.open_amount) FILTER (WHERE x.age BETWEEN 31 AND 60) AS days_31_60, " +
+        "SUM(x.open_amount) FILTER (WHERE x.age BETWEEN 61 AND 90) AS days_61_90, " +
+        "SUM(x.open_amount) FILTER (WHERE x.age > 90) AS over_90_days " +
+        "FROM (SELECT o.customer_id, i.amount - COALESCE(p.paid, 0) AS open_amount, " +
+        "CAST(? AS DATE) - i.due_date AS age " +
+        "FROM (SELECT * FROM invoices WHERE " + RECEIVABLE_CONDITION + ") i " +
+        "JOIN orders o ON o.id = i.order_id " +
+        "LEFT JOIN (SELECT invoice_id, SUM(amount) AS paid FROM payments GROUP BY invoice_id) p " +
+        "ON p.invoice_id = i.id) x " +
+        "JOIN customers c ON c.id = x.customer_id " +
+        "WHERE x.open_amount > 0 " +
+        "GROUP BY c.id, c.customer_id, c.first_name, c.last_name " +
+        "ORDER BY c.id";
+    
+    private static volatile AgingReport cachedAgingReport;
+    // Counts the changes reported; a report computed across a change is not cached
+    private static final AtomicLong changeCount = new AtomicLong();
+    
+    /**
+     * Drops the cached aging report whenever ChangeNotifier reports a change
+     * to a table it is computed from. Called once at startup.
+     */
+    public static void invalidateOnChanges() {
+        ChangeNotifier.getInstance().addListener(ReceivablesDao::applyChange);
+    }
+    
+    /**
+     * Gets the aging report as of today, from the cache if it is still current
+     * 
+     * @return The report, or null if it could not be computed
+     */
+    public AgingReport getAgingReport() {
+        AgingReport report = cachedAgingReport;
+        if (report != null && report.getAsOf().equals(LocalDate.now())) {
+            return report;
+        }
+        long changesBefore = changeCount.get();
+        report = computeAgingReport(LocalDate.now());
+        if (report != null && changeCount.get() == changesBefore) {
+            cachedAgingReport = report;
+        }
+        return report;
+    }
+    
+    /**
+     * Computes the aging report, bypassing the cache.
+     * Invoices that are not due yet are current; the others are aged by the
+     * days since their due date into 0-30, 31-60, 61-90 and over 90 days.
+     * Invoices that are drafts, paid or cancelled are left out.
+     * 
+     * @param asOf The day the days past due are counted to
+     * @return The report, or null if it could not be computed
+     */
+    public AgingReport computeAgingReport(LocalDate asOf) {
+        long start = System.currentTimeMillis();
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            PreparedStatement pst = con.prepareStatement(AGING_SQL);
+            pst.setDate(1, java.sql.Date.valueOf(asOf));
+            
+            ResultSet rs = pst.executeQuery();
+            List<CustomerAging> customers = new ArrayList<>();
+            
+            while (rs.next()) {
+                CustomerAging aging = new CustomerAging();
+                aging.setCustomerId(rs.getInt("id"));
+                aging.setCustomerCode(rs.getString("customer_id"));
+                aging.setCustomerName(rs.getString("first_name") + " " + rs.getString("last_name"));
+                aging.setInvoiceCount(rs.getInt("invoice_count"));
+                aging.setCurrent(rs.getBigDecimal("current_amount"));
+                aging.setDays0To30(rs.getBigDecimal("days_0_30"));
+                aging.setDays31To60(rs.getBigDecimal("days_31_60"));
+                aging.setDays61To90(rs.getBigDecimal("days_61_90"));
+                aging.setOver90Days(rs.getBigDecimal("over_90_days"));
+                customers.add(aging);
+            }
+            rs.close();
+            pst.close();
+            
+            LogUtil.info("Aging report for " + customers.size() + " customers computed in " +
+                         (System.currentTimeMillis() - start) + " ms");
+            return new AgingReport(asOf, customers);
+            
+        } catch (Exception ex) {
+            LogUtil.error("Error computing the aging report", ex);
+            return null;
+        }
+    }
+    
+    /**
+     * Writes an aging report to a CSV file, one line per customer followed
+     * by a line with the totals
+     * 
+     * @param report The report to export
+     * @param file The file to write (UTF-8)
+     * @throws IOException If the file cannot be written
+     */
+    public void exportAgingReport(AgingReport report, File file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(CsvUtil.formatLine(new String[] {
+                "Customer ID", "Customer", "Invoices", "Current", "0-30 days past due", "31-60 days past due",
+                "61-90 days past due", "Over 90 days past due", "Total"
+            }, CsvUtil.COMMA));
+            writer.newLine();
+            for (CustomerAging customer : report.getCustomers()) {
+                writer.write(CsvUtil.formatLine(toFields(customer), CsvUtil.COMMA));
+                writer.newLine();
+            }
+            writer.write(CsvUtil.formatLine(toFields(report.getTotals()), CsvUtil.COMMA));
+            writer.newLine();
+        }
+    }
+    
+    private static String[] toFields(CustomerAging aging) {
+        return new String[] {
+            aging.getCustomerCode() != null ? aging.getCustomerCode() : "",
+            aging.getCustomerName(),
+            String.valueOf(aging.getInvoiceCount()),
+            plain(aging.getCurrent()),
+            plain(aging.getDays0To30()),
+            plain(aging.getDays31To60()),
+            plain(aging.getDays61To90()),
+            plain(aging.getOver90Days()),
+            plain(aging.getTotal())
+        };
+    }
+    
+    private static String plain(BigDecimal amount) {
+        return amount.toPlainString();
+    }
+    
+    /**
+     * Drops the cached aging report when a table it is computed from changes
+     */
+    private static void applyChange(ChangeEvent event) {
+        for (String table : AGING_TABLES) {
+            if (event.affects(table)) {
+                changeCount.incrementAndGet();
+                cachedAgingReport = null;
+                return;
+            }
+        }
+    }
+}
\ No newline at end of file
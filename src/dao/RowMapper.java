@@ -0,0 +1,22 @@
+package dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a result set to an object.
+ * 
+ * @param <T> The mapped type
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+    
+    /**
+     * Maps the current row
+     * 
+     * @param rs The result set positioned on the row to map
+     * @return The mapped object
+     * @throws SQLException If a column cannot be read
+     */
+    T map(ResultSet rs) throws SQLException;
+}
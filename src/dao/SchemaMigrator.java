@@ -0,0 +1,302 @@
+package dao;
+
+import util.LogUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Brings the database schema up to date at startup.
+ * Each migration has a version number and is applied once, in its own
+ * transaction; the applied versions are recorded in the schema_version
+ * table. New schema changes are added as new migrations at the end of
+ * MIGRATIONS, never by editing one that has been released.
+ * 
+ * The statements use IF NOT EXISTS, so databases created before the
+ * migrations existed are adopted without changes to their data.
+ * 
+ * An optional migration, such as one that needs an extension the server
+ * may not have, does not stop startup when it fails; it is not recorded,
+ * so it is tried again at the next start.
+ */
+public class SchemaMigrator {
+    static final String VERSION_TABLE = "schema_version";
+    
+    private static final List<Migration> MIGRATIONS = Arrays.asList(
+        new Migration(1, "Base schema",
+            "CREATE TABLE IF NOT EXISTS users (" +
+            "id SERIAL PRIMARY KEY, " +
+            "username VARCHAR(50) UNIQUE NOT NULL, " +
+            "password VARCHAR(255) NOT NULL, " +
+            "salt VARCHAR(255) NOT NULL, " +
+            "full_name VARCHAR(100) NOT NULL, " +
+            "email VARCHAR(100) UNIQUE NOT NULL, " +
+            "role VARCHAR(20) NOT NULL, " +
+            "active BOOLEAN NOT NULL DEFAULT TRUE, " +
+            "last_login TIMESTAMP, " +
+            "created_at TIMESTAMP NOT NULL)",
+            
+            "CREATE TABLE IF NOT EXISTS suppliers (" +
+            "id SERIAL PRIMARY KEY, " +
+            "supplier_code VARCHAR(50) UNIQUE NOT NULL, " +
+            "name VARCHAR(100) NOT NULL, " +
+            "contact_person VARCHAR(100), " +
+            "email VARCHAR(100), " +
+            "phone VARCHAR(30), " +
+            "address TEXT)",
+            
+            "CREATE TABLE IF NOT EXISTS customers (" +
+            "id SERIAL PRIMARY KEY, " +
+            "customer_id VARCHAR(50) UNIQUE NOT NULL, " +
+            "first_name VARCHAR(50) NOT NULL, " +
+            "last_name VARCHAR(50) NOT NULL, " +
+            "email VARCHAR(100) UNIQUE, " +
+            "phone VARCHAR(30), " +
+            "address TEXT, " +
+            "registration_date DATE NOT NULL)",
+            
+            // supplier_id is 0 for products without a supplier, so it has no foreign key
+            "CREATE TABLE IF NOT EXISTS products (" +
+            "id SERIAL PRIMARY KEY, " +
+            "product_code VARCHAR(50) UNIQUE NOT NULL, " +
+            "name VARCHAR(100) NOT NULL, " +
+            "description TEXT, " +
+            "price NUMERIC(12, 2) NOT NULL, " +
+            "stock_quantity INTEGER NOT NULL DEFAULT 0, " +
+            "category VARCHAR(50), " +
+            "supplier_id INTEGER)",
+            
+            "CREATE TABLE IF NOT EXISTS orders (" +
+            "id SERIAL PRIMARY KEY, " +
+            "order_id VARCHAR(50) UNIQUE NOT NULL, " +
+            "customer_id INTEGER NOT NULL REFERENCES customers (id), " +
+            "order_date DATE NOT NULL, " +
+            "total_amount NUMERIC(12, 2) NOT NULL DEFAULT 0, " +
+            "status VARCHAR(20) NOT NULL, " +
+            "payment_method VARCHAR(30))",
+            
+            "CREATE TABLE IF NOT EXISTS order_items (" +
+            "id SERIAL PRIMARY KEY, " +
+            "order_id INTEGER NOT NULL REFERENCES orders (id), " +
+            "product_id INTEGER NOT NULL REFERENCES products (id), " +
+            "quantity INTEGER NOT NULL, " +
+            "unit_price NUMERIC(12, 2) NOT NULL)",
+            
+            "CREATE TABLE IF NOT EXISTS invoices (" +
+            "id SERIAL PRIMARY KEY, " +
+            "invoice_number VARCHAR(50) UNIQUE NOT NULL, " +
+            "order_id INTEGER NOT NULL REFERENCES orders (id), " +
+            "issue_date DATE NOT NULL, " +
+            "due_date DATE NOT NULL, " +
+            "amount NUMERIC(12, 2) NOT NULL, " +
+            "status VARCHAR(20) NOT NULL)",
+            
+            "CREATE TABLE IF NOT EXISTS payments (" +
+            "id SERIAL PRIMARY KEY, " +
+            "payment_id VARCHAR(50) UNIQUE NOT NULL, " +
+            "invoice_id INTEGER NOT NULL REFERENCES invoices (id), " +
+            "amount NUMERIC(12, 2) NOT NULL, " +
+            "payment_date DATE NOT NULL, " +
+            "payment_method VARCHAR(30))"),
+        
+        new Migration(2, "Indexes for the DAO access paths",
+            // Orders of a customer, by status, by date range and the keyset-paged order list
+            "CREATE INDEX IF NOT EXISTS orders_customer_id_order_date_idx ON orders (customer_id, order_date)",
+            "CREATE INDEX IF NOT EXISTS orders_status_order_date_idx ON orders (status, order_date)",
+            "CREATE INDEX IF NOT EXISTS orders_order_date_id_idx ON orders (order_date, id)",
+            
+            // Items of an order, orders of a product
+            "CREATE INDEX IF NOT EXISTS order_items_order_id_idx ON order_items (order_id)",
+            "CREATE INDEX IF NOT EXISTS order_items_product_id_idx ON order_items (product_id)",
+            
+            // Invoices of an order, by status, and the open invoices by due date for the overdue check
+            "CREATE INDEX IF NOT EXISTS invoices_order_id_idx ON invoices (order_id)",
+            "CREATE INDEX IF NOT EXISTS invoices_status_idx ON invoices (status)",
+            "CREATE INDEX IF NOT EXISTS invoices_open_due_date_idx ON invoices (due_date) " +
+            "WHERE " + InvoiceDao.OPEN_INVOICE_CONDITION,
+            
+            // Payments of an invoice in date order, and by date range
+            "CREATE INDEX IF NOT EXISTS payments_invoice_id_payment_date_idx ON payments (invoice_id, payment_date)",
+            "CREATE INDEX IF NOT EXISTS payments_payment_date_idx ON payments (payment_date)",
+            
+            // Products by category and by supplier, new customers on the dashboard
+            "CREATE INDEX IF NOT EXISTS products_category_idx ON products (category)",
+            "CREATE INDEX IF NOT EXISTS products_supplier_id_idx ON products (supplier_id)",
+            "CREATE INDEX IF NOT EXISTS customers_registration_date_idx ON customers (registration_date)"),
+        
+        new Migration(3, "Sequences for document numbers",
+            // Each nextval reserves a block of BLOCK_SIZE numbers, see DocumentNumberGenerator
+            "CREATE SEQUENCE IF NOT EXISTS " + DocumentNumberGenerator.DocumentType.ORDER.getSequence() +
+            " INCREMENT BY " + DocumentNumberGenerator.BLOCK_SIZE,
+            "CREATE SEQUENCE IF NOT EXISTS " + DocumentNumberGenerator.DocumentType.INVOICE.getSequence() +
+            " INCREMENT BY " + DocumentNumberGenerator.BLOCK_SIZE,
+            "CREATE SEQUENCE IF NOT EXISTS " + DocumentNumberGenerator.DocumentType.PAYMENT.getSequence() +
+            " INCREMENT BY " + DocumentNumberGenerator.BLOCK_SIZE),
+        
+        new Migration(4, "Dashboard rollups and category sales view",
+            // Order and payment writes update these in their own transactions, see MetricsRollup
+            "CREATE TABLE IF NOT EXISTS order_daily_rollup (" +
+            "day DATE NOT NULL, " +
+            "status VARCHAR(20) NOT NULL, " +
+            "order_count INTEGER NOT NULL DEFAULT 0, " +
+            "total_amount NUMERIC(14, 2) NOT NULL DEFAULT 0, " +
+            "PRIMARY KEY (day, status))",
+            
+            "CREATE TABLE IF NOT EXISTS payment_daily_rollup (" +
+            "day DATE PRIMARY KEY, " +
+            "payment_count INTEGER NOT NULL DEFAULT 0, " +
+            "total_amount NUMERIC(14, 2) NOT NULL DEFAULT 0)",
+            
+            // Recompute them in case they existed before this migration
+            "LOCK TABLE orders, payments IN SHARE MODE",
+            "TRUNCATE order_daily_rollup, payment_daily_rollup",
+            MetricsRollup.FILL_ORDER_ROLLUP,
+            MetricsRollup.FILL_PAYMENT_ROLLUP,
+            
+            // Replaced by the materialized view; the rollup could not follow category changes
+            "DROP TABLE IF EXISTS category_sales_rollup",
+            "CREATE MATERIALIZED VIEW IF NOT EXISTS " + MetricsRollup.CATEGORY_SALES_VIEW + " AS " +
+            MetricsRollup.CATEGORY_SALES_QUERY,
+            // Lets the view be refreshed concurrently
+            "CREATE UNIQUE INDEX IF NOT EXISTS " + MetricsRollup.CATEGORY_SALES_VIEW + "_category_idx ON " +
+            MetricsRollup.CATEGORY_SALES_VIEW + " (category)"),
+        
+        new Migration(5, "Date formatting for text search",
+            TextSearch.CREATE_DATE_TEXT_FUNCTION),
+        
+        new Migration(6, "Change notification triggers",
+            ChangeNotifier.triggerStatements()),
+        
+        // Searches fall back to ILIKE if pg_trgm is not installed, see TextSearch
+        new Migration(7, "Trigram indexes for text search", true,
+            TextSearch.indexStatements()),
+        
+        // Existing rows become shard 0; see MetricsRollup for why the rows are sharded
+        new Migration(8, "Sharded dashboard rollups",
+            "ALTER TABLE order_daily_rollup ADD COLUMN IF NOT EXISTS shard SMALLINT NOT NULL DEFAULT 0",
+            "ALTER TABLE order_daily_rollup DROP CONSTRAINT IF EXISTS order_daily_rollup_pkey",
+            "ALTER TABLE order_daily_rollup ADD PRIMARY KEY (day, status, shard)",
+            
+            "ALTER TABLE payment_daily_rollup ADD COLUMN IF NOT EXISTS shard SMALLINT NOT NULL DEFAULT 0",
+            "ALTER TABLE payment_daily_rollup DROP CONSTRAINT IF EXISTS payment_daily_rollup_pkey",
+            "ALTER TABLE payment_daily_rollup ADD PRIMARY KEY (day, shard)")
+    );
+    
+    /**
+     * Applies every migration that has not been applied yet.
+     * Clients starting at the same time wait for each other, so each
+     * migration runs exactly once.
+     * 
+     * @return true if the schema is up to date, false otherwise
+     */
+    public boolean migrate() {
+        Connection con = null;
+        try {
+            // Create connection
+            con = DbConnection.getInstance().getConnection();
+            
+            Statement stmt = con.createStatement();
+            stmt.execute("SELECT pg_advisory_lock(hashtext('" + VERSION_TABLE + "'))");
+            stmt.execute("CREATE TABLE IF NOT EXISTS " + VERSION_TABLE + " (" +
+                         "version INTEGER PRIMARY KEY, " +
+                         "description VARCHAR(200) NOT NULL, " +
+                         "applied_at TIMESTAMP NOT NULL DEFAULT now())");
+            
+            Set<Integer> applied = new HashSet<>();
+            ResultSet rs = stmt.executeQuery("SELECT version FROM " + VERSION_TABLE);
+            while (rs.next()) {
+                applied.add(rs.getInt(1));
+            }
+            rs.close();
+            stmt.close();
+            
+            for (Migration migration : MIGRATIONS) {
+                if (applied.contains(migration.version)) {
+                    continue;
+                }
+                if (migration.optional) {
+                    try {
+                        apply(con, migration);
+                    } catch (SQLException ex) {
+                        LogUtil.warning("Skipped optional schema migration " + migration.version + ": " +
+                                        migration.description, ex);
+                    }
+                } else {
+                    apply(con, migration);
+                }
+            }
+            return true;
+            
+        } catch (Exception ex) {
+            LogUtil.error("Failed to migrate the database schema: " + ex.getMessage(), ex);
+            return false;
+        } finally {
+            if (con != null) {
+                try {
+                    con.createStatement().execute("SELECT pg_advisory_unlock(hashtext('" + VERSION_TABLE + "'))");
+                    con.close();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Applies one migration and records it, all in one transaction
+     */
+    private void apply(Connection con, Migration migration) throws SQLException {
+        con.setAutoCommit(false);
+        try {
+            Statement stmt = con.createStatement();
+            for (String sql : migration.statements) {
+                stmt.execute(sql);
+            }
+            stmt.close();
+            
+            PreparedStatement pst = con.prepareStatement("INSERT INTO " + VERSION_TABLE + " (version, description) VALUES (?, ?)");
+            pst.setInt(1, migration.version);
+            pst.setString(2, migration.description);
+            pst.executeUpdate();
+            pst.close();
+            
+            con.commit();
+            LogUtil.info("Applied schema migration " + migration.version + ": " + migration.description);
+            
+        } catch (SQLException ex) {
+            try {
+                con.rollback();
+            } catch (SQLException rollbackEx) {
+                rollbackEx.printStackTrace();
+            }
+            throw ex;
+        } finally {
+            con.setAutoCommit(true);
+        }
+    }
+    
+    private static final class Migration {
+        private final int version;
+        private final String description;
+        private final boolean optional;
+        private final String[] statements;
+        
+        private Migration(int version, String description, String... statements) {
+            this(version, description, false, statements);
+        }
+        
+        private Migration(int version, String description, boolean optional, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.optional = optional;
+            this.statements = statements;
+        }
+    }
+}
\ No newline at end of file
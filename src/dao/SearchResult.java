@@ -0,0 +1,71 @@
+package dao;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One ranked match of a text search.
+ * Carries the text that was searched, e.g. a customer's full name, and the
+ * ranges of it that match the query so the UI can highlight them.
+ * 
+ * @param <T> The entity type
+ */
+public class SearchResult<T> {
+    private final T item;
+    private final String matchedText;
+    private final double rank;
+    private final List<Highlight> highlights;
+    
+    /**
+     * Constructor
+     * 
+     * @param item The matching entity
+     * @param matchedText The searched text of the entity
+     * @param rank How well the entity matches, between 0 and 1
+     * @param highlights The matching ranges of matchedText, in order
+     */
+    public SearchResult(T item, String matchedText, double rank, List<Highlight> highlights) {
+        this.item = item;
+        this.matchedText = matchedText;
+        this.rank = rank;
+        this.highlights = Collections.unmodifiableList(highlights);
+    }
+    
+    // Getters
+    public T getItem() {
+        return item;
+    }
+    
+    public String getMatchedText() {
+        return matchedText;
+    }
+    
+    public double getRank() {
+        return rank;
+    }
+    
+    public List<Highlight> getHighlights() {
+        return highlights;
+    }
+    
+    /**
+     * A range of the matched text, from start inclusive to end exclusive
+     */
+    public static class Highlight {
+        private final int start;
+        private final int end;
+        
+        public Highlight(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+        
+        public int getStart() {
+            return start;
+        }
+        
+        public int getEnd() {
+            return end;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,286 @@
+package dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of prepared statements for one physical connection, keyed by
+ * SQL text and prepareStatement() options.
+ * 
+ * DAOs prepare the same literal SQL on every call. Reusing the
+ * PreparedStatement lets the PostgreSQL driver switch to a named
+ * server-side statement (after prepareThreshold executions), so hot
+ * lookups skip parse and plan entirely. Callers get a proxy whose close()
+ * hands the statement back to the cache instead of closing it.
+ */
+final class StatementCache {
+    private final Connection physical;
+    private final int maxSize;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final LinkedHashMap<String, CachedStatement> statements;
+    private final List<CachedStatement> evictedInUse = new ArrayList<>();
+    
+    /**
+     * Creates a statement cache
+     * 
+     * @param physical The physical connection statements are prepared on
+     * @param maxSize Maximum number of cached statements
+     * @param hits Counter incremented on every cache hit
+     * @param misses Counter incremented on every cache miss
+     */
+    StatementCache(Connection physical, int maxSize, AtomicLong hits, AtomicLong misses) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.statements = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= StatementCache.this.maxSize) {
+                    return false;
+                }
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+    
+    /**
+     * Returns a cached statement for the prepareStatement() call, preparing
+     * and caching it on a miss
+     * 
+     * @param owner The connection proxy the statement belongs to
+     * @param method The prepareStatement method being invoked
+     * @param args The prepareStatement arguments; the first is the SQL text
+     * @return A statement proxy, or null if the cached statement is already
+     *         in use and the caller should prepare an uncached one
+     * @throws Throwable If preparing the statement fails
+     */
+    synchronized PreparedStatement prepare(Connection owner, Method method, Object[] args) throws Throwable {
+        String key = cacheKey(args);
+        CachedStatement cached = statements.get(key);
+        
+        if (cached != null && cached.statement.isClosed()) {
+            statements.remove(key);
+            cached = null;
+        }
+        
+        if (cached != null) {
+            if (cached.inUse) {
+                // Same SQL prepared twice while the first is still open
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return cached.checkOut(owner);
+        }
+        
+        misses.incrementAndGet();
+        PreparedStatement statement;
+        try {
+            statement = (PreparedStatement) method.invoke(physical, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+        cached = new CachedStatement(statement);
+        statements.put(key, cached);
+        return cached.checkOut(owner);
+    }
+    
+    /**
+     * Hands every checked-out statement back to the cache.
+     * Called when the connection is returned to the pool; any statement
+     * proxies still held by the previous borrower stop working.
+     */
+    synchronized void checkInAll() {
+        for (CachedStatement cached : statements.values()) {
+            if (cached.inUse) {
+                cached.checkIn();
+            }
+        }
+        for (CachedStatement cached : evictedInUse) {
+            if (cached.inUse) {
+                cached.checkIn();
+            }
+        }
+        evictedInUse.clear();
+    }
+    
+    /**
+     * Closes and removes every cached statement
+     */
+    synchronized void closeAll() {
+        Iterator<CachedStatement> iterator = statements.values().iterator();
+        while (iterator.hasNext()) {
+            iterator.next().closeQuietly();
+            iterator.remove();
+        }
+        for (CachedStatement cached : evictedInUse) {
+            cached.closeQuietly();
+        }
+        evictedInUse.clear();
+    }
+    
+    /**
+     * Builds the cache key from the prepareStatement arguments
+     * 
+     * @param args The prepareStatement arguments
+     * @return The cache key
+     */
+    private static String cacheKey(Object[] args) {
+        if (args.length == 1) {
+            return (String) args[0];
+        }
+        return args[0] + "\u0000" + Arrays.deepToString(Arrays.copyOfRange(args, 1, args.length));
+    }
+    
+    /**
+     * A cached statement and its checkout state
+     */
+    private final class CachedStatement {
+        private final PreparedStatement statement;
+        // Settings as prepared; a borrower's changes are undone on check-in
+        private final int fetchSize;
+        private final int maxRows;
+        private final int queryTimeout;
+        private boolean inUse;
+        private boolean evicted;
+        private int generation;
+        
+        CachedStatement(PreparedStatement statement) throws SQLException {
+            this.statement = statement;
+            this.fetchSize = statement.getFetchSize();
+            this.maxRows = statement.getMaxRows();
+            this.queryTimeout = statement.getQueryTimeout();
+        }
+        
+        /**
+         * Marks the statement as in use and creates the proxy handed to the caller
+         */
+        PreparedStatement checkOut(Connection owner) {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class },
+                    new Handler(this, owner, generation));
+        }
+        
+        /**
+         * Makes the statement available again, or closes it if it was evicted
+         * while checked out. Parameters, warnings and the fetch size, row
+         * limit and timeout a borrower may have set are reset, so the next
+         * borrower gets the statement as freshly prepared.
+         */
+        void checkIn() {
+            inUse = false;
+            generation++;
+            if (evicted) {
+                closeQuietly();
+                return;
+            }
+            try {
+                statement.clearParameters();
+                statement.clearWarnings();
+                if (statement.getFetchSize() != fetchSize) {
+                    statement.setFetchSize(fetchSize);
+                }
+                if (statement.getMaxRows() != maxRows) {
+                    statement.setMaxRows(maxRows);
+                }
+                if (statement.getQueryTimeout() != queryTimeout) {
+                    statement.setQueryTimeout(queryTimeout);
+                }
+            } catch (SQLException e) {
+                closeQuietly();
+            }
+        }
+        
+        /**
+         * Called when the LRU policy drops this statement
+         */
+        void evict() {
+            evicted = true;
+            if (inUse) {
+                evictedInUse.add(this);
+            } else {
+                closeQuietly();
+            }
+        }
+        
+        void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                // Statement is being dropped anyway
+            }
+        }
+    }
+    
+    /**
+     * Invocation handler for a checked-out statement
+     */
+    private final class Handler implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection owner;
+        private final int generation;
+        
+        Handler(CachedStatement cached, Connection owner, int generation) {
+            this.cached = cached;
+            this.owner = owner;
+            this.generation = generation;
+        }
+        
+        private boolean isCurrent() {
+            synchronized (StatementCache.this) {
+                return cached.inUse && cached.generation == generation;
+            }
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (StatementCache.this) {
+                        if (cached.inUse && cached.generation == generation) {
+                            cached.checkIn();
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return !isCurrent() || cached.statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + cached.statement + "]";
+                default:
+                    break;
+            }
+            
+            if (!isCurrent()) {
+                throw new SQLException("Statement has already been closed");
+            }
+            try {
+                return method.invoke(cached.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Runs a query whose rows are read through a server-side cursor.
+ * 
+ * The PostgreSQL driver only fetches rows in batches when auto-commit is
+ * off and a fetch size is set; otherwise it reads the whole result into
+ * memory before returning from executeQuery(). Both are done here, so a
+ * table of any size can be walked in constant memory. The connection is
+ * held until the iteration finishes or the stream is closed.
+ */
+final class StreamingQuery {
+    static final int DEFAULT_FETCH_SIZE = 1000;
+    
+    private StreamingQuery() {
+    }
+    
+    /**
+     * Passes every row of a query to an action, then releases all resources
+     * 
+     * @param <T> The mapped type
+     * @param sql The query; must not take parameters
+     * @param fetchSize Number of rows fetched per round trip
+     * @param mapper Maps each row
+     * @param action Called for each mapped row
+     * @return The number of rows processed
+     * @throws SQLException If a database access error occurs
+     */
+    static <T> long forEach(String sql, int fetchSize, RowMapper<T> mapper, Consumer<? super T> action)
+            throws SQLException {
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            con.setAutoCommit(false);
+            try (PreparedStatement pst = prepare(con, sql, fetchSize);
+                 ResultSet rs = pst.executeQuery()) {
+                long count = 0;
+                while (rs.next()) {
+                    action.accept(mapper.map(rs));
+                    count++;
+                }
+                return count;
+            } finally {
+                // Read-only; ends the transaction and closes the cursor
+                con.rollback();
+                con.setAutoCommit(true);
+            }
+        }
+    }
+    
+    /**
+     * Opens a lazily populated stream over the rows of a query.
+     * The stream must be closed, preferably with try-with-resources, to
+     * give the connection back; it is closed automatically once fully consumed.
+     * 
+     * @param <T> The mapped type
+     * @param sql The query; must not take parameters
+     * @param fetchSize Number of rows fetched per round trip
+     * @param mapper Maps each row
+     * @return A sequential stream of mapped rows
+     * @throws SQLException If the query cannot be started
+     */
+    static <T> Stream<T> stream(String sql, int fetchSize, RowMapper<T> mapper) throws SQLException {
+        Connection con = DbConnection.getInstance().getConnection();
+        PreparedStatement pst = null;
+        ResultSet rs;
+        try {
+            con.setAutoCommit(false);
+            pst = prepare(con, sql, fetchSize);
+            rs = pst.executeQuery();
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(null, pst, con);
+            throw e;
+        }
+        
+        Cursor<T> cursor = new Cursor<>(con, pst, rs, mapper);
+        return StreamSupport.stream(cursor, false).onClose(cursor::close);
+    }
+    
+    private static PreparedStatement prepare(Connection con, String sql, int fetchSize) throws SQLException {
+        PreparedStatement pst = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        pst.setFetchSize(fetchSize > 0 ? fetchSize : DEFAULT_FETCH_SIZE);
+        return pst;
+    }
+    
+    private static void closeQuietly(ResultSet rs, PreparedStatement pst, Connection con) {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+            if (pst != null) {
+                pst.close();
+            }
+        } catch (SQLException e) {
+            // The connection is released below either way
+        }
+        try {
+            con.rollback();
+            con.setAutoCommit(true);
+        } catch (SQLException e) {
+            // The pool resets the session on release
+        }
+        try {
+            con.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Spliterator that advances the result set one row at a time
+     */
+    private static final class Cursor<T> extends Spliterators.AbstractSpliterator<T> {
+        private final Connection con;
+        private final PreparedStatement pst;
+        private final ResultSet rs;
+        private final RowMapper<T> mapper;
+        private boolean closed;
+        
+        Cursor(Connection con, PreparedStatement pst, ResultSet rs, RowMapper<T> mapper) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.con = con;
+            this.pst = pst;
+            this.rs = rs;
+            this.mapper = mapper;
+        }
+        
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (closed) {
+                return false;
+            }
+            try {
+                if (!rs.next()) {
+                    close();
+                    return false;
+                }
+                action.accept(mapper.map(rs));
+                return true;
+            } catch (SQLException e) {
+                close();
+                throw new DataAccessException("Failed to read the next row", e);
+            }
+        }
+        
+        void close() {
+            if (!closed) {
+                closed = true;
+                closeQuietly(rs, pst, con);
+            }
+        }
+    }
+}
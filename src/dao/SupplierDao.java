@@ -1,13 +1,14 @@
 package dao;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import model.Product;
 import model.Supplier;
 
@@ -15,9 +16,12 @@ import model.Supplier;
  * Data Access Object for Supplier operations.
  */
 public class SupplierDao {
-    private String db_url = "jdbc:postgresql://localhost:5432/business_db";
-    private String db_username = "postgres";
-    private String db_passwd = "078868";
+    private static final int CACHE_SIZE = 1000;
+    private static final long CACHE_TTL_MINUTES = 10;
+    
+    // Lookups by ID, shared by all SupplierDao instances
+    static final EntityCache<Supplier> CACHE =
+        new EntityCache<>("suppliers", CACHE_SIZE, CACHE_TTL_MINUTES, TimeUnit.MINUTES, Supplier::new);
     
     /**
      * Creates a new supplier in the database
@@ -26,10 +30,7 @@ public class SupplierDao {
      * @return Number of rows affected
      */
     public int createSupplier(Supplier supplier) {
-        try {
-            // Create connection
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             // Prepare statement
             String sql = "INSERT INTO suppliers (supplier_code, name, contact_person, email, phone, address) " +
                          "VALUES (?, ?, ?, ?, ?, ?)";
@@ -54,8 +55,6 @@ public class SupplierDao {
                 rs.close();
             }
             
-            // Close connection
-            con.close();
             return rowsAffected;
             
         } catch (Exception ex) {
@@ -71,10 +70,7 @@ public class SupplierDao {
      * @return Number of rows affected
      */
     public int updateSupplier(Supplier supplier) {
-        try {
-            // Create connection
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             // Prepare statement
             String sql = "UPDATE suppliers SET supplier_code = ?, name = ?, contact_person = ?, " +
                          "email = ?, phone = ?, address = ? WHERE id = ?";
@@ -90,9 +86,8 @@ public class SupplierDao {
             
             // Execute statement
             int rowsAffected = pst.executeUpdate();
+            CACHE.invalidate(supplier.getId());
             
-            // Close connection
-            con.close();
             return rowsAffected;
             
         } catch (Exception ex) {
@@ -102,14 +97,23 @@ public class SupplierDao {
     }
     
     /**
-     * Finds a supplier by ID
+     * Finds a supplier by ID. Served from the shared cache when possible.
      * 
      * @param id The supplier ID to search for
      * @return The supplier if found, null otherwise
      */
     public Supplier findSupplierById(int id) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        return CACHE.get(id, this::loadSupplierById);
+    }
+    
+    /**
+     * Loads a supplier by ID from the database, bypassing the cache
+     * 
+     * @param id The supplier ID to search for
+     * @return The supplier if found, null otherwise
+     */
+    private Supplier loadSupplierById(int id) {
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM suppliers WHERE id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, id);
@@ -128,7 +132,6 @@ public class SupplierDao {
                 supplier.setAddress(rs.getString("address"));
             }
             
-            con.close();
             return supplier;
             
         } catch (Exception ex) {
@@ -144,8 +147,7 @@ public class SupplierDao {
      * @return The supplier if found, null otherwise
      */
     public Supplier findSupplierByCode(String supplierCode) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM suppliers WHERE supplier_code = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setString(1, supplierCode);
@@ -164,7 +166,6 @@ public class SupplierDao {
                 supplier.setAddress(rs.getString("address"));
             }
             
-            con.close();
             return supplier;
             
         } catch (Exception ex) {
@@ -180,13 +181,11 @@ public class SupplierDao {
      * @return List of matching suppliers
      */
     public List<Supplier> findSuppliersByName(String name) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            String sql = "SELECT * FROM suppliers WHERE name LIKE ?";
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            String sql = "SELECT * FROM suppliers WHERE " + TextSearch.SUPPLIER_NAME + " LIKE ?";
             PreparedStatement pst = con.prepareStatement(sql);
             
-            String searchName = "%" + name + "%";
-            pst.setString(1, searchName);
+            pst.setString(1, TextSearch.containsPattern(name));
             
             ResultSet rs = pst.executeQuery();
             List<Supplier> supplierList = new ArrayList<>();
@@ -203,7 +202,6 @@ public class SupplierDao {
                 supplierList.add(supplier);
             }
             
-            con.close();
             return supplierList;
             
         } catch (Exception ex) {
@@ -212,14 +210,28 @@ public class SupplierDao {
         }
     }
     
+    /**
+     * Searches suppliers by code, name, contact person, email or phone,
+     * ignoring case. Near matches such as misspellings are included after
+     * the exact matches.
+     * 
+     * @param text The text to search for
+     * @param offset The number of results to skip
+     * @param limit The maximum number of results
+     * @return The matching suppliers, best match first, with the matching parts of their names
+     */
+    public Page<SearchResult<Supplier>> searchSuppliers(String text, int offset, int limit) {
+        return TextSearch.search("suppliers", TextSearch.SUPPLIER_TEXT, TextSearch.SUPPLIER_NAME,
+                                 SupplierDao::mapSupplier, text, offset, limit);
+    }
+    
     /**
      * Gets all suppliers
      * 
      * @return List of all suppliers
      */
     public List<Supplier> findAllSuppliers() {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM suppliers";
             PreparedStatement pst = con.prepareStatement(sql);
             
@@ -238,7 +250,6 @@ public class SupplierDao {
                 supplierList.add(supplier);
             }
             
-            con.close();
             return supplierList;
             
         } catch (Exception ex) {
@@ -246,6 +257,40 @@ public class SupplierDao {
             return Collections.emptyList();
         }
     }
+
+    /**
+     * Gets one page of suppliers ordered by id.
+     * Pass 0 as afterId for the first page and the id of the last supplier
+     * of the previous page for the next one.
+     * 
+     * @param afterId Id of the last supplier on the previous page, or 0 for the first page
+     * @param pageSize Maximum number of suppliers on the page
+     * @return The page of suppliers
+     */
+    public Page<Supplier> findSuppliersPage(int afterId, int pageSize) {
+        int limit = Page.normalizePageSize(pageSize);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            String sql = "SELECT * FROM suppliers WHERE id > ? ORDER BY id LIMIT ?";
+            PreparedStatement pst = con.prepareStatement(sql);
+            pst.setInt(1, afterId);
+            pst.setInt(2, limit + 1);
+            
+            ResultSet rs = pst.executeQuery();
+            List<Supplier> supplierList = new ArrayList<>();
+            
+            while (rs.next()) {
+                supplierList.add(mapSupplier(rs));
+            }
+            rs.close();
+            
+            long estimatedTotal = afterId == 0 ? Page.estimateRowCount(con, "suppliers") : -1;
+            return Page.of(supplierList, limit, estimatedTotal);
+            
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return Page.empty();
+        }
+    }
     
     /**
      * Gets a supplier with all their products
@@ -254,15 +299,14 @@ public class SupplierDao {
      * @return The supplier with products loaded
      */
     public Supplier getSupplierWithProducts(int supplierId) {
-        try {
-            // First get the supplier
-            Supplier supplier = findSupplierById(supplierId);
-            if (supplier == null) {
-                return null;
-            }
-            
-            // Then get their products
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        // First get the supplier
+        Supplier supplier = findSupplierById(supplierId);
+        if (supplier == null) {
+            return null;
+        }
+        
+        // Then get their products
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM products WHERE supplier_id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, supplierId);
@@ -286,7 +330,6 @@ public class SupplierDao {
             }
             
             supplier.setProducts(productList);
-            con.close();
             return supplier;
             
         } catch (Exception ex) {
@@ -302,14 +345,13 @@ public class SupplierDao {
      * @return Number of rows affected
      */
     public int deleteSupplier(int supplierId) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "DELETE FROM suppliers WHERE id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, supplierId);
             
             int rowsAffected = pst.executeUpdate();
-            con.close();
+            CACHE.invalidate(supplierId);
             return rowsAffected;
             
         } catch (Exception ex) {
@@ -317,4 +359,23 @@ public class SupplierDao {
             return 0;
         }
     }
+    
+    /**
+     * Maps the current result set row to a Supplier
+     * 
+     * @param rs The result set positioned on the row to map
+     * @return The supplier
+     * @throws SQLException If a column cannot be read
+     */
+    private static Supplier mapSupplier(ResultSet rs) throws SQLException {
+        Supplier supplier = new Supplier();
+        supplier.setId(rs.getInt("id"));
+        supplier.setSupplierCode(rs.getString("supplier_code"));
+        supplier.setName(rs.getString("name"));
+        supplier.setContactPerson(rs.getString("contact_person"));
+        supplier.setEmail(rs.getString("email"));
+        supplier.setPhone(rs.getString("phone"));
+        supplier.setAddress(rs.getString("address"));
+        return supplier;
+    }
 }
\ No newline at end of file
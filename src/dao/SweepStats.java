@@ -0,0 +1,83 @@
+package dao;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable snapshot of the metrics of the OverdueInvoiceSweeper.
+ */
+public class SweepStats {
+    private final long sweepCount;
+    private final long failureCount;
+    private final long invoicesMarked;
+    private final long lastDurationMillis;
+    private final long maxDurationMillis;
+    private final long totalDurationMillis;
+    private final LocalDateTime lastSweepTime;
+    
+    /**
+     * Creates a new snapshot
+     */
+    SweepStats(long sweepCount, long failureCount, long invoicesMarked, long lastDurationMillis,
+               long maxDurationMillis, long totalDurationMillis, LocalDateTime lastSweepTime) {
+        this.sweepCount = sweepCount;
+        this.failureCount = failureCount;
+        this.invoicesMarked = invoicesMarked;
+        this.lastDurationMillis = lastDurationMillis;
+        this.maxDurationMillis = maxDurationMillis;
+        this.totalDurationMillis = totalDurationMillis;
+        this.lastSweepTime = lastSweepTime;
+    }
+    
+    // Getters
+    
+    /**
+     * Gets the number of completed sweeps, not counting those skipped
+     * because another client was sweeping
+     * 
+     * @return The sweep count
+     */
+    public long getSweepCount() {
+        return sweepCount;
+    }
+    
+    public long getFailureCount() {
+        return failureCount;
+    }
+    
+    public long getInvoicesMarked() {
+        return invoicesMarked;
+    }
+    
+    public long getLastDurationMillis() {
+        return lastDurationMillis;
+    }
+    
+    public long getMaxDurationMillis() {
+        return maxDurationMillis;
+    }
+    
+    /**
+     * Gets the average duration of the completed sweeps
+     * 
+     * @return The average in milliseconds, or 0 if there were no sweeps
+     */
+    public double getAverageDurationMillis() {
+        return sweepCount == 0 ? 0 : totalDurationMillis / (double) sweepCount;
+    }
+    
+    /**
+     * Gets the time the last sweep completed
+     * 
+     * @return The time, or null if there were no sweeps
+     */
+    public LocalDateTime getLastSweepTime() {
+        return lastSweepTime;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("SweepStats{sweeps=%d, failures=%d, marked=%d, last=%d ms, avg=%.1f ms, max=%d ms}",
+                             sweepCount, failureCount, invoicesMarked, lastDurationMillis,
+                             getAverageDurationMillis(), maxDurationMillis);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,243 @@
+package dao;
+
+import util.LogUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ranked substring search over a text column, backed by pg_trgm.
+ * 
+ * A LIKE '%x%' pattern cannot use a btree index, so every search used to
+ * scan the whole table. A trigram GIN index answers ILIKE '%x%' and the
+ * word similarity operator <% from the index instead. Exact substring
+ * matches are ranked first, then near matches such as misspellings, by
+ * their word similarity to the query.
+ * 
+ * The list views search the text of every column they show, joined with
+ * newlines so a query cannot match across two columns; the names are kept
+ * as the matched text the UI highlights.
+ * 
+ * The extension and the indexes are created by SchemaMigrator. If the
+ * pg_trgm extension cannot be installed, searches fall back to an
+ * unranked ILIKE, which still works but scans the table.
+ */
+public final class TextSearch {
+    static final String EXTENSION = "pg_trgm";
+    
+    // Formats a date like the list views; to_char itself may not be used in an index
+    static final String DATE_TEXT_FUNCTION = "search_date_text";
+    // Immutable, so it can be indexed; the format does not depend on the locale
+    static final String CREATE_DATE_TEXT_FUNCTION = "CREATE OR REPLACE FUNCTION " + DATE_TEXT_FUNCTION + "(d date) " +
+                                                    "RETURNS text LANGUAGE sql IMMUTABLE AS $$ SELECT to_char(d, 'YYYY-MM-DD') $$";
+    
+    // Searched expressions; the indexes below must use exactly the same expressions
+    static final String CUSTOMER_NAME = "COALESCE(first_name, '') || ' ' || COALESCE(last_name, '')";
+    static final String PRODUCT_NAME = "name";
+    static final String SUPPLIER_NAME = "name";
+    
+    // The columns shown in the list views, as CustomerSearchIndex indexes them
+    static final String CUSTOMER_TEXT = columns("customer_id", CUSTOMER_NAME, "email", "phone",
+                                                DATE_TEXT_FUNCTION + "(registration_date)");
+    static final String PRODUCT_TEXT = columns("product_code", "name", "price::text", "stock_quantity::text", "category");
+    static final String SUPPLIER_TEXT = columns("supplier_code", "name", "contact_person", "email", "phone");
+    
+    // Index name, table, expression
+    private static final String[][] INDEXES = {
+        {"customers_name_trgm_idx", "customers", CUSTOMER_NAME},
+        {"products_name_trgm_idx", "products", PRODUCT_NAME},
+        {"suppliers_name_trgm_idx", "suppliers", SUPPLIER_NAME},
+        {"customers_text_trgm_idx", "customers", CUSTOMER_TEXT},
+        {"products_text_trgm_idx", "products", PRODUCT_TEXT},
+        {"suppliers_text_trgm_idx", "suppliers", SUPPLIER_TEXT}
+    };
+    
+    // Whether pg_trgm is installed; null until the first search checks it
+    private static volatile Boolean trigramAvailable;
+    
+    private TextSearch() {
+    }
+    
+    /**
+     * Gets the statements that install pg_trgm and create the trigram indexes
+     * 
+     * @return The DDL statements, run by SchemaMigrator
+     */
+    static String[] indexStatements() {
+        String[] statements = new String[INDEXES.length + 1];
+        statements[0] = "CREATE EXTENSION IF NOT EXISTS " + EXTENSION;
+        for (int i = 0; i < INDEXES.length; i++) {
+            statements[i + 1] = "CREATE INDEX IF NOT EXISTS " + INDEXES[i][0] + " ON " + INDEXES[i][1] +
+                                " USING gin ((" + INDEXES[i][2] + ") gin_trgm_ops)";
+        }
+        return statements;
+    }
+    
+    /**
+     * Checks once whether pg_trgm is installed
+     * 
+     * @param con The connection to use
+     * @return true if searches can use the trigram operators
+     * @throws SQLException If a database access error occurs
+     */
+    private static boolean isTrigramAvailable(Connection con) throws SQLException {
+        Boolean available = trigramAvailable;
+        if (available == null) {
+            PreparedStatement pst = con.prepareStatement("SELECT 1 FROM pg_extension WHERE extname = ?");
+            pst.setString(1, EXTENSION);
+            ResultSet rs = pst.executeQuery();
+            available = rs.next();
+            rs.close();
+            pst.close();
+            if (!available) {
+                LogUtil.warning("Text search indexes not available, searches will scan the tables");
+            }
+            trigramAvailable = available;
+        }
+        return available;
+    }
+    
+    /**
+     * Searches a table for rows whose expression contains or resembles a query
+     * 
+     * @param <T> The entity type
+     * @param table The table to search
+     * @param expression The searched expression, one of the constants of this class
+     * @param matchedText The text returned and highlighted with each result, e.g. the name
+     * @param mapper Maps each matching row
+     * @param query The search text
+     * @param offset The number of results to skip
+     * @param limit The maximum number of results
+     * @return The results, best match first; hasMore tells whether more follow
+     */
+    static <T> Page<SearchResult<T>> search(String table, String expression, String matchedText, RowMapper<T> mapper,
+                                            String query, int offset, int limit) {
+        String text = query != null ? query.trim() : "";
+        if (text.isEmpty()) {
+            return Page.empty();
+        }
+        int pageSize = Page.normalizePageSize(limit);
+        String pattern = containsPattern(text);
+        
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            PreparedStatement pst;
+            if (isTrigramAvailable(con)) {
+                String sql = "SELECT *, (" + matchedText + ") AS search_text, " +
+                             "word_similarity(?, " + expression + ") AS search_rank " +
+                             "FROM " + table + " " +
+                             "WHERE (" + expression + ") ILIKE ? OR ? <% (" + expression + ") " +
+                             "ORDER BY (" + expression + ") ILIKE ? DESC, search_rank DESC, id " +
+                             "LIMIT ? OFFSET ?";
+                pst = con.prepareStatement(sql);
+                pst.setString(1, text);
+                pst.setString(2, pattern);
+                pst.setString(3, text);
+                pst.setString(4, pattern);
+                pst.setInt(5, pageSize + 1);
+                pst.setInt(6, Math.max(offset, 0));
+            } else {
+                String sql = "SELECT *, (" + matchedText + ") AS search_text, 1.0 AS search_rank " +
+                             "FROM " + table + " WHERE (" + expression + ") ILIKE ? ORDER BY id LIMIT ? OFFSET ?";
+                pst = con.prepareStatement(sql);
+                pst.setString(1, pattern);
+                pst.setInt(2, pageSize + 1);
+                pst.setInt(3, Math.max(offset, 0));
+            }
+            
+            ResultSet rs = pst.executeQuery();
+            List<SearchResult<T>> results = new ArrayList<>();
+            
+            while (rs.next()) {
+                String searchText = rs.getString("search_text");
+                results.add(new SearchResult<>(mapper.map(rs), searchText, rs.getDouble("search_rank"),
+                                               highlight(searchText, text)));
+            }
+            rs.close();
+            
+            return Page.of(results, pageSize, -1);
+            
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return Page.empty();
+        }
+    }
+    
+    /**
+     * Joins column values into one searchable text, one line per column
+     * 
+     * @param columns The column expressions, each of type text
+     * @return The expression
+     */
+    private static String columns(String... columns) {
+        StringBuilder expression = new StringBuilder();
+        for (String column : columns) {
+            if (expression.length() > 0) {
+                expression.append(" || E'\\n' || ");
+            }
+            expression.append("COALESCE(").append(column).append(", '')");
+        }
+        return expression.toString();
+    }
+    
+    /**
+     * Builds a LIKE pattern matching any text that contains the given text
+     * 
+     * @param text The text to find
+     * @return The pattern, with LIKE wildcards in the text escaped
+     */
+    static String containsPattern(String text) {
+        return "%" + text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+    
+    /**
+     * Finds the ranges of a text that match a query, ignoring case.
+     * Occurrences of the whole query are highlighted; if there are none, as
+     * for a near match, occurrences of its single words are.
+     * 
+     * @param text The matched text
+     * @param query The search text
+     * @return The ranges, in order and not overlapping
+     */
+    static List<SearchResult.Highlight> highlight(String text, String query) {
+        List<SearchResult.Highlight> ranges = new ArrayList<>();
+        if (text == null) {
+            return ranges;
+        }
+        
+        addOccurrences(ranges, text, query);
+        if (ranges.isEmpty()) {
+            for (String word : query.split("\\s+")) {
+                addOccurrences(ranges, text, word);
+            }
+            ranges.sort((a, b) -> Integer.compare(a.getStart(), b.getStart()));
+        }
+        
+        // Merge overlapping ranges
+        List<SearchResult.Highlight> merged = new ArrayList<>();
+        for (SearchResult.Highlight range : ranges) {
+            SearchResult.Highlight last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range.getStart() <= last.getEnd()) {
+                merged.set(merged.size() - 1, new SearchResult.Highlight(last.getStart(), Math.max(last.getEnd(), range.getEnd())));
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged;
+    }
+    
+    private static void addOccurrences(List<SearchResult.Highlight> ranges, String text, String term) {
+        if (term.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i + term.length() <= text.length(); i++) {
+            if (text.regionMatches(true, i, term, 0, term.length())) {
+                ranges.add(new SearchResult.Highlight(i, i + term.length()));
+                i += term.length() - 1;
+            }
+        }
+    }
+}
\ No newline at end of file
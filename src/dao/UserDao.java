@@ -1,7 +1,6 @@
 package dao;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.Statement;
@@ -18,10 +17,6 @@ import util.LogUtil;
  * Data Access Object for User operations.
  */
 public class UserDao {
-    private String db_url = "jdbc:postgresql://localhost:5432/business_db";
-    private String db_username = "postgres";
-    private String db_passwd = "078868";
-    
     /**
      * Creates a new user in the database
      * 
@@ -29,10 +24,7 @@ public class UserDao {
      * @return true if the user was created successfully
      */
     public boolean createUser(User user) {
-        try {
-            // Create connection
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             // Hash the password
             String salt = SecurityUtil.generateSaltString();
             String hashedPassword = SecurityUtil.hashPasswordString(user.getPassword(), salt);
@@ -61,11 +53,9 @@ public class UserDao {
                     user.setId(rs.getInt(1));
                 }
                 rs.close();
-                con.close();
                 return true;
             }
             
-            con.close();
             return false;
             
         } catch (Exception ex) {
@@ -81,10 +71,7 @@ public class UserDao {
      * @return true if the user was updated successfully
      */
     public boolean updateUser(User user) {
-        try {
-            // Create connection
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             // Prepare statement
             String sql = "UPDATE users SET full_name = ?, email = ?, role = ?, active = ? WHERE id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
@@ -98,7 +85,6 @@ public class UserDao {
             // Execute statement
             int rowsAffected = pst.executeUpdate();
             
-            con.close();
             return rowsAffected > 0;
             
         } catch (Exception ex) {
@@ -115,10 +101,7 @@ public class UserDao {
      * @return true if the password was updated successfully
      */
     public boolean updatePassword(int userId, String newPassword) {
-        try {
-            // Create connection
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             // Generate new salt and hash
             String salt = SecurityUtil.generateSaltString();
             String hashedPassword = SecurityUtil.hashPasswordString(newPassword, salt);
@@ -134,7 +117,6 @@ public class UserDao {
             // Execute statement
             int rowsAffected = pst.executeUpdate();
             
-            con.close();
             return rowsAffected > 0;
             
         } catch (Exception ex) {
@@ -150,10 +132,7 @@ public class UserDao {
      * @return true if the last login time was updated successfully
      */
     public boolean updateLastLogin(int userId) {
-        try {
-            // Create connection
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             // Prepare statement
             String sql = "UPDATE users SET last_login = ? WHERE id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
@@ -164,7 +143,6 @@ public class UserDao {
             // Execute statement
             int rowsAffected = pst.executeUpdate();
             
-            con.close();
             return rowsAffected > 0;
             
         } catch (Exception ex) {
@@ -180,8 +158,7 @@ public class UserDao {
      * @return The user if found, null otherwise
      */
     public User findUserById(int id) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM users WHERE id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, id);
@@ -194,7 +171,6 @@ public class UserDao {
             }
             
             rs.close();
-            con.close();
             return user;
             
         } catch (Exception ex) {
@@ -210,8 +186,7 @@ public class UserDao {
      * @return The user if found, null otherwise
      */
     public User findUserByUsername(String username) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM users WHERE username = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setString(1, username);
@@ -224,7 +199,6 @@ public class UserDao {
             }
             
             rs.close();
-            con.close();
             return user;
             
         } catch (Exception ex) {
@@ -240,8 +214,7 @@ public class UserDao {
      * @return The user if found, null otherwise
      */
     public User findUserByEmail(String email) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM users WHERE email = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setString(1, email);
@@ -254,7 +227,6 @@ public class UserDao {
             }
             
             rs.close();
-            con.close();
             return user;
             
         } catch (Exception ex) {
@@ -269,8 +241,7 @@ public class UserDao {
      * @return List of all users
      */
     public List<User> findAllUsers() {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM users ORDER BY username";
             PreparedStatement pst = con.prepareStatement(sql);
             
@@ -283,7 +254,6 @@ public class UserDao {
             }
             
             rs.close();
-            con.close();
             return userList;
             
         } catch (Exception ex) {
@@ -299,8 +269,7 @@ public class UserDao {
      * @return List of matching users
      */
     public List<User> findUsersByRole(String role) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "SELECT * FROM users WHERE role = ? ORDER BY username";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setString(1, role);
@@ -314,7 +283,6 @@ public class UserDao {
             }
             
             rs.close();
-            con.close();
             return userList;
             
         } catch (Exception ex) {
@@ -366,15 +334,13 @@ public class UserDao {
      * @return true if the user was deleted successfully
      */
     public boolean deleteUser(int userId) {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
+        try (Connection con = DbConnection.getInstance().getConnection()) {
             String sql = "DELETE FROM users WHERE id = ?";
             PreparedStatement pst = con.prepareStatement(sql);
             pst.setInt(1, userId);
             
             int rowsAffected = pst.executeUpdate();
             
-            con.close();
             return rowsAffected > 0;
             
         } catch (Exception ex) {
@@ -414,54 +380,6 @@ public class UserDao {
         return user;
     }
     
-    /**
-     * Creates the users table if it doesn't exist
-     * 
-     * @return true if the table was created or already exists
-     */
-    public boolean createUsersTable() {
-        try {
-            Connection con = DriverManager.getConnection(db_url, db_username, db_passwd);
-            
-            // Check if table exists
-            boolean tableExists = false;
-            ResultSet rs = con.getMetaData().getTables(null, null, "users", null);
-            if (rs.next()) {
-                tableExists = true;
-            }
-            rs.close();
-            
-            // Create table if it doesn't exist
-            if (!tableExists) {
-                String sql = "CREATE TABLE users (" +
-                             "id SERIAL PRIMARY KEY, " +
-                             "username VARCHAR(50) UNIQUE NOT NULL, " +
-                             "password VARCHAR(255) NOT NULL, " +
-                             "salt VARCHAR(255) NOT NULL, " +
-                             "full_name VARCHAR(100) NOT NULL, " +
-                             "email VARCHAR(100) UNIQUE NOT NULL, " +
-                             "role VARCHAR(20) NOT NULL, " +
-                             "active BOOLEAN NOT NULL DEFAULT TRUE, " +
-                             "last_login TIMESTAMP, " +
-                             "created_at TIMESTAMP NOT NULL" +
-                             ")";
-                
-                Statement stmt = con.createStatement();
-                stmt.execute(sql);
-                stmt.close();
-                
-                LogUtil.info("Users table created successfully");
-            }
-            
-            con.close();
-            return true;
-            
-        } catch (Exception ex) {
-            LogUtil.error("Failed to create users table: " + ex.getMessage(), ex);
-            return false;
-        }
-    }
-    
     /**
      * Creates a default admin user if no users exist
      * 
@@ -0,0 +1,44 @@
+package dao;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of connection acquire wait times.
+ * Buckets are fixed so recording is a single atomic increment.
+ */
+final class WaitTimeHistogram {
+    /** Upper bound (exclusive) of each bucket in microseconds; one extra open-ended bucket follows */
+    static final long[] BUCKET_BOUNDS_MICROS = {
+        100, 250, 500, 1000, 2500, 5000, 10000, 25000, 50000,
+        100000, 250000, 500000, 1000000, 5000000
+    };
+    
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_BOUNDS_MICROS.length + 1);
+    
+    /**
+     * Records one wait
+     * 
+     * @param waitNanos The wait time in nanoseconds
+     */
+    void record(long waitNanos) {
+        long micros = waitNanos / 1000;
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_MICROS.length && micros >= BUCKET_BOUNDS_MICROS[bucket]) {
+            bucket++;
+        }
+        counts.incrementAndGet(bucket);
+    }
+    
+    /**
+     * Copies the current bucket counts
+     * 
+     * @return Count per bucket
+     */
+    long[] snapshot() {
+        long[] copy = new long[counts.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+        }
+        return copy;
+    }
+}
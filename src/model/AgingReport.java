@@ -0,0 +1,63 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Accounts receivable aging: the open receivables of every customer with
+ * an unpaid invoice, by age bucket, as of one day.
+ */
+public class AgingReport {
+    private final LocalDate asOf;
+    private final LocalDateTime generatedAt;
+    private final List<CustomerAging> customers;
+    private final CustomerAging totals;
+    
+    /**
+     * Constructor
+     * 
+     * @param asOf The day the days past due are counted to
+     * @param customers One row per customer with open receivables
+     */
+    public AgingReport(LocalDate asOf, List<CustomerAging> customers) {
+        this.asOf = asOf;
+        this.generatedAt = LocalDateTime.now();
+        this.customers = Collections.unmodifiableList(customers);
+        
+        // Column totals over all customers
+        this.totals = new CustomerAging();
+        totals.setCustomerName("Total");
+        for (CustomerAging customer : customers) {
+            totals.setInvoiceCount(totals.getInvoiceCount() + customer.getInvoiceCount());
+            totals.setCurrent(totals.getCurrent().add(customer.getCurrent()));
+            totals.setDays0To30(totals.getDays0To30().add(customer.getDays0To30()));
+            totals.setDays31To60(totals.getDays31To60().add(customer.getDays31To60()));
+            totals.setDays61To90(totals.getDays61To90().add(customer.getDays61To90()));
+            totals.setOver90Days(totals.getOver90Days().add(customer.getOver90Days()));
+        }
+    }
+    
+    // Getters
+    public LocalDate getAsOf() {
+        return asOf;
+    }
+    
+    public LocalDateTime getGeneratedAt() {
+        return generatedAt;
+    }
+    
+    public List<CustomerAging> getCustomers() {
+        return customers;
+    }
+    
+    /**
+     * Gets the totals of every bucket over all customers
+     * 
+     * @return The totals, with customer name "Total" and no customer ID
+     */
+    public CustomerAging getTotals() {
+        return totals;
+    }
+}
\ No newline at end of file
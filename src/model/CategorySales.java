@@ -0,0 +1,69 @@
+package model;
+
+import java.math.BigDecimal;
+
+/**
+ * Units sold and revenue for one product category.
+ * Computed from the order items of all orders that were not cancelled.
+ */
+public class CategorySales {
+    private String category;
+    private long unitsSold;
+    private BigDecimal revenue;
+    private int orderCount;
+    
+    /**
+     * Default constructor
+     */
+    public CategorySales() {
+        this.revenue = BigDecimal.ZERO;
+    }
+    
+    /**
+     * Constructor with fields
+     * 
+     * @param category The product category
+     * @param unitsSold The number of units sold
+     * @param revenue The revenue from the units sold
+     * @param orderCount The number of orders containing the category
+     */
+    public CategorySales(String category, long unitsSold, BigDecimal revenue, int orderCount) {
+        this.category = category;
+        this.unitsSold = unitsSold;
+        this.revenue = revenue != null ? revenue : BigDecimal.ZERO;
+        this.orderCount = orderCount;
+    }
+    
+    // Getters and Setters
+    public String getCategory() {
+        return category;
+    }
+    
+    public void setCategory(String category) {
+        this.category = category;
+    }
+    
+    public long getUnitsSold() {
+        return unitsSold;
+    }
+    
+    public void setUnitsSold(long unitsSold) {
+        this.unitsSold = unitsSold;
+    }
+    
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+    
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue != null ? revenue : BigDecimal.ZERO;
+    }
+    
+    public int getOrderCount() {
+        return orderCount;
+    }
+    
+    public void setOrderCount(int orderCount) {
+        this.orderCount = orderCount;
+    }
+}
\ No newline at end of file
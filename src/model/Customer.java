@@ -68,6 +68,17 @@ public class Customer {
         this.registrationDate = registrationDate;
     }
 
+    /**
+     * Copy constructor. The order list is copied, the orders themselves are shared.
+     * 
+     * @param other The customer to copy
+     */
+    public Customer(Customer other) {
+        this(other.id, other.customerId, other.firstName, other.lastName, other.email,
+             other.phone, other.address, other.registrationDate);
+        this.orders = other.orders != null ? new ArrayList<>(other.orders) : null;
+    }
+
     // Getters and Setters
     
     public int getId() {
@@ -0,0 +1,114 @@
+package model;
+
+import java.math.BigDecimal;
+
+/**
+ * Open receivables of one customer, split by the age of the invoices.
+ * Invoices that are not due yet are current; the others are aged by the
+ * number of days since their due date. An invoice's open amount is the
+ * invoice amount minus the payments received on it.
+ */
+public class CustomerAging {
+    private int customerId;
+    private String customerCode;
+    private String customerName;
+    private int invoiceCount;
+    private BigDecimal current;
+    private BigDecimal days0To30;
+    private BigDecimal days31To60;
+    private BigDecimal days61To90;
+    private BigDecimal over90Days;
+    
+    /**
+     * Default constructor
+     */
+    public CustomerAging() {
+        this.current = BigDecimal.ZERO;
+        this.days0To30 = BigDecimal.ZERO;
+        this.days31To60 = BigDecimal.ZERO;
+        this.days61To90 = BigDecimal.ZERO;
+        this.over90Days = BigDecimal.ZERO;
+    }
+    
+    // Getters and Setters
+    public int getCustomerId() {
+        return customerId;
+    }
+    
+    public void setCustomerId(int customerId) {
+        this.customerId = customerId;
+    }
+    
+    public String getCustomerCode() {
+        return customerCode;
+    }
+    
+    public void setCustomerCode(String customerCode) {
+        this.customerCode = customerCode;
+    }
+    
+    public String getCustomerName() {
+        return customerName;
+    }
+    
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+    
+    public int getInvoiceCount() {
+        return invoiceCount;
+    }
+    
+    public void setInvoiceCount(int invoiceCount) {
+        this.invoiceCount = invoiceCount;
+    }
+    
+    public BigDecimal getCurrent() {
+        return current;
+    }
+    
+    public void setCurrent(BigDecimal current) {
+        this.current = current != null ? current : BigDecimal.ZERO;
+    }
+    
+    public BigDecimal getDays0To30() {
+        return days0To30;
+    }
+    
+    public void setDays0To30(BigDecimal days0To30) {
+        this.days0To30 = days0To30 != null ? days0To30 : BigDecimal.ZERO;
+    }
+    
+    public BigDecimal getDays31To60() {
+        return days31To60;
+    }
+    
+    public void setDays31To60(BigDecimal days31To60) {
+        this.days31To60 = days31To60 != null ? days31To60 : BigDecimal.ZERO;
+    }
+    
+    public BigDecimal getDays61To90() {
+        return days61To90;
+    }
+    
+    public void setDays61To90(BigDecimal days61To90) {
+        this.days61To90 = days61To90 != null ? days61To90 : BigDecimal.ZERO;
+    }
+    
+    public BigDecimal getOver90Days() {
+        return over90Days;
+    }
+    
+    public void setOver90Days(BigDecimal over90Days) {
+        this.over90Days = over90Days != null ? over90Days : BigDecimal.ZERO;
+    }
+    
+    /**
+     * Gets the customer's total open amount
+     * 
+     * @return The sum of all buckets
+     */
+    public BigDecimal getTotal() {
+        return current.add(days0To30).add(days31To60).add(days61To90).add(over90Days);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,92 @@
+package model;
+
+import java.math.BigDecimal;
+
+/**
+ * Headline figures for the dashboard.
+ * Aggregated by the database so the dashboard never loads whole tables.
+ */
+public class DashboardSummary {
+    private BigDecimal totalSales;
+    private int totalOrders;
+    private BigDecimal averageOrderValue;
+    private int pendingOrders;
+    private BigDecimal totalPayments;
+    private int newCustomers;
+    private int totalSuppliers;
+    private int lowStockItems;
+    
+    /**
+     * Default constructor
+     */
+    public DashboardSummary() {
+        this.totalSales = BigDecimal.ZERO;
+        this.averageOrderValue = BigDecimal.ZERO;
+        this.totalPayments = BigDecimal.ZERO;
+    }
+    
+    // Getters and Setters
+    public BigDecimal getTotalSales() {
+        return totalSales;
+    }
+    
+    public void setTotalSales(BigDecimal totalSales) {
+        this.totalSales = totalSales != null ? totalSales : BigDecimal.ZERO;
+    }
+    
+    public int getTotalOrders() {
+        return totalOrders;
+    }
+    
+    public void setTotalOrders(int totalOrders) {
+        this.totalOrders = totalOrders;
+    }
+    
+    public BigDecimal getAverageOrderValue() {
+        return averageOrderValue;
+    }
+    
+    public void setAverageOrderValue(BigDecimal averageOrderValue) {
+        this.averageOrderValue = averageOrderValue != null ? averageOrderValue : BigDecimal.ZERO;
+    }
+    
+    public int getPendingOrders() {
+        return pendingOrders;
+    }
+    
+    public void setPendingOrders(int pendingOrders) {
+        this.pendingOrders = pendingOrders;
+    }
+    
+    public BigDecimal getTotalPayments() {
+        return totalPayments;
+    }
+    
+    public void setTotalPayments(BigDecimal totalPayments) {
+        this.totalPayments = totalPayments != null ? totalPayments : BigDecimal.ZERO;
+    }
+    
+    public int getNewCustomers() {
+        return newCustomers;
+    }
+    
+    public void setNewCustomers(int newCustomers) {
+        this.newCustomers = newCustomers;
+    }
+    
+    public int getTotalSuppliers() {
+        return totalSuppliers;
+    }
+    
+    public void setTotalSuppliers(int totalSuppliers) {
+        this.totalSuppliers = totalSuppliers;
+    }
+    
+    public int getLowStockItems() {
+        return lowStockItems;
+    }
+    
+    public void setLowStockItems(int lowStockItems) {
+        this.lowStockItems = lowStockItems;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+package model;
+
+import java.math.BigDecimal;
+
+/**
+ * Summary figures for the order list.
+ * Computed by the database over all orders rather than from the rows
+ * currently loaded in the list.
+ */
+public class OrderSummary {
+    private int totalOrders;
+    private int ordersThisMonth;
+    private int pendingOrders;
+    private int deliveredOrders;
+    private BigDecimal averageOrderValue;
+    
+    /**
+     * Default constructor
+     */
+    public OrderSummary() {
+        this.averageOrderValue = BigDecimal.ZERO;
+    }
+    
+    // Getters and Setters
+    public int getTotalOrders() {
+        return totalOrders;
+    }
+    
+    public void setTotalOrders(int totalOrders) {
+        this.totalOrders = totalOrders;
+    }
+    
+    public int getOrdersThisMonth() {
+        return ordersThisMonth;
+    }
+    
+    public void setOrdersThisMonth(int ordersThisMonth) {
+        this.ordersThisMonth = ordersThisMonth;
+    }
+    
+    public int getPendingOrders() {
+        return pendingOrders;
+    }
+    
+    public void setPendingOrders(int pendingOrders) {
+        this.pendingOrders = pendingOrders;
+    }
+    
+    public int getDeliveredOrders() {
+        return deliveredOrders;
+    }
+    
+    public void setDeliveredOrders(int deliveredOrders) {
+        this.deliveredOrders = deliveredOrders;
+    }
+    
+    public BigDecimal getAverageOrderValue() {
+        return averageOrderValue;
+    }
+    
+    public void setAverageOrderValue(BigDecimal averageOrderValue) {
+        this.averageOrderValue = averageOrderValue != null ? averageOrderValue : BigDecimal.ZERO;
+    }
+}
\ No newline at end of file
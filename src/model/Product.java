@@ -66,6 +66,17 @@ public class Product {
         this.supplierId = supplierId;
     }
 
+    /**
+     * Copy constructor. The supplier, if loaded, is shared.
+     * 
+     * @param other The product to copy
+     */
+    public Product(Product other) {
+        this(other.id, other.productCode, other.name, other.description,
+             other.price, other.stockQuantity, other.category, other.supplierId);
+        this.supplier = other.supplier;
+    }
+
     // Getters and Setters
     
     public int getId() {
@@ -62,6 +62,17 @@ public class Supplier {
         this.address = address;
     }
 
+    /**
+     * Copy constructor. The product list is copied, the products themselves are shared.
+     * 
+     * @param other The supplier to copy
+     */
+    public Supplier(Supplier other) {
+        this(other.id, other.supplierCode, other.name, other.contactPerson,
+             other.email, other.phone, other.address);
+        this.products = other.products != null ? new ArrayList<>(other.products) : null;
+    }
+
     // Getters and Setters
     
     public int getId() {
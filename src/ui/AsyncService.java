@@ -0,0 +1,221 @@
+package ui;
+
+import util.LogUtil;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs database calls for the UI on a small pool of background threads so
+ * the event dispatch thread never waits on the database.
+ * Views and controllers hand DAO calls to a RequestSlot, which shows a busy
+ * cursor while the call runs, drops the result if a newer request replaced
+ * it and delivers the result or error back on the event dispatch thread.
+ * Writes go through runWrite instead, which never drops a result.
+ */
+public class AsyncService {
+    private static final int WORKER_THREADS = 4;
+    private static final int MAX_QUEUED_TASKS = 100;
+    
+    private static AsyncService instance;
+    
+    private final ThreadPoolExecutor executor;
+    
+    /**
+     * Private constructor for singleton pattern
+     */
+    private AsyncService() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Bounded so a flood of requests fails fast instead of piling up behind a slow database
+        executor = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, 30, TimeUnit.SECONDS,
+                                          new ArrayBlockingQueue<>(MAX_QUEUED_TASKS), r -> {
+            Thread thread = new Thread(r, "async-dao-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+    
+    /**
+     * Gets the singleton instance
+     * 
+     * @return The AsyncService instance
+     */
+    public static synchronized AsyncService getInstance() {
+        if (instance == null) {
+            instance = new AsyncService();
+        }
+        return instance;
+    }
+    
+    /**
+     * Runs a task on a background thread.
+     * Cancelling the returned future before the task starts keeps it from
+     * running; a task already running is left to finish and its result is
+     * discarded.
+     * 
+     * @param <T> The result type
+     * @param task The task, usually a DAO call
+     * @return A future completed with the task's result or exception
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(task.call());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            future.completeExceptionally(new IllegalStateException("Too many requests in progress, please try again", ex));
+        }
+        return future;
+    }
+    
+    /**
+     * Runs a write, such as a delete, on a background thread.
+     * Unlike a RequestSlot request, a write is never cancelled or replaced by
+     * a later one, so every write runs and its result is always delivered.
+     * 
+     * @param <T> The result type
+     * @param owner The component that shows the busy cursor and error messages; may be null
+     * @param action What is being done, used in the error message
+     * @param task The task, usually a DAO call
+     * @param onSuccess Receives the result on the event dispatch thread
+     */
+    public <T> void runWrite(Component owner, String action, Callable<T> task, Consumer<? super T> onSuccess) {
+        if (owner != null) {
+            owner.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        }
+        submit(task).whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            if (owner != null) {
+                owner.setCursor(null);
+            }
+            if (error == null) {
+                onSuccess.accept(result);
+            } else {
+                showError(owner, action, error);
+            }
+        }));
+    }
+    
+    /**
+     * Logs a failed background call and shows it to the user
+     * 
+     * @param parent The component the message belongs to
+     * @param action What was being done, e.g. "loading customers"
+     * @param error The failure
+     */
+    public static void showError(Component parent, String action, Throwable error) {
+        Throwable cause = unwrap(error);
+        LogUtil.error("Error " + action + ": " + cause.getMessage(), cause);
+        JOptionPane.showMessageDialog(parent,
+            "Error " + action + ": " + cause.getMessage(),
+            "Database Error",
+            JOptionPane.ERROR_MESSAGE);
+    }
+    
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+    
+    /**
+     * Holds the latest background request of one view or controller.
+     * Starting a request cancels the previous one, so a slow answer to an
+     * old request can never overwrite the answer to a newer one.
+     * All methods must be called on the event dispatch thread.
+     */
+    public static class RequestSlot {
+        private final Component owner;
+        private CompletableFuture<?> current;
+        
+        /**
+         * Constructor
+         * 
+         * @param owner The component that shows the busy cursor and error messages
+         */
+        public RequestSlot(Component owner) {
+            this.owner = owner;
+        }
+        
+        /**
+         * Starts a request, showing errors in a message dialog
+         * 
+         * @param <T> The result type
+         * @param action What is being done, used in the error message
+         * @param task The task to run in the background
+         * @param onSuccess Receives the result on the event dispatch thread
+         */
+        public <T> void run(String action, Callable<T> task, Consumer<? super T> onSuccess) {
+            run(task, onSuccess, error -> showError(owner, action, error));
+        }
+        
+        /**
+         * Starts a request
+         * 
+         * @param <T> The result type
+         * @param task The task to run in the background
+         * @param onSuccess Receives the result on the event dispatch thread
+         * @param onError Receives the failure on the event dispatch thread
+         */
+        public <T> void run(Callable<T> task, Consumer<? super T> onSuccess, Consumer<Throwable> onError) {
+            cancel();
+            CompletableFuture<T> future = getInstance().submit(task);
+            current = future;
+            setBusy(true);
+            
+            future.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+                if (current != future) {
+                    return; // Cancelled or replaced by a newer request
+                }
+                current = null;
+                setBusy(false);
+                if (error == null) {
+                    onSuccess.accept(result);
+                } else {
+                    onError.accept(unwrap(error));
+                }
+            }));
+        }
+        
+        /**
+         * Cancels the pending request, if any; its result will not be delivered
+         */
+        public void cancel() {
+            if (current != null) {
+                CompletableFuture<?> pending = current;
+                current = null;
+                pending.cancel(false);
+                setBusy(false);
+            }
+        }
+        
+        public boolean isLoading() {
+            return current != null;
+        }
+        
+        private void setBusy(boolean busy) {
+            if (owner != null) {
+                owner.setCursor(busy ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
+            }
+        }
+    }
+}
\ No newline at end of file
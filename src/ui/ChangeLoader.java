@@ -0,0 +1,88 @@
+package ui;
+
+import util.LogUtil;
+
+import javax.swing.*;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Re-reads the rows a ChangeWatcher reports as changed and hands them to
+ * the view.
+ * Unlike a RequestSlot, a new burst of changes never cancels the load in
+ * progress, since that would lose the IDs it was reading. IDs that arrive
+ * during a load are collected and read by one follow-up load once it
+ * finishes, so at most one load runs at a time.
+ * All methods must be called on the event dispatch thread.
+ * 
+ * @param <T> The row type
+ */
+public class ChangeLoader<T> {
+    private final Function<Integer, T> finder;
+    private final Consumer<Map<Integer, T>> onLoaded;
+    private final String rowName;
+    
+    private final Set<Integer> pendingIds = new LinkedHashSet<>();
+    private boolean loading;
+    
+    /**
+     * Constructor
+     * 
+     * @param finder Reads one row by its ID on a background thread; returns null if it was deleted
+     * @param onLoaded Receives the current state of each changed row on the event dispatch thread
+     * @param rowName Plural name of the rows, used in the log, e.g. "customers"
+     */
+    public ChangeLoader(Function<Integer, T> finder, Consumer<Map<Integer, T>> onLoaded, String rowName) {
+        this.finder = finder;
+        this.onLoaded = onLoaded;
+        this.rowName = rowName;
+    }
+    
+    /**
+     * Re-reads changed rows, now or after the load in progress
+     * 
+     * @param ids The IDs of the changed rows
+     */
+    public void load(Set<Integer> ids) {
+        pendingIds.addAll(ids);
+        if (!loading) {
+            loadPending();
+        }
+    }
+    
+    /**
+     * Forgets the rows not read yet, e.g. because the whole table is reloaded
+     */
+    public void clear() {
+        pendingIds.clear();
+    }
+    
+    private void loadPending() {
+        if (pendingIds.isEmpty()) {
+            return;
+        }
+        Set<Integer> ids = new LinkedHashSet<>(pendingIds);
+        pendingIds.clear();
+        loading = true;
+        
+        AsyncService.getInstance().submit(() -> {
+            Map<Integer, T> changed = new HashMap<>();
+            for (Integer id : ids) {
+                changed.put(id, finder.apply(id));
+            }
+            return changed;
+        }).whenComplete((changed, error) -> SwingUtilities.invokeLater(() -> {
+            loading = false;
+            if (error == null) {
+                onLoaded.accept(changed);
+            } else {
+                LogUtil.error("Error reloading changed " + rowName, error);
+            }
+            loadPending();
+        }));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,126 @@
+package ui;
+
+import dao.ChangeEvent;
+import dao.ChangeNotifier;
+import dao.DataChangeListener;
+
+import javax.swing.*;
+import java.awt.event.HierarchyEvent;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tells a view about changes to one table made by any client, so open
+ * lists stay current in a multi-client deployment.
+ * Listens to ChangeNotifier while the view is displayable and collects the
+ * changed row IDs; a burst of changes is delivered as one call on the event
+ * dispatch thread, DELIVERY_DELAY_MS after the first change of the burst.
+ */
+public class ChangeWatcher implements DataChangeListener {
+    private static final int DELIVERY_DELAY_MS = 500;
+    
+    /**
+     * Receives the collected changes on the event dispatch thread
+     */
+    public interface Handler {
+        /**
+         * Called with the changes since the last call
+         * 
+         * @param ids The IDs of the changed rows; inserted, updated or deleted
+         * @param allRows true if some changes did not report their rows, so the whole table must be reloaded
+         */
+        void tableChanged(Set<Integer> ids, boolean allRows);
+    }
+    
+    private final String table;
+    private final Handler handler;
+    private final Timer deliveryTimer;
+    private boolean subscribed;
+    
+    // Guarded by this; filled on the listener thread, drained on the event dispatch thread
+    private final Set<Integer> pendingIds = new HashSet<>();
+    private boolean pendingAllRows;
+    private boolean pending;
+    
+    /**
+     * Creates a watcher that follows the view's displayability
+     * 
+     * @param view The view showing the table
+     * @param table The table to watch
+     * @param handler Receives the changes
+     */
+    public ChangeWatcher(JComponent view, String table, Handler handler) {
+        this.table = table;
+        this.handler = handler;
+        this.deliveryTimer = new Timer(DELIVERY_DELAY_MS, e -> deliver());
+        this.deliveryTimer.setRepeats(false);
+        
+        view.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.DISPLAYABILITY_CHANGED) != 0) {
+                setSubscribed(view.isDisplayable());
+            }
+        });
+        setSubscribed(view.isDisplayable());
+    }
+    
+    @Override
+    public void onDataChange(ChangeEvent event) {
+        if (!event.affects(table)) {
+            return;
+        }
+        
+        boolean first;
+        synchronized (this) {
+            first = !pending;
+            pending = true;
+            if (event.isAllRows()) {
+                pendingAllRows = true;
+            } else {
+                pendingIds.addAll(event.getIds());
+            }
+        }
+        if (first) {
+            SwingUtilities.invokeLater(deliveryTimer::restart);
+        }
+    }
+    
+    /**
+     * Starts or stops listening
+     */
+    private void setSubscribed(boolean subscribe) {
+        if (subscribe == subscribed) {
+            return;
+        }
+        subscribed = subscribe;
+        if (subscribe) {
+            ChangeNotifier.getInstance().addListener(this);
+        } else {
+            ChangeNotifier.getInstance().removeListener(this);
+            deliveryTimer.stop();
+            synchronized (this) {
+                pendingIds.clear();
+                pendingAllRows = false;
+                pending = false;
+            }
+        }
+    }
+    
+    /**
+     * Hands the collected changes to the handler
+     */
+    private void deliver() {
+        Set<Integer> ids;
+        boolean allRows;
+        synchronized (this) {
+            if (!pending) {
+                return;
+            }
+            ids = new HashSet<>(pendingIds);
+            allRows = pendingAllRows;
+            pendingIds.clear();
+            pendingAllRows = false;
+            pending = false;
+        }
+        handler.tableChanged(ids, allRows);
+    }
+}
\ No newline at end of file
@@ -12,10 +12,13 @@ import java.awt.*;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Dashboard panel that displays key business metrics and visualizations.
@@ -25,13 +28,25 @@ public class DashboardPanel extends JPanel {
     
     // DAOs for database access
     private ProductDao productDao;
-    private CustomerDao customerDao;
     private OrderDao orderDao;
     private InvoiceDao invoiceDao;
-    private SupplierDao supplierDao;
+    private DashboardDao dashboardDao;
+    
+    private static final int LOW_STOCK_THRESHOLD = 10;
+    
+    // Dashboard sections, so a change only reloads the parts it affects
+    private static final int SECTION_SUMMARY = 1;
+    private static final int SECTION_CATEGORY_SALES = 2;
+    private static final int SECTION_MONTHLY_SALES = 4;
+    private static final int SECTION_RECENT_ORDERS = 8;
+    private static final int SECTION_LOW_STOCK = 16;
+    private static final int ALL_SECTIONS = 31;
+    
+    // Changes arriving within this interval are applied in one reload
+    private static final int LIVE_UPDATE_INTERVAL_MS = 2000;
     
     // Dashboard data
-    private Map<String, Integer> salesByCategory;
+    private List<CategorySales> categorySales;
     private Map<String, BigDecimal> monthlySales;
     
     // Dashboard metrics
@@ -58,6 +73,16 @@ public class DashboardPanel extends JPanel {
     // For chart panel repainting
     private JPanel categoryChartPanel;
     private JPanel monthlySalesChartPanel;
+    private JPanel recentOrdersListPanel;
+    private JPanel lowStockListPanel;
+    
+    // Live updates: the change listener only records the affected sections,
+    // the timer reloads them on the event dispatch thread
+    private final AtomicInteger changedSections = new AtomicInteger();
+    private final DataChangeListener changeListener = event -> markChanged(sectionsAffectedBy(event));
+    private Timer liveUpdateTimer;
+    private JCheckBox liveUpdatesCheckBox;
+    private boolean loading;
     
     /**
      * Constructor
@@ -65,14 +90,13 @@ public class DashboardPanel extends JPanel {
     public DashboardPanel() {
         // Initialize DAOs
         this.productDao = new ProductDao();
-        this.customerDao = new CustomerDao();
         this.orderDao = new OrderDao();
         this.invoiceDao = new InvoiceDao();
-        this.supplierDao = new SupplierDao();
+        this.dashboardDao = new DashboardDao();
         
         // Initialize data structures
-        this.salesByCategory = new HashMap<>();
-        this.monthlySales = new HashMap<>();
+        this.categorySales = new ArrayList<>();
+        this.monthlySales = new LinkedHashMap<>(); // Kept in chronological order
         
         // Create the UI
         initializeUI();
@@ -173,8 +197,17 @@ public class DashboardPanel extends JPanel {
         JButton refreshButton = UIFactory.createSecondaryButton("Refresh Dashboard");
         refreshButton.addActionListener(e -> refreshDashboard());
         
+        // Live updates reload the affected sections whenever the data changes
+        liveUpdatesCheckBox = new JCheckBox("Live updates");
+        liveUpdatesCheckBox.setFont(UIFactory.BODY_FONT);
+        liveUpdatesCheckBox.setOpaque(false);
+        liveUpdatesCheckBox.addActionListener(e -> setLiveUpdates(liveUpdatesCheckBox.isSelected()));
+        
+        liveUpdateTimer = new Timer(LIVE_UPDATE_INTERVAL_MS, e -> applyChanges());
+        
         JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         bottomPanel.setOpaque(false);
+        bottomPanel.add(liveUpdatesCheckBox);
         bottomPanel.add(refreshButton);
         add(bottomPanel, BorderLayout.SOUTH);
     }
@@ -183,6 +216,23 @@ public class DashboardPanel extends JPanel {
      * Load dashboard data from the database
      */
     private void loadDashboardData() {
+        loadSections(ALL_SECTIONS);
+    }
+    
+    /**
+     * Loads some sections of the dashboard in the background and updates
+     * them when done. Only one load runs at a time; sections requested
+     * meanwhile are loaded afterwards.
+     * 
+     * @param sections The SECTION_ flags of the sections to load
+     */
+    private void loadSections(int sections) {
+        if (loading) {
+            markChanged(sections);
+            return;
+        }
+        loading = true;
+        
         // Use a SwingWorker to load data in background thread
         SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
             @Override
@@ -191,115 +241,47 @@ public class DashboardPanel extends JPanel {
                     // Get current date and date 30 days ago
                     LocalDate today = LocalDate.now();
                     LocalDate thirtyDaysAgo = today.minusDays(30);
-                    LocalDate lastMonth = today.minusMonths(1);
-                    LocalDate twoMonthsAgo = today.minusMonths(2);
-                    
-                    // Load all orders
-                    List<Order> allOrders = orderDao.findAllOrders();
-                    
-                    // Count total orders
-                    totalOrders = allOrders.size();
-                    
-                    // Calculate total sales
-                    totalSales = BigDecimal.ZERO;
-                    for (Order order : allOrders) {
-                        totalSales = totalSales.add(order.getTotalAmount());
-                    }
                     
-                    // Calculate average order value
-                    if (totalOrders > 0) {
-                        averageOrderValue = totalSales.divide(new BigDecimal(totalOrders), 2, RoundingMode.HALF_UP);
-                    } else {
-                        averageOrderValue = BigDecimal.ZERO;
-                    }
-                    
-                    // Get recent orders (last 30 days)
-                    List<Order> recentOrdersList = orderDao.findOrdersByDateRange(thirtyDaysAgo, today);
-                    
-                    // Count pending orders
-                    pendingOrders = 0;
-                    for (Order order : allOrders) {
-                        if (Order.STATUS_PENDING.equals(order.getStatus())) {
-                            pendingOrders++;
+                    if ((sections & SECTION_SUMMARY) != 0) {
+                        // Totals, average order value and counts, read from the rollup tables
+                        DashboardSummary summary = dashboardDao.getSummary(thirtyDaysAgo, LOW_STOCK_THRESHOLD);
+                        if (summary == null) {
+                            summary = new DashboardSummary();
                         }
+                        totalOrders = summary.getTotalOrders();
+                        totalSales = summary.getTotalSales();
+                        averageOrderValue = summary.getAverageOrderValue();
+                        pendingOrders = summary.getPendingOrders();
+                        newCustomers = summary.getNewCustomers();
+                        totalSuppliers = summary.getTotalSuppliers();
+                        lowStockItems = summary.getLowStockItems();
                     }
                     
-                    // Get new customers in last 30 days
-                    List<Customer> allCustomers = customerDao.findAllCustomers();
-                    newCustomers = 0;
-                    for (Customer customer : allCustomers) {
-                        if (customer.getRegistrationDate() != null && 
-                            !customer.getRegistrationDate().isBefore(thirtyDaysAgo)) {
-                            newCustomers++;
-                        }
+                    if ((sections & SECTION_LOW_STOCK) != 0) {
+                        // Get products with low stock
+                        lowStockProducts = productDao.findLowStockProducts(LOW_STOCK_THRESHOLD);
                     }
                     
-                    // Get products with low stock
-                    lowStockProducts = productDao.findLowStockProducts(10); // Threshold of 10
-                    lowStockItems = lowStockProducts.size();
-                    
-                    // Get total number of suppliers
-                    List<Supplier> allSuppliers = supplierDao.findAllSuppliers();
-                    totalSuppliers = allSuppliers.size();
-                    
-                    // Calculate sales by category
-                    salesByCategory.clear();
-                    List<Product> allProducts = productDao.findAllProducts();
-                    
-                    // Group products by category
-                    Map<String, List<Product>> productsByCategory = new HashMap<>();
-                    for (Product product : allProducts) {
-                        String category = product.getCategory();
-                        if (category == null) {
-                            category = "Uncategorized";
-                        }
-                        
-                        List<Product> categoryProducts = productsByCategory.computeIfAbsent(
-                            category, k -> new java.util.ArrayList<>());
-                        categoryProducts.add(product);
+                    if ((sections & SECTION_CATEGORY_SALES) != 0) {
+                        // Revenue and units sold per category, from the materialized view
+                        categorySales = dashboardDao.getCategorySales();
                     }
                     
-                    // Calculate sales for each category
-                    for (Map.Entry<String, List<Product>> entry : productsByCategory.entrySet()) {
-                        String category = entry.getKey();
-                        int categorySales = 0;
-                        
-                        for (Product product : entry.getValue()) {
-                            // For demo purposes, we'll use stock quantity as a proxy for sales
-                            // In a real app, we would aggregate from order items
-                            categorySales += (100 - product.getStockQuantity()); // Assuming initial stock of 100
+                    if ((sections & SECTION_MONTHLY_SALES) != 0) {
+                        // Monthly sales for the past 12 months, oldest first
+                        Map<String, BigDecimal> sales = new LinkedHashMap<>();
+                        DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("MMM");
+                        for (Map.Entry<YearMonth, BigDecimal> entry : dashboardDao.getMonthlySales(12).entrySet()) {
+                            sales.put(entry.getKey().format(monthFormatter), entry.getValue());
                         }
-                        
-                        salesByCategory.put(category, categorySales);
+                        monthlySales = sales;
                     }
                     
-                    // Calculate monthly sales for the past 12 months
-                    monthlySales.clear();
-                    DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("MMM");
-                    
-                    // For demo purposes, we'll generate some sample data
-                    // In a real app, we would aggregate orders by month
-                    for (int i = 0; i < 12; i++) {
-                        LocalDate month = today.minusMonths(i);
-                        String monthName = month.format(monthFormatter);
-                        
-                        // Calculate sales for this month
-                        BigDecimal monthSales = BigDecimal.ZERO;
-                        for (Order order : allOrders) {
-                            if (order.getOrderDate() != null && 
-                                order.getOrderDate().getMonth() == month.getMonth() &&
-                                order.getOrderDate().getYear() == month.getYear()) {
-                                monthSales = monthSales.add(order.getTotalAmount());
-                            }
-                        }
-                        
-                        monthlySales.put(monthName, monthSales);
+                    if ((sections & SECTION_RECENT_ORDERS) != 0) {
+                        // Get recent orders for display
+                        recentOrders = orderDao.findRecentOrders(thirtyDaysAgo, 5);
                     }
                     
-                    // Get recent orders for display
-                    recentOrders = recentOrdersList.subList(
-                        0, Math.min(5, recentOrdersList.size()));
-                    
                     return null;
                     
                 } catch (Exception e) {
@@ -310,7 +292,13 @@ public class DashboardPanel extends JPanel {
             
             @Override
             protected void done() {
-                updateDashboardUI();
+                loading = false;
+                updateDashboardUI(sections);
+                
+                // With live updates on, the timer picks up the rest
+                if (!liveUpdatesCheckBox.isSelected()) {
+                    applyChanges();
+                }
             }
         };
         
@@ -319,8 +307,36 @@ public class DashboardPanel extends JPanel {
     
     /**
      * Update the dashboard UI with the loaded data
+     * 
+     * @param sections The SECTION_ flags of the sections that were loaded
+     */
+    private void updateDashboardUI(int sections) {
+        if ((sections & SECTION_SUMMARY) != 0) {
+            updateMetricCards();
+        }
+        
+        // Refresh charts
+        if ((sections & SECTION_CATEGORY_SALES) != 0 && categoryChartPanel != null) {
+            categoryChartPanel.repaint();
+        }
+        
+        if ((sections & SECTION_MONTHLY_SALES) != 0 && monthlySalesChartPanel != null) {
+            monthlySalesChartPanel.repaint();
+        }
+        
+        if ((sections & SECTION_RECENT_ORDERS) != 0) {
+            updateRecentOrdersList();
+        }
+        
+        if ((sections & SECTION_LOW_STOCK) != 0) {
+            updateLowStockList();
+        }
+    }
+    
+    /**
+     * Updates the metric cards with the loaded summary
      */
-    private void updateDashboardUI() {
+    private void updateMetricCards() {
         // Update metric cards
         totalSalesValueLabel.setText(CurrencyUtil.formatCurrency(totalSales));
         totalOrdersValueLabel.setText(String.valueOf(totalOrders));
@@ -344,17 +360,94 @@ public class DashboardPanel extends JPanel {
         ordersComparisonLabel.setForeground(getTrendColor(8.3));
         customersComparisonLabel.setForeground(getTrendColor(12.5));
         pendingComparisonLabel.setForeground(getTrendColor(-3.2));
-        
-        // Refresh charts
-        if (categoryChartPanel != null) {
-            categoryChartPanel.repaint();
+    }
+    
+    /**
+     * Turns live updates on or off. While on, the dashboard listens for
+     * changes made by any client and reloads the affected sections at most
+     * once per LIVE_UPDATE_INTERVAL_MS, however many changes arrive.
+     * 
+     * @param live true to turn live updates on
+     */
+    private void setLiveUpdates(boolean live) {
+        if (live) {
+            ChangeNotifier.getInstance().addListener(changeListener);
+            liveUpdateTimer.start();
+            
+            // Catch up with anything that changed while live updates were off
+            markChanged(ALL_SECTIONS);
+        } else {
+            ChangeNotifier.getInstance().removeListener(changeListener);
+            liveUpdateTimer.stop();
         }
-        
-        if (monthlySalesChartPanel != null) {
-            monthlySalesChartPanel.repaint();
+    }
+    
+    /**
+     * Records sections that need to be reloaded. Safe to call from any thread.
+     * 
+     * @param sections The SECTION_ flags of the changed sections
+     */
+    private void markChanged(int sections) {
+        changedSections.accumulateAndGet(sections, (current, added) -> current | added);
+    }
+    
+    /**
+     * Reloads the sections changed since the last reload, unless a load is
+     * still running
+     */
+    private void applyChanges() {
+        if (loading) {
+            return;
+        }
+        int sections = changedSections.getAndSet(0);
+        if (sections != 0) {
+            loadSections(sections);
         }
     }
     
+    /**
+     * Gets the dashboard sections that show data from a changed table
+     * 
+     * @param event The change
+     * @return The SECTION_ flags of the affected sections
+     */
+    private static int sectionsAffectedBy(ChangeEvent event) {
+        switch (event.getTable()) {
+            case "orders":
+                return SECTION_SUMMARY | SECTION_MONTHLY_SALES | SECTION_RECENT_ORDERS;
+            case "customers":
+                return SECTION_SUMMARY | SECTION_RECENT_ORDERS;
+            case "products":
+                return SECTION_SUMMARY | SECTION_LOW_STOCK;
+            case "payments":
+            case "suppliers":
+                return SECTION_SUMMARY;
+            case DashboardDao.CATEGORY_SALES_VIEW:
+                return SECTION_CATEGORY_SALES;
+            case ChangeEvent.ALL_TABLES:
+                return ALL_SECTIONS;
+            default:
+                return 0;
+        }
+    }
+    
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (liveUpdatesCheckBox.isSelected()) {
+            setLiveUpdates(true);
+        }
+    }
+    
+    @Override
+    public void removeNotify() {
+        // Stop listening while the dashboard is not shown
+        if (liveUpdatesCheckBox.isSelected()) {
+            setLiveUpdates(false);
+        }
+        super.removeNotify();
+    }
+    
     /**
      * Refreshes the dashboard data and UI
      */
@@ -469,16 +562,19 @@ public class DashboardPanel extends JPanel {
                 
                 int width = getWidth();
                 int height = getHeight();
-                int barWidth = (width - 100) / Math.max(1, salesByCategory.size());
-                int maxValue = 0;
+                List<CategorySales> sales = categorySales;
+                int barWidth = (width - 100) / Math.max(1, sales.size());
+                BigDecimal maxValue = BigDecimal.ZERO;
                 
                 // Find max value for scaling
-                for (Integer value : salesByCategory.values()) {
-                    maxValue = Math.max(maxValue, value);
+                for (CategorySales categorySale : sales) {
+                    if (categorySale.getRevenue().compareTo(maxValue) > 0) {
+                        maxValue = categorySale.getRevenue();
+                    }
                 }
                 
                 // Default if no data
-                if (maxValue == 0) maxValue = 100;
+                if (maxValue.compareTo(BigDecimal.ZERO) == 0) maxValue = new BigDecimal("1000");
                 
                 // Draw axes
                 g2d.setColor(UIFactory.DARK_GRAY);
@@ -493,12 +589,13 @@ public class DashboardPanel extends JPanel {
                     new Color(0x64B5F6), new Color(0x90CAF9)
                 };
                 
-                for (Map.Entry<String, Integer> entry : salesByCategory.entrySet()) {
-                    String category = entry.getKey();
-                    int value = entry.getValue();
+                for (CategorySales categorySale : sales) {
+                    String category = categorySale.getCategory();
+                    BigDecimal value = categorySale.getRevenue();
                     
                     // Calculate bar height
-                    int barHeight = (int) ((value / (double) maxValue) * (height - 90));
+                    double ratio = value.divide(maxValue, 6, RoundingMode.HALF_UP).doubleValue();
+                    int barHeight = (int) (ratio * (height - 90));
                     
                     // Draw bar
                     g2d.setColor(barColors[colorIndex % barColors.length]);
@@ -506,7 +603,7 @@ public class DashboardPanel extends JPanel {
                     
                     // Draw value
                     g2d.setColor(UIFactory.DARK_GRAY);
-                    String valueText = String.valueOf(value);
+                    String valueText = CurrencyUtil.formatCurrency(value);
                     FontMetrics fm = g2d.getFontMetrics();
                     int textWidth = fm.stringWidth(valueText);
                     g2d.drawString(valueText, x + (barWidth - 10) / 2 - textWidth / 2, height - 60 - barHeight);
@@ -585,24 +682,8 @@ public class DashboardPanel extends JPanel {
                 int x = 50;
                 int i = 0;
                 
-                // Sort months chronologically
-                LocalDate now = LocalDate.now();
+                // Months are already in chronological order
                 java.util.List<String> months = new java.util.ArrayList<>(monthlySales.keySet());
-
-// Map month abbreviations to sort order
-java.util.Map<String, Integer> monthToOrder = new java.util.HashMap<>();
-String[] monthAbbreviations = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", 
-                              "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
-for (int idx = 0; idx < monthAbbreviations.length; idx++) {
-    monthToOrder.put(monthAbbreviations[idx], idx);
-}
-
-// Sort months by their natural order
-months.sort((m1, m2) -> {
-    Integer order1 = monthToOrder.getOrDefault(m1, Integer.MAX_VALUE);
-    Integer order2 = monthToOrder.getOrDefault(m2, Integer.MAX_VALUE);
-    return order1.compareTo(order2);
-});
                 
                 // Draw line chart
                 for (String month : months) {
@@ -693,6 +774,7 @@ months.sort((m1, m2) -> {
         
         // Add loading message initially - this will be replaced with real data
         listPanel.add(createActivityItem("Loading recent orders...", "", UIFactory.MEDIUM_GRAY));
+        recentOrdersListPanel = listPanel;
         
         JScrollPane scrollPane = new JScrollPane(listPanel);
         scrollPane.setBorder(BorderFactory.createEmptyBorder());
@@ -705,46 +787,49 @@ months.sort((m1, m2) -> {
         buttonPanel.add(viewAllButton);
         panel.add(buttonPanel, BorderLayout.SOUTH);
         
-        // After data is loaded, update the list panel
-        SwingUtilities.invokeLater(() -> {
-            if (recentOrders != null && !recentOrders.isEmpty()) {
-                listPanel.removeAll();
-                
-                for (Order order : recentOrders) {
-                    String customerName = "Unknown";
-                    if (order.getCustomer() != null) {
-                        customerName = order.getCustomer().getFullName();
-                    }
-                    
-                    String activity = "Order #" + order.getOrderId() + " - " + customerName;
-                    String time = order.getOrderDate() != null ? 
-                        DateUtil.formatDate(order.getOrderDate()) : "";
-                    
-                    Color color;
-                    if (Order.STATUS_DELIVERED.equals(order.getStatus())) {
-                        color = UIFactory.SUCCESS_COLOR;
-                    } else if (Order.STATUS_CANCELLED.equals(order.getStatus())) {
-                        color = UIFactory.ERROR_COLOR;
-                    } else if (Order.STATUS_PENDING.equals(order.getStatus())) {
-                        color = UIFactory.WARNING_COLOR;
-                    } else {
-                        color = UIFactory.PRIMARY_COLOR;
-                    }
-                    
-                    listPanel.add(createActivityItem(activity, time, color));
-                }
-                
-                // If no orders, show message
-                if (recentOrders.isEmpty()) {
-                    listPanel.add(createActivityItem("No recent orders found", "", UIFactory.MEDIUM_GRAY));
-                }
-                
-                listPanel.revalidate();
-                listPanel.repaint();
+        return panel;
+    }
+    
+    /**
+     * Replaces the recent orders list with the loaded orders
+     */
+    private void updateRecentOrdersList() {
+        if (recentOrders == null) {
+            return;
+        }
+        recentOrdersListPanel.removeAll();
+        
+        for (Order order : recentOrders) {
+            String customerName = "Unknown";
+            if (order.getCustomer() != null) {
+                customerName = order.getCustomer().getFullName();
+            }
+            
+            String activity = "Order #" + order.getOrderId() + " - " + customerName;
+            String time = order.getOrderDate() != null ? 
+                DateUtil.formatDate(order.getOrderDate()) : "";
+            
+            Color color;
+            if (Order.STATUS_DELIVERED.equals(order.getStatus())) {
+                color = UIFactory.SUCCESS_COLOR;
+            } else if (Order.STATUS_CANCELLED.equals(order.getStatus())) {
+                color = UIFactory.ERROR_COLOR;
+            } else if (Order.STATUS_PENDING.equals(order.getStatus())) {
+                color = UIFactory.WARNING_COLOR;
+            } else {
+                color = UIFactory.PRIMARY_COLOR;
             }
-        });
+            
+            recentOrdersListPanel.add(createActivityItem(activity, time, color));
+        }
         
-        return panel;
+        // If no orders, show message
+        if (recentOrders.isEmpty()) {
+            recentOrdersListPanel.add(createActivityItem("No recent orders found", "", UIFactory.MEDIUM_GRAY));
+        }
+        
+        recentOrdersListPanel.revalidate();
+        recentOrdersListPanel.repaint();
     }
     
     /**
@@ -832,6 +917,7 @@ months.sort((m1, m2) -> {
         
         // Add loading message initially - this will be replaced with real data
         listPanel.add(createLowStockItem("Loading low stock items...", "", 0));
+        lowStockListPanel = listPanel;
         
         JScrollPane scrollPane = new JScrollPane(listPanel);
         scrollPane.setBorder(BorderFactory.createEmptyBorder());
@@ -844,32 +930,35 @@ months.sort((m1, m2) -> {
         buttonPanel.add(viewAllButton);
         panel.add(buttonPanel, BorderLayout.SOUTH);
         
-        // After data is loaded, update the list panel
-        SwingUtilities.invokeLater(() -> {
-            if (lowStockProducts != null) {
-                listPanel.removeAll();
-                
-                for (Product product : lowStockProducts) {
-                    String productName = product.getName();
-                    String category = product.getCategory() != null ? product.getCategory() : "Uncategorized";
-                    int stockQuantity = product.getStockQuantity();
-                    
-                    listPanel.add(createLowStockItem(productName, category, stockQuantity));
-                }
-                
-                // If no low stock items, show message
-                if (lowStockProducts.isEmpty()) {
-                    listPanel.add(createLowStockItem("No low stock items", "", 0));
-                }
-                
-                listPanel.revalidate();
-                listPanel.repaint();
-            }
-        });
-        
         return panel;
     }
     
+    /**
+     * Replaces the low stock list with the loaded products
+     */
+    private void updateLowStockList() {
+        if (lowStockProducts == null) {
+            return;
+        }
+        lowStockListPanel.removeAll();
+        
+        for (Product product : lowStockProducts) {
+            String productName = product.getName();
+            String category = product.getCategory() != null ? product.getCategory() : "Uncategorized";
+            int stockQuantity = product.getStockQuantity();
+            
+            lowStockListPanel.add(createLowStockItem(productName, category, stockQuantity));
+        }
+        
+        // If no low stock items, show message
+        if (lowStockProducts.isEmpty()) {
+            lowStockListPanel.add(createLowStockItem("No low stock items", "", 0));
+        }
+        
+        lowStockListPanel.revalidate();
+        lowStockListPanel.repaint();
+    }
+    
     /**
      * Creates a low stock item for the list
      * 
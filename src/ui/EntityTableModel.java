@@ -0,0 +1,235 @@
+package ui;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Read-only table model that holds entities, one per row, for the list
+ * views.
+ * Keeps a map from database ID to row, so finding, updating and removing
+ * the row of an entity does not scan the list, and fires events for the
+ * changed rows only instead of rebuilding the table. The cell values of a
+ * row are computed once, when the entity is added or updated.
+ * 
+ * Removing a row moves the last row into its place, so the model order is
+ * the load order only until the first removal; the list views show the rows
+ * through a TableRowSorter and keep their own paging position.
+ * 
+ * All methods must be called on the event dispatch thread.
+ * 
+ * @param <T> The entity type
+ */
+public class EntityTableModel<T> extends AbstractTableModel {
+    private final String[] columnNames;
+    private final Class<?>[] columnClasses;
+    private final ToIntFunction<T> idOf;
+    private final Function<T, Object[]> rowValues;
+    
+    // Row i shows items.get(i) with the cell values values.get(i)
+    private final List<T> items = new ArrayList<>();
+    private final List<Object[]> values = new ArrayList<>();
+    private final Map<Integer, Integer> rowById = new HashMap<>();
+    
+    /**
+     * Creates an empty model whose columns are all of type Object
+     * 
+     * @param columnNames The column names
+     * @param idOf Gets the database ID of an entity
+     * @param rowValues Gets the cell values of an entity, one per column
+     */
+    public EntityTableModel(String[] columnNames, ToIntFunction<T> idOf, Function<T, Object[]> rowValues) {
+        this(columnNames, null, idOf, rowValues);
+    }
+    
+    /**
+     * Creates an empty model
+     * 
+     * @param columnNames The column names
+     * @param columnClasses The column types used for sorting and rendering, or null for Object
+     * @param idOf Gets the database ID of an entity
+     * @param rowValues Gets the cell values of an entity, one per column
+     */
+    public EntityTableModel(String[] columnNames, Class<?>[] columnClasses,
+                            ToIntFunction<T> idOf, Function<T, Object[]> rowValues) {
+        this.columnNames = columnNames;
+        this.columnClasses = columnClasses;
+        this.idOf = idOf;
+        this.rowValues = rowValues;
+    }
+    
+    @Override
+    public int getRowCount() {
+        return items.size();
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+    
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return columnClasses != null ? columnClasses[columnIndex] : Object.class;
+    }
+    
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        return values.get(rowIndex)[columnIndex];
+    }
+    
+    /**
+     * Gets the entity shown in a row
+     * 
+     * @param modelRow Row index in the model
+     * @return The entity, or null if the row does not exist
+     */
+    public T getItemAt(int modelRow) {
+        return modelRow >= 0 && modelRow < items.size() ? items.get(modelRow) : null;
+    }
+    
+    /**
+     * Finds the row of an entity
+     * 
+     * @param id The database ID
+     * @return The model row, or -1 if the entity is not in the model
+     */
+    public int findRow(int id) {
+        Integer row = rowById.get(id);
+        return row != null ? row : -1;
+    }
+    
+    /**
+     * Gets an entity by database ID
+     * 
+     * @param id The database ID
+     * @return The entity, or null if it is not in the model
+     */
+    public T getById(int id) {
+        return getItemAt(findRow(id));
+    }
+    
+    public boolean contains(int id) {
+        return rowById.containsKey(id);
+    }
+    
+    /**
+     * Gets the entities in row order
+     * 
+     * @return An unmodifiable view of the entities
+     */
+    public List<T> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+    
+    /**
+     * Replaces all rows
+     * 
+     * @param newItems The entities to show
+     */
+    public void setItems(Collection<? extends T> newItems) {
+        items.clear();
+        values.clear();
+        rowById.clear();
+        for (T item : newItems) {
+            append(item);
+        }
+        fireTableDataChanged();
+    }
+    
+    /**
+     * Adds an entity, or updates its row if it is already shown
+     * 
+     * @param item The entity
+     */
+    public void add(T item) {
+        if (!update(item)) {
+            append(item);
+            fireTableRowsInserted(items.size() - 1, items.size() - 1);
+        }
+    }
+    
+    /**
+     * Appends several entities; those already shown are updated in place
+     * 
+     * @param newItems The entities
+     */
+    public void addAll(Collection<? extends T> newItems) {
+        int firstRow = items.size();
+        for (T item : newItems) {
+            if (!update(item)) {
+                append(item);
+            }
+        }
+        if (items.size() > firstRow) {
+            fireTableRowsInserted(firstRow, items.size() - 1);
+        }
+    }
+    
+    /**
+     * Replaces the row of an entity
+     * 
+     * @param item The changed entity
+     * @return true if the entity was shown and its row was updated
+     */
+    public boolean update(T item) {
+        int row = findRow(idOf.applyAsInt(item));
+        if (row < 0) {
+            return false;
+        }
+        items.set(row, item);
+        values.set(row, rowValues.apply(item));
+        fireTableRowsUpdated(row, row);
+        return true;
+    }
+    
+    /**
+     * Removes the row of an entity.
+     * The last row is moved into the removed row, so no other row moves.
+     * 
+     * @param id The database ID
+     * @return true if the entity was shown and its row was removed
+     */
+    public boolean remove(int id) {
+        Integer row = rowById.remove(id);
+        if (row == null) {
+            return false;
+        }
+        int last = items.size() - 1;
+        T moved = items.remove(last);
+        Object[] movedValues = values.remove(last);
+        
+        fireTableRowsDeleted(last, last);
+        if (row != last) {
+            items.set(row, moved);
+            values.set(row, movedValues);
+            rowById.put(idOf.applyAsInt(moved), row);
+            fireTableRowsUpdated(row, row);
+        }
+        return true;
+    }
+    
+    /**
+     * Removes every row
+     */
+    public void clear() {
+        setItems(Collections.<T>emptyList());
+    }
+    
+    private void append(T item) {
+        rowById.put(idOf.applyAsInt(item), items.size());
+        items.add(item);
+        values.add(rowValues.apply(item));
+    }
+}
\ No newline at end of file
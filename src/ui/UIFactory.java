@@ -1,5 +1,7 @@
 package ui;
 
+import dao.SearchResult;
+
 import javax.swing.*;
 import javax.swing.border.Border;
 import javax.swing.border.CompoundBorder;
@@ -7,6 +9,7 @@ import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 import javax.swing.table.TableModel;
 import java.awt.*;
+import java.util.List;
 
 /**
  * Factory class for creating standardized UI components with consistent styling.
@@ -256,6 +259,27 @@ public class UIFactory {
         return scrollPane;
     }
     
+    /**
+     * Runs an action whenever a scroll pane is scrolled close to its end.
+     * Used by list views to load the next page of rows on demand.
+     * 
+     * @param scrollPane The scroll pane to watch
+     * @param onNearEnd Action to run; called on the event dispatch thread
+     */
+    public static void addScrollEndListener(JScrollPane scrollPane, Runnable onNearEnd) {
+        JScrollBar scrollBar = scrollPane.getVerticalScrollBar();
+        scrollBar.addAdjustmentListener(e -> {
+            if (e.getValueIsAdjusting()) {
+                return;
+            }
+            // Within one visible screen of the bottom
+            int remaining = scrollBar.getMaximum() - (scrollBar.getValue() + scrollBar.getVisibleAmount());
+            if (remaining <= scrollBar.getVisibleAmount()) {
+                onNearEnd.run();
+            }
+        });
+    }
+    
     /**
      * Creates a form field with label and text field
      * 
@@ -437,4 +461,34 @@ public class UIFactory {
         
         return button;
     }
+    
+    /**
+     * Formats a search match as HTML with the matching ranges in bold,
+     * for use inside an html label or cell
+     * 
+     * @param text The matched text
+     * @param highlights The matching ranges of the text, in order
+     * @return The HTML fragment, without the enclosing html tags
+     */
+    public static String toHighlightedHtml(String text, List<SearchResult.Highlight> highlights) {
+        StringBuilder html = new StringBuilder();
+        int position = 0;
+        for (SearchResult.Highlight highlight : highlights) {
+            html.append(escapeHtml(text.substring(position, highlight.getStart())));
+            html.append("<b>").append(escapeHtml(text.substring(highlight.getStart(), highlight.getEnd()))).append("</b>");
+            position = highlight.getEnd();
+        }
+        html.append(escapeHtml(text.substring(position)));
+        return html.toString();
+    }
+    
+    /**
+     * Escapes text for display in an html label or cell
+     * 
+     * @param text The text to escape
+     * @return The escaped text
+     */
+    public static String escapeHtml(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
 }
\ No newline at end of file
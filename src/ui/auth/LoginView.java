@@ -87,8 +87,7 @@ public class LoginView extends JFrame {
         this.callback = callback;
         this.userDao = new UserDao();
         
-        // Create the users table and default admin if needed
-        userDao.createUsersTable();
+        // Create the default admin if needed; the users table comes from SchemaMigrator
         userDao.createDefaultAdmin();
         
         initializeUI();
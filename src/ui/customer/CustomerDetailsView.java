@@ -2,7 +2,6 @@ package ui.customer;
 
 import model.Customer;
 import model.Order;
-import dao.CustomerDao;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -36,7 +35,6 @@ public class CustomerDetailsView extends JPanel {
     
     // Customer data
     private Customer customer;
-    private CustomerDao customerDao;
     
     // Callback for view actions
     private DetailsViewCallback callback;
@@ -53,18 +51,12 @@ public class CustomerDetailsView extends JPanel {
     /**
      * Constructor
      * 
-     * @param customer The customer to display
+     * @param customer The customer to display, loaded with CustomerDao.getCustomerWithOrders
      * @param callback Callback for view actions
      */
     public CustomerDetailsView(Customer customer, DetailsViewCallback callback) {
         this.customer = customer;
         this.callback = callback;
-        this.customerDao = new CustomerDao();
-        
-        // Load customer with orders if needed
-        if (customer != null && (customer.getOrders() == null || customer.getOrders().isEmpty())) {
-            this.customer = customerDao.getCustomerWithOrders(customer.getId());
-        }
         
         initializeUI();
         populateData();
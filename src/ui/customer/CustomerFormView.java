@@ -10,6 +10,7 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.time.LocalDate;
+import ui.AsyncService;
 import ui.UIFactory;
 
 /**
@@ -41,6 +42,7 @@ public class CustomerFormView extends JPanel {
     
     // Data access
     private CustomerDao customerDao;
+    private final AsyncService.RequestSlot saveRequest = new AsyncService.RequestSlot(this);
     
     // Callback for form submission
     private FormSubmissionCallback callback;
@@ -277,7 +279,7 @@ public class CustomerFormView extends JPanel {
             @Override
             public void actionPerformed(ActionEvent e) {
                 if (validateForm()) {
-                    saveCustomer();
+                    checkAndSaveCustomer();
                 }
             }
         });
@@ -300,13 +302,6 @@ public class CustomerFormView extends JPanel {
             } else if (!ValidationUtil.validateAlphanumeric(customerIdField.getText().trim())) {
                 customerIdValidationLabel.setText("Only letters and numbers allowed");
                 isValid = false;
-            } else {
-                // Check if ID already exists
-                Customer existingCustomer = customerDao.findCustomerByCustomerId(customerIdField.getText().trim());
-                if (existingCustomer != null) {
-                    customerIdValidationLabel.setText("Customer ID already exists");
-                    isValid = false;
-                }
             }
         }
         
@@ -329,61 +324,87 @@ public class CustomerFormView extends JPanel {
         } else if (!ValidationUtil.validateEmail(emailField.getText().trim())) {
             emailValidationLabel.setText("Invalid email format");
             isValid = false;
-        } else if (!editMode || !emailField.getText().equals(currentCustomer.getEmail())) {
-            // Check if email already exists (but skip if it's the same as current in edit mode)
-            Customer existingCustomer = customerDao.findCustomerByEmail(emailField.getText().trim());
-            if (existingCustomer != null && (editMode ? existingCustomer.getId() != currentCustomer.getId() : true)) {
-                emailValidationLabel.setText("Email already exists");
-                isValid = false;
-            }
         }
         
         return isValid;
     }
     
-    private void saveCustomer() {
-        try {
-            Customer customer;
-            
-            if (editMode && currentCustomer != null) {
-                customer = currentCustomer;
-            } else {
-                customer = new Customer();
-                customer.setCustomerId(customerIdField.getText().trim());
-                customer.setRegistrationDate(LocalDate.now());
-            }
-            
-            customer.setFirstName(firstNameField.getText().trim());
-            customer.setLastName(lastNameField.getText().trim());
-            customer.setEmail(emailField.getText().trim());
-            customer.setPhone(phoneField.getText().trim());
-            customer.setAddress(addressArea.getText().trim());
-            
-            if (editMode) {
-                // Use controller's method to update the customer
-                customer = customerDao.updateCustomer(customer) > 0 ? customer : null;
-            } else {
-                // Use controller's method to create a new customer
-                customer = customerDao.createCustomer(customer) > 0 ? customer : null;
-            }
-            
-            if (customer != null) {
-                if (callback != null) {
-                    callback.onSave(customer);
+    /**
+     * Checks in the background that the customer ID and email are not taken
+     * yet, then saves the customer
+     */
+    private void checkAndSaveCustomer() {
+        String customerId = customerIdField.getText().trim();
+        String email = emailField.getText().trim();
+        boolean checkId = !editMode; // The ID cannot be changed in edit mode
+        boolean checkEmail = !editMode || !emailField.getText().equals(currentCustomer.getEmail());
+        
+        saveButton.setEnabled(false);
+        saveRequest.run(() -> new Customer[] {
+                checkId ? customerDao.findCustomerByCustomerId(customerId) : null,
+                checkEmail ? customerDao.findCustomerByEmail(email) : null
+            },
+            existing -> {
+                boolean isValid = true;
+                if (existing[0] != null) {
+                    customerIdValidationLabel.setText("Customer ID already exists");
+                    isValid = false;
                 }
-            } else {
-                JOptionPane.showMessageDialog(this,
-                    "Failed to " + (editMode ? "update" : "create") + " customer.",
-                    "Database Error",
-                    JOptionPane.ERROR_MESSAGE);
-            }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this,
-                "Error saving customer: " + ex.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
+                // Skip the email check if it is the current customer's own email in edit mode
+                if (existing[1] != null && (editMode ? existing[1].getId() != currentCustomer.getId() : true)) {
+                    emailValidationLabel.setText("Email already exists");
+                    isValid = false;
+                }
+                
+                if (isValid) {
+                    saveCustomer();
+                } else {
+                    saveButton.setEnabled(true);
+                }
+            },
+            error -> {
+                saveButton.setEnabled(true);
+                AsyncService.showError(this, "checking customer", error);
+            });
+    }
+    
+    private void saveCustomer() {
+        Customer customer;
+        
+        if (editMode && currentCustomer != null) {
+            customer = currentCustomer;
+        } else {
+            customer = new Customer();
+            customer.setCustomerId(customerIdField.getText().trim());
+            customer.setRegistrationDate(LocalDate.now());
         }
+        
+        customer.setFirstName(firstNameField.getText().trim());
+        customer.setLastName(lastNameField.getText().trim());
+        customer.setEmail(emailField.getText().trim());
+        customer.setPhone(phoneField.getText().trim());
+        customer.setAddress(addressArea.getText().trim());
+        
+        saveButton.setEnabled(false);
+        saveRequest.run(
+            () -> editMode ? customerDao.updateCustomer(customer) : customerDao.createCustomer(customer),
+            result -> {
+                saveButton.setEnabled(true);
+                if (result > 0) {
+                    if (callback != null) {
+                        callback.onSave(customer);
+                    }
+                } else {
+                    JOptionPane.showMessageDialog(this,
+                        "Failed to " + (editMode ? "update" : "create") + " customer.",
+                        "Database Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            },
+            error -> {
+                saveButton.setEnabled(true);
+                AsyncService.showError(this, "saving customer", error);
+            });
     }
     
     private void populateFields(Customer customer) {
@@ -2,10 +2,13 @@ package ui.customer;
 
 import model.Customer;
 import dao.CustomerDao;
+import dao.Page;
+import dao.SearchResult;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -16,7 +19,14 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import ui.AsyncService;
+import ui.ChangeLoader;
+import ui.ChangeWatcher;
+import ui.EntityTableModel;
 import ui.UIFactory;
+import util.LogUtil;
 
 /**
  * List view for displaying and managing customers.
@@ -25,13 +35,21 @@ import ui.UIFactory;
 public class CustomerListView extends JPanel {
     // Table components
     private JTable customerTable;
-    private DefaultTableModel tableModel;
-    private TableRowSorter<DefaultTableModel> tableSorter;
+    private EntityTableModel<Customer> tableModel;
+    private TableRowSorter<EntityTableModel<Customer>> tableSorter;
     
     // Search and filter components
     private JTextField searchField;
     private JComboBox<String> filterComboBox;
     
+    // Search state; the index is kept in step with the table model and queried
+    // off the event dispatch thread once typing pauses for SEARCH_DELAY_MS
+    private static final int SEARCH_DELAY_MS = 250;
+    private final CustomerSearchIndex searchIndex = new CustomerSearchIndex();
+    private final AsyncService.RequestSlot searchRequest = new AsyncService.RequestSlot(null);
+    private Timer searchTimer;
+    private Set<Integer> searchMatches; // null when there is no search text
+    
     // Action buttons
     private JButton addButton;
     private JButton editButton;
@@ -39,10 +57,23 @@ public class CustomerListView extends JPanel {
     private JButton refreshButton;
     private JButton viewOrdersButton;
     
-    // Customer data and DAO
-    private List<Customer> customerList;
+    // Customer DAO; the customers shown are held by tableModel
     private CustomerDao customerDao;
     
+    // Paging state; customers are loaded a page at a time as the table is scrolled
+    private static final int PAGE_SIZE = Page.DEFAULT_PAGE_SIZE;
+    private int lastLoadedId;
+    private boolean hasMorePages;
+    private long estimatedTotal = -1;
+    private JLabel pageInfoLabel;
+    private final AsyncService.RequestSlot pageRequest = new AsyncService.RequestSlot(this);
+    private final ChangeLoader<Customer> changeLoader =
+        new ChangeLoader<>(id -> customerDao.findCustomerById(id), this::mergeChanges, "customers");
+    
+    // Database search; while a search is active the list holds its results, best match first
+    private String activeSearch;
+    private int searchOffset;
+    
     // Date formatter
     private DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     
@@ -66,10 +97,12 @@ public class CustomerListView extends JPanel {
     public CustomerListView(CustomerListCallback callback) {
         this.callback = callback;
         this.customerDao = new CustomerDao();
-        this.customerList = new ArrayList<>();
         
         initializeUI();
         loadData();
+        
+        // Keep the list in step with changes made by this and other clients
+        new ChangeWatcher(this, "customers", this::applyChanges);
     }
     
     private void initializeUI() {
@@ -92,18 +125,116 @@ public class CustomerListView extends JPanel {
     }
     
     /**
-     * Loads customer data from the database
+     * Loads the first page of customer data from the database
      */
     private void loadData() {
-        try {
-            this.customerList = customerDao.findAllCustomers();
-            refreshTableData();
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this,
-                "Error loading customer data: " + ex.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
+        pageRequest.cancel();
+        this.activeSearch = null;
+        tableModel.clear();
+        searchIndex.clear();
+        this.lastLoadedId = 0;
+        this.hasMorePages = true;
+        this.estimatedTotal = -1;
+        refreshTableData();
+        loadNextPage();
+    }
+    
+    /**
+     * Reloads the customer list from the first page, repeating the active search
+     */
+    public void reload() {
+        if (activeSearch != null) {
+            searchDatabase(activeSearch);
+        } else {
+            loadData();
+        }
+    }
+    
+    /**
+     * Loads the next page of customers and appends it to the table
+     */
+    private void loadNextPage() {
+        if (!hasMorePages || pageRequest.isLoading()) {
+            return;
+        }
+        pageInfoLabel.setText("Loading customers...");
+        if (activeSearch != null) {
+            String searchText = activeSearch;
+            int offset = searchOffset;
+            pageRequest.run(
+                () -> customerDao.searchCustomers(searchText, offset, PAGE_SIZE),
+                this::addSearchPage,
+                error -> {
+                    hasMorePages = false;
+                    updatePageInfo();
+                    AsyncService.showError(this, "searching customers", error);
+                });
+            return;
+        }
+        int afterId = lastLoadedId;
+        pageRequest.run(
+            () -> customerDao.findCustomersPage(afterId, PAGE_SIZE),
+            this::addPage,
+            error -> {
+                hasMorePages = false;
+                updatePageInfo();
+                AsyncService.showError(this, "loading customer data", error);
+            });
+    }
+    
+    /**
+     * Appends a loaded page of customers to the table
+     * 
+     * @param page The page loaded by loadNextPage
+     */
+    private void addPage(Page<Customer> page) {
+        if (page.getEstimatedTotal() >= 0) {
+            estimatedTotal = page.getEstimatedTotal();
+        }
+        hasMorePages = page.hasMore();
+        
+        // Customers added in this view after the last loaded page arrive again with a page; their rows are updated
+        tableModel.addAll(page.getItems());
+        searchIndex.addAll(page.getItems());
+        searchIndexChanged();
+        if (!page.isEmpty()) {
+            lastLoadedId = page.getLast().getId();
+        }
+        updatePageInfo();
+    }
+    
+    /**
+     * Appends a loaded page of search results to the table
+     * 
+     * @param page The page loaded by loadNextPage
+     */
+    private void addSearchPage(Page<SearchResult<Customer>> page) {
+        hasMorePages = page.hasMore();
+        searchOffset += page.getItems().size();
+        List<Customer> customers = new ArrayList<>();
+        for (SearchResult<Customer> result : page.getItems()) {
+            customers.add(result.getItem());
+        }
+        tableModel.addAll(customers);
+        searchIndex.addAll(customers);
+        searchIndexChanged();
+        updatePageInfo();
+    }
+    
+    /**
+     * Shows how many customers are loaded
+     */
+    private void updatePageInfo() {
+        if (activeSearch != null) {
+            pageInfoLabel.setText("Showing " + tableModel.getRowCount() + " customers matching \"" + activeSearch + "\"" +
+                                  (hasMorePages ? ". Scroll down to load more." : ""));
+            return;
+        }
+        if (hasMorePages && estimatedTotal > tableModel.getRowCount()) {
+            pageInfoLabel.setText("Showing " + tableModel.getRowCount() + " of about " + estimatedTotal +
+                                  " customers. Scroll down to load more.");
+        } else {
+            pageInfoLabel.setText("Showing " + tableModel.getRowCount() + " customers");
         }
     }
     
@@ -135,14 +266,36 @@ public class CustomerListView extends JPanel {
         // Add search panel to the header
         headerPanel.add(searchPanel, BorderLayout.EAST);
         
-        // Add search action
-        searchButton.addActionListener(new ActionListener() {
+        // Filter the loaded customers as the user types, once typing pauses
+        searchTimer = new Timer(SEARCH_DELAY_MS, e -> runSearch());
+        searchTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
             @Override
-            public void actionPerformed(ActionEvent e) {
-                applyFilter();
+            public void insertUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchTimer.restart();
             }
         });
         
+        // Add search action; searches all customers in the database
+        ActionListener searchAction = new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                searchDatabase(searchField.getText().trim());
+            }
+        };
+        searchButton.addActionListener(searchAction);
+        searchField.addActionListener(searchAction);
+        
         // Add filter change action
         filterComboBox.addActionListener(new ActionListener() {
             @Override
@@ -164,12 +317,7 @@ public class CustomerListView extends JPanel {
         
         // Create the table model with column names
         String[] columnNames = {"ID", "Customer ID", "Name", "Email", "Phone", "Registration Date"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Make all cells non-editable
-            }
-        };
+        tableModel = new EntityTableModel<>(columnNames, Customer::getId, this::toRowData);
         
         // Create and set up the table
         customerTable = UIFactory.createStyledTable(tableModel);
@@ -213,6 +361,7 @@ public class CustomerListView extends JPanel {
         
         // Add the table to a scroll pane
         JScrollPane scrollPane = UIFactory.createScrollPane(customerTable);
+        UIFactory.addScrollEndListener(scrollPane, this::loadNextPage);
         panel.add(scrollPane, BorderLayout.CENTER);
         
         return panel;
@@ -227,6 +376,16 @@ public class CustomerListView extends JPanel {
         infoLabel.setFont(UIFactory.SMALL_FONT);
         infoLabel.setForeground(UIFactory.MEDIUM_GRAY);
         
+        pageInfoLabel = new JLabel("");
+        pageInfoLabel.setFont(UIFactory.SMALL_FONT);
+        pageInfoLabel.setForeground(UIFactory.MEDIUM_GRAY);
+        
+        JPanel infoPanel = new JPanel();
+        infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
+        infoPanel.setOpaque(false);
+        infoPanel.add(infoLabel);
+        infoPanel.add(pageInfoLabel);
+        
         // Action buttons (right side)
         JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
         buttonsPanel.setOpaque(false);
@@ -251,7 +410,7 @@ public class CustomerListView extends JPanel {
         buttonsPanel.add(editButton);
         buttonsPanel.add(addButton);
         
-        panel.add(infoLabel, BorderLayout.WEST);
+        panel.add(infoPanel, BorderLayout.WEST);
         panel.add(buttonsPanel, BorderLayout.EAST);
         
         // Register button actions
@@ -336,24 +495,10 @@ public class CustomerListView extends JPanel {
     }
     
     /**
-     * Refreshes the table data with the current customer list
+     * Resets the selection and filters after the rows were replaced
      */
     private void refreshTableData() {
-        // Clear the table
-        tableModel.setRowCount(0);
-        
-        // Populate the table with data
-        for (Customer customer : customerList) {
-            Object[] rowData = {
-                customer.getId(),
-                customer.getCustomerId(),
-                customer.getFullName(),
-                customer.getEmail(),
-                customer.getPhone(),
-                customer.getRegistrationDate() != null ? customer.getRegistrationDate().format(dateFormatter) : ""
-            };
-            tableModel.addRow(rowData);
-        }
+        updatePageInfo();
         
         // Reset selection and filters
         customerTable.clearSelection();
@@ -365,36 +510,108 @@ public class CustomerListView extends JPanel {
         applyFilter();
     }
     
+    /**
+     * Gets the table cells of a customer
+     * 
+     * @param customer The customer
+     * @return The cell values, one per column
+     */
+    private Object[] toRowData(Customer customer) {
+        return new Object[] {
+            customer.getId(),
+            customer.getCustomerId(),
+            customer.getFullName(),
+            customer.getEmail(),
+            customer.getPhone(),
+            customer.getRegistrationDate() != null ? customer.getRegistrationDate().format(dateFormatter) : ""
+        };
+    }
+    
+    /**
+     * Looks up the customers matching the search text in the background and
+     * filters the table to them
+     */
+    private void runSearch() {
+        searchTimer.stop();
+        String searchText = searchField.getText().trim();
+        if (searchText.isEmpty()) {
+            searchRequest.cancel();
+            searchMatches = null;
+            applyFilter();
+            return;
+        }
+        searchRequest.run(
+            () -> searchIndex.search(searchText),
+            matches -> {
+                searchMatches = matches;
+                applyFilter();
+            },
+            error -> LogUtil.error("Error searching customers", error));
+    }
+    
+    /**
+     * Repeats the current search after customers were added, changed or removed
+     */
+    private void searchIndexChanged() {
+        if (searchMatches != null) {
+            runSearch();
+        }
+    }
+    
+    /**
+     * Searches all customers in the database by the columns of the list and
+     * shows the results, like the filter applied while typing.
+     * An empty search text goes back to browsing all customers.
+     * 
+     * @param searchText The text to search for
+     */
+    private void searchDatabase(String searchText) {
+        // The database matches the search text; typing more filters the results
+        searchTimer.stop();
+        searchRequest.cancel();
+        searchMatches = null;
+        if (searchText.isEmpty()) {
+            if (activeSearch != null) {
+                loadData();
+            } else {
+                applyFilter();
+            }
+            return;
+        }
+        pageRequest.cancel();
+        tableModel.clear();
+        searchIndex.clear();
+        this.activeSearch = searchText;
+        this.searchOffset = 0;
+        this.lastLoadedId = Integer.MAX_VALUE; // Customers created later are not added to the results
+        this.hasMorePages = true;
+        refreshTableData();
+        loadNextPage();
+    }
+    
     /**
      * Applies search and filter criteria to the table
      */
     private void applyFilter() {
-        RowFilter<DefaultTableModel, Object> filter = null;
+        RowFilter<EntityTableModel<Customer>, Integer> filter = null;
         
-        // Get search text
-        String searchText = searchField.getText().trim().toLowerCase();
+        // Get the customers matching the search text
+        Set<Integer> matches = searchMatches;
         
         // Get filter selection
         String filterSelection = (String) filterComboBox.getSelectedItem();
         
         // Combined filter for search text and filter selection
-        if (!searchText.isEmpty() || !"All Customers".equals(filterSelection)) {
-            filter = new RowFilter<DefaultTableModel, Object>() {
+        if (matches != null || !"All Customers".equals(filterSelection)) {
+            filter = new RowFilter<EntityTableModel<Customer>, Integer>() {
                 @Override
-                public boolean include(Entry<? extends DefaultTableModel, ? extends Object> entry) {
+                public boolean include(Entry<? extends EntityTableModel<Customer>, ? extends Integer> entry) {
                     boolean matchesSearch = true;
                     boolean matchesFilter = true;
                     
                     // Apply search text filter
-                    if (!searchText.isEmpty()) {
-                        matchesSearch = false;
-                        for (int i = 1; i < entry.getValueCount(); i++) { // Skip ID column
-                            Object value = entry.getValue(i);
-                            if (value != null && value.toString().toLowerCase().contains(searchText)) {
-                                matchesSearch = true;
-                                break;
-                            }
-                        }
+                    if (matches != null) {
+                        matchesSearch = matches.contains((Integer) entry.getValue(0)); // ID column
                     }
                     
                     // Apply selection filter
@@ -431,15 +648,7 @@ public class CustomerListView extends JPanel {
      * @return The Customer object or null if not found
      */
     private Customer getCustomerAtRow(int modelRow) {
-        if (modelRow >= 0 && modelRow < tableModel.getRowCount()) {
-            int customerId = (int) tableModel.getValueAt(modelRow, 0);
-            for (Customer customer : customerList) {
-                if (customer.getId() == customerId) {
-                    return customer;
-                }
-            }
-        }
-        return null;
+        return tableModel.getItemAt(modelRow);
     }
     
     /**
@@ -448,11 +657,13 @@ public class CustomerListView extends JPanel {
      * @param customer The customer to delete
      */
     private void deleteCustomer(Customer customer) {
-        try {
-            boolean result = customerDao.deleteCustomer(customer.getId()) > 0;
+        AsyncService.getInstance().runWrite(this, "deleting customer",
+            () -> customerDao.deleteCustomer(customer.getId()) > 0, result -> {
             if (result) {
-                customerList.removeIf(c -> c.getId() == customer.getId());
-                refreshTableData();
+                tableModel.remove(customer.getId());
+                searchIndex.remove(customer.getId());
+                searchIndexChanged();
+                updatePageInfo();
                 JOptionPane.showMessageDialog(this,
                     "Customer deleted successfully.",
                     "Success",
@@ -467,13 +678,44 @@ public class CustomerListView extends JPanel {
                     "Delete Failed",
                     JOptionPane.ERROR_MESSAGE);
             }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this,
-                "Error deleting customer: " + ex.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
+        });
+    }
+    
+    /**
+     * Applies changes made to customers by this or other clients. Loaded rows
+     * are re-read, deleted customers are removed and new ones are added.
+     * 
+     * @param ids The IDs of the changed customers
+     * @param allRows true if the changed rows are not known
+     */
+    private void applyChanges(Set<Integer> ids, boolean allRows) {
+        if (allRows) {
+            changeLoader.clear();
+            reload();
+            return;
+        }
+        changeLoader.load(ids);
+    }
+    
+    /**
+     * Merges re-read customers into the table; the selection is kept
+     * 
+     * @param changed The current state of each changed customer, null if it was deleted
+     */
+    private void mergeChanges(Map<Integer, Customer> changed) {
+        for (Map.Entry<Integer, Customer> change : changed.entrySet()) {
+            Customer customer = change.getValue();
+            if (customer == null) {
+                tableModel.remove(change.getKey());
+                searchIndex.remove(change.getKey());
+            } else if (tableModel.contains(customer.getId()) || customer.getId() > lastLoadedId) {
+                // Loaded rows are updated; customers created since the last page was loaded are added
+                tableModel.add(customer);
+                searchIndex.add(customer);
+            }
         }
+        searchIndexChanged();
+        updatePageInfo();
     }
     
     /**
@@ -482,48 +724,50 @@ public class CustomerListView extends JPanel {
      * @param customers New list of customers
      */
     public void updateCustomers(List<Customer> customers) {
-        this.customerList = customers != null ? customers : new ArrayList<>();
+        pageRequest.cancel();
+        tableModel.setItems(customers != null ? customers : new ArrayList<>());
+        this.hasMorePages = false; // The caller supplied the complete list
+        searchIndex.rebuild(tableModel.getItems());
+        searchIndexChanged();
         refreshTableData();
     }
     
     /**
-     * Adds a customer to the list and refreshes the table
+     * Adds a customer to the table
      * 
      * @param customer Customer to add
      */
     public void addCustomer(Customer customer) {
         if (customer != null && customer.getId() > 0) {
-            this.customerList.add(customer);
-            refreshTableData();
+            tableModel.add(customer);
+            searchIndex.add(customer);
+            searchIndexChanged();
+            updatePageInfo();
         }
     }
     
     /**
-     * Updates a customer in the list and refreshes the table
+     * Updates a customer's row in the table
      * 
      * @param customer Customer to update
      */
     public void updateCustomer(Customer customer) {
-        if (customer != null) {
-            for (int i = 0; i < customerList.size(); i++) {
-                if (customerList.get(i).getId() == customer.getId()) {
-                    customerList.set(i, customer);
-                    break;
-                }
-            }
-            refreshTableData();
+        if (customer != null && tableModel.update(customer)) {
+            searchIndex.add(customer);
+            searchIndexChanged();
         }
     }
     
     /**
-     * Removes a customer from the list and refreshes the table
+     * Removes a customer from the table
      * 
      * @param customer Customer to remove
      */
     public void removeCustomer(Customer customer) {
-        if (customer != null) {
-            customerList.removeIf(c -> c.getId() == customer.getId());
-            refreshTableData();
+        if (customer != null && tableModel.remove(customer.getId())) {
+            searchIndex.remove(customer.getId());
+            searchIndexChanged();
+            updatePageInfo();
         }
     }
 }
\ No newline at end of file
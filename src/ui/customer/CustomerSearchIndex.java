@@ -0,0 +1,275 @@
+package ui.customer;
+
+import model.Customer;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory search index over the customers loaded in CustomerListView.
+ * Matches a query as a case-insensitive substring of the customer ID, name,
+ * email, phone or registration date, like the old row-by-row filter, but
+ * looks the candidates up in a trigram index instead of scanning every cell.
+ * 
+ * The index is updated one customer at a time as the list changes. Each
+ * customer gets a slot; removing a customer only clears its slot, and the
+ * slots are compacted once more than half of them are empty.
+ * 
+ * All methods are synchronized, so queries may run on a background thread
+ * while the event dispatch thread keeps the index up to date.
+ */
+public class CustomerSearchIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final int MIN_SLOTS_TO_COMPACT = 1024;
+    
+    // Separates the fields of a customer's text; never part of a query or a trigram
+    private static final char FIELD_SEPARATOR = '\n';
+    
+    private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    
+    // Slot data; the text of a removed customer is null
+    private int[] slotIds = new int[64];
+    private String[] slotTexts = new String[64];
+    private int slotCount;
+    private final Map<Integer, Integer> slotById = new HashMap<>();
+    
+    // Trigram -> slots whose text contains it, in ascending order
+    private final Map<Long, SlotList> postings = new HashMap<>();
+    
+    /**
+     * Adds a customer to the index, replacing the entry with the same ID
+     * 
+     * @param customer The customer to add or update
+     */
+    public synchronized void add(Customer customer) {
+        remove(customer.getId());
+        addText(customer.getId(), textOf(customer));
+    }
+    
+    /**
+     * Adds several customers to the index
+     * 
+     * @param customers The customers to add or update
+     */
+    public synchronized void addAll(Collection<Customer> customers) {
+        for (Customer customer : customers) {
+            add(customer);
+        }
+    }
+    
+    /**
+     * Removes a customer from the index
+     * 
+     * @param id The database ID of the customer
+     */
+    public synchronized void remove(int id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        slotTexts[slot] = null;
+        
+        int emptySlots = slotCount - slotById.size();
+        if (slotCount >= MIN_SLOTS_TO_COMPACT && emptySlots > slotById.size()) {
+            compact();
+        }
+    }
+    
+    /**
+     * Replaces the whole index
+     * 
+     * @param customers The customers to index
+     */
+    public synchronized void rebuild(Collection<Customer> customers) {
+        clear();
+        addAll(customers);
+    }
+    
+    /**
+     * Removes every customer from the index
+     */
+    public synchronized void clear() {
+        slotIds = new int[64];
+        slotTexts = new String[64];
+        slotCount = 0;
+        slotById.clear();
+        postings.clear();
+    }
+    
+    public synchronized int size() {
+        return slotById.size();
+    }
+    
+    /**
+     * Finds the customers matching a query.
+     * Queries shorter than a trigram are matched against every customer.
+     * 
+     * @param query The search text
+     * @return The database IDs of the matching customers
+     */
+    public synchronized Set<Integer> search(String query) {
+        String text = normalize(query.trim());
+        Set<Integer> matches = new HashSet<>();
+        if (text.isEmpty() || text.indexOf(FIELD_SEPARATOR) >= 0) {
+            return matches;
+        }
+        
+        if (text.length() < GRAM_LENGTH) {
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (slotTexts[slot] != null && slotTexts[slot].contains(text)) {
+                    matches.add(slotIds[slot]);
+                }
+            }
+            return matches;
+        }
+        
+        // Every trigram of the query must occur in a match; start from the rarest
+        List<SlotList> lists = new ArrayList<>();
+        for (long gram : gramsOf(text)) {
+            SlotList list = postings.get(gram);
+            if (list == null) {
+                return matches;
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+        
+        int[] candidates = Arrays.copyOf(lists.get(0).slots, lists.get(0).size);
+        int count = candidates.length;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            count = intersect(candidates, count, lists.get(i));
+        }
+        
+        // The trigrams may occur in a different order or in different fields
+        for (int i = 0; i < count; i++) {
+            String slotText = slotTexts[candidates[i]];
+            if (slotText != null && slotText.contains(text)) {
+                matches.add(slotIds[candidates[i]]);
+            }
+        }
+        return matches;
+    }
+    
+    /**
+     * Builds the searchable text of a customer from the columns shown in the list
+     */
+    private String textOf(Customer customer) {
+        StringBuilder text = new StringBuilder();
+        text.append(customer.getCustomerId()).append(FIELD_SEPARATOR);
+        text.append(customer.getFullName()).append(FIELD_SEPARATOR);
+        text.append(customer.getEmail()).append(FIELD_SEPARATOR);
+        text.append(customer.getPhone()).append(FIELD_SEPARATOR);
+        if (customer.getRegistrationDate() != null) {
+            text.append(customer.getRegistrationDate().format(dateFormatter));
+        }
+        return normalize(text.toString());
+    }
+    
+    private static String normalize(String text) {
+        return text.toLowerCase();
+    }
+    
+    private void addText(int id, String text) {
+        if (slotCount == slotIds.length) {
+            slotIds = Arrays.copyOf(slotIds, slotCount * 2);
+            slotTexts = Arrays.copyOf(slotTexts, slotCount * 2);
+        }
+        int slot = slotCount++;
+        slotIds[slot] = id;
+        slotTexts[slot] = text;
+        slotById.put(id, slot);
+        
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            long gram = gramAt(text, i);
+            if (gram >= 0) {
+                postings.computeIfAbsent(gram, g -> new SlotList()).add(slot);
+            }
+        }
+    }
+    
+    /**
+     * Gets the distinct trigrams of a query
+     */
+    private static Set<Long> gramsOf(String text) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(gramAt(text, i));
+        }
+        return grams;
+    }
+    
+    /**
+     * Packs the trigram starting at an index into a number
+     * 
+     * @return The trigram, or -1 if it spans two fields
+     */
+    private static long gramAt(String text, int index) {
+        char a = text.charAt(index);
+        char b = text.charAt(index + 1);
+        char c = text.charAt(index + 2);
+        if (a == FIELD_SEPARATOR || b == FIELD_SEPARATOR || c == FIELD_SEPARATOR) {
+            return -1;
+        }
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+    
+    /**
+     * Keeps the candidates that are also in a posting list; both are in ascending order
+     * 
+     * @return The number of candidates kept at the start of the array
+     */
+    private static int intersect(int[] candidates, int count, SlotList list) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < count && j < list.size; i++) {
+            while (j < list.size && list.slots[j] < candidates[i]) {
+                j++;
+            }
+            if (j < list.size && list.slots[j] == candidates[i]) {
+                candidates[kept++] = candidates[i];
+            }
+        }
+        return kept;
+    }
+    
+    /**
+     * Rebuilds the slots and posting lists without the removed customers
+     */
+    private void compact() {
+        int[] ids = Arrays.copyOf(slotIds, slotCount);
+        String[] texts = Arrays.copyOf(slotTexts, slotCount);
+        int count = slotCount;
+        clear();
+        for (int slot = 0; slot < count; slot++) {
+            if (texts[slot] != null) {
+                addText(ids[slot], texts[slot]);
+            }
+        }
+    }
+    
+    /**
+     * Growable list of slot numbers
+     */
+    private static final class SlotList {
+        private int[] slots = new int[4];
+        private int size;
+        
+        private void add(int slot) {
+            if (size > 0 && slots[size - 1] == slot) {
+                return; // The trigram occurs more than once in the same text
+            }
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+}
\ No newline at end of file
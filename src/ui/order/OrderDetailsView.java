@@ -4,7 +4,6 @@ import model.Order;
 import model.OrderItem;
 import model.Customer;
 import model.Invoice;
-import dao.OrderDao;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -48,7 +47,6 @@ public class OrderDetailsView extends JPanel {
     
     // Order data
     private Order order;
-    private OrderDao orderDao;
     
     // Callback for view actions
     private DetailsViewCallback callback;
@@ -66,18 +64,12 @@ public class OrderDetailsView extends JPanel {
     /**
      * Constructor
      * 
-     * @param order The order to display
+     * @param order The order to display, loaded with OrderDao.getOrderWithDetails
      * @param callback Callback for view actions
      */
     public OrderDetailsView(Order order, DetailsViewCallback callback) {
         this.order = order;
         this.callback = callback;
-        this.orderDao = new OrderDao();
-        
-        // Load order with details if needed
-        if (order != null && (order.getOrderItems() == null || order.getOrderItems().isEmpty())) {
-            this.order = orderDao.getOrderWithDetails(order.getId());
-        }
         
         initializeUI();
         populateData();
@@ -7,6 +7,9 @@ import model.Customer;
 import dao.OrderDao;
 import dao.CustomerDao;
 import dao.ProductDao;
+import dao.DocumentNumberGenerator;
+import dao.Page;
+import dao.SearchResult;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -19,15 +22,22 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import ui.AsyncService;
 import ui.UIFactory;
 import ui.DialogFactory;
+import util.LogUtil;
 
 /**
  * Form view for creating and editing order records.
  * Provides fields for all order properties and manages order items.
  */
 public class OrderFormView extends JPanel {
+    private static final int PRODUCT_SEARCH_RESULTS = 50;
+    
     // Form components
     private JTextField orderIdField;
     private JComboBox<Customer> customerComboBox;
@@ -61,11 +71,19 @@ public class OrderFormView extends JPanel {
     private boolean editMode = false;
     private Order currentOrder;
     
+    // Order ID taken from DocumentNumberGenerator, known to be unique
+    private String generatedOrderId;
+    
     // Data access
     private OrderDao orderDao;
     private CustomerDao customerDao;
     private ProductDao productDao;
     
+    // Background loads; saving is disabled until they finish
+    private final AsyncService.RequestSlot customerRequest = new AsyncService.RequestSlot(this);
+    private final AsyncService.RequestSlot orderRequest = new AsyncService.RequestSlot(this);
+    private final AsyncService.RequestSlot saveRequest = new AsyncService.RequestSlot(this);
+    
     // Callback for form submission
     private FormSubmissionCallback callback;
     
@@ -107,13 +125,20 @@ public class OrderFormView extends JPanel {
         this.editMode = true;
         this.currentOrder = order;
         
+        initializeUI();
+        populateFields(this.currentOrder);
+        
         // Load complete order details if needed
         if (order != null && (order.getOrderItems() == null || order.getOrderItems().isEmpty())) {
-            this.currentOrder = orderDao.getOrderWithDetails(order.getId());
+            orderRequest.run("loading order details", () -> orderDao.getOrderWithDetails(order.getId()), loadedOrder -> {
+                if (loadedOrder != null) {
+                    currentOrder = loadedOrder;
+                    populateFields(loadedOrder);
+                }
+                updateSaveEnabled();
+            });
+            updateSaveEnabled();
         }
-        
-        initializeUI();
-        populateFields(this.currentOrder);
     }
     
     private void initializeUI() {
@@ -400,7 +425,7 @@ public class OrderFormView extends JPanel {
             @Override
             public void actionPerformed(ActionEvent e) {
                 if (validateForm()) {
-                    saveOrder();
+                    checkAndSaveOrder();
                 }
             }
         });
@@ -433,9 +458,7 @@ public class OrderFormView extends JPanel {
      * Loads all customers for the combo box
      */
     private void loadCustomers() {
-        try {
-            List<Customer> customers = customerDao.findAllCustomers();
-            
+        customerRequest.run("loading customers", customerDao::findAllCustomers, customers -> {
             DefaultComboBoxModel<Customer> model = new DefaultComboBoxModel<>();
             for (Customer customer : customers) {
                 model.addElement(customer);
@@ -443,12 +466,36 @@ public class OrderFormView extends JPanel {
             
             customerComboBox.setModel(model);
             
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this,
-                "Error loading customers: " + ex.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
+            // The order may have been populated before its customer was in the list
+            if (currentOrder != null) {
+                selectCustomer(currentOrder.getCustomerId());
+            }
+            updateSaveEnabled();
+        });
+        updateSaveEnabled();
+    }
+    
+    /**
+     * Selects a customer in the combo box
+     * 
+     * @param customerId The ID of the customer
+     */
+    private void selectCustomer(int customerId) {
+        for (int i = 0; i < customerComboBox.getItemCount(); i++) {
+            Customer customer = customerComboBox.getItemAt(i);
+            if (customer.getId() == customerId) {
+                customerComboBox.setSelectedIndex(i);
+                break;
+            }
+        }
+    }
+    
+    /**
+     * Enables saving once customers and the order details or new order ID have loaded
+     */
+    private void updateSaveEnabled() {
+        if (saveButton != null) {
+            saveButton.setEnabled(!customerRequest.isLoading() && !orderRequest.isLoading());
         }
     }
     
@@ -492,8 +539,9 @@ public class OrderFormView extends JPanel {
         // Product list
         DefaultListModel<Product> productListModel = new DefaultListModel<>();
         JList<Product> productList = new JList<>(productListModel);
+        Map<Integer, SearchResult<Product>> searchResults = new HashMap<>();
         
-        // Set the renderer to display product name and code
+        // Set the renderer to display product name and code, highlighting the search match
         productList.setCellRenderer(new DefaultListCellRenderer() {
             @Override
             public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
@@ -501,27 +549,39 @@ public class OrderFormView extends JPanel {
                 
                 if (value instanceof Product) {
                     Product product = (Product) value;
-                    setText(product.getName() + " (" + product.getProductCode() + ") - " + 
-                           NumberFormat.getCurrencyInstance().format(product.getPrice()));
+                    String details = " (" + product.getProductCode() + ") - " + 
+                                     NumberFormat.getCurrencyInstance().format(product.getPrice());
+                    SearchResult<Product> result = searchResults.get(product.getId());
+                    if (result != null) {
+                        setText("<html>" + UIFactory.toHighlightedHtml(result.getMatchedText(), result.getHighlights()) +
+                                UIFactory.escapeHtml(details) + "</html>");
+                    } else {
+                        setText(product.getName() + details);
+                    }
                 }
                 
                 return this;
             }
         });
         
-        // Load products
-        try {
-            List<Product> products = productDao.findAllProducts();
+        // Load products; a new search replaces a search still running
+        AsyncService.RequestSlot productRequest = new AsyncService.RequestSlot(dialog);
+        Consumer<List<Product>> showProducts = products -> {
+            productListModel.clear();
+            searchResults.clear();
             for (Product product : products) {
                 productListModel.addElement(product);
             }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(dialog,
-                "Error loading products: " + ex.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
-        }
+        };
+        Consumer<Page<SearchResult<Product>>> showSearchResults = page -> {
+            productListModel.clear();
+            searchResults.clear();
+            for (SearchResult<Product> result : page.getItems()) {
+                searchResults.put(result.getItem().getId(), result);
+                productListModel.addElement(result.getItem());
+            }
+        };
+        productRequest.run("loading products", productDao::findAllProducts, showProducts);
         
         JScrollPane scrollPane = UIFactory.createScrollPane(productList);
         selectionPanel.add(scrollPane, BorderLayout.CENTER);
@@ -552,29 +612,15 @@ public class OrderFormView extends JPanel {
         
         // Add search functionality
         searchButton.addActionListener(e -> {
-            String searchText = searchField.getText().trim().toLowerCase();
+            String searchText = searchField.getText().trim();
             if (searchText.isEmpty()) {
                 // Reset list
-                productListModel.clear();
-                try {
-                    List<Product> products = productDao.findAllProducts();
-                    for (Product product : products) {
-                        productListModel.addElement(product);
-                    }
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                }
+                productRequest.run("loading products", productDao::findAllProducts, showProducts);
             } else {
-                // Search by name
-                try {
-                    List<Product> products = productDao.findProductsByName(searchText);
-                    productListModel.clear();
-                    for (Product product : products) {
-                        productListModel.addElement(product);
-                    }
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                }
+                // Search by name, best matches first
+                productRequest.run("searching products",
+                                   () -> productDao.searchProducts(searchText, 0, PRODUCT_SEARCH_RESULTS),
+                                   showSearchResults);
             }
         });
         
@@ -699,10 +745,22 @@ public class OrderFormView extends JPanel {
         // Set default payment method
         paymentMethodComboBox.setSelectedIndex(0);
         
-        // Generate order ID (could be more sophisticated in real app)
-        String orderId = "ORD-" + LocalDate.now().getYear() + "-" + 
-                        String.format("%04d", (int)(Math.random() * 10000));
-        orderIdField.setText(orderId);
+        // Reserve the next order ID in the background; if none can be reserved, the user enters one
+        orderRequest.run(() -> DocumentNumberGenerator.getInstance().next(DocumentNumberGenerator.DocumentType.ORDER),
+            orderId -> {
+                generatedOrderId = orderId;
+                // Keep an ID the user typed in the meantime
+                if (orderIdField.getText().trim().isEmpty()) {
+                    orderIdField.setText(orderId);
+                }
+                updateSaveEnabled();
+            },
+            error -> {
+                LogUtil.error("Could not reserve an order ID", error);
+                orderIdValidationLabel.setText("Could not generate an order ID, please enter one");
+                updateSaveEnabled();
+            });
+        updateSaveEnabled();
     }
     
     /**
@@ -723,13 +781,6 @@ public class OrderFormView extends JPanel {
             if (orderIdField.getText().trim().isEmpty()) {
                 orderIdValidationLabel.setText("Order ID is required");
                 isValid = false;
-            } else {
-                // Check if order ID already exists
-                Order existingOrder = orderDao.findOrderByOrderId(orderIdField.getText().trim());
-                if (existingOrder != null) {
-                    orderIdValidationLabel.setText("Order ID already exists");
-                    isValid = false;
-                }
             }
         }
         
@@ -764,64 +815,80 @@ public class OrderFormView extends JPanel {
         return isValid;
     }
     
+    /**
+     * Checks in the background that an order ID entered by hand is not taken
+     * yet, then saves the order
+     */
+    private void checkAndSaveOrder() {
+        String orderId = orderIdField.getText().trim();
+        // The ID cannot be changed in edit mode, and generated IDs are unique
+        if (editMode || orderId.equals(generatedOrderId)) {
+            saveOrder();
+            return;
+        }
+        
+        saveButton.setEnabled(false);
+        saveRequest.run(() -> orderDao.findOrderByOrderId(orderId) != null,
+            exists -> {
+                if (exists) {
+                    orderIdValidationLabel.setText("Order ID already exists");
+                    saveButton.setEnabled(true);
+                } else {
+                    saveOrder();
+                }
+            },
+            error -> {
+                saveButton.setEnabled(true);
+                AsyncService.showError(this, "checking order", error);
+            });
+    }
+    
     /**
      * Saves the order to the database
      */
     private void saveOrder() {
-        try {
-            Order order;
-            
-            if (editMode && currentOrder != null) {
-                order = currentOrder;
-            } else {
-                order = new Order();
-                order.setOrderId(orderIdField.getText().trim());
-            }
-            
-            // Set values from form
-            Customer selectedCustomer = (Customer) customerComboBox.getSelectedItem();
-            order.setCustomer(selectedCustomer);
-            order.setOrderDate(LocalDate.parse(orderDateField.getText().trim(), dateFormatter));
-            order.setStatus((String) statusComboBox.getSelectedItem());
-            order.setPaymentMethod((String) paymentMethodComboBox.getSelectedItem());
-            
-            // Set order items
-            order.setOrderItems(new ArrayList<>(orderItems));
-            
-            // Calculate total amount
-            order.recalculateTotal();
-            
-            int result;
-            
-            if (editMode) {
-                result = orderDao.updateOrder(order);
-                
-                // Update each order item
+        Order order;
+        
+        if (editMode && currentOrder != null) {
+            order = currentOrder;
+        } else {
+            order = new Order();
+            order.setOrderId(orderIdField.getText().trim());
+        }
+        
+        // Set values from form
+        Customer selectedCustomer = (Customer) customerComboBox.getSelectedItem();
+        order.setCustomer(selectedCustomer);
+        order.setOrderDate(LocalDate.parse(orderDateField.getText().trim(), dateFormatter));
+        order.setStatus((String) statusComboBox.getSelectedItem());
+        order.setPaymentMethod((String) paymentMethodComboBox.getSelectedItem());
+        
+        // Set order items
+        order.setOrderItems(new ArrayList<>(orderItems));
+        
+        // Calculate total amount
+        order.recalculateTotal();
+        
+        saveButton.setEnabled(false);
+        saveRequest.run(
+            () -> editMode ? orderDao.updateOrder(order) : orderDao.createOrder(order),
+            result -> {
+                saveButton.setEnabled(true);
                 if (result > 0) {
-                    // Handle order items updates - more complex in real app
-                    // This simple example assumes items are managed separately
-                }
-            } else {
-                result = orderDao.createOrder(order);
-            }
-            
-            if (result > 0) {
-                if (callback != null) {
-                    callback.onSave(order);
+                    if (callback != null) {
+                        callback.onSave(order);
+                    }
+                } else {
+                    JOptionPane.showMessageDialog(this,
+                        "Failed to " + (editMode ? "update" : "create") + " order.",
+                        "Database Error",
+                        JOptionPane.ERROR_MESSAGE);
                 }
-            } else {
-                JOptionPane.showMessageDialog(this,
-                    "Failed to " + (editMode ? "update" : "create") + " order.",
-                    "Database Error",
-                    JOptionPane.ERROR_MESSAGE);
-            }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this,
-                "Error saving order: " + ex.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
-        }
+            },
+            error -> {
+                saveButton.setEnabled(true);
+                AsyncService.showError(this, "saving order", error);
+            });
     }
     
     /**
@@ -839,13 +906,7 @@ public class OrderFormView extends JPanel {
         
         // Set customer
         if (order.getCustomer() != null) {
-            for (int i = 0; i < customerComboBox.getItemCount(); i++) {
-                Customer customer = customerComboBox.getItemAt(i);
-                if (customer.getId() == order.getCustomerId()) {
-                    customerComboBox.setSelectedIndex(i);
-                    break;
-                }
-            }
+            selectCustomer(order.getCustomerId());
         }
         
         // Set other fields
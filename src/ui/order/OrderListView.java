@@ -2,26 +2,27 @@ package ui.order;
 
 import model.Order;
 import model.Customer;
+import model.OrderSummary;
 import dao.OrderDao;
+import dao.OrderQuery;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
-import javax.swing.table.TableRowSorter;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
 import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableColumn;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.HashMap;
-import java.util.Map;
 import java.text.NumberFormat;
+import ui.AsyncService;
+import ui.ChangeWatcher;
 import ui.UIFactory;
 
 /**
@@ -31,8 +32,7 @@ import ui.UIFactory;
 public class OrderListView extends JPanel {
     // Table components
     private JTable orderTable;
-    private DefaultTableModel tableModel;
-    private TableRowSorter<DefaultTableModel> tableSorter;
+    private OrderTableModel tableModel;
     
     // Search and filter components
     private JTextField searchField;
@@ -49,9 +49,10 @@ public class OrderListView extends JPanel {
     private JButton viewDetailsButton;
     private JButton createInvoiceButton;
     
-    // Order data and DAO
-    private List<Order> orderList;
+    // Order DAO; rows are loaded by the table model as they are scrolled into view
     private OrderDao orderDao;
+    private JLabel pageInfoLabel;
+    private final AsyncService.RequestSlot summaryRequest = new AsyncService.RequestSlot(this);
     
     // Date formatter
     private DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
@@ -76,10 +77,12 @@ public class OrderListView extends JPanel {
     public OrderListView(OrderListCallback callback) {
         this.callback = callback;
         this.orderDao = new OrderDao();
-        this.orderList = new ArrayList<>();
         
         initializeUI();
         loadData();
+        
+        // Keep the list in step with changes made by this and other clients
+        new ChangeWatcher(this, "orders", (ids, allRows) -> refreshOrders());
     }
     
     private void initializeUI() {
@@ -113,18 +116,38 @@ public class OrderListView extends JPanel {
     }
     
     /**
-     * Loads order data from the database
+     * Reloads the order count, the visible rows and the summary from the database
      */
     private void loadData() {
-        try {
-            this.orderList = orderDao.findAllOrders();
-            refreshTableData();
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this,
-                "Error loading order data: " + ex.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
+        orderTable.clearSelection();
+        tableModel.reload();
+        updateSummaryStatistics();
+    }
+    
+    /**
+     * Re-reads the orders on screen and the summary after orders were
+     * changed, keeping the scroll position
+     */
+    private void refreshOrders() {
+        tableModel.refresh();
+        updateSummaryStatistics();
+    }
+    
+    /**
+     * Reloads the order list from the first page
+     */
+    public void reload() {
+        loadData();
+    }
+    
+    /**
+     * Shows how many orders match the current filters
+     */
+    private void updatePageInfo() {
+        if (tableModel.isCounting()) {
+            pageInfoLabel.setText("Loading orders...");
+        } else {
+            pageInfoLabel.setText("Showing " + tableModel.getRowCount() + " orders");
         }
     }
     
@@ -232,28 +255,30 @@ public class OrderListView extends JPanel {
             new EmptyBorder(0, 0, 0, 0)
         ));
         
-        // Create the table model with column names
-        String[] columnNames = {"ID", "Order ID", "Customer", "Date", "Amount", "Status"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
+        // Create the table model; rows are fetched in pages as they are displayed
+        tableModel = new OrderTableModel(orderDao);
+        tableModel.addTableModelListener(new TableModelListener() {
             @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Make all cells non-editable
-            }
-            
-            @Override
-            public Class<?> getColumnClass(int columnIndex) {
-                if (columnIndex == 0) return Integer.class; // ID column
-                if (columnIndex == 4) return BigDecimal.class; // Amount column
-                return String.class;
+            public void tableChanged(TableModelEvent e) {
+                if (e.getFirstRow() == TableModelEvent.HEADER_ROW || e.getLastRow() == Integer.MAX_VALUE) {
+                    updatePageInfo();
+                }
             }
-        };
+        });
         
         // Create and set up the table
         orderTable = UIFactory.createStyledTable(tableModel);
         
-        // Add row sorting
-        tableSorter = new TableRowSorter<>(tableModel);
-        orderTable.setRowSorter(tableSorter);
+        // Sorting is done by the database; clicking a header sorts by that column
+        orderTable.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = orderTable.columnAtPoint(e.getPoint());
+                if (column >= 0) {
+                    sortByColumn(orderTable.convertColumnIndexToModel(column));
+                }
+            }
+        });
         
         // Set column widths
         orderTable.getColumnModel().getColumn(0).setMaxWidth(50); // ID column
@@ -295,7 +320,6 @@ public class OrderListView extends JPanel {
                 if (e.getClickCount() == 2) {
                     int selectedRow = orderTable.getSelectedRow();
                     if (selectedRow >= 0) {
-                        selectedRow = orderTable.convertRowIndexToModel(selectedRow);
                         Order selectedOrder = getOrderAtRow(selectedRow);
                         if (selectedOrder != null && callback != null) {
                             callback.onViewOrderDetails(selectedOrder);
@@ -317,7 +341,6 @@ public class OrderListView extends JPanel {
                 // Only enable the create invoice button for orders with status "Delivered"
                 if (hasSelection) {
                     int selectedRow = orderTable.getSelectedRow();
-                    selectedRow = orderTable.convertRowIndexToModel(selectedRow);
                     Order selectedOrder = getOrderAtRow(selectedRow);
                     if (selectedOrder != null) {
                         createInvoiceButton.setEnabled("Delivered".equals(selectedOrder.getStatus()));
@@ -326,6 +349,8 @@ public class OrderListView extends JPanel {
             }
         });
         
+        updateSortIndicator();
+        
         // Add the table to a scroll pane
         JScrollPane scrollPane = UIFactory.createScrollPane(orderTable);
         panel.add(scrollPane, BorderLayout.CENTER);
@@ -414,6 +439,16 @@ public class OrderListView extends JPanel {
         infoLabel.setFont(UIFactory.SMALL_FONT);
         infoLabel.setForeground(UIFactory.MEDIUM_GRAY);
         
+        pageInfoLabel = new JLabel("");
+        pageInfoLabel.setFont(UIFactory.SMALL_FONT);
+        pageInfoLabel.setForeground(UIFactory.MEDIUM_GRAY);
+        
+        JPanel infoPanel = new JPanel();
+        infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
+        infoPanel.setOpaque(false);
+        infoPanel.add(infoLabel);
+        infoPanel.add(pageInfoLabel);
+        
         // Action buttons (right side)
         JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
         buttonsPanel.setOpaque(false);
@@ -442,7 +477,7 @@ public class OrderListView extends JPanel {
         buttonsPanel.add(editButton);
         buttonsPanel.add(addButton);
         
-        panel.add(infoLabel, BorderLayout.WEST);
+        panel.add(infoPanel, BorderLayout.WEST);
         panel.add(buttonsPanel, BorderLayout.EAST);
         
         // Register button actions
@@ -468,7 +503,6 @@ public class OrderListView extends JPanel {
             public void actionPerformed(ActionEvent e) {
                 int selectedRow = orderTable.getSelectedRow();
                 if (selectedRow >= 0 && callback != null) {
-                    selectedRow = orderTable.convertRowIndexToModel(selectedRow);
                     Order selectedOrder = getOrderAtRow(selectedRow);
                     if (selectedOrder != null) {
                         callback.onEditOrder(selectedOrder);
@@ -483,7 +517,6 @@ public class OrderListView extends JPanel {
             public void actionPerformed(ActionEvent e) {
                 int selectedRow = orderTable.getSelectedRow();
                 if (selectedRow >= 0 && callback != null) {
-                    selectedRow = orderTable.convertRowIndexToModel(selectedRow);
                     Order selectedOrder = getOrderAtRow(selectedRow);
                     if (selectedOrder != null) {
                         int confirm = JOptionPane.showConfirmDialog(
@@ -508,7 +541,6 @@ public class OrderListView extends JPanel {
             public void actionPerformed(ActionEvent e) {
                 int selectedRow = orderTable.getSelectedRow();
                 if (selectedRow >= 0 && callback != null) {
-                    selectedRow = orderTable.convertRowIndexToModel(selectedRow);
                     Order selectedOrder = getOrderAtRow(selectedRow);
                     if (selectedOrder != null) {
                         callback.onViewOrderDetails(selectedOrder);
@@ -523,7 +555,6 @@ public class OrderListView extends JPanel {
             public void actionPerformed(ActionEvent e) {
                 int selectedRow = orderTable.getSelectedRow();
                 if (selectedRow >= 0 && callback != null) {
-                    selectedRow = orderTable.convertRowIndexToModel(selectedRow);
                     Order selectedOrder = getOrderAtRow(selectedRow);
                     if (selectedOrder != null) {
                         callback.onCreateInvoice(selectedOrder);
@@ -542,86 +573,54 @@ public class OrderListView extends JPanel {
     }
     
     /**
-     * Refreshes the table data with the current order list
+     * Sorts the table by a column, toggling the direction if it is already sorted by it
      */
-    private void refreshTableData() {
-        // Clear the table
-        tableModel.setRowCount(0);
-        
-        // Populate the table with data
-        for (Order order : orderList) {
-            // Get customer name
-            String customerName = "";
-            if (order.getCustomer() != null) {
-                customerName = order.getCustomer().getFullName();
-            }
-            
-            Object[] rowData = {
-                order.getId(),
-                order.getOrderId(),
-                customerName,
-                order.getOrderDate() != null ? order.getOrderDate().format(dateFormatter) : "",
-                order.getTotalAmount(),
-                order.getStatus()
-            };
-            tableModel.addRow(rowData);
+    private void sortByColumn(int columnIndex) {
+        OrderQuery query = tableModel.getQuery();
+        OrderQuery.SortColumn sortColumn = tableModel.getSortColumn(columnIndex);
+        if (query.getSortColumn() == sortColumn) {
+            query.setAscending(!query.isAscending());
+        } else {
+            query.setSortColumn(sortColumn);
+            query.setAscending(sortColumn != OrderQuery.SortColumn.DATE && sortColumn != OrderQuery.SortColumn.AMOUNT);
         }
-        
-        // Reset selection and buttons
+        updateSortIndicator();
         orderTable.clearSelection();
-        editButton.setEnabled(false);
-        deleteButton.setEnabled(false);
-        viewDetailsButton.setEnabled(false);
-        createInvoiceButton.setEnabled(false);
-        
-        // Update summary statistics
-        updateSummaryStatistics();
-        
-        // Apply existing filters
-        applyFilters();
+        tableModel.setQuery(query);
     }
     
     /**
-     * Update summary statistics based on current orders
+     * Marks the sorted column header with an arrow
+     */
+    private void updateSortIndicator() {
+        OrderQuery query = tableModel.getQuery();
+        for (int i = 0; i < orderTable.getColumnCount(); i++) {
+            TableColumn column = orderTable.getColumnModel().getColumn(i);
+            int modelIndex = column.getModelIndex();
+            String name = tableModel.getColumnName(modelIndex);
+            if (tableModel.getSortColumn(modelIndex) == query.getSortColumn()) {
+                name += query.isAscending() ? " \u25B2" : " \u25BC";
+            }
+            column.setHeaderValue(name);
+        }
+        orderTable.getTableHeader().repaint();
+    }
+    
+    /**
+     * Update summary statistics from the database
      */
     private void updateSummaryStatistics() {
-        if (orderList == null || orderList.isEmpty()) {
+        summaryRequest.run("loading order summary", orderDao::getOrderSummary, this::showSummaryStatistics);
+    }
+    
+    /**
+     * Shows the loaded summary statistics
+     */
+    private void showSummaryStatistics(OrderSummary summary) {
+        if (summary == null) {
             return;
         }
         
-        int totalOrders = orderList.size();
-        int pendingOrders = 0;
-        int deliveredOrders = 0;
-        int ordersThisMonth = 0;
-        BigDecimal totalAmount = BigDecimal.ZERO;
-        
-        LocalDate now = LocalDate.now();
-        LocalDate firstDayOfMonth = now.withDayOfMonth(1);
-        
-        for (Order order : orderList) {
-            // Count by status
-            if ("Pending".equals(order.getStatus())) {
-                pendingOrders++;
-            } else if ("Delivered".equals(order.getStatus())) {
-                deliveredOrders++;
-            }
-            
-            // Orders this month
-            if (order.getOrderDate() != null && !order.getOrderDate().isBefore(firstDayOfMonth)) {
-                ordersThisMonth++;
-            }
-            
-            // Sum total amount
-            if (order.getTotalAmount() != null) {
-                totalAmount = totalAmount.add(order.getTotalAmount());
-            }
-        }
-        
-        // Calculate average order value
-        BigDecimal avgOrderValue = totalOrders > 0 
-            ? totalAmount.divide(new BigDecimal(totalOrders), 2, BigDecimal.ROUND_HALF_UP) 
-            : BigDecimal.ZERO;
-        
         // Update the summary panels - look for components by name
         Component[] components = this.getComponents();
         for (Component component : components) {
@@ -643,20 +642,20 @@ public class OrderListView extends JPanel {
                                 
                                 switch (card.getName()) {
                                     case "totalOrders":
-                                        valueLabel.setText(String.valueOf(totalOrders));
+                                        valueLabel.setText(String.valueOf(summary.getTotalOrders()));
                                         break;
                                     case "ordersThisMonth":
-                                        valueLabel.setText(String.valueOf(ordersThisMonth));
+                                        valueLabel.setText(String.valueOf(summary.getOrdersThisMonth()));
                                         break;
                                     case "pendingOrders":
-                                        valueLabel.setText(String.valueOf(pendingOrders));
+                                        valueLabel.setText(String.valueOf(summary.getPendingOrders()));
                                         break;
                                     case "deliveredOrders":
-                                        valueLabel.setText(String.valueOf(deliveredOrders));
+                                        valueLabel.setText(String.valueOf(summary.getDeliveredOrders()));
                                         break;
                                     case "avgOrderValue":
                                         NumberFormat currencyFormat = NumberFormat.getCurrencyInstance();
-                                        valueLabel.setText(currencyFormat.format(avgOrderValue));
+                                        valueLabel.setText(currencyFormat.format(summary.getAverageOrderValue()));
                                         break;
                                 }
                             }
@@ -671,11 +670,10 @@ public class OrderListView extends JPanel {
      * Delete an order from the database
      */
     private void deleteOrder(Order order) {
-        try {
-            boolean result = orderDao.deleteOrder(order.getId()) > 0;
+        AsyncService.getInstance().runWrite(this, "deleting order",
+            () -> orderDao.deleteOrder(order.getId()) > 0, result -> {
             if (result) {
-                orderList.removeIf(o -> o.getId() == order.getId());
-                refreshTableData();
+                loadData();
                 JOptionPane.showMessageDialog(this,
                     "Order deleted successfully.",
                     "Success",
@@ -690,13 +688,7 @@ public class OrderListView extends JPanel {
                     "Delete Failed",
                     JOptionPane.ERROR_MESSAGE);
             }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this,
-                "Error deleting order: " + ex.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
-        }
+        });
     }
     
     /**
@@ -764,10 +756,8 @@ public class OrderListView extends JPanel {
      * Apply all filters to the table
      */
     private void applyFilters() {
-        RowFilter<DefaultTableModel, Object> filter = null;
-        
         // Get search text
-        String searchText = searchField.getText().trim().toLowerCase();
+        String searchText = searchField.getText().trim();
         
         // Get status selection
         String statusSelection = (String) statusFilterComboBox.getSelectedItem();
@@ -820,115 +810,37 @@ public class OrderListView extends JPanel {
             }
         }
         
-        // Final date range for use in filter
-        final LocalDate finalFromDate = fromDate;
-        final LocalDate finalToDate = toDate;
-        
-        // Combined filter for search text, status, and date range
-        if (!searchText.isEmpty() || !"All Orders".equals(statusSelection) || 
-            !"All Time".equals(dateRangeSelection) && (finalFromDate != null || finalToDate != null)) {
-            
-            filter = new RowFilter<DefaultTableModel, Object>() {
-                @Override
-                public boolean include(Entry<? extends DefaultTableModel, ? extends Object> entry) {
-                    boolean matchesSearch = true;
-                    boolean matchesStatus = true;
-                    boolean matchesDateRange = true;
-                    
-                    // Apply search text filter
-                    if (!searchText.isEmpty()) {
-                        matchesSearch = false;
-                        for (int i = 1; i < entry.getValueCount(); i++) { // Skip ID column
-                            Object value = entry.getValue(i);
-                            if (value != null && value.toString().toLowerCase().contains(searchText)) {
-                                matchesSearch = true;
-                                break;
-                            }
-                        }
-                    }
-                    
-                    // Apply status filter
-                    if (!"All Orders".equals(statusSelection)) {
-                        String statusValue = entry.getStringValue(5); // Status column (index 5)
-                        matchesStatus = statusSelection.equals(statusValue);
-                    }
-                    
-                    // Apply date range filter
-                    // Apply date range filter
-                   // Apply date range filter
-                    if (!"All Time".equals(dateRangeSelection) && (finalFromDate != null || finalToDate != null)) {
-                        String dateString = entry.getStringValue(3); // Date column (index 3)
-                        if (dateString == null || dateString.isEmpty()) {
-                            matchesDateRange = false;
-                        } else {
-                            try {
-                                LocalDate orderDate = LocalDate.parse(dateString, dateFormatter);
-                                if (finalFromDate != null) {
-                                    matchesDateRange = !orderDate.isBefore(finalFromDate);
-                                }
-                                if (finalToDate != null) {
-                                    matchesDateRange = matchesDateRange && !orderDate.isAfter(finalToDate);
-                                }
-                            } catch (Exception e) {
-                                matchesDateRange = false;
-                            }
-                        }
-                    }
-                    
-                    // Return combined filter result
-                    return matchesSearch && matchesStatus && matchesDateRange;
-                }
-            };
-        }
+        // Filter in the database so only matching orders are counted and loaded
+        OrderQuery query = tableModel.getQuery();
+        query.setSearchText(searchText);
+        query.setStatus("All Orders".equals(statusSelection) ? null : statusSelection);
+        query.setFromDate(fromDate);
+        query.setToDate(toDate);
         
-        // Apply the filter to the table sorter
-        tableSorter.setRowFilter(filter);
+        orderTable.clearSelection();
+        tableModel.setQuery(query);
     }
     
     /**
      * Get the Order object at the specified row
      */
     private Order getOrderAtRow(int rowIndex) {
-        if (rowIndex >= 0 && rowIndex < orderList.size()) {
-            int orderId = ((Integer) tableModel.getValueAt(rowIndex, 0)).intValue();
-            for (Order order : orderList) {
-                if (order.getId() == orderId) {
-                    return order;
-                }
-            }
-        }
-        return null;
+        return tableModel.getOrderAt(rowIndex);
     }
     
     /**
      * Updates the order list with a new/edited order
      */
     public void updateOrder(Order order) {
-        // Check if order already exists in the list
-        boolean found = false;
-        for (int i = 0; i < orderList.size(); i++) {
-            if (orderList.get(i).getId() == order.getId()) {
-                orderList.set(i, order);
-                found = true;
-                break;
-            }
-        }
-        
-        // If not found, add as new
-        if (!found) {
-            orderList.add(order);
-        }
-        
-        // Refresh the table
-        refreshTableData();
+        // Reload so the order appears where the current filter and sort put it
+        loadData();
     }
     
     /**
      * Adds a new order to the list view
      */
     public void addOrder(Order order) {
-        orderList.add(order);
-        refreshTableData();
+        loadData();
     }
     
     /**
@@ -939,24 +851,17 @@ public class OrderListView extends JPanel {
             return;
         }
         
-        // Update existing orders or add new ones
-        for (Order order : orders) {
-            updateOrder(order);
-        }
+        loadData();
     }
     
     /**
      * Selects an order in the table by ID
      */
     public void selectOrder(int orderId) {
-        for (int i = 0; i < tableModel.getRowCount(); i++) {
-            int id = ((Integer) tableModel.getValueAt(i, 0)).intValue();
-            if (id == orderId) {
-                int viewIndex = orderTable.convertRowIndexToView(i);
-                orderTable.getSelectionModel().setSelectionInterval(viewIndex, viewIndex);
-                orderTable.scrollRectToVisible(orderTable.getCellRect(viewIndex, 0, true));
-                break;
-            }
+        int row = tableModel.findRow(orderId);
+        if (row >= 0) {
+            orderTable.getSelectionModel().setSelectionInterval(row, row);
+            orderTable.scrollRectToVisible(orderTable.getCellRect(row, 0, true));
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,326 @@
+package ui.order;
+
+import model.Order;
+import dao.OrderDao;
+import dao.OrderQuery;
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import java.math.BigDecimal;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Table model for the order list that only holds the rows near what is on screen.
+ * The row count comes from a COUNT query; rows are fetched in pages on a
+ * background thread the first time the table asks for them and kept in a
+ * small LRU cache. Filtering and sorting are done by the database through
+ * the current OrderQuery.
+ * 
+ * All methods must be called on the event dispatch thread.
+ */
+public class OrderTableModel extends AbstractTableModel {
+    static final int PAGE_SIZE = 100;
+    private static final int MAX_CACHED_PAGES = 20;
+    
+    static final int COLUMN_ID = 0;
+    static final int COLUMN_ORDER_ID = 1;
+    static final int COLUMN_CUSTOMER = 2;
+    static final int COLUMN_DATE = 3;
+    static final int COLUMN_AMOUNT = 4;
+    static final int COLUMN_STATUS = 5;
+    
+    private static final String[] COLUMN_NAMES = {"ID", "Order ID", "Customer", "Date", "Amount", "Status"};
+    private static final OrderQuery.SortColumn[] SORT_COLUMNS = {
+        OrderQuery.SortColumn.ID,
+        OrderQuery.SortColumn.ORDER_ID,
+        OrderQuery.SortColumn.CUSTOMER,
+        OrderQuery.SortColumn.DATE,
+        OrderQuery.SortColumn.AMOUNT,
+        OrderQuery.SortColumn.STATUS
+    };
+    
+    // One loader thread for all order tables; queries run one at a time so a
+    // fast scroll cannot take over the connection pool
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "order-table-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final OrderDao orderDao;
+    private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    
+    // Loaded pages by page number, least recently used first
+    private final Map<Integer, List<Order>> pages = new LinkedHashMap<Integer, List<Order>>(32, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Order>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    private final Set<Integer> pendingPages = new HashSet<>();
+    
+    private OrderQuery query;
+    private int rowCount;
+    private boolean counting;
+    
+    // Incremented whenever the query changes; results of older loads are dropped
+    private volatile int generation;
+    
+    /**
+     * Constructor
+     * 
+     * @param orderDao The DAO used to load orders
+     */
+    public OrderTableModel(OrderDao orderDao) {
+        this.orderDao = orderDao;
+        this.query = new OrderQuery();
+    }
+    
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+    
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        if (columnIndex == COLUMN_ID) return Integer.class;
+        if (columnIndex == COLUMN_AMOUNT) return BigDecimal.class;
+        return String.class;
+    }
+    
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+    
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        Order order = getOrderAt(rowIndex);
+        if (order == null) {
+            // Placeholder until the page arrives
+            return columnIndex == COLUMN_ORDER_ID ? "Loading..." : null;
+        }
+        
+        switch (columnIndex) {
+            case COLUMN_ID:
+                return order.getId();
+            case COLUMN_ORDER_ID:
+                return order.getOrderId();
+            case COLUMN_CUSTOMER:
+                return order.getCustomer() != null ? order.getCustomer().getFullName() : "";
+            case COLUMN_DATE:
+                return order.getOrderDate() != null ? order.getOrderDate().format(dateFormatter) : "";
+            case COLUMN_AMOUNT:
+                return order.getTotalAmount();
+            case COLUMN_STATUS:
+                return order.getStatus();
+            default:
+                return null;
+        }
+    }
+    
+    /**
+     * Gets the order shown in a row. If the row's page is not loaded yet, a
+     * load is started and null is returned; the row is repainted when the
+     * page arrives.
+     * 
+     * @param rowIndex The model row index
+     * @return The order, or null if it is not loaded yet
+     */
+    public Order getOrderAt(int rowIndex) {
+        if (rowIndex < 0 || rowIndex >= rowCount) {
+            return null;
+        }
+        
+        int page = rowIndex / PAGE_SIZE;
+        int index = rowIndex % PAGE_SIZE;
+        List<Order> orders = pages.get(page);
+        if (orders == null) {
+            requestPage(page);
+            return null;
+        }
+        
+        // Prefetch the neighbouring page in the direction the row lies
+        requestPage(index < PAGE_SIZE / 2 ? page - 1 : page + 1);
+        
+        return index < orders.size() ? orders.get(index) : null;
+    }
+    
+    /**
+     * Finds the row of a loaded order
+     * 
+     * @param orderId The ID of the order
+     * @return The model row index, or -1 if the order is not in a loaded page
+     */
+    public int findRow(int orderId) {
+        for (Map.Entry<Integer, List<Order>> entry : pages.entrySet()) {
+            List<Order> orders = entry.getValue();
+            for (int i = 0; i < orders.size(); i++) {
+                if (orders.get(i).getId() == orderId) {
+                    return entry.getKey() * PAGE_SIZE + i;
+                }
+            }
+        }
+        return -1;
+    }
+    
+    public OrderQuery getQuery() {
+        return query;
+    }
+    
+    /**
+     * Checks whether the row count for the current query is still loading
+     * 
+     * @return true while counting
+     */
+    public boolean isCounting() {
+        return counting;
+    }
+    
+    /**
+     * Gets the sort column behind a table column
+     * 
+     * @param columnIndex The model column index
+     * @return The sort column
+     */
+    public OrderQuery.SortColumn getSortColumn(int columnIndex) {
+        return SORT_COLUMNS[columnIndex];
+    }
+    
+    /**
+     * Replaces the query, drops all cached pages and reloads the row count
+     * and first page
+     * 
+     * @param query The new filter and sort criteria
+     */
+    public void setQuery(OrderQuery query) {
+        this.query = query;
+        reload();
+    }
+    
+    /**
+     * Drops all cached pages and reloads the row count and first page.
+     * Rows keep their old count until the new one arrives.
+     */
+    public void reload() {
+        final int loadGeneration = ++generation;
+        final OrderQuery loadQuery = query;
+        pages.clear();
+        pendingPages.clear();
+        pendingPages.add(0);
+        counting = true;
+        fireTableDataChanged();
+        
+        LOADER.execute(() -> {
+            if (loadGeneration != generation) {
+                return;
+            }
+            int count = orderDao.countOrders(loadQuery);
+            List<Order> firstPage = orderDao.findOrdersWindow(loadQuery, 0, PAGE_SIZE);
+            SwingUtilities.invokeLater(() -> {
+                if (loadGeneration != generation) {
+                    return;
+                }
+                counting = false;
+                rowCount = Math.max(count, 0);
+                pendingPages.remove(0);
+                pages.put(0, firstPage);
+                fireTableDataChanged();
+            });
+        });
+    }
+    
+    /**
+     * Re-reads the row count and the cached pages for the current query.
+     * Unlike reload, the old rows stay on screen until the new ones arrive
+     * and the selection is kept if the row count did not change.
+     */
+    public void refresh() {
+        final int loadGeneration = ++generation;
+        final OrderQuery loadQuery = query;
+        final List<Integer> loadedPages = new ArrayList<>(pages.keySet());
+        pendingPages.clear();
+        
+        LOADER.execute(() -> {
+            if (loadGeneration != generation) {
+                return;
+            }
+            int count = orderDao.countOrders(loadQuery);
+            Map<Integer, List<Order>> reloaded = new HashMap<>();
+            for (int page : loadedPages) {
+                reloaded.put(page, orderDao.findOrdersWindow(loadQuery, page * PAGE_SIZE, PAGE_SIZE));
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (loadGeneration != generation) {
+                    return;
+                }
+                counting = false;
+                pages.clear();
+                pages.putAll(reloaded);
+                
+                int newRowCount = Math.max(count, 0);
+                if (newRowCount != rowCount) {
+                    rowCount = newRowCount;
+                    fireTableDataChanged();
+                } else if (rowCount > 0) {
+                    fireTableRowsUpdated(0, rowCount - 1);
+                }
+            });
+        });
+    }
+    
+    /**
+     * Starts loading a page unless it is cached, already loading or out of range
+     */
+    private void requestPage(int page) {
+        if (page < 0 || page * PAGE_SIZE >= rowCount || pages.containsKey(page) || !pendingPages.add(page)) {
+            return;
+        }
+        
+        final int loadGeneration = generation;
+        final OrderQuery loadQuery = query;
+        LOADER.execute(() -> {
+            if (loadGeneration != generation) {
+                return;
+            }
+            List<Order> orders = orderDao.findOrdersWindow(loadQuery, page * PAGE_SIZE, PAGE_SIZE);
+            SwingUtilities.invokeLater(() -> pageLoaded(loadGeneration, page, orders));
+        });
+    }
+    
+    /**
+     * Stores a loaded page and repaints its rows
+     */
+    private void pageLoaded(int loadGeneration, int page, List<Order> orders) {
+        if (loadGeneration != generation) {
+            return;
+        }
+        pendingPages.remove(page);
+        pages.put(page, orders);
+        
+        int firstRow = page * PAGE_SIZE;
+        int lastRow = Math.min(firstRow + PAGE_SIZE, rowCount) - 1;
+        if (lastRow >= firstRow) {
+            fireTableRowsUpdated(firstRow, lastRow);
+        }
+    }
+}
\ No newline at end of file
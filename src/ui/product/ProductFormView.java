@@ -14,6 +14,7 @@ import java.awt.event.ActionListener;
 import java.math.BigDecimal;
 import java.text.NumberFormat;
 import java.util.List;
+import ui.AsyncService;
 import ui.UIFactory;
 
 /**
@@ -47,6 +48,7 @@ public class ProductFormView extends JPanel {
     private ProductDao productDao;
     private SupplierDao supplierDao;
     private List<Supplier> supplierList;
+    private final AsyncService.RequestSlot saveRequest = new AsyncService.RequestSlot(this);
     
     // Callback for form submission
     private FormSubmissionCallback callback;
@@ -360,7 +362,7 @@ public class ProductFormView extends JPanel {
             @Override
             public void actionPerformed(ActionEvent e) {
                 if (validateForm()) {
-                    saveProduct();
+                    checkAndSaveProduct();
                 }
             }
         });
@@ -382,13 +384,6 @@ public class ProductFormView extends JPanel {
             } else if (!productCodeField.getText().matches("[A-Za-z0-9-]+")) {
                 productCodeValidationLabel.setText("Only letters, numbers, and hyphens allowed");
                 isValid = false;
-            } else {
-                // Check if code already exists
-                Product existingProduct = productDao.findProductByCode(productCodeField.getText().trim());
-                if (existingProduct != null) {
-                    productCodeValidationLabel.setText("Product code already exists");
-                    isValid = false;
-                }
             }
         }
         
@@ -413,65 +408,87 @@ public class ProductFormView extends JPanel {
         return isValid;
     }
     
+    /**
+     * Checks in the background that a new product's code is not taken yet,
+     * then saves the product
+     */
+    private void checkAndSaveProduct() {
+        if (editMode) { // The code cannot be changed in edit mode
+            saveProduct();
+            return;
+        }
+        String productCode = productCodeField.getText().trim();
+        
+        saveButton.setEnabled(false);
+        saveRequest.run(() -> productDao.findProductByCode(productCode) != null,
+            exists -> {
+                if (exists) {
+                    productCodeValidationLabel.setText("Product code already exists");
+                    saveButton.setEnabled(true);
+                } else {
+                    saveProduct();
+                }
+            },
+            error -> {
+                saveButton.setEnabled(true);
+                AsyncService.showError(this, "checking product", error);
+            });
+    }
+    
     private void saveProduct() {
+        Product product;
+        
+        if (editMode && currentProduct != null) {
+            product = currentProduct;
+        } else {
+            product = new Product();
+            product.setProductCode(productCodeField.getText().trim());
+        }
+        
+        product.setName(nameField.getText().trim());
+        product.setDescription(descriptionArea.getText().trim());
+        
+        // Parse price value - handle formatting
         try {
-            Product product;
-            
-            if (editMode && currentProduct != null) {
-                product = currentProduct;
-            } else {
-                product = new Product();
-                product.setProductCode(productCodeField.getText().trim());
-            }
-            
-            product.setName(nameField.getText().trim());
-            product.setDescription(descriptionArea.getText().trim());
-            
-            // Parse price value - handle formatting
-            try {
-                Number priceValue = (Number) priceField.getValue();
-                product.setPrice(new BigDecimal(priceValue.toString()));
-            } catch (Exception e) {
-                product.setPrice(BigDecimal.ZERO);
-            }
-            
-            // Get stock quantity from spinner
-            product.setStockQuantity((Integer) stockQuantitySpinner.getValue());
-            
-            // Get category
-            product.setCategory((String) categoryComboBox.getSelectedItem());
-            
-            // Get supplier
-            Supplier selectedSupplier = (Supplier) supplierComboBox.getSelectedItem();
-            if (selectedSupplier != null) {
-                product.setSupplierId(selectedSupplier.getId());
-                product.setSupplier(selectedSupplier);
-            }
-            
-            int result;
-            if (editMode) {
-                result = productDao.updateProduct(product);
-            } else {
-                result = productDao.createProduct(product);
-            }
-            
-            if (result > 0) {
-                if (callback != null) {
-                    callback.onSave(product);
-                }
-            } else {
-                JOptionPane.showMessageDialog(this,
-                    "Failed to " + (editMode ? "update" : "create") + " product.",
-                    "Database Error",
-                    JOptionPane.ERROR_MESSAGE);
-            }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this,
-                "Error saving product: " + ex.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
+            Number priceValue = (Number) priceField.getValue();
+            product.setPrice(new BigDecimal(priceValue.toString()));
+        } catch (Exception e) {
+            product.setPrice(BigDecimal.ZERO);
+        }
+        
+        // Get stock quantity from spinner
+        product.setStockQuantity((Integer) stockQuantitySpinner.getValue());
+        
+        // Get category
+        product.setCategory((String) categoryComboBox.getSelectedItem());
+        
+        // Get supplier
+        Supplier selectedSupplier = (Supplier) supplierComboBox.getSelectedItem();
+        if (selectedSupplier != null) {
+            product.setSupplierId(selectedSupplier.getId());
+            product.setSupplier(selectedSupplier);
         }
+        
+        saveButton.setEnabled(false);
+        saveRequest.run(
+            () -> editMode ? productDao.updateProduct(product) : productDao.createProduct(product),
+            result -> {
+                saveButton.setEnabled(true);
+                if (result > 0) {
+                    if (callback != null) {
+                        callback.onSave(product);
+                    }
+                } else {
+                    JOptionPane.showMessageDialog(this,
+                        "Failed to " + (editMode ? "update" : "create") + " product.",
+                        "Database Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            },
+            error -> {
+                saveButton.setEnabled(true);
+                AsyncService.showError(this, "saving product", error);
+            });
     }
     
     private void populateFields(Product product) {
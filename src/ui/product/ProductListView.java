@@ -3,10 +3,11 @@ package ui.product;
 import model.Product;
 import model.Supplier;
 import dao.ProductDao;
+import dao.Page;
+import dao.SearchResult;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -16,6 +17,12 @@ import java.awt.event.MouseEvent;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import ui.AsyncService;
+import ui.ChangeLoader;
+import ui.ChangeWatcher;
+import ui.EntityTableModel;
 import ui.UIFactory;
 
 /**
@@ -25,8 +32,8 @@ import ui.UIFactory;
 public class ProductListView extends JPanel {
     // Table components
     private JTable productTable;
-    private DefaultTableModel tableModel;
-    private TableRowSorter<DefaultTableModel> tableSorter;
+    private EntityTableModel<Product> tableModel;
+    private TableRowSorter<EntityTableModel<Product>> tableSorter;
     
     // Search and filter components
     private JTextField searchField;
@@ -39,10 +46,23 @@ public class ProductListView extends JPanel {
     private JButton refreshButton;
     private JButton viewDetailsButton;
     
-    // Product data and DAO
-    private List<Product> productList;
+    // Product DAO; the products shown are held by tableModel
     private ProductDao productDao;
     
+    // Paging state; products are loaded a page at a time as the table is scrolled
+    private static final int PAGE_SIZE = Page.DEFAULT_PAGE_SIZE;
+    private int lastLoadedId;
+    private boolean hasMorePages;
+    private long estimatedTotal = -1;
+    private JLabel pageInfoLabel;
+    private final AsyncService.RequestSlot pageRequest = new AsyncService.RequestSlot(this);
+    private final ChangeLoader<Product> changeLoader =
+        new ChangeLoader<>(id -> productDao.findProductById(id), this::mergeChanges, "products");
+    
+    // Database search; while a search is active the list holds its results, best match first
+    private String activeSearch;
+    private int searchOffset;
+    
     // Callback for list actions
     private ProductListCallback callback;
     
@@ -62,10 +82,12 @@ public class ProductListView extends JPanel {
     public ProductListView(ProductListCallback callback) {
         this.callback = callback;
         this.productDao = new ProductDao();
-        this.productList = new ArrayList<>();
         
         initializeUI();
         loadData();
+        
+        // Keep the list in step with changes made by this and other clients
+        new ChangeWatcher(this, "products", this::applyChanges);
     }
     
     private void initializeUI() {
@@ -88,18 +110,109 @@ public class ProductListView extends JPanel {
     }
     
     /**
-     * Loads product data from the database
+     * Loads the first page of product data from the database
      */
     private void loadData() {
-        try {
-            this.productList = productDao.findAllProducts();
-            refreshTableData();
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this,
-                "Error loading product data: " + ex.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
+        pageRequest.cancel();
+        this.activeSearch = null;
+        tableModel.clear();
+        this.lastLoadedId = 0;
+        this.hasMorePages = true;
+        this.estimatedTotal = -1;
+        refreshTableData();
+        loadNextPage();
+    }
+    
+    /**
+     * Reloads the product list from the first page, repeating the active search
+     */
+    public void reload() {
+        if (activeSearch != null) {
+            searchDatabase(activeSearch);
+        } else {
+            loadData();
+        }
+    }
+    
+    /**
+     * Loads the next page of products and appends it to the table
+     */
+    private void loadNextPage() {
+        if (!hasMorePages || pageRequest.isLoading()) {
+            return;
+        }
+        pageInfoLabel.setText("Loading products...");
+        if (activeSearch != null) {
+            String searchText = activeSearch;
+            int offset = searchOffset;
+            pageRequest.run(
+                () -> productDao.searchProducts(searchText, offset, PAGE_SIZE),
+                this::addSearchPage,
+                error -> {
+                    hasMorePages = false;
+                    updatePageInfo();
+                    AsyncService.showError(this, "searching products", error);
+                });
+            return;
+        }
+        int afterId = lastLoadedId;
+        pageRequest.run(
+            () -> productDao.findProductsPage(afterId, PAGE_SIZE),
+            this::addPage,
+            error -> {
+                hasMorePages = false;
+                updatePageInfo();
+                AsyncService.showError(this, "loading product data", error);
+            });
+    }
+    
+    /**
+     * Appends a loaded page of products to the table
+     * 
+     * @param page The page loaded by loadNextPage
+     */
+    private void addPage(Page<Product> page) {
+        if (page.getEstimatedTotal() >= 0) {
+            estimatedTotal = page.getEstimatedTotal();
+        }
+        hasMorePages = page.hasMore();
+        
+        // Products added in this view after the last loaded page arrive again with a page; their rows are updated
+        tableModel.addAll(page.getItems());
+        if (!page.isEmpty()) {
+            lastLoadedId = page.getLast().getId();
+        }
+        updatePageInfo();
+    }
+    
+    /**
+     * Appends a loaded page of search results to the table
+     * 
+     * @param page The page loaded by loadNextPage
+     */
+    private void addSearchPage(Page<SearchResult<Product>> page) {
+        hasMorePages = page.hasMore();
+        searchOffset += page.getItems().size();
+        for (SearchResult<Product> result : page.getItems()) {
+            tableModel.add(result.getItem());
+        }
+        updatePageInfo();
+    }
+    
+    /**
+     * Shows how many products are loaded
+     */
+    private void updatePageInfo() {
+        if (activeSearch != null) {
+            pageInfoLabel.setText("Showing " + tableModel.getRowCount() + " products matching \"" + activeSearch + "\"" +
+                                  (hasMorePages ? ". Scroll down to load more." : ""));
+            return;
+        }
+        if (hasMorePages && estimatedTotal > tableModel.getRowCount()) {
+            pageInfoLabel.setText("Showing " + tableModel.getRowCount() + " of about " + estimatedTotal +
+                                  " products. Scroll down to load more.");
+        } else {
+            pageInfoLabel.setText("Showing " + tableModel.getRowCount() + " products");
         }
     }
     
@@ -131,13 +244,15 @@ public class ProductListView extends JPanel {
         // Add search panel to the header
         headerPanel.add(searchPanel, BorderLayout.EAST);
         
-        // Add search action
-        searchButton.addActionListener(new ActionListener() {
+        // Add search action; searches all products in the database
+        ActionListener searchAction = new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                applyFilter();
+                searchDatabase(searchField.getText().trim());
             }
-        });
+        };
+        searchButton.addActionListener(searchAction);
+        searchField.addActionListener(searchAction);
         
         // Add filter change action
         categoryFilterComboBox.addActionListener(new ActionListener() {
@@ -160,22 +275,8 @@ public class ProductListView extends JPanel {
         
         // Create the table model with column names
         String[] columnNames = {"ID", "Product Code", "Name", "Price", "Stock", "Category"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Make all cells non-editable
-            }
-            
-            @Override
-            public Class<?> getColumnClass(int columnIndex) {
-                switch (columnIndex) {
-                    case 0: return Integer.class; // ID
-                    case 3: return BigDecimal.class; // Price
-                    case 4: return Integer.class; // Stock
-                    default: return String.class;
-                }
-            }
-        };
+        Class<?>[] columnClasses = {Integer.class, String.class, String.class, BigDecimal.class, Integer.class, String.class};
+        tableModel = new EntityTableModel<>(columnNames, columnClasses, Product::getId, this::toRowData);
         
         // Create and set up the table
         productTable = UIFactory.createStyledTable(tableModel);
@@ -220,6 +321,7 @@ public class ProductListView extends JPanel {
         
         // Add the table to a scroll pane
         JScrollPane scrollPane = UIFactory.createScrollPane(productTable);
+        UIFactory.addScrollEndListener(scrollPane, this::loadNextPage);
         panel.add(scrollPane, BorderLayout.CENTER);
         
         return panel;
@@ -234,6 +336,16 @@ public class ProductListView extends JPanel {
         infoLabel.setFont(UIFactory.SMALL_FONT);
         infoLabel.setForeground(UIFactory.MEDIUM_GRAY);
         
+        pageInfoLabel = new JLabel("");
+        pageInfoLabel.setFont(UIFactory.SMALL_FONT);
+        pageInfoLabel.setForeground(UIFactory.MEDIUM_GRAY);
+        
+        JPanel infoPanel = new JPanel();
+        infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
+        infoPanel.setOpaque(false);
+        infoPanel.add(infoLabel);
+        infoPanel.add(pageInfoLabel);
+        
         // Action buttons (right side)
         JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
         buttonsPanel.setOpaque(false);
@@ -258,7 +370,7 @@ public class ProductListView extends JPanel {
         buttonsPanel.add(editButton);
         buttonsPanel.add(addButton);
         
-        panel.add(infoLabel, BorderLayout.WEST);
+        panel.add(infoPanel, BorderLayout.WEST);
         panel.add(buttonsPanel, BorderLayout.EAST);
         
         // Register button actions
@@ -343,24 +455,10 @@ public class ProductListView extends JPanel {
     }
     
     /**
-     * Refreshes the table data with the current product list
+     * Resets the selection and filters after the rows were replaced
      */
     private void refreshTableData() {
-        // Clear the table
-        tableModel.setRowCount(0);
-        
-        // Populate the table with data
-        for (Product product : productList) {
-            Object[] rowData = {
-                product.getId(),
-                product.getProductCode(),
-                product.getName(),
-                product.getPrice(),
-                product.getStockQuantity(),
-                product.getCategory()
-            };
-            tableModel.addRow(rowData);
-        }
+        updatePageInfo();
         
         // Reset selection and filters
         productTable.clearSelection();
@@ -373,44 +471,69 @@ public class ProductListView extends JPanel {
     }
     
     /**
-     * Applies search and filter criteria to the table
+     * Gets the table cells of a product
+     * 
+     * @param product The product
+     * @return The cell values, one per column
+     */
+    private Object[] toRowData(Product product) {
+        return new Object[] {
+            product.getId(),
+            product.getProductCode(),
+            product.getName(),
+            product.getPrice(),
+            product.getStockQuantity(),
+            product.getCategory()
+        };
+    }
+    
+    /**
+     * Searches all products in the database by the columns of the list and
+     * shows the results.
+     * An empty search text goes back to browsing all products.
+     * 
+     * @param searchText The text to search for
+     */
+    private void searchDatabase(String searchText) {
+        if (searchText.isEmpty()) {
+            if (activeSearch != null) {
+                loadData();
+            }
+            return;
+        }
+        pageRequest.cancel();
+        tableModel.clear();
+        this.activeSearch = searchText;
+        this.searchOffset = 0;
+        this.lastLoadedId = Integer.MAX_VALUE; // Products created later are not added to the results
+        this.hasMorePages = true;
+        refreshTableData();
+        loadNextPage();
+    }
+    
+    /**
+     * Applies the filter criteria to the table
      */
     private void applyFilter() {
-        RowFilter<DefaultTableModel, Object> filter = null;
-        
-        // Get search text
-        String searchText = searchField.getText().trim().toLowerCase();
+        RowFilter<EntityTableModel<Product>, Integer> filter = null;
         
         // Get category filter selection
         String categorySelection = (String) categoryFilterComboBox.getSelectedItem();
         
-        // Combined filter for search text and category selection
-        if (!searchText.isEmpty() || !"All Categories".equals(categorySelection)) {
-            filter = new RowFilter<DefaultTableModel, Object>() {
+        // The search text is matched by the database, see searchDatabase
+        if (!"All Categories".equals(categorySelection)) {
+            filter = new RowFilter<EntityTableModel<Product>, Integer>() {
                 @Override
-                public boolean include(Entry<? extends DefaultTableModel, ? extends Object> entry) {
-                    boolean matchesSearch = true;
+                public boolean include(Entry<? extends EntityTableModel<Product>, ? extends Integer> entry) {
                     boolean matchesCategory = true;
                     
-                    // Apply search text filter
-                    if (!searchText.isEmpty()) {
-                        matchesSearch = false;
-                        for (int i = 1; i < entry.getValueCount(); i++) { // Skip ID column
-                            Object value = entry.getValue(i);
-                            if (value != null && value.toString().toLowerCase().contains(searchText)) {
-                                matchesSearch = true;
-                                break;
-                            }
-                        }
-                    }
-                    
                     // Apply category filter
                     if (!"All Categories".equals(categorySelection)) {
                         String categoryValue = entry.getStringValue(5); // Category column (index 5)
                         matchesCategory = categorySelection.equals(categoryValue);
                     }
                     
-                    return matchesSearch && matchesCategory;
+                    return matchesCategory;
                 }
             };
         }
@@ -425,15 +548,7 @@ public class ProductListView extends JPanel {
      * @return The Product object or null if not found
      */
     private Product getProductAtRow(int modelRow) {
-        if (modelRow >= 0 && modelRow < tableModel.getRowCount()) {
-            int productId = (int) tableModel.getValueAt(modelRow, 0);
-            for (Product product : productList) {
-                if (product.getId() == productId) {
-                    return product;
-                }
-            }
-        }
-        return null;
+        return tableModel.getItemAt(modelRow);
     }
     
     /**
@@ -442,11 +557,11 @@ public class ProductListView extends JPanel {
      * @param product The product to delete
      */
     private void deleteProduct(Product product) {
-        try {
-            int result = productDao.deleteProduct(product.getId());
-            if (result > 0) {
-                productList.removeIf(p -> p.getId() == product.getId());
-                refreshTableData();
+        AsyncService.getInstance().runWrite(this, "deleting product",
+            () -> productDao.deleteProduct(product.getId()) > 0, result -> {
+            if (result) {
+                tableModel.remove(product.getId());
+                updatePageInfo();
                 JOptionPane.showMessageDialog(this,
                     "Product deleted successfully.",
                     "Success",
@@ -461,13 +576,41 @@ public class ProductListView extends JPanel {
                     "Delete Failed",
                     JOptionPane.ERROR_MESSAGE);
             }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this,
-                "Error deleting product: " + ex.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
+        });
+    }
+    
+    /**
+     * Applies changes made to products by this or other clients. Loaded rows
+     * are re-read, deleted products are removed and new ones are added.
+     * 
+     * @param ids The IDs of the changed products
+     * @param allRows true if the changed rows are not known
+     */
+    private void applyChanges(Set<Integer> ids, boolean allRows) {
+        if (allRows) {
+            changeLoader.clear();
+            reload();
+            return;
         }
+        changeLoader.load(ids);
+    }
+    
+    /**
+     * Merges re-read products into the table; the selection is kept
+     * 
+     * @param changed The current state of each changed product, null if it was deleted
+     */
+    private void mergeChanges(Map<Integer, Product> changed) {
+        for (Map.Entry<Integer, Product> change : changed.entrySet()) {
+            Product product = change.getValue();
+            if (product == null) {
+                tableModel.remove(change.getKey());
+            } else if (tableModel.contains(product.getId()) || product.getId() > lastLoadedId) {
+                // Loaded rows are updated; products created since the last page was loaded are added
+                tableModel.add(product);
+            }
+        }
+        updatePageInfo();
     }
     
     /**
@@ -476,48 +619,43 @@ public class ProductListView extends JPanel {
      * @param products New list of products
      */
     public void updateProducts(List<Product> products) {
-        this.productList = products != null ? products : new ArrayList<>();
+        pageRequest.cancel();
+        tableModel.setItems(products != null ? products : new ArrayList<>());
+        this.hasMorePages = false; // The caller supplied the complete list
         refreshTableData();
     }
     
     /**
-     * Adds a product to the list and refreshes the table
+     * Adds a product to the table
      * 
      * @param product Product to add
      */
     public void addProduct(Product product) {
         if (product != null && product.getId() > 0) {
-            this.productList.add(product);
-            refreshTableData();
+            tableModel.add(product);
+            updatePageInfo();
         }
     }
     
     /**
-     * Updates a product in the list and refreshes the table
+     * Updates a product's row in the table
      * 
      * @param product Product to update
      */
     public void updateProduct(Product product) {
         if (product != null) {
-            for (int i = 0; i < productList.size(); i++) {
-                if (productList.get(i).getId() == product.getId()) {
-                    productList.set(i, product);
-                    break;
-                }
-            }
-            refreshTableData();
+            tableModel.update(product);
         }
     }
     
     /**
-     * Removes a product from the list and refreshes the table
+     * Removes a product from the table
      * 
      * @param product Product to remove
      */
     public void removeProduct(Product product) {
-        if (product != null) {
-            productList.removeIf(p -> p.getId() == product.getId());
-            refreshTableData();
+        if (product != null && tableModel.remove(product.getId())) {
+            updatePageInfo();
         }
     }
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import ui.AsyncService;
 import ui.UIFactory;
 
 /**
@@ -38,6 +39,7 @@ public class SupplierFormView extends JPanel {
     
     // Data access
     private SupplierDao supplierDao;
+    private final AsyncService.RequestSlot saveRequest = new AsyncService.RequestSlot(this);
     
     // Callback for form submission
     private FormSubmissionCallback callback;
@@ -267,7 +269,7 @@ public class SupplierFormView extends JPanel {
             @Override
             public void actionPerformed(ActionEvent e) {
                 if (validateForm()) {
-                    saveSupplier();
+                    checkAndSaveSupplier();
                 }
             }
         });
@@ -289,13 +291,6 @@ public class SupplierFormView extends JPanel {
             } else if (!supplierCodeField.getText().matches("[A-Za-z0-9-]+")) {
                 supplierCodeValidationLabel.setText("Only letters, numbers, and hyphens allowed");
                 isValid = false;
-            } else {
-                // Check if code already exists
-                Supplier existingSupplier = supplierDao.findSupplierByCode(supplierCodeField.getText().trim());
-                if (existingSupplier != null) {
-                    supplierCodeValidationLabel.setText("Supplier code already exists");
-                    isValid = false;
-                }
             }
         }
         
@@ -321,47 +316,69 @@ public class SupplierFormView extends JPanel {
         return email.matches(emailRegex);
     }
     
-    private void saveSupplier() {
-        try {
-            Supplier supplier;
-            
-            if (editMode && currentSupplier != null) {
-                supplier = currentSupplier;
-            } else {
-                supplier = new Supplier();
-                supplier.setSupplierCode(supplierCodeField.getText().trim());
-            }
-            
-            supplier.setName(nameField.getText().trim());
-            supplier.setContactPerson(contactPersonField.getText().trim());
-            supplier.setEmail(emailField.getText().trim());
-            supplier.setPhone(phoneField.getText().trim());
-            supplier.setAddress(addressArea.getText().trim());
-            
-            int result;
-            if (editMode) {
-                result = supplierDao.updateSupplier(supplier);
-            } else {
-                result = supplierDao.createSupplier(supplier);
-            }
-            
-            if (result > 0) {
-                if (callback != null) {
-                    callback.onSave(supplier);
+    /**
+     * Checks in the background that a new supplier's code is not taken yet,
+     * then saves the supplier
+     */
+    private void checkAndSaveSupplier() {
+        if (editMode) { // The code cannot be changed in edit mode
+            saveSupplier();
+            return;
+        }
+        String supplierCode = supplierCodeField.getText().trim();
+        
+        saveButton.setEnabled(false);
+        saveRequest.run(() -> supplierDao.findSupplierByCode(supplierCode) != null,
+            exists -> {
+                if (exists) {
+                    supplierCodeValidationLabel.setText("Supplier code already exists");
+                    saveButton.setEnabled(true);
+                } else {
+                    saveSupplier();
                 }
-            } else {
-                JOptionPane.showMessageDialog(this,
-                    "Failed to " + (editMode ? "update" : "create") + " supplier.",
-                    "Database Error",
-                    JOptionPane.ERROR_MESSAGE);
-            }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this,
-                "Error saving supplier: " + ex.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
+            },
+            error -> {
+                saveButton.setEnabled(true);
+                AsyncService.showError(this, "checking supplier", error);
+            });
+    }
+    
+    private void saveSupplier() {
+        Supplier supplier;
+        
+        if (editMode && currentSupplier != null) {
+            supplier = currentSupplier;
+        } else {
+            supplier = new Supplier();
+            supplier.setSupplierCode(supplierCodeField.getText().trim());
         }
+        
+        supplier.setName(nameField.getText().trim());
+        supplier.setContactPerson(contactPersonField.getText().trim());
+        supplier.setEmail(emailField.getText().trim());
+        supplier.setPhone(phoneField.getText().trim());
+        supplier.setAddress(addressArea.getText().trim());
+        
+        saveButton.setEnabled(false);
+        saveRequest.run(
+            () -> editMode ? supplierDao.updateSupplier(supplier) : supplierDao.createSupplier(supplier),
+            result -> {
+                saveButton.setEnabled(true);
+                if (result > 0) {
+                    if (callback != null) {
+                        callback.onSave(supplier);
+                    }
+                } else {
+                    JOptionPane.showMessageDialog(this,
+                        "Failed to " + (editMode ? "update" : "create") + " supplier.",
+                        "Database Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            },
+            error -> {
+                saveButton.setEnabled(true);
+                AsyncService.showError(this, "saving supplier", error);
+            });
     }
     
     private void populateFields(Supplier supplier) {
@@ -2,10 +2,11 @@ package ui.supplier;
 
 import model.Supplier;
 import dao.SupplierDao;
+import dao.Page;
+import dao.SearchResult;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -14,6 +15,12 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import ui.AsyncService;
+import ui.ChangeLoader;
+import ui.ChangeWatcher;
+import ui.EntityTableModel;
 import ui.UIFactory;
 
 /**
@@ -23,8 +30,8 @@ import ui.UIFactory;
 public class SupplierListView extends JPanel {
     // Table components
     private JTable supplierTable;
-    private DefaultTableModel tableModel;
-    private TableRowSorter<DefaultTableModel> tableSorter;
+    private EntityTableModel<Supplier> tableModel;
+    private TableRowSorter<EntityTableModel<Supplier>> tableSorter;
     
     // Search and filter components
     private JTextField searchField;
@@ -37,10 +44,23 @@ public class SupplierListView extends JPanel {
     private JButton refreshButton;
     private JButton viewProductsButton;
     
-    // Supplier data and DAO
-    private List<Supplier> supplierList;
+    // Supplier DAO; the suppliers shown are held by tableModel
     private SupplierDao supplierDao;
     
+    // Paging state; suppliers are loaded a page at a time as the table is scrolled
+    private static final int PAGE_SIZE = Page.DEFAULT_PAGE_SIZE;
+    private int lastLoadedId;
+    private boolean hasMorePages;
+    private long estimatedTotal = -1;
+    private JLabel pageInfoLabel;
+    private final AsyncService.RequestSlot pageRequest = new AsyncService.RequestSlot(this);
+    private final ChangeLoader<Supplier> changeLoader =
+        new ChangeLoader<>(id -> supplierDao.findSupplierById(id), this::mergeChanges, "suppliers");
+    
+    // Database search; while a search is active the list holds its results, best match first
+    private String activeSearch;
+    private int searchOffset;
+    
     // Callback for list actions
     private SupplierListCallback callback;
     
@@ -61,10 +81,12 @@ public class SupplierListView extends JPanel {
     public SupplierListView(SupplierListCallback callback) {
         this.callback = callback;
         this.supplierDao = new SupplierDao();
-        this.supplierList = new ArrayList<>();
         
         initializeUI();
         loadData();
+        
+        // Keep the list in step with changes made by this and other clients
+        new ChangeWatcher(this, "suppliers", this::applyChanges);
     }
     
     private void initializeUI() {
@@ -87,18 +109,109 @@ public class SupplierListView extends JPanel {
     }
     
     /**
-     * Loads supplier data from the database
+     * Loads the first page of supplier data from the database
      */
     private void loadData() {
-        try {
-            this.supplierList = supplierDao.findAllSuppliers();
-            refreshTableData();
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this,
-                "Error loading supplier data: " + ex.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
+        pageRequest.cancel();
+        this.activeSearch = null;
+        tableModel.clear();
+        this.lastLoadedId = 0;
+        this.hasMorePages = true;
+        this.estimatedTotal = -1;
+        refreshTableData();
+        loadNextPage();
+    }
+    
+    /**
+     * Reloads the supplier list from the first page, repeating the active search
+     */
+    public void reload() {
+        if (activeSearch != null) {
+            searchDatabase(activeSearch);
+        } else {
+            loadData();
+        }
+    }
+    
+    /**
+     * Loads the next page of suppliers and appends it to the table
+     */
+    private void loadNextPage() {
+        if (!hasMorePages || pageRequest.isLoading()) {
+            return;
+        }
+        pageInfoLabel.setText("Loading suppliers...");
+        if (activeSearch != null) {
+            String searchText = activeSearch;
+            int offset = searchOffset;
+            pageRequest.run(
+                () -> supplierDao.searchSuppliers(searchText, offset, PAGE_SIZE),
+                this::addSearchPage,
+                error -> {
+                    hasMorePages = false;
+                    updatePageInfo();
+                    AsyncService.showError(this, "searching suppliers", error);
+                });
+            return;
+        }
+        int afterId = lastLoadedId;
+        pageRequest.run(
+            () -> supplierDao.findSuppliersPage(afterId, PAGE_SIZE),
+            this::addPage,
+            error -> {
+                hasMorePages = false;
+                updatePageInfo();
+                AsyncService.showError(this, "loading supplier data", error);
+            });
+    }
+    
+    /**
+     * Appends a loaded page of suppliers to the table
+     * 
+     * @param page The page loaded by loadNextPage
+     */
+    private void addPage(Page<Supplier> page) {
+        if (page.getEstimatedTotal() >= 0) {
+            estimatedTotal = page.getEstimatedTotal();
+        }
+        hasMorePages = page.hasMore();
+        
+        // Suppliers added in this view after the last loaded page arrive again with a page; their rows are updated
+        tableModel.addAll(page.getItems());
+        if (!page.isEmpty()) {
+            lastLoadedId = page.getLast().getId();
+        }
+        updatePageInfo();
+    }
+    
+    /**
+     * Appends a loaded page of search results to the table
+     * 
+     * @param page The page loaded by loadNextPage
+     */
+    private void addSearchPage(Page<SearchResult<Supplier>> page) {
+        hasMorePages = page.hasMore();
+        searchOffset += page.getItems().size();
+        for (SearchResult<Supplier> result : page.getItems()) {
+            tableModel.add(result.getItem());
+        }
+        updatePageInfo();
+    }
+    
+    /**
+     * Shows how many suppliers are loaded
+     */
+    private void updatePageInfo() {
+        if (activeSearch != null) {
+            pageInfoLabel.setText("Showing " + tableModel.getRowCount() + " suppliers matching \"" + activeSearch + "\"" +
+                                  (hasMorePages ? ". Scroll down to load more." : ""));
+            return;
+        }
+        if (hasMorePages && estimatedTotal > tableModel.getRowCount()) {
+            pageInfoLabel.setText("Showing " + tableModel.getRowCount() + " of about " + estimatedTotal +
+                                  " suppliers. Scroll down to load more.");
+        } else {
+            pageInfoLabel.setText("Showing " + tableModel.getRowCount() + " suppliers");
         }
     }
     
@@ -130,13 +243,15 @@ public class SupplierListView extends JPanel {
         // Add search panel to the header
         headerPanel.add(searchPanel, BorderLayout.EAST);
         
-        // Add search action
-        searchButton.addActionListener(new ActionListener() {
+        // Add search action; searches all suppliers in the database
+        ActionListener searchAction = new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                applyFilter();
+                searchDatabase(searchField.getText().trim());
             }
-        });
+        };
+        searchButton.addActionListener(searchAction);
+        searchField.addActionListener(searchAction);
         
         // Add filter change action
         filterComboBox.addActionListener(new ActionListener() {
@@ -159,12 +274,7 @@ public class SupplierListView extends JPanel {
         
         // Create the table model with column names
         String[] columnNames = {"ID", "Supplier Code", "Name", "Contact Person", "Email", "Phone"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Make all cells non-editable
-            }
-        };
+        tableModel = new EntityTableModel<>(columnNames, Supplier::getId, this::toRowData);
         
         // Create and set up the table
         supplierTable = UIFactory.createStyledTable(tableModel);
@@ -208,6 +318,7 @@ public class SupplierListView extends JPanel {
         
         // Add the table to a scroll pane
         JScrollPane scrollPane = UIFactory.createScrollPane(supplierTable);
+        UIFactory.addScrollEndListener(scrollPane, this::loadNextPage);
         panel.add(scrollPane, BorderLayout.CENTER);
         
         return panel;
@@ -222,6 +333,16 @@ public class SupplierListView extends JPanel {
         infoLabel.setFont(UIFactory.SMALL_FONT);
         infoLabel.setForeground(UIFactory.MEDIUM_GRAY);
         
+        pageInfoLabel = new JLabel("");
+        pageInfoLabel.setFont(UIFactory.SMALL_FONT);
+        pageInfoLabel.setForeground(UIFactory.MEDIUM_GRAY);
+        
+        JPanel infoPanel = new JPanel();
+        infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
+        infoPanel.setOpaque(false);
+        infoPanel.add(infoLabel);
+        infoPanel.add(pageInfoLabel);
+        
         // Action buttons (right side)
         JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
         buttonsPanel.setOpaque(false);
@@ -246,7 +367,7 @@ public class SupplierListView extends JPanel {
         buttonsPanel.add(editButton);
         buttonsPanel.add(addButton);
         
-        panel.add(infoLabel, BorderLayout.WEST);
+        panel.add(infoPanel, BorderLayout.WEST);
         panel.add(buttonsPanel, BorderLayout.EAST);
         
         // Register button actions
@@ -331,24 +452,10 @@ public class SupplierListView extends JPanel {
     }
     
     /**
-     * Refreshes the table data with the current supplier list
+     * Resets the selection and filters after the rows were replaced
      */
     private void refreshTableData() {
-        // Clear the table
-        tableModel.setRowCount(0);
-        
-        // Populate the table with data
-        for (Supplier supplier : supplierList) {
-            Object[] rowData = {
-                supplier.getId(),
-                supplier.getSupplierCode(),
-                supplier.getName(),
-                supplier.getContactPerson(),
-                supplier.getEmail(),
-                supplier.getPhone()
-            };
-            tableModel.addRow(rowData);
-        }
+        updatePageInfo();
         
         // Reset selection and filters
         supplierTable.clearSelection();
@@ -361,37 +468,62 @@ public class SupplierListView extends JPanel {
     }
     
     /**
-     * Applies search and filter criteria to the table
+     * Gets the table cells of a supplier
+     * 
+     * @param supplier The supplier
+     * @return The cell values, one per column
+     */
+    private Object[] toRowData(Supplier supplier) {
+        return new Object[] {
+            supplier.getId(),
+            supplier.getSupplierCode(),
+            supplier.getName(),
+            supplier.getContactPerson(),
+            supplier.getEmail(),
+            supplier.getPhone()
+        };
+    }
+    
+    /**
+     * Searches all suppliers in the database by the columns of the list and
+     * shows the results.
+     * An empty search text goes back to browsing all suppliers.
+     * 
+     * @param searchText The text to search for
+     */
+    private void searchDatabase(String searchText) {
+        if (searchText.isEmpty()) {
+            if (activeSearch != null) {
+                loadData();
+            }
+            return;
+        }
+        pageRequest.cancel();
+        tableModel.clear();
+        this.activeSearch = searchText;
+        this.searchOffset = 0;
+        this.lastLoadedId = Integer.MAX_VALUE; // Suppliers created later are not added to the results
+        this.hasMorePages = true;
+        refreshTableData();
+        loadNextPage();
+    }
+    
+    /**
+     * Applies the filter criteria to the table
      */
     private void applyFilter() {
-        RowFilter<DefaultTableModel, Object> filter = null;
-        
-        // Get search text
-        String searchText = searchField.getText().trim().toLowerCase();
+        RowFilter<EntityTableModel<Supplier>, Integer> filter = null;
         
         // Get filter selection
         String filterSelection = (String) filterComboBox.getSelectedItem();
         
-        // Combined filter for search text and filter selection
-        if (!searchText.isEmpty() || !"All Suppliers".equals(filterSelection)) {
-            filter = new RowFilter<DefaultTableModel, Object>() {
+        // The search text is matched by the database, see searchDatabase
+        if (!"All Suppliers".equals(filterSelection)) {
+            filter = new RowFilter<EntityTableModel<Supplier>, Integer>() {
                 @Override
-                public boolean include(Entry<? extends DefaultTableModel, ? extends Object> entry) {
-                    boolean matchesSearch = true;
+                public boolean include(Entry<? extends EntityTableModel<Supplier>, ? extends Integer> entry) {
                     boolean matchesFilter = true;
                     
-                    // Apply search text filter
-                    if (!searchText.isEmpty()) {
-                        matchesSearch = false;
-                        for (int i = 1; i < entry.getValueCount(); i++) { // Skip ID column
-                            Object value = entry.getValue(i);
-                            if (value != null && value.toString().toLowerCase().contains(searchText)) {
-                                matchesSearch = true;
-                                break;
-                            }
-                        }
-                    }
-                    
                     // Apply selection filter
                     if (!"All Suppliers".equals(filterSelection)) {
                         // In a real application, this would filter based on an active/inactive field
@@ -401,7 +533,7 @@ public class SupplierListView extends JPanel {
                         }
                     }
                     
-                    return matchesSearch && matchesFilter;
+                    return matchesFilter;
                 }
             };
         }
@@ -416,15 +548,7 @@ public class SupplierListView extends JPanel {
      * @return The Supplier object or null if not found
      */
     private Supplier getSupplierAtRow(int modelRow) {
-        if (modelRow >= 0 && modelRow < tableModel.getRowCount()) {
-            int supplierId = (int) tableModel.getValueAt(modelRow, 0);
-            for (Supplier supplier : supplierList) {
-                if (supplier.getId() == supplierId) {
-                    return supplier;
-                }
-            }
-        }
-        return null;
+        return tableModel.getItemAt(modelRow);
     }
     
     /**
@@ -433,11 +557,11 @@ public class SupplierListView extends JPanel {
      * @param supplier The supplier to delete
      */
     private void deleteSupplier(Supplier supplier) {
-        try {
-            int result = supplierDao.deleteSupplier(supplier.getId());
-            if (result > 0) {
-                supplierList.removeIf(s -> s.getId() == supplier.getId());
-                refreshTableData();
+        AsyncService.getInstance().runWrite(this, "deleting supplier",
+            () -> supplierDao.deleteSupplier(supplier.getId()) > 0, result -> {
+            if (result) {
+                tableModel.remove(supplier.getId());
+                updatePageInfo();
                 JOptionPane.showMessageDialog(this,
                     "Supplier deleted successfully.",
                     "Success",
@@ -452,13 +576,41 @@ public class SupplierListView extends JPanel {
                     "Delete Failed",
                     JOptionPane.ERROR_MESSAGE);
             }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this,
-                "Error deleting supplier: " + ex.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
+        });
+    }
+    
+    /**
+     * Applies changes made to suppliers by this or other clients. Loaded rows
+     * are re-read, deleted suppliers are removed and new ones are added.
+     * 
+     * @param ids The IDs of the changed suppliers
+     * @param allRows true if the changed rows are not known
+     */
+    private void applyChanges(Set<Integer> ids, boolean allRows) {
+        if (allRows) {
+            changeLoader.clear();
+            reload();
+            return;
+        }
+        changeLoader.load(ids);
+    }
+    
+    /**
+     * Merges re-read suppliers into the table; the selection is kept
+     * 
+     * @param changed The current state of each changed supplier, null if it was deleted
+     */
+    private void mergeChanges(Map<Integer, Supplier> changed) {
+        for (Map.Entry<Integer, Supplier> change : changed.entrySet()) {
+            Supplier supplier = change.getValue();
+            if (supplier == null) {
+                tableModel.remove(change.getKey());
+            } else if (tableModel.contains(supplier.getId()) || supplier.getId() > lastLoadedId) {
+                // Loaded rows are updated; suppliers created since the last page was loaded are added
+                tableModel.add(supplier);
+            }
         }
+        updatePageInfo();
     }
     
     /**
@@ -467,48 +619,43 @@ public class SupplierListView extends JPanel {
      * @param suppliers New list of suppliers
      */
     public void updateSuppliers(List<Supplier> suppliers) {
-        this.supplierList = suppliers != null ? suppliers : new ArrayList<>();
+        pageRequest.cancel();
+        tableModel.setItems(suppliers != null ? suppliers : new ArrayList<>());
+        this.hasMorePages = false; // The caller supplied the complete list
         refreshTableData();
     }
     
     /**
-     * Adds a supplier to the list and refreshes the table
+     * Adds a supplier to the table
      * 
      * @param supplier Supplier to add
      */
     public void addSupplier(Supplier supplier) {
         if (supplier != null && supplier.getId() > 0) {
-            this.supplierList.add(supplier);
-            refreshTableData();
+            tableModel.add(supplier);
+            updatePageInfo();
         }
     }
     
     /**
-     * Updates a supplier in the list and refreshes the table
+     * Updates a supplier's row in the table
      * 
      * @param supplier Supplier to update
      */
     public void updateSupplier(Supplier supplier) {
         if (supplier != null) {
-            for (int i = 0; i < supplierList.size(); i++) {
-                if (supplierList.get(i).getId() == supplier.getId()) {
-                    supplierList.set(i, supplier);
-                    break;
-                }
-            }
-            refreshTableData();
+            tableModel.update(supplier);
         }
     }
     
     /**
-     * Removes a supplier from the list and refreshes the table
+     * Removes a supplier from the table
      * 
      * @param supplier Supplier to remove
      */
     public void removeSupplier(Supplier supplier) {
-        if (supplier != null) {
-            supplierList.removeIf(s -> s.getId() == supplier.getId());
-            refreshTableData();
+        if (supplier != null && tableModel.remove(supplier.getId())) {
+            updatePageInfo();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class for reading and writing delimited text (CSV/TSV) lines.
+ * Fields may be wrapped in double quotes; a doubled quote inside a quoted
+ * field stands for a literal quote. Quoted fields cannot span lines.
+ */
+public class CsvUtil {
+    public static final char COMMA = ',';
+    public static final char TAB = '\t';
+    
+    /**
+     * Splits a single line into its fields
+     * 
+     * @param line The line to split
+     * @param delimiter The field delimiter
+     * @return The fields, unquoted
+     * @throws IllegalArgumentException If a quoted field is not terminated
+     */
+    public static String[] parseLine(String line, char delimiter) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+    
+    /**
+     * Joins fields into a single line, quoting fields where needed
+     * 
+     * @param fields The fields to join
+     * @param delimiter The field delimiter
+     * @return The formatted line
+     */
+    public static String formatLine(String[] fields, char delimiter) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                line.append(delimiter);
+            }
+            line.append(quote(fields[i], delimiter));
+        }
+        return line.toString();
+    }
+    
+    /**
+     * Quotes a field if it contains the delimiter, a quote or a line break
+     * 
+     * @param field The field value
+     * @param delimiter The field delimiter
+     * @return The field, quoted if necessary
+     */
+    public static String quote(String field, char delimiter) {
+        if (field == null) {
+            return "";
+        }
+        if (field.indexOf(delimiter) < 0 && field.indexOf('"') < 0
+                && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            return field;
+        }
+        return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,94 @@
+package dao;
+
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Compares the per-query latency of a primary key lookup with a new
+ * connection per query (DirectConnectionProvider, as the DAOs did before
+ * the pool) and with pooled connections (ConnectionPool). Each query
+ * includes getting and closing the connection, as in a DAO method.
+ * Runs against the test database, see TestDatabase.
+ */
+public class ConnectionPoolBenchmark {
+    private static final int WARMUP_QUERIES = 50;
+    private static final int QUERIES = 500;
+    private static final String QUERY = "SELECT * FROM customers WHERE id = ?";
+    
+    private PoolConfig config;
+    
+    @Before
+    public void setUp() {
+        TestDatabase.use();
+        config = PoolConfig.fromProperties(TestDatabase.properties());
+    }
+    
+    @Test
+    public void compareLatency() throws SQLException {
+        long[] direct = measure(new DirectConnectionProvider(config));
+        long[] pooled = measure(new ConnectionPool(config));
+        
+        System.out.println("ConnectionPoolBenchmark: direct " + summary(direct));
+        System.out.println("ConnectionPoolBenchmark: pooled " + summary(pooled));
+        assertTrue("Pooled queries should be faster than opening a connection per query",
+                   percentile(pooled, 50) < percentile(direct, 50));
+    }
+    
+    /**
+     * Runs the query QUERIES times after a warm-up
+     * 
+     * @param provider The connection source to measure; closed afterwards
+     * @return The latency of each query in nanoseconds, sorted
+     */
+    private static long[] measure(ConnectionProvider provider) throws SQLException {
+        try {
+            for (int i = 0; i < WARMUP_QUERIES; i++) {
+                query(provider, i);
+            }
+            long[] nanos = new long[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                long start = System.nanoTime();
+                query(provider, i);
+                nanos[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(nanos);
+            return nanos;
+        } finally {
+            provider.close();
+        }
+    }
+    
+    private static void query(ConnectionProvider provider, int id) throws SQLException {
+        try (Connection con = provider.getConnection()) {
+            PreparedStatement pst = con.prepareStatement(QUERY);
+            pst.setInt(1, id);
+            ResultSet rs = pst.executeQuery();
+            while (rs.next()) {
+                rs.getString("customer_id");
+            }
+            rs.close();
+            pst.close();
+        }
+    }
+    
+    private static long percentile(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+    
+    private static String summary(long[] sorted) {
+        long total = 0;
+        for (long nanos : sorted) {
+            total += nanos;
+        }
+        return String.format("mean %.1f us, p50 %.1f us, p99 %.1f us over %d queries",
+                             total / 1000.0 / sorted.length, percentile(sorted, 50) / 1000.0,
+                             percentile(sorted, 99) / 1000.0, sorted.length);
+    }
+}
\ No newline at end of file
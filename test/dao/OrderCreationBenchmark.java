@@ -0,0 +1,130 @@
+package dao;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import model.Order;
+import model.OrderItem;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Measures OrderDao.createOrder for orders of 1, 10, 100 and 1000 lines.
+ * Runs against the test database, see TestDatabase, and is skipped if there
+ * is none. The orders are deleted through OrderDao afterwards, which also
+ * takes them out of the rollups, and then the generated products and
+ * customer are deleted.
+ */
+public class OrderCreationBenchmark {
+    private static final int[] LINE_COUNTS = { 1, 10, 100, 1000 };
+    // Fewer repetitions for the bigger orders keep the run short
+    private static final int[] REPETITIONS = { 50, 20, 10, 3 };
+    private static final BigDecimal UNIT_PRICE = new BigDecimal("2.50");
+    
+    // Prefix of every generated code, unique per run
+    private final String prefix = "BENCH-" + System.currentTimeMillis();
+    private final OrderDao orderDao = new OrderDao();
+    private final List<Integer> orderIds = new ArrayList<>();
+    private List<Integer> productIds;
+    private int customerId;
+    
+    @Before
+    public void setUp() throws SQLException {
+        TestDatabase.use();
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            PreparedStatement pst = con.prepareStatement(
+                "INSERT INTO customers (customer_id, first_name, last_name, registration_date) " +
+                "VALUES (?, 'Benchmark', 'Customer', CURRENT_DATE) RETURNING id");
+            pst.setString(1, prefix);
+            ResultSet rs = pst.executeQuery();
+            rs.next();
+            customerId = rs.getInt(1);
+            rs.close();
+            pst.close();
+            
+            // Enough stock for every order of the run
+            pst = con.prepareStatement(
+                "INSERT INTO products (product_code, name, price, stock_quantity, category, supplier_id) " +
+                "SELECT ? || '-' || n, 'Benchmark product ' || n, ?, 1000000, 'Benchmark', 0 " +
+                "FROM generate_series(1, ?) n RETURNING id");
+            pst.setString(1, prefix);
+            pst.setBigDecimal(2, UNIT_PRICE);
+            pst.setInt(3, LINE_COUNTS[LINE_COUNTS.length - 1]);
+            rs = pst.executeQuery();
+            productIds = new ArrayList<>();
+            while (rs.next()) {
+                productIds.add(rs.getInt(1));
+            }
+            rs.close();
+            pst.close();
+        }
+    }
+    
+    @After
+    public void tearDown() throws SQLException {
+        if (productIds == null) {
+            return;
+        }
+        for (int orderId : orderIds) {
+            orderDao.deleteOrder(orderId);
+        }
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            PreparedStatement pst = con.prepareStatement("DELETE FROM products WHERE product_code LIKE ?");
+            pst.setString(1, prefix + "-%");
+            pst.executeUpdate();
+            pst.close();
+            
+            pst = con.prepareStatement("DELETE FROM customers WHERE id = ?");
+            pst.setInt(1, customerId);
+            pst.executeUpdate();
+            pst.close();
+        }
+    }
+    
+    @Test
+    public void createOrders() {
+        for (int i = 0; i < LINE_COUNTS.length; i++) {
+            int lines = LINE_COUNTS[i];
+            // One untimed order warms up the statements and the JIT
+            create(lines, "W" + i);
+            
+            long start = System.nanoTime();
+            for (int repetition = 0; repetition < REPETITIONS[i]; repetition++) {
+                create(lines, i + "-" + repetition);
+            }
+            double millisPerOrder = (System.nanoTime() - start) / 1e6 / REPETITIONS[i];
+            System.out.println(String.format("OrderCreationBenchmark: %4d lines: %8.2f ms per order, %6.3f ms per line",
+                                             lines, millisPerOrder, millisPerOrder / lines));
+        }
+    }
+    
+    /**
+     * Creates an order with one line per product for the first lines products
+     */
+    private void create(int lines, String suffix) {
+        Order order = new Order();
+        order.setOrderId(prefix + "-" + suffix);
+        order.setCustomerId(customerId);
+        order.setPaymentMethod("Cash");
+        List<OrderItem> items = new ArrayList<>(lines);
+        for (int line = 0; line < lines; line++) {
+            OrderItem item = new OrderItem();
+            item.setProductId(productIds.get(line));
+            item.setQuantity(1);
+            item.setUnitPrice(UNIT_PRICE);
+            items.add(item);
+        }
+        order.setOrderItems(items);
+        order.setTotalAmount(UNIT_PRICE.multiply(BigDecimal.valueOf(lines)));
+        
+        assertEquals("Order " + order.getOrderId() + " was not created", 1, orderDao.createOrder(order));
+        orderIds.add(order.getId());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,161 @@
+package dao;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import model.Invoice;
+import model.Order;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import util.CsvUtil;
+
+/**
+ * Measures the throughput of PaymentImportDao on a generated statement file.
+ * Runs against the test database, see TestDatabase, and is skipped if there
+ * is none. Only the rows it created are deleted afterwards, and its
+ * payments are taken back out of the daily payment rollup.
+ */
+public class PaymentImportBenchmark {
+    private static final int INVOICES = 1000;
+    private static final int PAYMENTS_PER_INVOICE = 20;
+    
+    // Prefix of every generated code, unique per run
+    private final String prefix = "BENCH-" + System.currentTimeMillis();
+    private File input;
+    private File rejectFile;
+    
+    @Before
+    public void setUp() throws IOException {
+        TestDatabase.use();
+        input = File.createTempFile("payments", ".csv");
+        rejectFile = File.createTempFile("payments", ".rejects");
+    }
+    
+    @After
+    public void tearDown() throws SQLException {
+        if (input == null) {
+            return;
+        }
+        input.delete();
+        rejectFile.delete();
+        
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            con.setAutoCommit(false);
+            PreparedStatement pst = con.prepareStatement(
+                "WITH deleted AS (DELETE FROM payments WHERE invoice_id IN " +
+                "(SELECT id FROM invoices WHERE invoice_number LIKE ?) RETURNING payment_date, amount) " +
+                "SELECT payment_date, COUNT(*), SUM(amount) FROM deleted GROUP BY payment_date");
+            pst.setString(1, prefix + "-%");
+            ResultSet rs = pst.executeQuery();
+            while (rs.next()) {
+                MetricsRollup.addPayments(con, rs.getDate(1).toLocalDate(), -rs.getInt(2), rs.getBigDecimal(3).negate());
+            }
+            rs.close();
+            pst.close();
+            
+            execute(con, "DELETE FROM invoices WHERE invoice_number LIKE ?", prefix + "-%");
+            execute(con, "DELETE FROM orders WHERE order_id = ?", prefix);
+            execute(con, "DELETE FROM customers WHERE customer_id = ?", prefix);
+            con.commit();
+        }
+    }
+    
+    @Test
+    public void importPayments() throws IOException, SQLException {
+        createInvoices();
+        int rows = writeStatement();
+        
+        PaymentImportResult result = new PaymentImportDao().importPayments(input, CsvUtil.COMMA, rejectFile);
+        System.out.println("PaymentImportBenchmark: " + result);
+        
+        assertEquals(rows, result.getRowsImported());
+        assertEquals(0, result.getRowsRejected());
+        assertEquals(INVOICES, result.getInvoicesSettled());
+        assertEquals(INVOICES, countPaidInvoices());
+    }
+    
+    /**
+     * Creates a customer with one order and INVOICES invoices of
+     * PAYMENTS_PER_INVOICE.00 each, numbered prefix-1 to prefix-INVOICES
+     */
+    private void createInvoices() throws SQLException {
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            execute(con, "INSERT INTO customers (customer_id, first_name, last_name, registration_date) " +
+                         "VALUES (?, 'Benchmark', 'Customer', CURRENT_DATE)", prefix);
+            execute(con, "INSERT INTO orders (order_id, customer_id, order_date, status) " +
+                         "SELECT ?, id, CURRENT_DATE, ? FROM customers WHERE customer_id = ?",
+                    prefix, Order.STATUS_PENDING, prefix);
+            
+            PreparedStatement pst = con.prepareStatement(
+                "INSERT INTO invoices (invoice_number, order_id, issue_date, due_date, amount, status) " +
+                "SELECT ? || '-' || n, o.id, CURRENT_DATE, CURRENT_DATE + 30, ?, ? " +
+                "FROM orders o, generate_series(1, ?) n WHERE o.order_id = ?");
+            pst.setString(1, prefix);
+            pst.setInt(2, PAYMENTS_PER_INVOICE);
+            pst.setString(3, Invoice.STATUS_ISSUED);
+            pst.setInt(4, INVOICES);
+            pst.setString(5, prefix);
+            pst.executeUpdate();
+            pst.close();
+        }
+    }
+    
+    /**
+     * Writes a statement file that pays every invoice in full, one unit per
+     * row, with the invoices interleaved as in a real statement
+     * 
+     * @return The number of payment rows written
+     */
+    private int writeStatement() throws IOException {
+        String today = LocalDate.now().toString();
+        int rows = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(input.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(CsvUtil.formatLine(PaymentImportDao.COLUMNS, CsvUtil.COMMA));
+            writer.newLine();
+            for (int payment = 1; payment <= PAYMENTS_PER_INVOICE; payment++) {
+                for (int invoice = 1; invoice <= INVOICES; invoice++) {
+                    String[] fields = { prefix + "-" + invoice + "-" + payment, prefix + "-" + invoice,
+                                        "1.00", today, "Bank Transfer" };
+                    writer.write(CsvUtil.formatLine(fields, CsvUtil.COMMA));
+                    writer.newLine();
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+    
+    private int countPaidInvoices() throws SQLException {
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            PreparedStatement pst = con.prepareStatement(
+                "SELECT count(*) FROM invoices WHERE invoice_number LIKE ? AND status = ?");
+            pst.setString(1, prefix + "-%");
+            pst.setString(2, Invoice.STATUS_PAID);
+            ResultSet rs = pst.executeQuery();
+            rs.next();
+            int count = rs.getInt(1);
+            rs.close();
+            pst.close();
+            return count;
+        }
+    }
+    
+    private static void execute(Connection con, String sql, String... parameters) throws SQLException {
+        PreparedStatement pst = con.prepareStatement(sql);
+        for (int i = 0; i < parameters.length; i++) {
+            pst.setString(i + 1, parameters[i]);
+        }
+        pst.executeUpdate();
+        pst.close();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,115 @@
+package dao;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that the DAO access paths are served by the indexes created by
+ * SchemaMigrator. Runs against the test database, see TestDatabase; the
+ * tests are skipped if there is none.
+ * 
+ * The test tables may be small or empty, so sequential scans are disabled
+ * and each plan is checked for the expected index.
+ */
+public class SchemaMigratorTest {
+    private Connection con;
+    
+    @BeforeClass
+    public static void migrate() {
+        TestDatabase.use();
+    }
+    
+    @Before
+    public void setUp() throws SQLException {
+        con = DbConnection.getInstance().getConnection();
+        con.setAutoCommit(false);
+        Statement stmt = con.createStatement();
+        stmt.execute("SET LOCAL enable_seqscan = off");
+        stmt.close();
+    }
+    
+    @After
+    public void tearDown() throws SQLException {
+        con.rollback();
+        con.setAutoCommit(true);
+        con.close();
+    }
+    
+    @Test
+    public void ordersOfCustomerUseIndex() throws SQLException {
+        assertIndexScan("SELECT * FROM orders WHERE customer_id = 1 ORDER BY order_date",
+                        "orders_customer_id_order_date_idx");
+    }
+    
+    @Test
+    public void ordersByStatusUseIndex() throws SQLException {
+        assertIndexScan("SELECT * FROM orders WHERE status = 'Pending' AND order_date >= DATE '2024-01-01'",
+                        "orders_status_order_date_idx");
+    }
+    
+    @Test
+    public void ordersByDateUseIndex() throws SQLException {
+        assertIndexScan("SELECT * FROM orders WHERE (order_date, id) > (DATE '2024-01-01', 0) " +
+                        "ORDER BY order_date, id LIMIT 50",
+                        "orders_order_date_id_idx");
+    }
+    
+    @Test
+    public void itemsOfOrderUseIndex() throws SQLException {
+        assertIndexScan("SELECT * FROM order_items WHERE order_id = 1", "order_items_order_id_idx");
+    }
+    
+    @Test
+    public void itemsOfProductUseIndex() throws SQLException {
+        assertIndexScan("SELECT * FROM order_items WHERE product_id = 1", "order_items_product_id_idx");
+    }
+    
+    @Test
+    public void paymentsOfInvoiceUseIndex() throws SQLException {
+        assertIndexScan("SELECT * FROM payments WHERE invoice_id = 1 ORDER BY payment_date",
+                        "payments_invoice_id_payment_date_idx");
+    }
+    
+    @Test
+    public void openInvoicesByDueDateUseIndex() throws SQLException {
+        assertIndexScan("SELECT * FROM invoices WHERE due_date < CURRENT_DATE AND " + InvoiceDao.OPEN_INVOICE_CONDITION,
+                        "invoices_open_due_date_idx");
+    }
+    
+    @Test
+    public void productsByCategoryUseIndex() throws SQLException {
+        assertIndexScan("SELECT * FROM products WHERE category = 'Electronics'", "products_category_idx");
+    }
+    
+    @Test
+    public void productsOfSupplierUseIndex() throws SQLException {
+        assertIndexScan("SELECT * FROM products WHERE supplier_id = 1", "products_supplier_id_idx");
+    }
+    
+    /**
+     * Asserts that the plan of a query reads through the given index and
+     * does not scan a table
+     */
+    private void assertIndexScan(String query, String index) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        Statement stmt = con.createStatement();
+        ResultSet rs = stmt.executeQuery("EXPLAIN " + query);
+        while (rs.next()) {
+            plan.append(rs.getString(1)).append('\n');
+        }
+        rs.close();
+        stmt.close();
+        
+        assertTrue("Expected " + index + " in plan:\n" + plan, plan.indexOf(index) >= 0);
+        assertFalse("Unexpected sequential scan in plan:\n" + plan, plan.indexOf("Seq Scan") >= 0);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package dao;
+
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeNoException;
+import static org.junit.Assume.assumeTrue;
+
+import java.sql.Connection;
+import java.util.Properties;
+
+/**
+ * Points DbConnection at a dedicated test database for the tests and
+ * benchmarks that need one.
+ * 
+ * The database is given with -Dtest.db.url (and -Dtest.db.user,
+ * -Dtest.db.password), in NetBeans as test-sys-prop.test.db.url in
+ * project.properties. Without it, or if the database cannot be reached or
+ * the driver is missing, the calling tests are skipped. The database in
+ * database.properties is never used, so the tests cannot write to the
+ * application's data.
+ */
+public final class TestDatabase {
+    static final String URL_PROPERTY = "test.db.url";
+    
+    private static boolean configured;
+    
+    private TestDatabase() {
+    }
+    
+    /**
+     * Connects DbConnection to the test database and migrates it, or skips
+     * the calling test if there is none
+     */
+    public static synchronized void use() {
+        if (configured) {
+            return;
+        }
+        Properties props = properties();
+        try {
+            DbConnection.configure(props);
+            try (Connection con = DbConnection.getInstance().getConnection()) {
+                con.isValid(5);
+            }
+        } catch (Exception | LinkageError ex) {
+            // A missing driver or broken configuration surfaces as a RuntimeException or LinkageError
+            assumeNoException("Test database not available", ex);
+        }
+        assumeTrue("Migrating the test database failed", new SchemaMigrator().migrate());
+        configured = true;
+    }
+    
+    /**
+     * Gets the connection settings of the test database, or skips the
+     * calling test if there is none
+     * 
+     * @return Properties in the format of database.properties
+     */
+    public static Properties properties() {
+        String url = System.getProperty(URL_PROPERTY);
+        assumeTrue("No test database, set -D" + URL_PROPERTY, url != null && !url.trim().isEmpty());
+        
+        Properties appProps = DbConnection.loadProperties();
+        assumeFalse("The test database must not be the application database",
+                    appProps != null && url.trim().equals(appProps.getProperty("db.url", "").trim()));
+        
+        Properties props = new Properties();
+        props.setProperty("db.url", url.trim());
+        props.setProperty("db.user", System.getProperty("test.db.user", "postgres"));
+        props.setProperty("db.password", System.getProperty("test.db.password", ""));
+        return props;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,132 @@
+package ui.customer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import model.Customer;
+import org.junit.Test;
+
+/**
+ * Measures CustomerSearchIndex with 100k and 1M generated customers: the
+ * time to build the index, to update single customers and to answer typical
+ * search queries. For 100k customers the queries are also timed with a scan
+ * of every cell, as the old row filter did; at 1M the customer objects for
+ * that scan would not fit a default test heap next to the index.
+ */
+public class CustomerSearchIndexBenchmark {
+    private static final int SCAN_LIMIT = 100000;
+    private static final int QUERY_REPETITIONS = 20;
+    private static final int UPDATES = 10000;
+    
+    private static final String[] FIRST_NAMES = {
+        "Anna", "Ben", "Carla", "David", "Emma", "Felix", "Greta", "Hannah", "Ivan", "Julia",
+        "Karl", "Lena", "Marco", "Nina", "Oscar", "Paula", "Quentin", "Rosa", "Stefan", "Tanja"
+    };
+    private static final String[] LAST_NAMES = {
+        "Anderson", "Bauer", "Carter", "Dunn", "Evans", "Fischer", "Garcia", "Hoffmann", "Ito", "Johnson",
+        "Klein", "Lopez", "Meyer", "Nguyen", "Olsen", "Peters", "Quinn", "Richter", "Schmidt", "Taylor"
+    };
+    private static final String[] DOMAINS = { "example.com", "example.org", "mail.test" };
+    private static final String[] QUERIES = {
+        "an", "ann", "schmidt", "son", "@example.org", "cust-0012345", "555-001", "2021-03", "nomatch"
+    };
+    
+    private static final LocalDate FIRST_REGISTRATION = LocalDate.of(2015, 1, 1);
+    private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    
+    @Test
+    public void hundredThousandCustomers() {
+        run(100000);
+    }
+    
+    @Test
+    public void oneMillionCustomers() {
+        run(1000000);
+    }
+    
+    private void run(int count) {
+        String label = "CustomerSearchIndexBenchmark " + count + ": ";
+        CustomerSearchIndex index = new CustomerSearchIndex();
+        List<Customer> customers = count <= SCAN_LIMIT ? new ArrayList<>(count) : null;
+        
+        long start = System.nanoTime();
+        for (int i = 1; i <= count; i++) {
+            Customer customer = customer(i, 0);
+            index.add(customer);
+            if (customers != null) {
+                customers.add(customer);
+            }
+        }
+        System.out.println(label + "build " + millisSince(start) + " ms");
+        assertEquals(count, index.size());
+        
+        // Edits renumber the phone, so every update changes the indexed text
+        start = System.nanoTime();
+        for (int i = 1; i <= UPDATES; i++) {
+            index.add(customer(i * (count / UPDATES), 1));
+        }
+        System.out.println(String.format("%supdate %.1f us per customer", label,
+                                         (System.nanoTime() - start) / 1000.0 / UPDATES));
+        
+        for (String query : QUERIES) {
+            int matches = index.search(query).size();
+            start = System.nanoTime();
+            for (int repetition = 0; repetition < QUERY_REPETITIONS; repetition++) {
+                index.search(query);
+            }
+            String line = String.format("%ssearch %-14s %8d matches, index %8.3f ms", label, "\"" + query + "\"",
+                                        matches, (System.nanoTime() - start) / 1e6 / QUERY_REPETITIONS);
+            
+            if (customers != null) {
+                start = System.nanoTime();
+                for (int repetition = 0; repetition < QUERY_REPETITIONS; repetition++) {
+                    scan(customers, query);
+                }
+                line += String.format(", scan %8.3f ms", (System.nanoTime() - start) / 1e6 / QUERY_REPETITIONS);
+            }
+            System.out.println(line);
+        }
+    }
+    
+    /**
+     * Generates a customer; the same number and edit always give the same customer
+     */
+    private static Customer customer(int i, int edit) {
+        String firstName = FIRST_NAMES[i % FIRST_NAMES.length];
+        String lastName = LAST_NAMES[(i / FIRST_NAMES.length) % LAST_NAMES.length];
+        String email = firstName.toLowerCase() + "." + lastName.toLowerCase() + i + "@" + DOMAINS[i % DOMAINS.length];
+        String phone = String.format("555-%07d", (i + edit * 7) % 10000000);
+        return new Customer(i, String.format("CUST-%07d", i), firstName, lastName, email, phone, null,
+                            FIRST_REGISTRATION.plusDays(i % 3650));
+    }
+    
+    /**
+     * Matches a query against every cell of every customer, like the old row filter
+     * 
+     * @return The number of matching customers
+     */
+    private int scan(List<Customer> customers, String query) {
+        String text = query.trim().toLowerCase();
+        int matches = 0;
+        for (Customer customer : customers) {
+            String[] cells = {
+                customer.getCustomerId(), customer.getFullName(), customer.getEmail(), customer.getPhone(),
+                customer.getRegistrationDate().format(dateFormatter)
+            };
+            for (String cell : cells) {
+                if (cell != null && cell.toLowerCase().contains(text)) {
+                    matches++;
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+    
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1000000;
+    }
+}
\ No newline at end of file
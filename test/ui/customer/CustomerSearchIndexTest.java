@@ -0,0 +1,133 @@
+package ui.customer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import model.Customer;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests CustomerSearchIndex against the substring matching of the old
+ * row filter
+ */
+public class CustomerSearchIndexTest {
+    private CustomerSearchIndex index;
+    
+    @Before
+    public void setUp() {
+        index = new CustomerSearchIndex();
+        index.addAll(Arrays.asList(
+            customer(1, "CUST-001", "Alice", "Smith", "alice@example.com", "555-0101", LocalDate.of(2023, 1, 15)),
+            customer(2, "CUST-002", "Bob", "Jones", "bob.jones@example.org", "555-0202", LocalDate.of(2024, 6, 1)),
+            customer(3, "CUST-003", "Malice", "Brown", null, null, null)));
+    }
+    
+    @Test
+    public void matchesPrefix() {
+        assertEquals(ids(1), index.search("smi"));
+        assertEquals(ids(2), index.search("bob"));
+        assertEquals(ids(3), index.search("mal"));
+    }
+    
+    @Test
+    public void matchesSubstring() {
+        assertEquals(ids(1, 3), index.search("lice"));
+        assertEquals(ids(1), index.search("ice smi"));
+        assertEquals(ids(2), index.search("jones@example"));
+    }
+    
+    @Test
+    public void ignoresCase() {
+        assertEquals(ids(1, 3), index.search("LICE"));
+        assertEquals(ids(1), index.search("cust-001"));
+        assertEquals(ids(1), index.search("  Alice Smith  "));
+    }
+    
+    @Test
+    public void matchesEveryShownColumn() {
+        assertEquals(ids(2), index.search("555-0202"));
+        assertEquals(ids(1), index.search("2023-01-15"));
+        assertEquals(ids(1, 2, 3), index.search("cust-00"));
+    }
+    
+    @Test
+    public void matchesShortQueriesWithoutTrigrams() {
+        assertEquals(ids(2), index.search("bo"));
+        assertEquals(ids(1, 2, 3), index.search("c"));
+    }
+    
+    @Test
+    public void doesNotMatchAcrossColumns() {
+        assertEquals(ids(), index.search("smithalice"));
+        assertEquals(ids(), index.search("001alice"));
+    }
+    
+    @Test
+    public void emptyOrUnknownQueryMatchesNothing() {
+        assertEquals(ids(), index.search(""));
+        assertEquals(ids(), index.search("   "));
+        assertEquals(ids(), index.search("zzz"));
+    }
+    
+    @Test
+    public void updateReplacesOldText() {
+        index.add(customer(1, "CUST-001", "Alicia", "Keys", "alicia@example.com", "555-0101", null));
+        
+        assertEquals(3, index.size());
+        assertEquals(ids(), index.search("smith"));
+        assertEquals(ids(1), index.search("keys"));
+        assertEquals(ids(3), index.search("malice"));
+    }
+    
+    @Test
+    public void removeDropsCustomer() {
+        index.remove(1);
+        index.remove(42);
+        
+        assertEquals(2, index.size());
+        assertEquals(ids(3), index.search("lice"));
+        assertEquals(ids(), index.search("smith"));
+    }
+    
+    @Test
+    public void compactionKeepsRemainingCustomers() {
+        index.clear();
+        for (int id = 1; id <= 3000; id++) {
+            index.add(customer(id, "C-" + id, "First" + id, "Last" + id, null, null, null));
+        }
+        // Removing more than half of the slots compacts them
+        for (int id = 1; id <= 2000; id++) {
+            index.remove(id);
+        }
+        
+        assertEquals(1000, index.size());
+        assertEquals(ids(), index.search("first1999"));
+        assertEquals(ids(2001), index.search("First2001"));
+        assertEquals(ids(2500), index.search("last2500"));
+        assertTrue(index.search("first25").containsAll(ids(2500, 2501, 2599)));
+    }
+    
+    @Test
+    public void rebuildReplacesEverything() {
+        index.rebuild(Collections.singletonList(customer(7, "CUST-007", "James", "Bond", null, null, null)));
+        
+        assertEquals(1, index.size());
+        assertEquals(ids(), index.search("alice"));
+        assertEquals(ids(7), index.search("bond"));
+    }
+    
+    static Customer customer(int id, String code, String firstName, String lastName, String email, String phone,
+                             LocalDate registrationDate) {
+        return new Customer(id, code, firstName, lastName, email, phone, null, registrationDate);
+    }
+    
+    private static Set<Integer> ids(Integer... ids) {
+        return new HashSet<>(Arrays.asList(ids));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,121 @@
+package ui.order;
+
+import static org.junit.Assert.assertTrue;
+
+import dao.DbConnection;
+import dao.OrderDao;
+import dao.OrderQuery;
+import dao.TestDatabase;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+import javax.swing.event.TableModelListener;
+import model.Order;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Headless stand-in for the time to first paint of the order list: times
+ * from OrderTableModel.reload until the row count and the first page are
+ * on the event dispatch thread, ready to be painted. Seeds ORDERS orders
+ * into the test database (see TestDatabase) and deletes them afterwards.
+ */
+public class OrderListFirstPageBenchmark {
+    private static final int ORDERS = 100000;
+    private static final int RUNS = 10;
+    private static final long TIMEOUT_SECONDS = 60;
+    
+    // Prefix of every generated code, unique per run
+    private final String prefix = "BENCH-" + System.currentTimeMillis();
+    private boolean seeded;
+    
+    @Before
+    public void setUp() throws SQLException {
+        TestDatabase.use();
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            PreparedStatement pst = con.prepareStatement(
+                "INSERT INTO customers (customer_id, first_name, last_name, registration_date) " +
+                "VALUES (?, 'Benchmark', 'Customer', CURRENT_DATE)");
+            pst.setString(1, prefix);
+            pst.executeUpdate();
+            pst.close();
+            
+            pst = con.prepareStatement(
+                "INSERT INTO orders (order_id, customer_id, order_date, total_amount, status, payment_method) " +
+                "SELECT ? || '-' || n, c.id, CURRENT_DATE - (n % 365), n % 1000, ?, 'Cash' " +
+                "FROM customers c, generate_series(1, ?) n WHERE c.customer_id = ?");
+            pst.setString(1, prefix);
+            pst.setString(2, Order.STATUS_PENDING);
+            pst.setInt(3, ORDERS);
+            pst.setString(4, prefix);
+            pst.executeUpdate();
+            pst.close();
+            seeded = true;
+        }
+    }
+    
+    @After
+    public void tearDown() throws SQLException {
+        if (!seeded) {
+            return;
+        }
+        try (Connection con = DbConnection.getInstance().getConnection()) {
+            PreparedStatement pst = con.prepareStatement("DELETE FROM orders WHERE order_id LIKE ?");
+            pst.setString(1, prefix + "-%");
+            pst.executeUpdate();
+            pst.close();
+            
+            pst = con.prepareStatement("DELETE FROM customers WHERE customer_id = ?");
+            pst.setString(1, prefix);
+            pst.executeUpdate();
+            pst.close();
+        }
+    }
+    
+    @Test
+    public void timeToFirstPage() throws Exception {
+        OrderTableModel model = new OrderTableModel(new OrderDao());
+        long[] millis = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            millis[run] = firstPageMillis(model, new OrderQuery());
+        }
+        long first = millis[0];
+        Arrays.sort(millis);
+        System.out.println("OrderListFirstPageBenchmark: first load " + first + " ms, median " +
+                           millis[RUNS / 2] + " ms, max " + millis[RUNS - 1] + " ms");
+    }
+    
+    /**
+     * Reloads the model on the event dispatch thread and waits until its
+     * first row can be painted
+     * 
+     * @return The milliseconds from reload to the first page
+     */
+    private static long firstPageMillis(OrderTableModel model, OrderQuery query) throws Exception {
+        CountDownLatch painted = new CountDownLatch(1);
+        long[] start = new long[1];
+        SwingUtilities.invokeAndWait(() -> {
+            model.addTableModelListener(event -> {
+                if (!model.isCounting() && model.getRowCount() > 0 && model.getOrderAt(0) != null) {
+                    painted.countDown();
+                }
+            });
+            start[0] = System.nanoTime();
+            model.setQuery(query);
+        });
+        assertTrue("First page did not load", painted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        long elapsed = (System.nanoTime() - start[0]) / 1000000;
+        
+        SwingUtilities.invokeAndWait(() -> {
+            for (TableModelListener listener : model.getTableModelListeners()) {
+                model.removeTableModelListener(listener);
+            }
+        });
+        return elapsed;
+    }
+}
\ No newline at end of file